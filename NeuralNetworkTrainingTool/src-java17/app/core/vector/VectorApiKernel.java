@@ -0,0 +1,235 @@
+package app.core.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The kernels worked out on the widest vectors of doubles of the CPU, with
+ * the incubating Vector API of Java 17, the values left over at the end of
+ * each row worked out one at a time.<p>
+ *
+ * Values worked out one by one are the same as those of the scalar kernels,
+ * as each lane does the same operations in the same order, with no fused
+ * multiply and add. The sums of the dot products are added a lane at a time
+ * and then across lanes, so may differ in the last bits, as may the
+ * hyperbolic tangent.
+ *
+ * @author Vasco
+ *
+ */
+public class VectorApiKernel extends ScalarVectorKernel {
+
+    /**
+     * The widest vectors of doubles of the CPU.
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * The user friendly name.
+     */
+    private static final String KERNEL_NAME = "Vector API " + SPECIES.length() + " doubles";
+
+    /**
+     * Constructing the kernels, refused if the CPU has no vectors of more
+     * than one double.
+     */
+    public VectorApiKernel() {
+        if ( SPECIES.length() < 2 ) throw new IllegalStateException("No vectors of more than one double.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return KERNEL_NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void multiply(double[] values, int width, int firstRow, int lastRow, double[] weights, int weightOffset,
+            int firstNeuron, int lastNeuron, int neurons, double[] target) {
+        int bound = SPECIES.loopBound(width);
+        int row = firstRow;
+        // Four rows at a time, each vector of weights read once for all four.
+        for ( ; row + 4 <= lastRow; row += 4 ) {
+            int rowStart = row * width;
+            for ( int neuron = firstNeuron; neuron < lastNeuron; neuron++ ) {
+                int weight = weightOffset + neuron * width;
+                DoubleVector sum0 = DoubleVector.zero(SPECIES), sum1 = sum0, sum2 = sum0, sum3 = sum0;
+                int column = 0;
+                for ( ; column < bound; column += SPECIES.length() ) {
+                    DoubleVector value = DoubleVector.fromArray(SPECIES, weights, weight + column);
+                    sum0 = sum0.add(DoubleVector.fromArray(SPECIES, values, rowStart + column).mul(value));
+                    sum1 = sum1.add(DoubleVector.fromArray(SPECIES, values, rowStart + width + column).mul(value));
+                    sum2 = sum2.add(DoubleVector.fromArray(SPECIES, values, rowStart + 2 * width + column).mul(value));
+                    sum3 = sum3.add(DoubleVector.fromArray(SPECIES, values, rowStart + 3 * width + column).mul(value));
+                }
+                double total0 = sum0.reduceLanes(VectorOperators.ADD), total1 = sum1.reduceLanes(VectorOperators.ADD);
+                double total2 = sum2.reduceLanes(VectorOperators.ADD), total3 = sum3.reduceLanes(VectorOperators.ADD);
+                for ( ; column < width; column++ ) {
+                    double value = weights[weight + column];
+                    total0 += values[rowStart + column] * value;
+                    total1 += values[rowStart + width + column] * value;
+                    total2 += values[rowStart + 2 * width + column] * value;
+                    total3 += values[rowStart + 3 * width + column] * value;
+                }
+                target[row * neurons + neuron] = total0;
+                target[( row + 1 ) * neurons + neuron] = total1;
+                target[( row + 2 ) * neurons + neuron] = total2;
+                target[( row + 3 ) * neurons + neuron] = total3;
+            }
+        }
+        for ( ; row < lastRow; row++ ) {
+            int rowStart = row * width;
+            for ( int neuron = firstNeuron; neuron < lastNeuron; neuron++ ) {
+                int weight = weightOffset + neuron * width;
+                DoubleVector sum = DoubleVector.zero(SPECIES);
+                int column = 0;
+                for ( ; column < bound; column += SPECIES.length() ) {
+                    sum = sum.add(DoubleVector.fromArray(SPECIES, values, rowStart + column)
+                            .mul(DoubleVector.fromArray(SPECIES, weights, weight + column)));
+                }
+                double total = sum.reduceLanes(VectorOperators.ADD);
+                for ( ; column < width; column++ ) total += values[rowStart + column] * weights[weight + column];
+                target[row * neurons + neuron] = total;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addGradients(double[] values, int width, int firstRow, int lastRow, double[] deltas, int neurons,
+            double[] gradients, int weightOffset) {
+        int bound = SPECIES.loopBound(width);
+        for ( int neuron = 0; neuron < neurons; neuron++ ) {
+            int weight = weightOffset + neuron * width;
+            int row = firstRow;
+            for ( ; row + 4 <= lastRow; row += 4 ) {
+                double delta0 = deltas[row * neurons + neuron];
+                double delta1 = deltas[( row + 1 ) * neurons + neuron];
+                double delta2 = deltas[( row + 2 ) * neurons + neuron];
+                double delta3 = deltas[( row + 3 ) * neurons + neuron];
+                int rowStart = row * width;
+                int column = 0;
+                for ( ; column < bound; column += SPECIES.length() ) {
+                    DoubleVector gradient = DoubleVector.fromArray(SPECIES, gradients, weight + column);
+                    gradient = gradient.add(DoubleVector.fromArray(SPECIES, values, rowStart + column).mul(delta0));
+                    gradient = gradient.add(DoubleVector.fromArray(SPECIES, values, rowStart + width + column).mul(delta1));
+                    gradient = gradient.add(DoubleVector.fromArray(SPECIES, values, rowStart + 2 * width + column).mul(delta2));
+                    gradient = gradient.add(DoubleVector.fromArray(SPECIES, values, rowStart + 3 * width + column).mul(delta3));
+                    gradient.intoArray(gradients, weight + column);
+                }
+                for ( ; column < width; column++ ) {
+                    double gradient = gradients[weight + column];
+                    gradient += values[rowStart + column] * delta0;
+                    gradient += values[rowStart + width + column] * delta1;
+                    gradient += values[rowStart + 2 * width + column] * delta2;
+                    gradient += values[rowStart + 3 * width + column] * delta3;
+                    gradients[weight + column] = gradient;
+                }
+            }
+            for ( ; row < lastRow; row++ ) {
+                addScaled(deltas[row * neurons + neuron], values, row * width, gradients, weight, width);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addScaled(double factor, double[] values, int valuesOffset, double[] target, int targetOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int index = 0;
+        for ( ; index < bound; index += SPECIES.length() ) {
+            DoubleVector.fromArray(SPECIES, target, targetOffset + index)
+                    .add(DoubleVector.fromArray(SPECIES, values, valuesOffset + index).mul(factor))
+                    .intoArray(target, targetOffset + index);
+        }
+        for ( ; index < length; index++ ) target[targetOffset + index] += values[valuesOffset + index] * factor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void normalise(double[] values, int count, double offset, double range) {
+        int bound = SPECIES.loopBound(count);
+        int index = 0;
+        for ( ; index < bound; index += SPECIES.length() ) {
+            DoubleVector.fromArray(SPECIES, values, index).sub(offset).div(range).intoArray(values, index);
+        }
+        for ( ; index < count; index++ ) values[index] = ( values[index] - offset ) / range;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deNormalise(double[] values, int count, double offset, double range) {
+        int bound = SPECIES.loopBound(count);
+        int index = 0;
+        for ( ; index < bound; index += SPECIES.length() ) {
+            DoubleVector.fromArray(SPECIES, values, index).mul(range).add(offset).intoArray(values, index);
+        }
+        for ( ; index < count; index++ ) values[index] = offset + values[index] * range;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int firstOutside(double[] values, int count, double low, double high) {
+        int bound = SPECIES.loopBound(count);
+        int index = 0;
+        for ( ; index < bound; index += SPECIES.length() ) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, values, index);
+            // NaN compares false either way, so is outside.
+            VectorMask<Double> outside = value.compare(VectorOperators.GE, low)
+                    .and(value.compare(VectorOperators.LE, high)).not();
+            if ( outside.anyTrue() ) return index + outside.firstTrue();
+        }
+        for ( ; index < count; index++ ) {
+            if ( ! ( values[index] >= low & values[index] <= high ) ) return index;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tanh(double[] values, int offset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int index = 0;
+        for ( ; index < bound; index += SPECIES.length() ) {
+            DoubleVector.fromArray(SPECIES, values, offset + index).lanewise(VectorOperators.TANH)
+                    .intoArray(values, offset + index);
+        }
+        for ( ; index < length; index++ ) values[offset + index] = Math.tanh(values[offset + index]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void elliottSymmetric(double[] values, int offset, int length, double slope) {
+        int bound = SPECIES.loopBound(length);
+        int index = 0;
+        for ( ; index < bound; index += SPECIES.length() ) {
+            DoubleVector scaled = DoubleVector.fromArray(SPECIES, values, offset + index).mul(slope);
+            scaled.div(scaled.abs().add(1.0)).intoArray(values, offset + index);
+        }
+        for ( ; index < length; index++ ) {
+            double scaled = values[offset + index] * slope;
+            values[offset + index] = scaled / ( 1.0 + Math.abs(scaled) );
+        }
+    }
+}
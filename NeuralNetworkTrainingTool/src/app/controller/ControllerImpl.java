@@ -23,6 +23,7 @@ import app.core.dataSet.FileDataSet;
 import app.core.dataSet.MathOperatorCore;
 import app.core.dataSet.MathOperatorFactory;
 import app.core.dataSet.MathOperatorKey;
+import app.core.dataSet.MultiColumnOperatorCore;
 import app.core.dataSet.VectorMap;
 import app.core.neuralNetwork.NeuralNetworkPatternCore;
 import app.core.neuralNetwork.NeuralNetworkPatternFactory;
@@ -118,6 +119,8 @@ public class ControllerImpl implements Controller {
         neuralNetworkConfig = new NeuralNetworkConfigImpl();
         operatorsList = new LinkedList<>();
         for( MathOperatorKey operator : MathOperatorKey.values() ) {
+        	// Those deriving a column from others have no other columns to pick from.
+        	if ( MathOperatorFactory.getMathOperation(operator) instanceof MultiColumnOperatorCore ) continue;
         	operatorsList.add(MathOperatorFactory.getName(operator));
         }
         mappingOutputFunction = new LinkedList<>();
@@ -0,0 +1,127 @@
+package app.core.dataSet;
+
+import java.util.Arrays;
+
+/**
+ * Keeps all rows in memory as one double array per row.
+ *
+ * @author Vasco
+ *
+ */
+public class ArrayDataStorage implements DataStorage {
+
+    /**
+     * The rows.
+     */
+    private final double[][] rows;
+
+    /**
+     * Constructing the storage with new rows, all values zero.
+     *
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     */
+    public ArrayDataStorage(int numberOfRows, int numberOfColumns) {
+        this(new double[numberOfRows][numberOfColumns]);
+    }
+
+    /**
+     * Constructing the storage over the given rows, not copied.
+     *
+     * @param rows double[][]
+     */
+    public ArrayDataStorage(double[][] rows) {
+        if ( rows == null ) throw new IllegalArgumentException("Rows cannot be null.");
+        this.rows = rows;
+    }
+
+    /**
+     * The rows this storage is backed by.
+     *
+     * @return double[][]
+     */
+    public double[][] getRows() {
+        return rows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfRows() {
+        return rows.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfColumns() {
+        if ( rows.length == 0 ) return 0;
+        return rows[0].length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getRow(int row, int fromColumn, int toColumn) {
+        return Arrays.copyOfRange(rows[row], fromColumn, toColumn);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, double[] target) {
+        System.arraycopy(rows[row], 0, target, 0, rows[row].length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, int fromColumn, int toColumn, double[] target) {
+        System.arraycopy(rows[row], fromColumn, target, 0, toColumn - fromColumn);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeRow(int row, double[] values) {
+        System.arraycopy(values, 0, rows[row], 0, rows[row].length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readColumn(int column, int fromRow, int count, double[] target) {
+        for ( int index = 0; index < count; index++ ) target[index] = rows[fromRow + index][column];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeColumn(int column, int fromRow, int count, double[] values) {
+        for ( int index = 0; index < count; index++ ) rows[fromRow + index][column] = values[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StorageLayout getLayout() {
+        return StorageLayout.ROW_ARRAYS;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        // Nothing to release, left to the garbage collector.
+    }
+}
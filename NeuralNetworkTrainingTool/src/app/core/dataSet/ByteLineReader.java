@@ -0,0 +1,175 @@
+package app.core.dataSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Reads lines from a stream as ranges of bytes in an internal buffer,
+ * with no String created per line. Lines end at every new line, with any
+ * carriage return before it dropped.<p>
+ *
+ * The bytes of the current line are only valid until the next call to
+ * readLine().
+ *
+ * @author Vasco
+ *
+ */
+public class ByteLineReader implements Closeable {
+
+    /**
+     * The default buffer size in bytes.
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The stream to read from.
+     */
+    private final InputStream inputStream;
+
+    /**
+     * The buffer holding the current line and any bytes read after it.
+     */
+    private byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+
+    /**
+     * The index of the first byte of the current line.
+     */
+    private int lineStart = 0;
+
+    /**
+     * The index after the last byte of the current line.
+     */
+    private int lineEnd = 0;
+
+    /**
+     * The index where the next line starts.
+     */
+    private int nextLineStart = 0;
+
+    /**
+     * The index after the last byte read into the buffer.
+     */
+    private int bufferEnd = 0;
+
+    /**
+     * Set once the end of the stream was reached.
+     */
+    private boolean endOfStream = false;
+
+    /**
+     * Constructing the reader over the given stream.
+     *
+     * @param inputStream InputStream
+     */
+    public ByteLineReader(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Moves to the next line.
+     *
+     * @return false if no other line is left.
+     * @throws IOException
+     */
+    public boolean readLine() throws IOException {
+        int scan = nextLineStart;
+        while ( true ) {
+            for ( ; scan < bufferEnd; scan++ ) {
+                if ( buffer[scan] == '\n' ) {
+                    setLine(nextLineStart, scan);
+                    nextLineStart = scan + 1;
+                    return true;
+                }
+            }
+            if ( endOfStream ) {
+                // Last line with no end of line.
+                if ( nextLineStart == bufferEnd ) return false;
+                setLine(nextLineStart, bufferEnd);
+                nextLineStart = bufferEnd;
+                return true;
+            }
+            scan -= fill();
+        }
+    }
+
+    /**
+     * The buffer holding the current line.
+     *
+     * @return byte[]
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * The index of the first byte of the current line in the buffer.
+     *
+     * @return int
+     */
+    public int getLineStart() {
+        return lineStart;
+    }
+
+    /**
+     * The index after the last byte of the current line in the buffer.
+     *
+     * @return int
+     */
+    public int getLineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * The current line as a String.
+     *
+     * @return String
+     */
+    public String getLine() {
+        return new String(buffer, lineStart, lineEnd - lineStart, Charset.defaultCharset());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    /**
+     * Sets the current line, dropping any carriage return at its end.
+     *
+     * @param start int
+     * @param end int
+     */
+    private void setLine(int start, int end) {
+        if ( end > start && buffer[end - 1] == '\r' ) end--;
+        lineStart = start;
+        lineEnd = end;
+    }
+
+    /**
+     * Moves any bytes not yet returned to the start of the buffer, growing
+     * it if full, and reads more bytes after these.
+     *
+     * @return int the number of positions the bytes moved back by.
+     * @throws IOException
+     */
+    private int fill() throws IOException {
+        int moved = nextLineStart;
+        if ( moved > 0 ) {
+            System.arraycopy(buffer, moved, buffer, 0, bufferEnd - moved);
+            bufferEnd -= moved;
+            nextLineStart = 0;
+        }
+        if ( bufferEnd == buffer.length ) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+        int read = inputStream.read(buffer, bufferEnd, buffer.length - bufferEnd);
+        if ( read < 0 ) endOfStream = true;
+        else bufferEnd += read;
+        return moved;
+    }
+}
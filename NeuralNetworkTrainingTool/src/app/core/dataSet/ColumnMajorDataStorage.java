@@ -0,0 +1,133 @@
+package app.core.dataSet;
+
+/**
+ * Keeps all rows in memory as one array per column, so going through each
+ * column in turn, as when collecting per column statistics or normalising,
+ * reads memory sequentially.
+ *
+ * @author Vasco
+ *
+ */
+public class ColumnMajorDataStorage implements DataStorage {
+
+    /**
+     * The number of rows.
+     */
+    private final int numberOfRows;
+
+    /**
+     * The values of each column.
+     */
+    private final double[][] columns;
+
+    /**
+     * Constructing the storage with new rows, all values zero.
+     *
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     */
+    public ColumnMajorDataStorage(int numberOfRows, int numberOfColumns) {
+        if ( numberOfRows < 0 || numberOfColumns < 0 ) throw new IllegalArgumentException("Cannot have negative sizes.");
+        this.numberOfRows = numberOfRows;
+        this.columns = new double[numberOfColumns][numberOfRows];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfColumns() {
+        return columns.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getRow(int row, int fromColumn, int toColumn) {
+        if ( fromColumn > toColumn ) throw new IllegalArgumentException(fromColumn+" > "+toColumn);
+        if ( fromColumn < 0 || toColumn > columns.length ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        checkRow(row);
+        double[] values = new double[toColumn - fromColumn];
+        for ( int column = fromColumn; column < toColumn; column++ ) values[column - fromColumn] = columns[column][row];
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, double[] target) {
+        checkRow(row);
+        for ( int column = 0; column < columns.length; column++ ) target[column] = columns[column][row];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, int fromColumn, int toColumn, double[] target) {
+        if ( fromColumn > toColumn ) throw new IllegalArgumentException(fromColumn+" > "+toColumn);
+        if ( fromColumn < 0 || toColumn > columns.length ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        checkRow(row);
+        for ( int column = fromColumn; column < toColumn; column++ ) target[column - fromColumn] = columns[column][row];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeRow(int row, double[] values) {
+        checkRow(row);
+        for ( int column = 0; column < columns.length; column++ ) columns[column][row] = values[column];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readColumn(int column, int fromRow, int count, double[] target) {
+        System.arraycopy(columns[column], fromRow, target, 0, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeColumn(int column, int fromRow, int count, double[] values) {
+        System.arraycopy(values, 0, columns[column], fromRow, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StorageLayout getLayout() {
+        return StorageLayout.COLUMN_MAJOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        // Nothing to release, left to the garbage collector.
+    }
+
+    /**
+     * Ensures the row is in range.
+     *
+     * @param row int
+     */
+    private void checkRow(int row) {
+        if ( row < 0 || row >= numberOfRows ) throw new ArrayIndexOutOfBoundsException(row);
+    }
+}
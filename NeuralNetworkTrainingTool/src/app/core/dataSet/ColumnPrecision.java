@@ -0,0 +1,55 @@
+package app.core.dataSet;
+
+/**
+ * List of all the known precisions a DataSet can keep the values of each
+ * column in. All values are widened back to double when read.
+ *
+ * @author Vasco
+ *
+ */
+public enum ColumnPrecision {
+    /**
+     * 64 bit double, values kept exactly.
+     */
+    DOUBLE(64),
+
+    /**
+     * 32 bit float, values rounded to the nearest float when stored.
+     */
+    FLOAT(32),
+
+    /**
+     * 16 bit fixed point over the normalised range [0, 1], in steps of
+     * 1/65535. Kept as FLOAT until the data set is normalised.
+     */
+    FIXED16(16),
+
+    /**
+     * A single bit, for values that are always either 0 or 1, such as
+     * those of BIN mapped columns.
+     */
+    BIT(1);
+
+    /**
+     * The number of bits each value takes.
+     */
+    private final int bits;
+
+    /**
+     * Constructing the precision with its size.
+     *
+     * @param bits int
+     */
+    private ColumnPrecision(int bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * The number of bits each value takes.
+     *
+     * @return int
+     */
+    public int getBits() {
+        return bits;
+    }
+}
@@ -0,0 +1,388 @@
+package app.core.dataSet;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The count, min, max, mean, variance and number of NaN values of each
+ * column of a number of rows, gathered one row at a time, and if asked a
+ * QuantileSketch of each column. Statistics gathered apart, as by different
+ * threads, can be merged into one.<p>
+ *
+ * Means and variances are kept with Welford's method, and merged with the
+ * method of Chan et al., which stay accurate over any number of rows. NaN
+ * values are counted apart and left out of all other statistics. Not to be
+ * shared by threads while gathering, but the statistics of whole storages
+ * can be gathered in parallel.
+ *
+ * @author Vasco
+ *
+ */
+public class ColumnStatistics {
+
+    /**
+     * The least number of rows gathered by one task.
+     */
+    public static final int ROWS_PER_TASK = 8192;
+
+    /**
+     * The number of rows read at a time by each task.
+     */
+    private static final int BLOCK_ROWS = 1024;
+
+    /**
+     * The number of rows gathered.
+     */
+    private long count = 0;
+
+    /**
+     * The number of NaN values of each column.
+     */
+    private final long[] nanCounts;
+
+    /**
+     * The min value of each column.
+     */
+    private final double[] minValues;
+
+    /**
+     * The max value of each column.
+     */
+    private final double[] maxValues;
+
+    /**
+     * The mean of each column.
+     */
+    private final double[] means;
+
+    /**
+     * The sum of squared differences from the mean of each column.
+     */
+    private final double[] squaredDifferences;
+
+    /**
+     * The sketch of the values of each column, null if not gathered.
+     */
+    private final QuantileSketch[] sketches;
+
+    /**
+     * Constructing the statistics of no rows yet, with no quantiles.
+     *
+     * @param numberOfColumns int
+     */
+    public ColumnStatistics(int numberOfColumns) {
+        this(numberOfColumns, false);
+    }
+
+    /**
+     * Constructing the statistics of no rows yet.
+     *
+     * @param numberOfColumns int
+     * @param withQuantiles boolean to also sketch the quantiles of each column
+     */
+    public ColumnStatistics(int numberOfColumns, boolean withQuantiles) {
+        nanCounts = new long[numberOfColumns];
+        minValues = new double[numberOfColumns];
+        maxValues = new double[numberOfColumns];
+        means = new double[numberOfColumns];
+        squaredDifferences = new double[numberOfColumns];
+        Arrays.fill(minValues, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxValues, Double.NEGATIVE_INFINITY);
+        if ( withQuantiles ) {
+            sketches = new QuantileSketch[numberOfColumns];
+            for ( int column = 0; column < numberOfColumns; column++ ) sketches[column] = new QuantileSketch();
+        }
+        else {
+            sketches = null;
+        }
+    }
+
+    /**
+     * The statistics of all rows of the given storages, with no quantiles,
+     * gathered in parallel on the fork-join pool, a range of rows per task.
+     *
+     * @param numberOfColumns int
+     * @param storages List of DataStorage of the given number of columns
+     * @return ColumnStatistics
+     */
+    public static ColumnStatistics gather(int numberOfColumns, List<? extends DataStorage> storages) {
+        return gather(numberOfColumns, storages, false);
+    }
+
+    /**
+     * The statistics of all rows of the given storages, gathered in parallel
+     * on the fork-join pool, a range of rows per task.
+     *
+     * @param numberOfColumns int
+     * @param storages List of DataStorage of the given number of columns
+     * @param withQuantiles boolean to also sketch the quantiles of each column
+     * @return ColumnStatistics
+     */
+    public static ColumnStatistics gather(int numberOfColumns, List<? extends DataStorage> storages,
+            boolean withQuantiles) {
+        List<GatherTask> tasks = new LinkedList<>();
+        for ( DataStorage storage : storages ) {
+            if ( storage.getNumberOfColumns() != numberOfColumns )
+                throw new IllegalArgumentException("Expected "+numberOfColumns+" columns.");
+            if ( storage.getNumberOfRows() > 0 ) tasks.add(new GatherTask(storage, 0, storage.getNumberOfRows(), withQuantiles));
+        }
+        // All storages are gathered at once.
+        for ( GatherTask task : tasks ) ForkJoinPool.commonPool().execute(task);
+        ColumnStatistics statistics = new ColumnStatistics(numberOfColumns, withQuantiles);
+        for ( GatherTask task : tasks ) statistics.merge(task.join());
+        return statistics;
+    }
+
+    /**
+     * Adds one row to the statistics.
+     *
+     * @param row double[] at least as long as the number of columns
+     */
+    public void add(double[] row) {
+        count++;
+        for ( int column = 0; column < means.length; column++ ) {
+            double value = row[column];
+            if ( Double.isNaN(value) ) {
+                nanCounts[column]++;
+                continue;
+            }
+            if ( minValues[column] > value ) minValues[column] = value;
+            if ( maxValues[column] < value ) maxValues[column] = value;
+            if ( sketches != null ) sketches[column].add(value);
+            double delta = value - means[column];
+            means[column] += delta / ( count - nanCounts[column] );
+            squaredDifferences[column] += delta * ( value - means[column] );
+        }
+    }
+
+    /**
+     * Adds all rows of the other statistics to these.
+     *
+     * @param other ColumnStatistics of the same number of columns
+     */
+    public void merge(ColumnStatistics other) {
+        if ( other.means.length != means.length ) throw new IllegalArgumentException("Expected "+means.length+" columns.");
+        if ( other.count == 0 ) return;
+        if ( sketches != null && other.sketches == null ) throw new IllegalArgumentException("Expected quantiles.");
+        for ( int column = 0; column < means.length; column++ ) {
+            if ( minValues[column] > other.minValues[column] ) minValues[column] = other.minValues[column];
+            if ( maxValues[column] < other.maxValues[column] ) maxValues[column] = other.maxValues[column];
+            merge(column, other.count - other.nanCounts[column], other.means[column], other.squaredDifferences[column]);
+            nanCounts[column] += other.nanCounts[column];
+            if ( sketches != null ) sketches[column].merge(other.sketches[column]);
+        }
+        count += other.count;
+    }
+
+    /**
+     * Adds a block of rows, given column by column, to the statistics. The
+     * mean and variance of each column of the block are found first and
+     * then merged, so no division is needed per value.
+     *
+     * @param columns double[][] the values of each column of the block
+     * @param rows int the number of rows of the block
+     */
+    private void addBlock(double[][] columns, int rows) {
+        for ( int column = 0; column < means.length; column++ ) {
+            double[] values = columns[column];
+            double min = minValues[column];
+            double max = maxValues[column];
+            double sum = 0.0;
+            int nans = 0;
+            for ( int index = 0; index < rows; index++ ) {
+                double value = values[index];
+                if ( Double.isNaN(value) ) {
+                    nans++;
+                    continue;
+                }
+                if ( min > value ) min = value;
+                if ( max < value ) max = value;
+                sum += value;
+                if ( sketches != null ) sketches[column].add(value);
+            }
+            minValues[column] = min;
+            maxValues[column] = max;
+            int valid = rows - nans;
+            if ( valid == 0 ) {
+                nanCounts[column] += nans;
+                continue;
+            }
+            double mean = sum / valid;
+            double squares = 0.0;
+            for ( int index = 0; index < rows; index++ ) {
+                double delta = values[index] - mean;
+                if ( ! Double.isNaN(delta) ) squares += delta * delta;
+            }
+            merge(column, valid, mean, squares);
+            nanCounts[column] += nans;
+        }
+        count += rows;
+    }
+
+    /**
+     * Merges the mean and squared differences of other values into those of
+     * the column, before its count or NaN count are updated.
+     *
+     * @param column int
+     * @param otherValues long the number of other values, NaN left out
+     * @param otherMean double
+     * @param otherSquares double
+     */
+    private void merge(int column, long otherValues, double otherMean, double otherSquares) {
+        if ( otherValues == 0 ) return;
+        long values = count - nanCounts[column];
+        long total = values + otherValues;
+        double delta = otherMean - means[column];
+        means[column] += delta * otherValues / total;
+        squaredDifferences[column] += otherSquares + delta * delta * ( (double) values * otherValues / total );
+    }
+
+    /**
+     * The number of rows gathered.
+     *
+     * @return long
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The number of columns.
+     *
+     * @return int
+     */
+    public int getNumberOfColumns() {
+        return means.length;
+    }
+
+    /**
+     * The number of NaN values of each column.
+     *
+     * @return long[]
+     */
+    public long[] getNaNCounts() {
+        return nanCounts.clone();
+    }
+
+    /**
+     * Checks if the quantiles of each column were sketched.
+     *
+     * @return boolean
+     */
+    public boolean hasQuantiles() {
+        return sketches != null;
+    }
+
+    /**
+     * The value of each column with the given fraction of its values below,
+     * within the error of the sketch. NaN values are left out.
+     *
+     * @param quantile double between 0 and 1
+     * @return double[] NaN for columns with no values
+     */
+    public double[] getQuantiles(double quantile) {
+        if ( sketches == null ) throw new IllegalStateException("Quantiles not gathered.");
+        double[] quantiles = new double[sketches.length];
+        for ( int column = 0; column < sketches.length; column++ ) quantiles[column] = sketches[column].getQuantile(quantile);
+        return quantiles;
+    }
+
+    /**
+     * The min value of each column, positive infinity if no rows.
+     *
+     * @return double[]
+     */
+    public double[] getMinValues() {
+        return minValues.clone();
+    }
+
+    /**
+     * The max value of each column, negative infinity if no rows.
+     *
+     * @return double[]
+     */
+    public double[] getMaxValues() {
+        return maxValues.clone();
+    }
+
+    /**
+     * The mean of each column.
+     *
+     * @return double[]
+     */
+    public double[] getMeans() {
+        return means.clone();
+    }
+
+    /**
+     * The population variance of each column.
+     *
+     * @return double[]
+     */
+    public double[] getVariances() {
+        double[] variances = new double[means.length];
+        for ( int column = 0; column < means.length; column++ ) {
+            long values = count - nanCounts[column];
+            if ( values > 0 ) variances[column] = squaredDifferences[column] / values;
+        }
+        return variances;
+    }
+
+    /**
+     * Gathering the statistics of a range of rows, splitting it in half
+     * until small enough for one task. The rows are read a block at a time,
+     * column by column for column major storages.
+     */
+    private static class GatherTask extends RecursiveTask<ColumnStatistics> {
+        private static final long serialVersionUID = 1L;
+        private final DataStorage storage;
+        private final int fromRow;
+        private final int toRow;
+        private final boolean withQuantiles;
+
+        private GatherTask(DataStorage storage, int fromRow, int toRow, boolean withQuantiles) {
+            this.storage = storage;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.withQuantiles = withQuantiles;
+        }
+
+        @Override
+        protected ColumnStatistics compute() {
+            if ( toRow - fromRow > ROWS_PER_TASK ) {
+                int middle = ( fromRow + toRow ) >>> 1;
+                GatherTask first = new GatherTask(storage, fromRow, middle, withQuantiles);
+                GatherTask second = new GatherTask(storage, middle, toRow, withQuantiles);
+                ForkJoinTask.invokeAll(first, second);
+                ColumnStatistics statistics = first.join();
+                statistics.merge(second.join());
+                return statistics;
+            }
+            int numberOfColumns = storage.getNumberOfColumns();
+            ColumnStatistics statistics = new ColumnStatistics(numberOfColumns, withQuantiles);
+            double[][] columns = new double[numberOfColumns][Math.min(BLOCK_ROWS, toRow - fromRow)];
+            double[] row = new double[numberOfColumns];
+            boolean columnMajor = storage.getLayout() == StorageLayout.COLUMN_MAJOR;
+            for ( int blockRow = fromRow; blockRow < toRow; blockRow += BLOCK_ROWS ) {
+                int rows = Math.min(BLOCK_ROWS, toRow - blockRow);
+                if ( columnMajor ) {
+                    for ( int column = 0; column < numberOfColumns; column++ ) {
+                        storage.readColumn(column, blockRow, rows, columns[column]);
+                    }
+                }
+                else {
+                    for ( int index = 0; index < rows; index++ ) {
+                        storage.readRow(blockRow + index, row);
+                        for ( int column = 0; column < numberOfColumns; column++ ) columns[column][index] = row[column];
+                    }
+                }
+                statistics.addBlock(columns, rows);
+            }
+            return statistics;
+        }
+    }
+}
@@ -1,10 +1,5 @@
 package app.core.dataSet;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -21,16 +16,6 @@ import java.util.List;
  */
 public abstract class DataSet {
     
-    /**
-     * The File where normalised values are stored.
-     */
-    private final String NORMALISED_MIN_VALUES_FILE = "NormalisedMinValues.dat";
-
-    /**
-     * The File where normalised values are stored.
-     */
-    private final String NORMALISED_MAX_VALUES_FILE = "NormalisedMaxValues.dat";
-
     /**
      * The complete training data set source loaded and transformed for both 
      * supervised and un-supervised training.
@@ -45,13 +30,15 @@ public abstract class DataSet {
 
     /**
      * The minimum values found per column across the training
-     * and the testing sets.
+     * and the testing sets, or the values normalised into 0 in
+     * other normalisation modes.
      */
     protected double[] minValues;
     
     /**
      * The maximum values found per column across the training
-     * and the testing sets.
+     * and the testing sets, or the values normalised into 1 in
+     * other normalisation modes.
      */
     protected double[] maxValues;
     
@@ -75,6 +62,69 @@ public abstract class DataSet {
      */
     protected List<VectorMap> inputColumnMap;
 
+    /**
+     * The training rows storage, used while trainingDataSet is not set.
+     */
+    private DataStorage trainingStorage;
+
+    /**
+     * The testing rows storage, used while testingDataSet is not set.
+     */
+    private DataStorage testingStorage;
+
+    /**
+     * The storage last wrapped around trainingDataSet.
+     */
+    private ArrayDataStorage trainingArrayStorage;
+
+    /**
+     * The storage last wrapped around testingDataSet.
+     */
+    private ArrayDataStorage testingArrayStorage;
+
+    /**
+     * The normalised view of the training rows stored, null if read as
+     * stored.
+     */
+    private NormalisedDataStorage trainingView;
+
+    /**
+     * The normalised view of the testing rows stored, null if read as
+     * stored.
+     */
+    private NormalisedDataStorage testingView;
+
+    /**
+     * The precision of each column, or null to keep all as double.
+     */
+    private ColumnPrecision[] columnPrecisions;
+
+    /**
+     * The layout to keep rows in memory with.
+     */
+    private StorageLayout storageLayout = StorageLayout.ROW_ARRAYS;
+
+    /**
+     * The way to normalise the input columns.
+     */
+    private NormalisationMode normalisationMode = NormalisationMode.MIN_MAX;
+
+    /**
+     * The store of the values normalised with, shared by all runs in the
+     * same working directory.
+     */
+    private NormalisationStore normalisationStore = new NormalisationStore(NormalisationStore.DEFAULT_DIRECTORY);
+
+    /**
+     * The statistics of each column of the data as loaded, null if unknown.
+     */
+    private ColumnStatistics columnStatistics;
+
+    /**
+     * Set while the data is still as loaded, so the statistics are of it.
+     */
+    private boolean statisticsOfData = false;
+
     /**
      * Loads the source into memory, erasing previous loads and taking any extra
      * changes made to the column maps, header rows, etc. Both sets will be updated
@@ -98,14 +148,11 @@ public abstract class DataSet {
      * @return double[]
      */
     public double[] getTrainingOutputRow(int index) { 
-        if ( trainingDataSet == null ) throw new IllegalStateException("Data not yet loaded.");
+        DataStorage storage = getTrainingStorage();
+        if ( storage == null ) throw new IllegalStateException("Data not yet loaded.");
         if ( outputColumnMap == null ) throw new IllegalStateException("No output map defined.");
 
-        return Arrays.copyOfRange(
-                trainingDataSet[index], 
-                0,
-                getNumberOfOutputColumns() 
-        );
+        return storage.getRow(index, 0, getNumberOfOutputColumns());
     };
 
     /**
@@ -133,17 +180,14 @@ public abstract class DataSet {
      * @return double[]
      */
     public double[] getTrainingInputRow(int index) { 
-        if ( trainingDataSet == null ) throw new IllegalStateException("Data not yet loaded.");
+        DataStorage storage = getTrainingStorage();
+        if ( storage == null ) throw new IllegalStateException("Data not yet loaded.");
         if ( inputColumnMap == null ) throw new IllegalStateException("No input map defined.");
 
         int inputStartingIndex = 0;
         if ( outputColumnMap != null ) inputStartingIndex = outputColumnMap.size();
         
-        return Arrays.copyOfRange(
-                trainingDataSet[index], 
-                inputStartingIndex,
-                trainingDataSet[index].length
-        );
+        return storage.getRow(index, inputStartingIndex, storage.getNumberOfColumns());
     };
     
     /**
@@ -157,14 +201,11 @@ public abstract class DataSet {
      * @return double[]
      */
     public double[] getTestingOutputRow(int index) { 
-        if ( testingDataSet == null ) throw new IllegalStateException("Data not yet loaded.");
+        DataStorage storage = getTestingStorage();
+        if ( storage == null ) throw new IllegalStateException("Data not yet loaded.");
         if ( outputColumnMap == null ) throw new IllegalStateException("No output map defined.");
 
-        return Arrays.copyOfRange(
-                testingDataSet[index], 
-                0,
-                getNumberOfOutputColumns() 
-        );
+        return storage.getRow(index, 0, getNumberOfOutputColumns());
     };
 
     /**
@@ -190,19 +231,91 @@ public abstract class DataSet {
      * @return double[]
      */
     public double[] getTestingInputRow(int index) { 
-        if ( testingDataSet == null ) throw new IllegalStateException("Data not yet loaded.");
+        DataStorage storage = getTestingStorage();
+        if ( storage == null ) throw new IllegalStateException("Data not yet loaded.");
         if ( inputColumnMap == null ) throw new IllegalStateException("input map not defined.");
 
         int inputStartingIndex = 0;
         if ( outputColumnMap != null ) inputStartingIndex = outputColumnMap.size();
         
-        return Arrays.copyOfRange(
-                testingDataSet[index], 
-                inputStartingIndex, 
-                testingDataSet[index].length
-        );
+        return storage.getRow(index, inputStartingIndex, storage.getNumberOfColumns());
     };
 
+    /**
+     * Copies the training data set output row into the start of the given
+     * array, as getTrainingOutputRow would return, with no array created.
+     * 
+     * @param index int
+     * @param target double[] at least as long as the number of output columns
+     */
+    public void readTrainingOutputRow(int index, double[] target) {
+        readOutputRow(getTrainingStorage(), index, target);
+    }
+
+    /**
+     * Copies the training data set input row into the start of the given
+     * array, as getTrainingInputRow would return, with no array created.
+     * 
+     * @param index int
+     * @param target double[] at least as long as the number of input columns
+     */
+    public void readTrainingInputRow(int index, double[] target) {
+        readInputRow(getTrainingStorage(), index, target);
+    }
+
+    /**
+     * Copies the testing data set output row into the start of the given
+     * array, as getTestingOutputRow would return, with no array created.
+     * 
+     * @param index int
+     * @param target double[] at least as long as the number of output columns
+     */
+    public void readTestingOutputRow(int index, double[] target) {
+        readOutputRow(getTestingStorage(), index, target);
+    }
+
+    /**
+     * Copies the testing data set input row into the start of the given
+     * array, as getTestingInputRow would return, with no array created.
+     * 
+     * @param index int
+     * @param target double[] at least as long as the number of input columns
+     */
+    public void readTestingInputRow(int index, double[] target) {
+        readInputRow(getTestingStorage(), index, target);
+    }
+
+    /**
+     * Copies the output columns of the row of the given storage.
+     * 
+     * @param storage DataStorage or null if not loaded
+     * @param index int
+     * @param target double[]
+     */
+    private void readOutputRow(DataStorage storage, int index, double[] target) {
+        if ( storage == null ) throw new IllegalStateException("Data not yet loaded.");
+        if ( outputColumnMap == null ) throw new IllegalStateException("No output map defined.");
+
+        storage.readRow(index, 0, outputColumnMap.size(), target);
+    }
+
+    /**
+     * Copies the input columns of the row of the given storage.
+     * 
+     * @param storage DataStorage or null if not loaded
+     * @param index int
+     * @param target double[]
+     */
+    private void readInputRow(DataStorage storage, int index, double[] target) {
+        if ( storage == null ) throw new IllegalStateException("Data not yet loaded.");
+        if ( inputColumnMap == null ) throw new IllegalStateException("No input map defined.");
+
+        int inputStartingIndex = 0;
+        if ( outputColumnMap != null ) inputStartingIndex = outputColumnMap.size();
+
+        storage.readRow(index, inputStartingIndex, storage.getNumberOfColumns(), target);
+    }
+
     /**
      * The output column mapping function.
      * 
@@ -253,7 +366,7 @@ public abstract class DataSet {
      * @return Integer
      */
     public Integer getNumberOfTrainingRows() {
-        return trainingDataSet.length;
+        return getTrainingStorage().getNumberOfRows();
     }
 
     /**
@@ -262,232 +375,601 @@ public abstract class DataSet {
      * @return Integer
      */
     public Integer getNumberOfTestingRows() {
-        return testingDataSet.length;
+        return getTestingStorage().getNumberOfRows();
+    }
+
+    /**
+     * The storage of the training rows as read: the normalised view of the
+     * rows stored while normalised through one, or else the rows stored.
+     * 
+     * @return DataStorage or null if not loaded.
+     */
+    protected DataStorage getTrainingStorage() {
+        return getView(trainingView, getStoredTrainingStorage());
     }
 
     /**
-     * Resetting the Normalisation values.
+     * The storage of the testing rows as read: the normalised view of the
+     * rows stored while normalised through one, or else the rows stored.
+     * 
+     * @return DataStorage or null if not loaded.
      */
-    public void resetNormalisationValues() {
-        minValues = null;
-        maxValues = null;
+    protected DataStorage getTestingStorage() {
+        return getView(testingView, getStoredTestingStorage());
+    }
 
-        // Check if the min and max files exist.
-        File normalisedMinFile = new File(NORMALISED_MIN_VALUES_FILE);
-        File normalisedMaxFile = new File(NORMALISED_MAX_VALUES_FILE);
+    /**
+     * The given view, if still over the rows stored, or else the rows
+     * stored, as once loaded again.
+     * 
+     * @param view NormalisedDataStorage or null
+     * @param storage DataStorage or null
+     * @return DataStorage or null
+     */
+    private DataStorage getView(NormalisedDataStorage view, DataStorage storage) {
+        return view != null && view.getSource() == storage ? view : storage;
+    }
 
-        if ( ! normalisedMinFile.exists() || ! normalisedMaxFile.exists() ) {
-            return;
+    /**
+     * The storage the training rows are kept in: trainingDataSet if set, or
+     * else the storage set by the extending class.
+     * 
+     * @return DataStorage or null if not loaded.
+     */
+    protected DataStorage getStoredTrainingStorage() {
+        double[][] rows = trainingDataSet;
+        if ( rows == null ) return trainingStorage;
+        ArrayDataStorage storage = trainingArrayStorage;
+        if ( storage == null || storage.getRows() != rows ) {
+            storage = new ArrayDataStorage(rows);
+            trainingArrayStorage = storage;
         }
-        
-        // Ensure no trace of past information is available.
-        normalisedMaxFile.delete();
-        normalisedMinFile.delete();
+        return storage;
     }
-    
+
     /**
-     * By default , the normalised values are stored in a set file 
-     * and loaded when run again. This allows the user to reuse the 
-     * same values when testing different test sets.
+     * The storage the testing rows are kept in: testingDataSet if set, or
+     * else the storage set by the extending class.
+     * 
+     * @return DataStorage or null if not loaded.
      */
-    private void loadNormalisedValues() {
-        // Check if the min and max files exist.
-        File normalisedMinFile = new File(NORMALISED_MIN_VALUES_FILE);
-        File normalisedMaxFile = new File(NORMALISED_MAX_VALUES_FILE);
+    protected DataStorage getStoredTestingStorage() {
+        double[][] rows = testingDataSet;
+        if ( rows == null ) return testingStorage;
+        ArrayDataStorage storage = testingArrayStorage;
+        if ( storage == null || storage.getRows() != rows ) {
+            storage = new ArrayDataStorage(rows);
+            testingArrayStorage = storage;
+        }
+        return storage;
+    }
 
-        if ( ! normalisedMinFile.exists() || ! normalisedMaxFile.exists() ) {
-            return;
+    /**
+     * Sets the storage of the training rows. If kept in arrays, these are
+     * also set as trainingDataSet.
+     * 
+     * @param storage DataStorage
+     */
+    protected void setTrainingStorage(DataStorage storage) {
+        DataStorage replaced = trainingStorage;
+        trainingStorage = storage;
+        if ( replaced != null && replaced != storage ) releaseStorage(replaced);
+        trainingDataSet = storage instanceof ArrayDataStorage ? ((ArrayDataStorage) storage).getRows() : null;
+    }
+
+    /**
+     * Sets the storage of the testing rows. If kept in arrays, these are
+     * also set as testingDataSet.
+     * 
+     * @param storage DataStorage
+     */
+    protected void setTestingStorage(DataStorage storage) {
+        DataStorage replaced = testingStorage;
+        testingStorage = storage;
+        if ( replaced != null && replaced != storage ) releaseStorage(replaced);
+        testingDataSet = storage instanceof ArrayDataStorage ? ((ArrayDataStorage) storage).getRows() : null;
+    }
+
+    /**
+     * Called once a storage set is replaced by another, and no longer in
+     * use. Storages in memory are left to the garbage collector, so nothing
+     * is done by default, while extending classes holding storages on disk
+     * or outside the heap release them here.
+     * 
+     * @param storage DataStorage replaced
+     */
+    protected void releaseStorage(DataStorage storage) {
+    }
+
+    /**
+     * The statistics of each column of the data as loaded, before being
+     * normalised, if gathered while loading.
+     * 
+     * @return ColumnStatistics or null if unknown
+     */
+    public ColumnStatistics getColumnStatistics() {
+        return columnStatistics;
+    }
+
+    /**
+     * The statistics of each column of the data as now held, whether
+     * normalised or not, gathered in parallel over both data sets unless
+     * already known.
+     * 
+     * @return ColumnStatistics or null if not loaded
+     */
+    public ColumnStatistics gatherColumnStatistics() {
+        ColumnStatistics statistics = getStatisticsOfData();
+        if ( statistics != null ) return statistics;
+        List<DataStorage> storages = getStorages();
+        if ( storages.isEmpty() ) return null;
+        return ColumnStatistics.gather(storages.get(0).getNumberOfColumns(), storages);
+    }
+
+    /**
+     * Sets the statistics of each column of the data as loaded.
+     * 
+     * @param statistics ColumnStatistics or null if unknown
+     * @param ofData boolean true if the data has not changed since
+     */
+    protected void setColumnStatistics(ColumnStatistics statistics, boolean ofData) {
+        columnStatistics = statistics;
+        statisticsOfData = statistics != null && ofData;
+    }
+
+    /**
+     * The statistics of each column, only if these are of all the rows as
+     * they are now.
+     * 
+     * @return ColumnStatistics or null
+     */
+    protected ColumnStatistics getStatisticsOfData() {
+        if ( ! statisticsOfData || isNormalisedThroughView() ) return null;
+        long rows = 0;
+        for ( DataStorage storage : getStorages() ) rows += storage.getNumberOfRows();
+        return rows == columnStatistics.getCount() ? columnStatistics : null;
+    }
+
+    /**
+     * Sets the layout to keep rows in memory with, taking effect on the next
+     * load. Column precisions, if set, are always kept column major.
+     * 
+     * @param storageLayout StorageLayout
+     */
+    public void setStorageLayout(StorageLayout storageLayout) {
+        if ( storageLayout == null ) throw new IllegalArgumentException("Layout cannot be null.");
+        this.storageLayout = storageLayout;
+    }
+
+    /**
+     * The layout to keep rows in memory with.
+     * 
+     * @return StorageLayout
+     */
+    public StorageLayout getStorageLayout() {
+        return storageLayout;
+    }
+
+    /**
+     * Sets the precision to keep each column in, output columns first and
+     * then input columns, as in each row. This takes effect on the next load,
+     * and only for data sets kept in a QuantizedDataStorage.
+     * 
+     * @param precisions ColumnPrecision[] one per column, or null to keep all as double
+     */
+    public void setColumnPrecisions(ColumnPrecision[] precisions) {
+        columnPrecisions = precisions == null ? null : precisions.clone();
+    }
+
+    /**
+     * The precision to keep each column in.
+     * 
+     * @return ColumnPrecision[] or null if all kept as double
+     */
+    public ColumnPrecision[] getColumnPrecisions() {
+        return columnPrecisions == null ? null : columnPrecisions.clone();
+    }
+
+    /**
+     * The precision to store each column in, before or after normalising.
+     * FIXED16 columns only hold values normalised into 0 and 1, so are kept
+     * as FLOAT until normalised, and always when not normalised by their min
+     * and max values.
+     * 
+     * @param normalised boolean
+     * @return ColumnPrecision[] or null if all kept as double
+     */
+    protected ColumnPrecision[] getStoragePrecisions(boolean normalised) {
+        if ( columnPrecisions == null ) return null;
+        ColumnPrecision[] precisions = columnPrecisions.clone();
+        int boundedColumns = normalised ? getNumberOfBoundedColumns() : 0;
+        for ( int column = boundedColumns; column < precisions.length; column++ ) {
+            if ( precisions[column] == ColumnPrecision.FIXED16 ) precisions[column] = ColumnPrecision.FLOAT;
         }
+        return precisions;
+    }
 
-        // Load min values
-        BufferedReader bufferedReader = null;
-        try {
-            bufferedReader = new BufferedReader(new FileReader(NORMALISED_MIN_VALUES_FILE));
-            String line = bufferedReader.readLine();
-            String[] minValuesStr = line.split(",");
-            minValues = new double[minValuesStr.length];
-            
-            for ( int index = 0; index < minValuesStr.length; index++ ) {
-                minValues[index] = Double.parseDouble(minValuesStr[index]);
-            }
-            bufferedReader.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Converts any QuantizedDataStorage to the precisions for normalised, or
+     * not normalised, values.
+     * 
+     * @param normalised boolean
+     */
+    protected void repackStorages(boolean normalised) {
+        ColumnPrecision[] precisions = getStoragePrecisions(normalised);
+        if ( precisions == null ) return;
+        DataStorage storage = getTrainingStorage();
+        if ( storage instanceof QuantizedDataStorage 
+                && ! Arrays.equals(((QuantizedDataStorage) storage).getPrecisions(), precisions) ) {
+            setTrainingStorage(new QuantizedDataStorage(storage, precisions));
+        }
+        storage = getTestingStorage();
+        if ( storage instanceof QuantizedDataStorage 
+                && ! Arrays.equals(((QuantizedDataStorage) storage).getPrecisions(), precisions) ) {
+            setTestingStorage(new QuantizedDataStorage(storage, precisions));
         }
+    }
+
+    /**
+     * Sets the way to normalise the input columns from the next
+     * normalisation on. The values normalised into 0 and 1 are kept apart
+     * for each mode, so those of another mode are never used.
+     * 
+     * @param normalisationMode NormalisationMode
+     */
+    public void setNormalisationMode(NormalisationMode normalisationMode) {
+        if ( normalisationMode == null ) throw new IllegalArgumentException("Normalisation mode cannot be null.");
+        if ( normalisationMode == this.normalisationMode ) return;
+        this.normalisationMode = normalisationMode;
+        minValues = null;
+        maxValues = null;
+    }
+
+    /**
+     * The way to normalise the input columns.
+     * 
+     * @return NormalisationMode
+     */
+    public NormalisationMode getNormalisationMode() {
+        return normalisationMode;
+    }
+
+    /**
+     * Sets the store of the values normalised with.
+     * 
+     * @param normalisationStore NormalisationStore
+     */
+    public void setNormalisationStore(NormalisationStore normalisationStore) {
+        if ( normalisationStore == null ) throw new IllegalArgumentException("Normalisation store cannot be null.");
+        this.normalisationStore = normalisationStore;
+    }
+
+    /**
+     * The store of the values normalised with.
+     * 
+     * @return NormalisationStore
+     */
+    public NormalisationStore getNormalisationStore() {
+        return normalisationStore;
+    }
+
+    /**
+     * The key of the values normalised with in the given mode, a fingerprint
+     * of the data and the column maps. Data sets which cannot fingerprint
+     * their data return null, and their values are then never stored.
+     * 
+     * @param mode NormalisationMode
+     * @return String or null if not known
+     */
+    protected String getNormalisationKey(NormalisationMode mode) {
+        return null;
+    }
+
+    /**
+     * Resetting the Normalisation values, those stored for the same data
+     * with any maps and in any mode.
+     */
+    public void resetNormalisationValues() {
+        minValues = null;
+        maxValues = null;
 
-        // Load max values
-        bufferedReader = null;
+        // Ensure no trace of past information is available.
+        String key = getNormalisationKey(normalisationMode);
+        if ( key != null ) normalisationStore.deleteAll(key);
+    }
+    
+    /**
+     * By default, the normalised values are stored and loaded when run
+     * again. This allows the user to reuse the same values when testing
+     * different test sets.
+     */
+    private void loadNormalisedValues() {
+        String key = getNormalisationKey(normalisationMode);
+        if ( key == null ) return;
+        double[][] values = normalisationStore.load(key);
+        if ( values == null ) return;
+        minValues = values[0];
+        maxValues = values[1];
+    }
+    
+    /**
+     * Store the current min and max normalising values, unless already
+     * stored.
+     */
+    protected void saveNormalisedValues() {
+        String key = getNormalisationKey(normalisationMode);
+        if ( key == null || minValues == null || maxValues == null ) return;
+        double[][] values = normalisationStore.load(key);
+        if ( values != null && Arrays.equals(values[0], minValues) && Arrays.equals(values[1], maxValues) ) return;
         try {
-            bufferedReader = new BufferedReader(new FileReader(NORMALISED_MAX_VALUES_FILE));
-            String line = bufferedReader.readLine();
-            String[] maxValuesStr = line.split(",");
-            maxValues = new double[maxValuesStr.length];
-            
-            for ( int index = 0; index < maxValuesStr.length; index++ ) {
-                maxValues[index] = Double.parseDouble(maxValuesStr[index]);
-            }
-            bufferedReader.close();
+            normalisationStore.save(key, minValues, maxValues);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
     
     /**
-     * Save the current min and max normalising values to file.
+     * Normalise testing and training sets by first calculate what
+     * are the minimum and maximum values for each column, and then 
+     * normalise all values accordingly.<p>
+     * 
+     * The rows stored are not rewritten: they are read through a view
+     * normalising each value as read, as DataSetView does. Only rows kept
+     * in a QuantizedDataStorage are normalised in place, as their columns
+     * hold the precision of the normalised values.
+     */
+    public void normalise() {
+        // The values of the rows are only found from the rows as stored.
+        trainingView = null;
+        testingView = null;
+        prepareNormalisationValues();
+
+        // Minimum and maximum values calculated per column. Now normalise it all...
+        trainingView = createNormalisedView(getTrainingStorage());
+        testingView = createNormalisedView(getTestingStorage());
+        repackStorages(true);
+
+        // Save these for later.
+        saveNormalisedValues();
+    }
+
+    /**
+     * The normalised view of the given rows, or null if normalised in place
+     * instead, as those in a QuantizedDataStorage are.
+     * 
+     * @param storage DataStorage or null
+     * @return NormalisedDataStorage or null
      */
-    private void saveNormalisedValues() {
-        // Saving the min values
-        BufferedWriter bufferedWriter = null;
-        try {
-            bufferedWriter = new BufferedWriter(new FileWriter(NORMALISED_MIN_VALUES_FILE));
-            List<String> minValuesStr = new LinkedList<>();
-            for ( double value : minValues ) {
-                minValuesStr.add(String.valueOf(value));
-            }
-            String finalString = String.join(",", minValuesStr);
-            bufferedWriter.write(finalString);
-            bufferedWriter.flush();
-            bufferedWriter.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+    private NormalisedDataStorage createNormalisedView(DataStorage storage) {
+        if ( storage == null || storage.getNumberOfRows() == 0 ) return null;
+        NormalisationKernel kernel = createNormalisationKernel(storage.getNumberOfColumns(), true);
+        if ( storage instanceof QuantizedDataStorage ) {
+            statisticsOfData = false;
+            kernel.applyTo(storage);
+            return null;
         }
+        return new NormalisedDataStorage(storage, kernel);
+    }
 
-        // Saving the max values
-        bufferedWriter = null;
+    /**
+     * Checks if any rows are now read through a normalised view.
+     * 
+     * @return boolean
+     */
+    private boolean isNormalisedThroughView() {
+        return getTrainingStorage() instanceof NormalisedDataStorage 
+                || getTestingStorage() instanceof NormalisedDataStorage;
+    }
+    
+    /**
+     * Sets the values to normalise with: those already set or saved, or
+     * else those of the rows as they are now, which are saved.
+     */
+    protected void prepareNormalisationValues() {
+        prepareNormalisationValues(this::calculateMinMaxValuesFromData);
+    }
+
+    /**
+     * Sets the values to normalise with: those already set or saved, or
+     * else those set by the given calculation, which are saved. Runs sharing
+     * the store wait for the one calculating the values of the same data,
+     * and use its values, instead of calculating them again.
+     * 
+     * @param calculation Runnable setting the min and max values
+     */
+    protected void prepareNormalisationValues(Runnable calculation) {
+        if ( loadSavedNormalisationValues() ) return;
+        String key = getNormalisationKey(normalisationMode);
+        if ( key == null ) {
+            calculation.run();
+            return;
+        }
         try {
-            bufferedWriter = new BufferedWriter(new FileWriter(NORMALISED_MAX_VALUES_FILE));
-            List<String> maxValuesStr = new LinkedList<>();
-            for ( double value : maxValues ) {
-                maxValuesStr.add(String.valueOf(value));
-            }
-            String finalString = String.join(",", maxValuesStr);
-            bufferedWriter.write(finalString);
-            bufferedWriter.flush();
-            bufferedWriter.close();
+            double[][] values = normalisationStore.loadOrCalculate(key, () -> {
+                calculation.run();
+                return new double[][] { minValues, maxValues };
+            });
+            minValues = values[0];
+            maxValues = values[1];
         } catch (IOException e) {
+            // Still usable, only not shared with other runs.
             e.printStackTrace();
+            if ( minValues == null || maxValues == null ) calculation.run();
         }
     }
-    
+
     /**
-     * Normalise testing and training sets by first calculate what
-     * are the minimum and maximum values for each column, and then 
-     * normalise all values accordingly.
+     * A view sharing the rows loaded, which are never rewritten by it, to be
+     * normalised apart from this and any other view. See DataSetView.
+     * 
+     * @return DataSetView
      */
-    public void normalise() {
+    public DataSetView createView() {
+        return new DataSetView(this);
+    }
+
+    /**
+     * Loads the min and max values saved from past normalisations, unless
+     * already set, in which case these are kept.
+     * 
+     * @return true if min and max values are now set, false if these are
+     *         to be calculated from the data.
+     */
+    protected boolean loadSavedNormalisationValues() {
         // Attempt to load any saved values
         if ( ( minValues == null || minValues[0] == 0.0 ) && 
                 ( maxValues == null || maxValues[0] == 0.0 ) ) loadNormalisedValues();
 
-        // If nothing was saved, then these need to be calculated.
-        if ( ( minValues == null || minValues[0] == 0.0 ) && 
-                ( maxValues == null || maxValues[0] == 0.0 ) ) {
-            calculateMinMaxValuesFromData();
-            saveNormalisedValues();
-        }
-
-        // Minimum and maximum values calculated per column. Now normalise it all...
-        if ( trainingDataSet != null ) {
-            for( int row = 0; row < trainingDataSet.length; row++ ) {
-                for(int column = 0; column < trainingDataSet[row].length; column++ ) {
-                    double value = trainingDataSet[row][column];
-                    Normalize norm = new Normalize(minValues[column], maxValues[column]);
-                    trainingDataSet[row][column] = norm.apply(value);
-                }
-            }
-        }
-
-        // Check testing set and collect minimum and maximum values
-        if ( testingDataSet != null ) {
-            for( int row = 0; row < testingDataSet.length; row++ ) {
-                for(int column = 0; column < testingDataSet[row].length; column++ ) {
-                    double value = testingDataSet[row][column];
-                    Normalize norm = new Normalize(minValues[column], maxValues[column]);
-                    testingDataSet[row][column] = norm.apply(value);
-                }
-            }
-        }
+        return ! ( ( minValues == null || minValues[0] == 0.0 ) && 
+                ( maxValues == null || maxValues[0] == 0.0 ) );
+    }
 
-        // Save these for later.
-        saveNormalisedValues();
+    /**
+     * Loads the source into memory and normalises it, the same as calling
+     * load() followed by normalise(). Extending classes may override this to
+     * reuse the outcome of a past run instead.
+     */
+    public void loadNormalised() {
+        load();
+        normalise();
     }
-    
+
     /**
      * Calculating the min and max values for normalisation 
      * from the loaded data.
      */
     private void calculateMinMaxValuesFromData() {
-        int numberOfColumns;
-        if ( trainingDataSet != null ) {
-            numberOfColumns = trainingDataSet[0].length;
-        } 
-        else if ( testingDataSet != null ) {
-            numberOfColumns = testingDataSet[0].length;
-        }
-        else {
+        List<DataStorage> storages = getStorages();
+        if ( storages.isEmpty() ) {
             // No data to normalise and no exception.
             return;
         }
-        
-        // Initialise the minimum and maximum values array.
-        minValues = new double[numberOfColumns]; 
-        maxValues = new double[numberOfColumns]; 
-
-        // Set minValues and maxValues initial values with their opposites for unbiased outcome.
-        for( int index = 0 ; index < numberOfColumns ; index ++ ) {
-            maxValues[index] = Double.NEGATIVE_INFINITY;
-            minValues[index] = Double.POSITIVE_INFINITY;
-        }
+        int numberOfColumns = storages.get(0).getNumberOfColumns();
 
-        // Start with the training set to collect minimum and maximum values
-        if ( trainingDataSet != null ) {
-            for( int row = 0; row < trainingDataSet.length; row++ ) {
-                for(int column = 0; column < trainingDataSet[row].length; column++ ) {
-                    if ( minValues[column] > trainingDataSet[row][column] ) minValues[column] = trainingDataSet[row][column];
-                    if ( maxValues[column] < trainingDataSet[row][column] ) maxValues[column] = trainingDataSet[row][column];
-                }
-            }
+        // Gathered already while loading, or else gathered now.
+        ColumnStatistics statistics = getStatisticsOfData();
+        if ( statistics == null || statistics.getNumberOfColumns() != numberOfColumns 
+                || ( isGatheringQuantiles() && ! statistics.hasQuantiles() ) ) {
+            statistics = ColumnStatistics.gather(numberOfColumns, storages, isGatheringQuantiles());
         }
+        setNormalisationValues(statistics);
+    }
+
+    /**
+     * Checks if the statistics to normalise with need the quantiles of each
+     * column.
+     * 
+     * @return boolean
+     */
+    protected boolean isGatheringQuantiles() {
+        return normalisationMode == NormalisationMode.ROBUST;
+    }
 
-        // Check testing set and collect minimum and maximum values
-        if ( testingDataSet != null ) {
-            for( int row = 0; row < testingDataSet.length; row++ ) {
-                for(int column = 0; column < testingDataSet[row].length; column++ ) {
-                    if ( minValues[column] > testingDataSet[row][column] ) minValues[column] = testingDataSet[row][column];
-                    if ( maxValues[column] < testingDataSet[row][column] ) maxValues[column] = testingDataSet[row][column];
-                }
+    /**
+     * Sets the values normalised into 0 and 1 of each column from its
+     * statistics, as the normalisation mode does for input columns, and
+     * from its min and max values for output columns.
+     * 
+     * @param statistics ColumnStatistics with quantiles if robust
+     */
+    protected void setNormalisationValues(ColumnStatistics statistics) {
+        minValues = statistics.getMinValues();
+        maxValues = statistics.getMaxValues();
+        if ( normalisationMode == NormalisationMode.MIN_MAX ) return;
+
+        double[] centres;
+        double[] scales;
+        if ( normalisationMode == NormalisationMode.Z_SCORE ) {
+            centres = statistics.getMeans();
+            scales = statistics.getVariances();
+            for ( int column = 0; column < scales.length; column++ ) scales[column] = Math.sqrt(scales[column]);
+        }
+        else {
+            centres = statistics.getQuantiles(0.5);
+            double[] lowerQuartiles = statistics.getQuantiles(0.25);
+            double[] upperQuartiles = statistics.getQuantiles(0.75);
+            scales = new double[centres.length];
+            for ( int column = 0; column < scales.length; column++ ) {
+                scales[column] = upperQuartiles[column] - lowerQuartiles[column];
+                if ( scales[column] == 0.0 ) scales[column] = maxValues[column] - minValues[column];
             }
         }
+        for ( int column = getNumberOfBoundedColumns(); column < centres.length; column++ ) {
+            minValues[column] = centres[column];
+            maxValues[column] = centres[column] + scales[column];
+        }
+    }
+
+    /**
+     * The kernel normalising, or de-normalising, the given number of columns
+     * with the values set, refusing values out of range only for those
+     * normalised by their min and max values.
+     * 
+     * @param numberOfColumns int
+     * @param normalising boolean false to de-normalise
+     * @return NormalisationKernel
+     */
+    protected NormalisationKernel createNormalisationKernel(int numberOfColumns, boolean normalising) {
+        double[] zeros = Arrays.copyOf(minValues, numberOfColumns);
+        double[] ones = Arrays.copyOf(maxValues, numberOfColumns);
+        boolean[] bounded = new boolean[numberOfColumns];
+        int boundedColumns = getNumberOfBoundedColumns();
+        for ( int column = 0; column < numberOfColumns; column++ ) bounded[column] = column < boundedColumns;
+        return normalising ? NormalisationKernel.normalising(zeros, ones, bounded) 
+                : NormalisationKernel.deNormalising(zeros, ones, bounded);
+    }
+
+    /**
+     * The number of first columns normalised by their min and max values:
+     * all of them in the min max mode, or else the output columns only.
+     * 
+     * @return int
+     */
+    private int getNumberOfBoundedColumns() {
+        if ( normalisationMode == NormalisationMode.MIN_MAX ) return Integer.MAX_VALUE;
+        return outputColumnMap == null ? 0 : outputColumnMap.size();
     }
 
     /**
      * DeNormalise testing and training sets to their original values
      * by using the initially saved minimum and maximum values per column.
-     * In case these are not yet saved, nothing will be done.
+     * In case these are not yet saved, nothing will be done. Rows read
+     * through a normalised view are read as stored again, and all others
+     * are de-normalised in place.
      */
     public void deNormalise() {
         if ( minValues == null | maxValues == null ) return;
+        boolean trainingViewed = getTrainingStorage() instanceof NormalisedDataStorage;
+        boolean testingViewed = getTestingStorage() instanceof NormalisedDataStorage;
+        trainingView = null;
+        testingView = null;
+        repackStorages(false);
 
         // Minimum and maximum values calculated per column. DeNormalise it all...
-        if ( trainingDataSet != null ) {
-            for( int row = 0; row < trainingDataSet.length; row++ ) {
-                for(int column = 0; column < trainingDataSet[row].length; column++ ) {
-                    double value = trainingDataSet[row][column];
-                    DeNormalize deNorm = new DeNormalize(minValues[column], maxValues[column]); 
-                    trainingDataSet[row][column] = deNorm.apply(value);
-                }
-            }
-        }
+        if ( ! trainingViewed ) deNormalise(getTrainingStorage());
+        if ( ! testingViewed ) deNormalise(getTestingStorage());
+    }
 
-        // Check testing set and collect minimum and maximum values
-        if ( testingDataSet != null ) {
-            for( int row = 0; row < testingDataSet.length; row++ ) {
-                for(int column = 0; column < testingDataSet[row].length; column++ ) {
-                    double value = testingDataSet[row][column];
-                    DeNormalize deNorm = new DeNormalize(minValues[column], maxValues[column]);
-                    testingDataSet[row][column] = deNorm.apply(value);
-                }
-            }
-        }
+    /**
+     * De-normalises the given rows in place.
+     * 
+     * @param storage DataStorage or null
+     */
+    private void deNormalise(DataStorage storage) {
+        if ( storage == null || storage.getNumberOfRows() == 0 ) return;
+        statisticsOfData = false;
+        createNormalisationKernel(storage.getNumberOfColumns(), false).applyTo(storage);
+    }
+
+    /**
+     * The training and testing storages in this order, if loaded.
+     * 
+     * @return List of DataStorage
+     */
+    protected List<DataStorage> getStorages() {
+        List<DataStorage> storages = new LinkedList<>();
+        if ( getTrainingStorage() != null ) storages.add(getTrainingStorage());
+        if ( getTestingStorage() != null ) storages.add(getTestingStorage());
+        return storages;
     }
 }
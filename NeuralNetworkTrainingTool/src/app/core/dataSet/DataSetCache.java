@@ -0,0 +1,487 @@
+package app.core.dataSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+import app.model.serializable.FileAttributes;
+
+/**
+ * Keeps the final loaded and normalised data sets in binary files, so later
+ * runs with the same source file, file attributes and column maps read them
+ * back from a memory mapped file instead of parsing and normalising all over
+ * again.<p>
+ *
+ * Each entry is named after a hash of everything the data depends on: the
+ * source file path, size and last modified time, the file attributes, and
+ * every column map with its transformation. Along with the data, each entry
+ * holds the min and max values the data was normalised with, and the min and
+ * max values of the data before normalising, so it can be checked the entry
+ * would be normalised the same again.
+ *
+ * @author Vasco
+ *
+ */
+public class DataSetCache {
+
+    /**
+     * The extension of each cache entry file.
+     */
+    public static final String EXTENSION = ".dsc";
+
+    /**
+     * Identifies the cache entry file format.
+     */
+    private static final int MAGIC = 0x4E4E4443;
+
+    /**
+     * The cache entry file format version, also part of each key.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The size of the fixed part of the entry header: magic, version,
+     * training rows, testing rows and columns.
+     */
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+    /**
+     * The maximum number of bytes mapped into memory at once.
+     */
+    private static final int MAX_MAPPED_SIZE = 1 << 30;
+
+    /**
+     * The byte order of all values, native on most platforms.
+     */
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * The directory keeping all cache entries.
+     */
+    private final File directory;
+
+    /**
+     * Constructing the cache over the given directory, created if missing.
+     *
+     * @param directory String
+     */
+    public DataSetCache(String directory) {
+        this.directory = new File(directory);
+        if ( ! this.directory.isDirectory() && ! this.directory.mkdirs() )
+            throw new IllegalArgumentException("Cannot create cache directory: "+directory);
+    }
+
+    /**
+     * The key of the data loaded from the given file with the given maps,
+     * kept in the given column precisions and normalised in the given mode.
+     *
+     * @param fileAttributes FileAttributes
+     * @param outputColumnMap List of VectorMap
+     * @param inputColumnMap List of VectorMap
+     * @param columnPrecisions ColumnPrecision[] or null if all kept as double
+     * @param normalisationMode NormalisationMode
+     * @return String
+     * @throws IOException if the source file cannot be found
+     */
+    public String getKey(FileAttributes fileAttributes, List<VectorMap> outputColumnMap,
+            List<VectorMap> inputColumnMap, ColumnPrecision[] columnPrecisions, 
+            NormalisationMode normalisationMode) throws IOException {
+        StringBuilder description = new StringBuilder();
+        description.append("version=").append(VERSION).append('\n')
+            .append(describe(fileAttributes, outputColumnMap, inputColumnMap, columnPrecisions));
+        // Keys of data normalised by min and max values stay as they were.
+        if ( normalisationMode != NormalisationMode.MIN_MAX ) description.append("\nnormalisation=").append(normalisationMode);
+        return toHex(sha256(description.toString()));
+    }
+
+    /**
+     * The description of everything the data loaded from the given file
+     * with the given maps depends on.
+     *
+     * @param fileAttributes FileAttributes
+     * @param outputColumnMap List of VectorMap
+     * @param inputColumnMap List of VectorMap
+     * @param columnPrecisions ColumnPrecision[] or null if all kept as double
+     * @return String
+     * @throws IOException if the source file cannot be found
+     */
+    static String describe(FileAttributes fileAttributes, List<VectorMap> outputColumnMap,
+            List<VectorMap> inputColumnMap, ColumnPrecision[] columnPrecisions) throws IOException {
+        return describe(fileAttributes, outputColumnMap, inputColumnMap, columnPrecisions, true);
+    }
+
+    /**
+     * The description of everything the data loaded from the given file
+     * with the given maps depends on, the testing range left out if not
+     * asked for.
+     *
+     * @param fileAttributes FileAttributes
+     * @param outputColumnMap List of VectorMap
+     * @param inputColumnMap List of VectorMap
+     * @param columnPrecisions ColumnPrecision[] or null if all kept as double
+     * @param withTestingRange boolean
+     * @return String
+     * @throws IOException if the source file cannot be found
+     */
+    static String describe(FileAttributes fileAttributes, List<VectorMap> outputColumnMap,
+            List<VectorMap> inputColumnMap, ColumnPrecision[] columnPrecisions, boolean withTestingRange)
+            throws IOException {
+        File source = new File(fileAttributes.getFilename());
+        StringBuilder description = new StringBuilder();
+        description.append("file=").append(source.getCanonicalPath())
+            .append("\nsize=").append(source.length())
+            .append("\nmodified=").append(source.lastModified())
+            .append("\nheader=").append(fileAttributes.getHeaderRows())
+            .append("\nfooter=").append(fileAttributes.getFooterRows())
+            .append("\nseparator=").append(fileAttributes.getSeparator())
+            .append("\ntraining=").append(fileAttributes.isHasTrainingRange())
+            .append(':').append(fileAttributes.getTrainingStartIndex())
+            .append(':').append(fileAttributes.getTrainingEndIndex());
+        if ( withTestingRange ) {
+            description.append("\ntesting=").append(fileAttributes.isHasTestingRange())
+                .append(':').append(fileAttributes.getTestingStartIndex())
+                .append(':').append(fileAttributes.getTestingEndIndex());
+        }
+        appendMaps(description, "output", outputColumnMap);
+        appendMaps(description, "input", inputColumnMap);
+        if ( columnPrecisions != null ) description.append("\nprecisions=").append(Arrays.toString(columnPrecisions));
+        return description.toString();
+    }
+
+    /**
+     * Opens the entry of the given key.
+     *
+     * @param key String
+     * @return CacheEntry or null if not cached or not valid.
+     */
+    public CacheEntry open(String key) {
+        File file = getEntryFile(key);
+        if ( ! file.isFile() ) return null;
+        try ( FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ) ) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+            if ( channel.read(header, 0) != HEADER_SIZE ) return null;
+            header.flip();
+            if ( header.getInt() != MAGIC || header.getInt() != VERSION ) return null;
+            int trainingRows = header.getInt();
+            int testingRows = header.getInt();
+            int columns = header.getInt();
+
+            long expectedSize = HEADER_SIZE + 8L * columns * ( 4 + Math.max(trainingRows, 0) + Math.max(testingRows, 0) );
+            if ( columns <= 0 || channel.size() != expectedSize ) return null;
+
+            ByteBuffer ranges = ByteBuffer.allocate(4 * columns * Double.BYTES).order(BYTE_ORDER);
+            channel.read(ranges, HEADER_SIZE);
+            ranges.flip();
+            DoubleBuffer values = ranges.asDoubleBuffer();
+            double[][] columnRanges = new double[4][columns];
+            for ( double[] range : columnRanges ) values.get(range);
+            return new CacheEntry(file, trainingRows, testingRows, columns, columnRanges);
+        } catch (IOException e) {
+            // Unreadable entries are just not used.
+            return null;
+        }
+    }
+
+    /**
+     * Saves the entry of the given key, replacing any previous one.
+     *
+     * @param key String
+     * @param trainingRows DataStorage or null if not in use
+     * @param testingRows DataStorage or null if not in use
+     * @param dataMinValues double[] min values of the data before normalising
+     * @param dataMaxValues double[] max values of the data before normalising
+     * @param minValues double[] min values the data was normalised with
+     * @param maxValues double[] max values the data was normalised with
+     * @throws IOException
+     */
+    public void save(String key, DataStorage trainingRows, DataStorage testingRows,
+            double[] dataMinValues, double[] dataMaxValues, double[] minValues, double[] maxValues)
+            throws IOException {
+        int columns = minValues.length;
+        File temporary = File.createTempFile(key, ".tmp", directory);
+        try {
+            try ( FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE) ) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(BYTE_ORDER);
+                buffer.putInt(MAGIC);
+                buffer.putInt(VERSION);
+                buffer.putInt(trainingRows == null ? -1 : trainingRows.getNumberOfRows());
+                buffer.putInt(testingRows == null ? -1 : testingRows.getNumberOfRows());
+                buffer.putInt(columns);
+                for ( double[] values : new double[][] { dataMinValues, dataMaxValues, minValues, maxValues } ) {
+                    writeRow(channel, buffer, values, columns);
+                }
+                double[] row = new double[columns];
+                for ( DataStorage rows : new DataStorage[] { trainingRows, testingRows } ) {
+                    if ( rows == null ) continue;
+                    if ( rows.getNumberOfColumns() != columns && rows.getNumberOfRows() > 0 )
+                        throw new IllegalArgumentException("All rows must have "+columns+" columns.");
+                    for ( int index = 0; index < rows.getNumberOfRows(); index++ ) {
+                        rows.readRow(index, row);
+                        writeRow(channel, buffer, row, columns);
+                    }
+                }
+                buffer.flip();
+                while ( buffer.hasRemaining() ) channel.write(buffer);
+            }
+            Files.move(temporary.toPath(), getEntryFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            temporary.delete();
+        }
+    }
+
+    /**
+     * The file of the entry of the given key.
+     *
+     * @param key String
+     * @return File
+     */
+    public File getEntryFile(String key) {
+        return new File(directory, key + EXTENSION);
+    }
+
+    /**
+     * Writes one row of values, flushing the buffer into the channel when full.
+     *
+     * @param channel FileChannel
+     * @param buffer ByteBuffer
+     * @param row double[]
+     * @param columns int
+     * @throws IOException
+     */
+    private static void writeRow(FileChannel channel, ByteBuffer buffer, double[] row, int columns)
+            throws IOException {
+        if ( row.length != columns ) throw new IllegalArgumentException("All rows must have "+columns+" columns.");
+        for ( double value : row ) {
+            if ( buffer.remaining() < Double.BYTES ) {
+                buffer.flip();
+                while ( buffer.hasRemaining() ) channel.write(buffer);
+                buffer.clear();
+            }
+            buffer.putDouble(value);
+        }
+    }
+
+    /**
+     * Appends the description of each map in turn.
+     *
+     * @param description StringBuilder
+     * @param name String
+     * @param columnMap List of VectorMap
+     */
+    private static void appendMaps(StringBuilder description, String name, List<VectorMap> columnMap) {
+        if ( columnMap == null ) return;
+        for ( VectorMap vectorMap : columnMap ) {
+            description.append('\n').append(name).append('=').append(vectorMap.getSourceIndex());
+            MathOperatorCore<?> mapTransform = vectorMap.getMapTransform();
+            if ( mapTransform == null ) continue;
+            description.append(':').append(mapTransform.getId())
+                .append(':').append(Double.doubleToLongBits(mapTransform.getBiasValue()));
+            if ( mapTransform instanceof MultiColumnOperatorCore ) {
+                for ( int sourceIndex : ((MultiColumnOperatorCore<?>) mapTransform).getOtherSourceIndexes() ) {
+                    description.append(',').append(sourceIndex);
+                }
+            }
+        }
+    }
+
+    /**
+     * The SHA-256 hash of the given text.
+     *
+     * @param text String
+     * @return byte[]
+     */
+    static byte[] sha256(String text) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The given bytes as hex digits.
+     *
+     * @param bytes byte[]
+     * @return String
+     */
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for ( byte value : bytes ) hex.append(String.format("%02x", value));
+        return hex.toString();
+    }
+
+    /**
+     * One entry of the cache, with its header already read. The rows are
+     * only read once asked for.
+     */
+    public static class CacheEntry {
+
+        /**
+         * The entry file.
+         */
+        private final File file;
+
+        /**
+         * The number of training rows, -1 if not in use.
+         */
+        private final int trainingRows;
+
+        /**
+         * The number of testing rows, -1 if not in use.
+         */
+        private final int testingRows;
+
+        /**
+         * The number of columns per row.
+         */
+        private final int columns;
+
+        /**
+         * The data min, data max, normalising min and normalising max values.
+         */
+        private final double[][] columnRanges;
+
+        /**
+         * Constructing the entry with its header values.
+         *
+         * @param file File
+         * @param trainingRows int
+         * @param testingRows int
+         * @param columns int
+         * @param columnRanges double[][]
+         */
+        private CacheEntry(File file, int trainingRows, int testingRows, int columns, double[][] columnRanges) {
+            this.file = file;
+            this.trainingRows = trainingRows;
+            this.testingRows = testingRows;
+            this.columns = columns;
+            this.columnRanges = columnRanges;
+        }
+
+        /**
+         * The number of training rows, -1 if not in use.
+         *
+         * @return int
+         */
+        public int getTrainingRows() {
+            return trainingRows;
+        }
+
+        /**
+         * The number of testing rows, -1 if not in use.
+         *
+         * @return int
+         */
+        public int getTestingRows() {
+            return testingRows;
+        }
+
+        /**
+         * The number of columns of each row.
+         *
+         * @return int
+         */
+        public int getNumberOfColumns() {
+            return columns;
+        }
+
+        /**
+         * The min values of the data before it was normalised.
+         *
+         * @return double[]
+         */
+        public double[] getDataMinValues() {
+            return columnRanges[0].clone();
+        }
+
+        /**
+         * The max values of the data before it was normalised.
+         *
+         * @return double[]
+         */
+        public double[] getDataMaxValues() {
+            return columnRanges[1].clone();
+        }
+
+        /**
+         * The min values the data was normalised with.
+         *
+         * @return double[]
+         */
+        public double[] getMinValues() {
+            return columnRanges[2].clone();
+        }
+
+        /**
+         * The max values the data was normalised with.
+         *
+         * @return double[]
+         */
+        public double[] getMaxValues() {
+            return columnRanges[3].clone();
+        }
+
+        /**
+         * Reads the training and testing rows from the memory mapped entry
+         * into the given storages, sized as given by this entry. Either may be
+         * null to skip its rows.
+         *
+         * @param training DataStorage
+         * @param testing DataStorage
+         * @throws IOException
+         */
+        public void readRows(DataStorage training, DataStorage testing) throws IOException {
+            try ( FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ) ) {
+                long position = HEADER_SIZE + 4L * columns * Double.BYTES;
+                position = readRows(channel, position, trainingRows, training);
+                readRows(channel, position, testingRows, testing);
+            }
+        }
+
+        /**
+         * Reads the given rows from the channel, mapping as many rows at a
+         * time as fit into one mapped buffer.
+         *
+         * @param channel FileChannel
+         * @param position long where the first row starts
+         * @param numberOfRows int in the entry, -1 if not in use
+         * @param rows DataStorage to fill in, or null to skip the rows
+         * @return long where the next row starts
+         * @throws IOException
+         */
+        private long readRows(FileChannel channel, long position, int numberOfRows, DataStorage rows)
+                throws IOException {
+            if ( numberOfRows < 0 ) return position;
+            long rowSize = (long) columns * Double.BYTES;
+            if ( rows == null ) return position + numberOfRows * rowSize;
+            if ( rows.getNumberOfRows() != numberOfRows ) 
+                throw new IllegalArgumentException("Storage must hold "+numberOfRows+" rows.");
+            int rowsPerMap = (int) Math.max(1, MAX_MAPPED_SIZE / rowSize);
+            double[] row = new double[columns];
+            for ( int first = 0; first < numberOfRows; first += rowsPerMap ) {
+                int count = Math.min(rowsPerMap, numberOfRows - first);
+                DoubleBuffer values = channel.map(MapMode.READ_ONLY, position, count * rowSize)
+                        .order(BYTE_ORDER).asDoubleBuffer();
+                for ( int index = first; index < first + count; index++ ) {
+                    values.get(row);
+                    rows.writeRow(index, row);
+                }
+                position += count * rowSize;
+            }
+            return position;
+        }
+    }
+}
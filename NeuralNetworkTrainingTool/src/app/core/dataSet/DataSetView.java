@@ -0,0 +1,155 @@
+package app.core.dataSet;
+
+/**
+ * A data set sharing the rows loaded by another, never rewriting them.
+ * Normalising the view only swaps its rows for read only views normalising
+ * each value as it is read, and de-normalising swaps them back to the rows
+ * as loaded, so neither goes through the data.<p>
+ * 
+ * Each view keeps its own normalisation mode and values, so experiments
+ * needing different normalisations can share one loaded data set at once.
+ * The data set viewed is not to be loaded again while its views are in
+ * use, nor normalised if normalised in place.
+ * 
+ * @author Vasco
+ *
+ */
+public class DataSetView extends DataSet {
+
+    /**
+     * The data set viewed.
+     */
+    private final DataSet source;
+
+    /**
+     * The training rows as loaded, null if none.
+     */
+    private DataStorage rawTrainingStorage;
+
+    /**
+     * The testing rows as loaded, null if none.
+     */
+    private DataStorage rawTestingStorage;
+
+    /**
+     * The training rows as seen through this view.
+     */
+    private DataStorage viewTrainingStorage;
+
+    /**
+     * The testing rows as seen through this view.
+     */
+    private DataStorage viewTestingStorage;
+
+    /**
+     * Constructing the view over the rows already loaded by the given data
+     * set, in the same normalisation mode and with the same column maps.
+     * 
+     * @param source DataSet loaded and not normalised in place
+     */
+    public DataSetView(DataSet source) {
+        if ( source == null ) throw new IllegalArgumentException("Data set cannot be null.");
+        this.source = source;
+        this.outputColumnMap = source.outputColumnMap;
+        this.inputColumnMap = source.inputColumnMap;
+        setNormalisationMode(source.getNormalisationMode());
+        setNormalisationStore(source.getNormalisationStore());
+        load();
+    }
+
+    /**
+     * Takes the rows now loaded by the data set viewed, as loaded.
+     */
+    @Override
+    public void load() {
+        rawTrainingStorage = source.getStoredTrainingStorage();
+        rawTestingStorage = source.getStoredTestingStorage();
+        if ( rawTrainingStorage == null && rawTestingStorage == null ) throw new IllegalStateException("Data not yet loaded.");
+        viewTrainingStorage = rawTrainingStorage;
+        viewTestingStorage = rawTestingStorage;
+        setColumnStatistics(source.getStatisticsOfData(), true);
+    }
+
+    /**
+     * Normalises the rows as they are read from now on, with the values set
+     * or saved for the normalisation mode, or else those of the rows.
+     */
+    @Override
+    public void normalise() {
+        // The values of the rows are only found from the rows as loaded.
+        viewTrainingStorage = rawTrainingStorage;
+        viewTestingStorage = rawTestingStorage;
+        prepareNormalisationValues();
+        viewTrainingStorage = createView(rawTrainingStorage);
+        viewTestingStorage = createView(rawTestingStorage);
+    }
+
+    /**
+     * Reads the rows as loaded from now on.
+     */
+    @Override
+    public void deNormalise() {
+        viewTrainingStorage = rawTrainingStorage;
+        viewTestingStorage = rawTestingStorage;
+    }
+
+    /**
+     * Checks if the rows are normalised as read.
+     * 
+     * @return boolean
+     */
+    public boolean isNormalised() {
+        return viewTrainingStorage != rawTrainingStorage || viewTestingStorage != rawTestingStorage;
+    }
+
+    /**
+     * The key of the data set viewed, in the given mode.
+     */
+    @Override
+    protected String getNormalisationKey(NormalisationMode mode) {
+        return source.getNormalisationKey(mode);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataStorage getTrainingStorage() {
+        return viewTrainingStorage;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataStorage getTestingStorage() {
+        return viewTestingStorage;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataStorage getStoredTrainingStorage() {
+        return rawTrainingStorage;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataStorage getStoredTestingStorage() {
+        return rawTestingStorage;
+    }
+
+    /**
+     * The normalised view of the given rows.
+     * 
+     * @param storage DataStorage or null
+     * @return DataStorage or null
+     */
+    private DataStorage createView(DataStorage storage) {
+        if ( storage == null ) return null;
+        return new NormalisedDataStorage(storage, createNormalisationKernel(storage.getNumberOfColumns(), true));
+    }
+}
@@ -0,0 +1,120 @@
+package app.core.dataSet;
+
+/**
+ * The storage of the rows of one data set, all with the same number of
+ * columns. This allows data sets to be kept in memory, on disk, or in any
+ * other form, while DataSet accesses all rows the same way.<p>
+ *
+ * All methods throw ArrayIndexOutOfBoundsException for rows out of range,
+ * as a double[][] would.
+ *
+ * @author Vasco
+ *
+ */
+public interface DataStorage {
+
+    /**
+     * The number of rows stored.
+     *
+     * @return int
+     */
+    public int getNumberOfRows();
+
+    /**
+     * The number of columns of each row.
+     *
+     * @return int
+     */
+    public int getNumberOfColumns();
+
+    /**
+     * A new array with the values of the given columns of the row.
+     *
+     * @param row int
+     * @param fromColumn int first column
+     * @param toColumn int column after the last
+     * @return double[]
+     */
+    public double[] getRow(int row, int fromColumn, int toColumn);
+
+    /**
+     * Copies all the values of the row into the target array.
+     *
+     * @param row int
+     * @param target double[] at least as long as the number of columns
+     */
+    public void readRow(int row, double[] target);
+
+    /**
+     * Copies the values of the given columns of the row into the start of
+     * the target array, so one array can be read into over and over.
+     *
+     * @param row int
+     * @param fromColumn int first column
+     * @param toColumn int column after the last
+     * @param target double[] at least as long as the number of columns given
+     */
+    public default void readRow(int row, int fromColumn, int toColumn, double[] target) {
+        double[] values = getRow(row, fromColumn, toColumn);
+        System.arraycopy(values, 0, target, 0, values.length);
+    }
+
+    /**
+     * Replaces all the values of the row with those given.
+     *
+     * @param row int
+     * @param values double[] at least as long as the number of columns
+     */
+    public void writeRow(int row, double[] values);
+
+    /**
+     * Copies the values of one column, for the given number of rows from
+     * the first row given, into the target array.
+     *
+     * @param column int
+     * @param fromRow int
+     * @param count int number of rows
+     * @param target double[] at least count long
+     */
+    public default void readColumn(int column, int fromRow, int count, double[] target) {
+        double[] row = new double[getNumberOfColumns()];
+        for ( int index = 0; index < count; index++ ) {
+            readRow(fromRow + index, row);
+            target[index] = row[column];
+        }
+    }
+
+    /**
+     * Replaces the values of one column, for the given number of rows from
+     * the first row given, with those given.
+     *
+     * @param column int
+     * @param fromRow int
+     * @param count int number of rows
+     * @param values double[] at least count long
+     */
+    public default void writeColumn(int column, int fromRow, int count, double[] values) {
+        double[] row = new double[getNumberOfColumns()];
+        for ( int index = 0; index < count; index++ ) {
+            readRow(fromRow + index, row);
+            row[column] = values[index];
+            writeRow(fromRow + index, row);
+        }
+    }
+
+    /**
+     * The layout of the values, showing whether rows or columns are best
+     * gone through one after the other.
+     *
+     * @return StorageLayout
+     */
+    public default StorageLayout getLayout() {
+        return StorageLayout.ROW_MAJOR;
+    }
+
+    /**
+     * Releases any resources held, after which the storage is not to be
+     * used any longer.
+     */
+    public void close();
+}
@@ -0,0 +1,211 @@
+package app.core.dataSet;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits lines into fields on a separator taken literally, byte by byte,
+ * with no regular expression involved. Numeric fields are parsed straight
+ * into the target double array with no String created per field.<p>
+ *
+ * Splitting follows String.split() rules for everything but regular
+ * expressions: trailing empty fields are dropped, and a line with no
+ * separator at all is a single field.<p>
+ *
+ * A projection of the fields in use may be given, so those not in use are
+ * skipped over without being parsed, and nothing past the last field in use
+ * is looked at.
+ *
+ * @author Vasco
+ *
+ */
+public class DelimitedLineParser {
+
+    /**
+     * The separator as a String.
+     */
+    private final String separator;
+
+    /**
+     * The separator bytes, empty if no separator is to be used.
+     */
+    private final byte[] separatorBytes;
+
+    /**
+     * The fields in use, null if all.
+     */
+    private final boolean[] projection;
+
+    /**
+     * The last field in use.
+     */
+    private final int lastField;
+
+    /**
+     * Constructing the parser for the given separator. A null or empty
+     * separator leaves every line as one single field.
+     *
+     * @param separator String
+     */
+    public DelimitedLineParser(String separator) {
+        this(separator, null);
+    }
+
+    /**
+     * Constructing the parser for the given separator, parsing only the
+     * fields set in the projection.
+     *
+     * @param separator String
+     * @param projection boolean[] true for each field in use, or null for all
+     */
+    public DelimitedLineParser(String separator, boolean[] projection) {
+        this.separator = separator == null ? "" : separator;
+        this.separatorBytes = this.separator.getBytes(Charset.defaultCharset());
+        this.projection = projection == null ? null : projection.clone();
+        int last = projection == null ? Integer.MAX_VALUE : -1;
+        if ( projection != null ) {
+            for ( int field = 0; field < projection.length; field++ ) if ( projection[field] ) last = field;
+        }
+        this.lastField = last;
+    }
+
+    /**
+     * Parses each field of the line in use as a double into the target array,
+     * in field order, returning the number of fields gone through. Fields not
+     * in use are left as they are in the target array.
+     *
+     * @param line byte[]
+     * @param from int first index
+     * @param to int index after the last
+     * @param target double[]
+     * @return int number of fields, up to the last one in use
+     * @throws NumberFormatException if any field in use is not a number
+     * @throws ArrayIndexOutOfBoundsException if more fields than target size
+     */
+    public int parse(byte[] line, int from, int to, double[] target) {
+        to = getEndWithoutTrailingSeparators(line, from, to);
+        int field = 0;
+        int fieldStart = from;
+        int separatorLength = separatorBytes.length;
+        if ( separatorLength == 1 ) {
+            byte separatorByte = separatorBytes[0];
+            for ( int index = from; index < to; index++ ) {
+                if ( line[index] == separatorByte ) {
+                    if ( isInUse(field) ) target[field] = FastDoubleParser.parse(line, fieldStart, index);
+                    if ( field++ == lastField ) return field;
+                    fieldStart = index + 1;
+                }
+            }
+        }
+        else if ( separatorLength > 1 ) {
+            for ( int index = from; index <= to - separatorLength; ) {
+                if ( isSeparatorAt(line, index) ) {
+                    if ( isInUse(field) ) target[field] = FastDoubleParser.parse(line, fieldStart, index);
+                    if ( field++ == lastField ) return field;
+                    index += separatorLength;
+                    fieldStart = index;
+                }
+                else {
+                    index++;
+                }
+            }
+        }
+        if ( isInUse(field) ) target[field] = FastDoubleParser.parse(line, fieldStart, to);
+        return field + 1;
+    }
+
+    /**
+     * Checks if the field is in use.
+     *
+     * @param field int
+     * @return boolean
+     */
+    private boolean isInUse(int field) {
+        return projection == null || ( field < projection.length && projection[field] );
+    }
+
+    /**
+     * The number of fields in the line.
+     *
+     * @param line byte[]
+     * @param from int first index
+     * @param to int index after the last
+     * @return int
+     */
+    public int countFields(byte[] line, int from, int to) {
+        to = getEndWithoutTrailingSeparators(line, from, to);
+        if ( separatorBytes.length == 0 ) return 1;
+        int fields = 1;
+        for ( int index = from; index <= to - separatorBytes.length; ) {
+            if ( isSeparatorAt(line, index) ) {
+                fields++;
+                index += separatorBytes.length;
+            }
+            else {
+                index++;
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Splits the line into its fields as Strings.
+     *
+     * @param line String
+     * @return List of String
+     */
+    public List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        if ( separator.length() == 0 ) {
+            fields.add(line);
+            return fields;
+        }
+        int end = line.length();
+        while ( end >= separator.length() && line.startsWith(separator, end - separator.length()) ) {
+            end -= separator.length();
+        }
+        if ( end == 0 && line.length() > 0 ) return fields;
+
+        int fieldStart = 0;
+        int index = line.indexOf(separator, fieldStart);
+        while ( index >= 0 && index < end ) {
+            fields.add(line.substring(fieldStart, index));
+            fieldStart = index + separator.length();
+            index = line.indexOf(separator, fieldStart);
+        }
+        fields.add(line.substring(fieldStart, end));
+        return fields;
+    }
+
+    /**
+     * Checks if the separator starts at the given index.
+     *
+     * @param line byte[]
+     * @param index int
+     * @return boolean
+     */
+    private boolean isSeparatorAt(byte[] line, int index) {
+        for ( int offset = 0; offset < separatorBytes.length; offset++ ) {
+            if ( line[index + offset] != separatorBytes[offset] ) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The end of the line once all trailing separators are dropped, the
+     * same way String.split() drops trailing empty fields.
+     *
+     * @param line byte[]
+     * @param from int
+     * @param to int
+     * @return int
+     */
+    private int getEndWithoutTrailingSeparators(byte[] line, int from, int to) {
+        if ( separatorBytes.length == 0 ) return to;
+        while ( to - from >= separatorBytes.length && isSeparatorAt(line, to - separatorBytes.length) ) {
+            to -= separatorBytes.length;
+        }
+        return to;
+    }
+}
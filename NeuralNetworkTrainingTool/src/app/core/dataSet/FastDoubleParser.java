@@ -0,0 +1,251 @@
+package app.core.dataSet;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers straight from bytes into doubles, without
+ * creating any String or other object on the way.<p>
+ *
+ * Plain decimal numbers of up to 19 significant digits, with or without
+ * exponent, are converted with the Clinger fast path when exact, or the
+ * Eisel-Lemire algorithm otherwise. Both round exactly as
+ * Double.parseDouble does. Anything else, such as NaN, Infinity, hex
+ * numbers, subnormals or more than 19 significant digits, falls back to
+ * Double.parseDouble itself.
+ *
+ * @author Vasco
+ *
+ */
+public abstract class FastDoubleParser {
+
+    /**
+     * The smallest power of ten with a non zero double.
+     */
+    private static final int SMALLEST_POWER_OF_TEN = -342;
+
+    /**
+     * The largest power of ten with a finite double.
+     */
+    private static final int LARGEST_POWER_OF_TEN = 308;
+
+    /**
+     * The maximum number of significant digits held in the mantissa.
+     */
+    private static final int MAX_DIGITS = 19;
+
+    /**
+     * Exact powers of ten as doubles, for the Clinger fast path.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /**
+     * The 128 bit truncated powers of five from 5^-342 to 5^308, as pairs
+     * of high and low 64 bits, built once when the class is loaded.
+     */
+    private static final long[] POWERS_OF_FIVE = buildPowersOfFive();
+
+    /**
+     * Parses the double held between the given indexes, ignoring any white
+     * space around it, as Double.parseDouble does.
+     *
+     * @param bytes byte[]
+     * @param from int first index
+     * @param to int index after the last
+     * @return double
+     * @throws NumberFormatException if not a number
+     */
+    public static double parse(byte[] bytes, int from, int to) {
+        while ( from < to && bytes[from] <= ' ' ) from++;
+        while ( to > from && bytes[to - 1] <= ' ' ) to--;
+        if ( from == to ) throw new NumberFormatException("empty String");
+
+        int index = from;
+        boolean negative = false;
+        if ( bytes[index] == '-' ) {
+            negative = true;
+            index++;
+        }
+        else if ( bytes[index] == '+' ) {
+            index++;
+        }
+
+        // Mantissa digits, counting the power of ten to apply.
+        long mantissa = 0;
+        int digits = 0;
+        long exponent = 0;
+        boolean hasDigits = false;
+        boolean truncated = false;
+        for ( ; index < to; index++ ) {
+            int digit = bytes[index] - '0';
+            if ( digit < 0 || digit > 9 ) break;
+            hasDigits = true;
+            if ( digits < MAX_DIGITS ) {
+                mantissa = mantissa * 10 + digit;
+                if ( mantissa != 0 ) digits++;
+            }
+            else {
+                exponent++;
+                if ( digit != 0 ) truncated = true;
+            }
+        }
+        if ( index < to && bytes[index] == '.' ) {
+            for ( index++; index < to; index++ ) {
+                int digit = bytes[index] - '0';
+                if ( digit < 0 || digit > 9 ) break;
+                hasDigits = true;
+                if ( digits < MAX_DIGITS ) {
+                    mantissa = mantissa * 10 + digit;
+                    if ( mantissa != 0 ) digits++;
+                    exponent--;
+                }
+                else if ( digit != 0 ) {
+                    truncated = true;
+                }
+            }
+        }
+        if ( ! hasDigits ) return fallback(bytes, from, to);
+
+        // Optional exponent.
+        if ( index < to && ( bytes[index] == 'e' || bytes[index] == 'E' ) ) {
+            index++;
+            boolean negativeExponent = false;
+            if ( index < to && ( bytes[index] == '-' || bytes[index] == '+' ) ) {
+                negativeExponent = bytes[index] == '-';
+                index++;
+            }
+            if ( index == to ) return fallback(bytes, from, to);
+            long explicitExponent = 0;
+            for ( ; index < to; index++ ) {
+                int digit = bytes[index] - '0';
+                if ( digit < 0 || digit > 9 ) break;
+                if ( explicitExponent < 100000 ) explicitExponent = explicitExponent * 10 + digit;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        // Anything left, such as a type suffix, is left to Double.parseDouble.
+        if ( index != to || truncated ) return fallback(bytes, from, to);
+
+        double value = toDouble(mantissa, exponent);
+        if ( Double.isNaN(value) ) return fallback(bytes, from, to);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Converts mantissa * 10^exponent into the nearest double, or NaN if
+     * it cannot be done here and must be left to Double.parseDouble.
+     *
+     * @param mantissa long read as unsigned
+     * @param exponent long
+     * @return double
+     */
+    private static double toDouble(long mantissa, long exponent) {
+        if ( mantissa == 0 || exponent < SMALLEST_POWER_OF_TEN ) return 0.0;
+        if ( exponent > LARGEST_POWER_OF_TEN ) return Double.POSITIVE_INFINITY;
+
+        // Clinger fast path: both mantissa and power of ten exact doubles.
+        if ( mantissa >= 0 && mantissa <= ( 1L << 53 ) && exponent >= -22 && exponent <= 22 ) {
+            if ( exponent < 0 ) return mantissa / POWERS_OF_TEN[(int) -exponent];
+            return mantissa * POWERS_OF_TEN[(int) exponent];
+        }
+
+        // Eisel-Lemire, 128 bit product of the normalised mantissa by 5^exponent.
+        int q = (int) exponent;
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        long w = mantissa << leadingZeros;
+        int index = 2 * ( q - SMALLEST_POWER_OF_TEN );
+        long high = multiplyHigh(w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        long precisionMask = 0xFFFFFFFFFFFFFFFFL >>> 55;
+        if ( ( high & precisionMask ) == precisionMask ) {
+            long secondHigh = multiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            low += secondHigh;
+            if ( Long.compareUnsigned(secondHigh, low) > 0 ) high++;
+        }
+        if ( low == 0xFFFFFFFFFFFFFFFFL && ( q < -27 || q > 55 ) ) return Double.NaN;
+
+        int upperBit = (int) ( high >>> 63 );
+        int shift = upperBit + 64 - 52 - 3;
+        long bits = high >>> shift;
+        int power2 = ( ( ( 152170 + 65536 ) * q ) >> 16 ) + 63 + upperBit - leadingZeros + 1023;
+        if ( power2 <= 0 ) return Double.NaN;
+
+        // Exactly halfway between two doubles rounds to even.
+        if ( Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && ( bits & 3 ) == 1 ) {
+            if ( ( bits << shift ) == high ) bits &= ~1L;
+        }
+        bits += bits & 1;
+        bits >>>= 1;
+        if ( bits >= ( 2L << 52 ) ) {
+            bits = 1L << 52;
+            power2++;
+        }
+        bits &= ~( 1L << 52 );
+        if ( power2 >= 0x7FF ) return Double.POSITIVE_INFINITY;
+        return Double.longBitsToDouble(bits | ( (long) power2 << 52 ));
+    }
+
+    /**
+     * The high 64 bits of the unsigned 128 bit product.
+     *
+     * @param x long
+     * @param y long
+     * @return long
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long p01 = x0 * y1;
+        long p10 = x1 * y0;
+        long middle = p10 + ( ( x0 * y0 ) >>> 32 ) + ( p01 & 0xFFFFFFFFL );
+        return x1 * y1 + ( middle >>> 32 ) + ( p01 >>> 32 );
+    }
+
+    /**
+     * Leaves the given bytes to Double.parseDouble.
+     *
+     * @param bytes byte[]
+     * @param from int
+     * @param to int
+     * @return double
+     */
+    private static double fallback(byte[] bytes, int from, int to) {
+        return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Builds the table of 128 bit truncated powers of five, the same the
+     * Eisel-Lemire algorithm is published with.
+     *
+     * @return long[]
+     */
+    private static long[] buildPowersOfFive() {
+        long[] table = new long[2 * ( LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1 )];
+        BigInteger limit = BigInteger.ONE.shiftLeft(128);
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        int index = 0;
+        for ( int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; q++ ) {
+            BigInteger value;
+            if ( q < 0 ) {
+                BigInteger power = BigInteger.valueOf(5).pow(-q);
+                int z = power.subtract(BigInteger.ONE).bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                value = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+                while ( value.compareTo(limit) >= 0 ) value = value.shiftRight(1);
+            }
+            else {
+                value = BigInteger.valueOf(5).pow(q);
+                if ( value.bitLength() < 128 ) value = value.shiftLeft(128 - value.bitLength());
+                else value = value.shiftRight(value.bitLength() - 128);
+            }
+            table[index++] = value.shiftRight(64).longValue();
+            table[index++] = value.and(mask).longValue();
+        }
+        return table;
+    }
+}
@@ -1,11 +1,14 @@
 package app.core.dataSet;
 
 import java.io.BufferedReader;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import app.model.serializable.FileAttributes;
 
@@ -34,6 +37,43 @@ public class FileDataSet extends DataSet {
      */
     private int numberOfVectorColumns = 0;
 
+    /**
+     * The strategy used to read the file into memory.
+     */
+    private FileLoadMode loadMode = FileLoadMode.SEQUENTIAL;
+
+    /**
+     * The cache of loaded and normalised data, null if not in use.
+     */
+    private DataSetCache cache;
+
+    /**
+     * Set when the last loadNormalised() read the data from the cache.
+     */
+    private boolean loadedFromCache = false;
+
+    /**
+     * The normalisation of each column applied to rows as parsed, null to
+     * keep the rows as loaded.
+     */
+    private NormalisationKernel normalisers;
+
+    /**
+     * The source columns in use by any map, the only ones parsed.
+     */
+    private boolean[] projectedColumns;
+
+    /**
+     * The output and input maps compiled into one transform of each row.
+     */
+    private RowTransform rowTransform;
+
+    /**
+     * The row parsers of the current load, each gathering the statistics
+     * of the rows it parsed.
+     */
+    private final List<FileRowParser> rowParsers = new LinkedList<>();
+
     /**
      * Constructing with FileAttributes to allow changes to requirements of 
      * the load to be set away from this class.
@@ -62,11 +102,347 @@ public class FileDataSet extends DataSet {
         }
     }
 
+    /**
+     * The strategy used to read the file into memory.
+     * 
+     * @return FileLoadMode
+     */
+    public FileLoadMode getLoadMode() {
+        return loadMode;
+    }
+
+    /**
+     * Sets the strategy to read the file into memory on the next load().
+     * 
+     * @param loadMode FileLoadMode
+     */
+    public void setLoadMode(FileLoadMode loadMode) {
+        if ( loadMode == null ) throw new IllegalArgumentException("Load mode cannot be null.");
+        this.loadMode = loadMode;
+    }
+
+    /**
+     * The cache of loaded and normalised data.
+     * 
+     * @return DataSetCache or null if not in use.
+     */
+    public DataSetCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the cache used by loadNormalised() to reuse the data loaded and
+     * normalised by past runs, or null to always load from file.
+     * 
+     * @param cache DataSetCache
+     */
+    public void setCache(DataSetCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Checks if the last loadNormalised() read the data from the cache.
+     * 
+     * @return boolean
+     */
+    public boolean isLoadedFromCache() {
+        return loadedFromCache;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void load() {
+        prepareLoad();
+
+        // Load Training and Testing data sets in one single pass.
+        loadData();
+    }
+
+    /**
+     * {@inheritDoc}<p>
+     * 
+     * If a cache is set, the data is read from the cache entry matching the
+     * file, its attributes and the column maps, as long as it would be
+     * normalised with the same min and max values. Otherwise the data is
+     * loaded and normalised from file, and saved into the cache.<p>
+     * 
+     * If the min and max values are already known, each row is normalised
+     * as soon as parsed, so the data is only gone through once.
+     */
+    @Override
+    public void loadNormalised() {
+        loadedFromCache = false;
+        prepareLoad();
+        if ( cache == null ) {
+            loadAndNormalise();
+            return;
+        }
+
+        String key = null;
+        try {
+            key = cache.getKey(fileAttributes, outputColumnMap, inputColumnMap, getColumnPrecisions(), 
+                    getNormalisationMode());
+            DataSetCache.CacheEntry entry = cache.open(key);
+            if ( entry != null && isNormalisedAsCached(entry) ) {
+                DataStorage training = entry.getTrainingRows() < 0 ? null : 
+                    createStorage(entry.getTrainingRows(), entry.getNumberOfColumns());
+                DataStorage testing = entry.getTestingRows() < 0 ? null : 
+                    createStorage(entry.getTestingRows(), entry.getNumberOfColumns());
+                entry.readRows(training, testing);
+                if ( training != null ) setTrainingStorage(training);
+                if ( testing != null ) setTestingStorage(testing);
+                repackStorages(true);
+                minValues = entry.getMinValues();
+                maxValues = entry.getMaxValues();
+                saveNormalisedValues();
+                loadedFromCache = true;
+                return;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        double[][] dataRanges = loadAndNormalise();
+        if ( key == null || minValues == null ) return;
+        try {
+            cache.save(key, fileAttributes.isHasTrainingRange() ? getTrainingStorage() : null, 
+                    fileAttributes.isHasTestingRange() ? getTestingStorage() : null, 
+                    dataRanges[0], dataRanges[1], minValues, maxValues);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the data and normalises it, while parsing each row if the min
+     * and max values are already known, or else once all loaded.
+     * 
+     * @return double[][] the min and max values of the data as loaded
+     */
+    private double[][] loadAndNormalise() {
+        if ( loadSavedNormalisationValues() && minValues.length == numberOfVectorColumns 
+                && maxValues.length == numberOfVectorColumns ) {
+            normalisers = createNormalisers();
+            try {
+                loadData();
+            } finally {
+                normalisers = null;
+            }
+            ColumnStatistics statistics = getColumnStatistics();
+            if ( statistics != null && statistics.getCount() == getNumberOfLoadedRows() ) {
+                repackStorages(true);
+                saveNormalisedValues();
+                return new double[][] { statistics.getMinValues(), statistics.getMaxValues() };
+            }
+            // Rows never read were not normalised, so normalise it all instead.
+        }
+
+        loadData();
+        ColumnStatistics statistics = gatherColumnStatistics();
+        double[][] dataRanges = new double[][] { statistics.getMinValues(), statistics.getMaxValues() };
+        normalise();
+        return dataRanges;
+    }
+
+    /**
+     * The normalisation of each column with the values set.
+     * 
+     * @return NormalisationKernel
+     */
+    private NormalisationKernel createNormalisers() {
+        return createNormalisationKernel(numberOfVectorColumns, true);
+    }
+
+    /**
+     * Opens a pipeline streaming the normalised training rows straight from
+     * file, without loading the data set. The rows are parsed and normalised
+     * by background threads while the rows already prepared are used, so
+     * they can be used as soon as the first block is ready.<p>
+     * 
+     * The rows are normalised with the min and max values already set or
+     * saved, which must be those of the data, or else found by one pass over
+     * both ranges and saved. The pipeline is to be opened and closed by the
+     * caller.
+     * 
+     * @param rowsPerBlock int
+     * @param numberOfBlocks int
+     * @return RowBlockPipeline
+     */
+    public RowBlockPipeline openTrainingPipeline(int rowsPerBlock, int numberOfBlocks) {
+        return openTrainingPipeline(rowsPerBlock, numberOfBlocks, RowBlockPipeline.DEFAULT_NUMBER_OF_PARSERS);
+    }
+
+    /**
+     * Opens a pipeline streaming the normalised training rows straight from
+     * file, as openTrainingPipeline() does, with the given number of parser
+     * threads, as when several pipelines stream at once.
+     * 
+     * @param rowsPerBlock int
+     * @param numberOfBlocks int
+     * @param numberOfParsers int
+     * @return RowBlockPipeline
+     */
+    public RowBlockPipeline openTrainingPipeline(int rowsPerBlock, int numberOfBlocks, int numberOfParsers) {
+        prepareLoad();
+        if ( ! fileAttributes.isHasTrainingRange() ) throw new IllegalStateException("No training range set.");
+        NormalisationKernel rowNormalisers = getPipelineNormalisers();
+        return createPipeline(fileAttributes.getTrainingStartIndex(), fileAttributes.getTrainingEndIndex(), 
+                () -> new FileRowParser(rowNormalisers), rowsPerBlock, numberOfBlocks, numberOfParsers);
+    }
+
+    /**
+     * Opens a pipeline streaming the normalised testing rows straight from
+     * file, as openTrainingPipeline() does for the training rows.
+     * 
+     * @param rowsPerBlock int
+     * @param numberOfBlocks int
+     * @return RowBlockPipeline
+     */
+    public RowBlockPipeline openTestingPipeline(int rowsPerBlock, int numberOfBlocks) {
+        prepareLoad();
+        if ( ! fileAttributes.isHasTestingRange() ) throw new IllegalStateException("No testing range set.");
+        NormalisationKernel rowNormalisers = getPipelineNormalisers();
+        return createPipeline(fileAttributes.getTestingStartIndex(), fileAttributes.getTestingEndIndex(), 
+                () -> new FileRowParser(rowNormalisers), rowsPerBlock, numberOfBlocks, 
+                RowBlockPipeline.DEFAULT_NUMBER_OF_PARSERS);
+    }
+
+    /**
+     * The normalisation of each column of the rows streamed, with the min
+     * and max values set or saved if any, or else those of both ranges
+     * found by streaming them once, which are saved.
+     * 
+     * @return NormalisationKernel
+     */
+    private NormalisationKernel getPipelineNormalisers() {
+        if ( ! ( loadSavedNormalisationValues() && minValues.length == numberOfVectorColumns 
+                && maxValues.length == numberOfVectorColumns ) ) {
+            minValues = null;
+            maxValues = null;
+            prepareNormalisationValues(this::streamNormalisationValues);
+        }
+        return createNormalisers();
+    }
+
+    /**
+     * Sets the values to normalise with from the statistics of both ranges,
+     * found by streaming them once.
+     */
+    private void streamNormalisationValues() {
+        List<FileRowParser> parsers = new LinkedList<>();
+        Supplier<RowParser> statisticsParsers = () -> {
+            FileRowParser parser = new FileRowParser(null);
+            synchronized ( parsers ) {
+                parsers.add(parser);
+            }
+            return parser;
+        };
+        List<RowBlockPipeline> pipelines = new LinkedList<>();
+        if ( fileAttributes.isHasTrainingRange() ) {
+            pipelines.add(createPipeline(fileAttributes.getTrainingStartIndex(), fileAttributes.getTrainingEndIndex(), 
+                    statisticsParsers, RowBlockPipeline.DEFAULT_ROWS_PER_BLOCK, RowBlockPipeline.DEFAULT_NUMBER_OF_BLOCKS, 
+                    RowBlockPipeline.DEFAULT_NUMBER_OF_PARSERS));
+        }
+        if ( fileAttributes.isHasTestingRange() ) {
+            pipelines.add(createPipeline(fileAttributes.getTestingStartIndex(), fileAttributes.getTestingEndIndex(), 
+                    statisticsParsers, RowBlockPipeline.DEFAULT_ROWS_PER_BLOCK, RowBlockPipeline.DEFAULT_NUMBER_OF_BLOCKS, 
+                    RowBlockPipeline.DEFAULT_NUMBER_OF_PARSERS));
+        }
+        for ( RowBlockPipeline pipeline : pipelines ) {
+            try ( RowBlockPipeline rows = pipeline ) {
+                rows.open(0, rows.getNumberOfRows(), false);
+                RowBlock block;
+                while ( ( block = rows.take() ) != null ) rows.release(block);
+            }
+        }
+
+        ColumnStatistics statistics = new ColumnStatistics(numberOfVectorColumns, isGatheringQuantiles());
+        for ( FileRowParser parser : parsers ) statistics.merge(parser.statistics);
+        setNormalisationValues(statistics);
+    }
+
+    /**
+     * A pipeline over the given range of rows in file, starting from the
+     * first data row if the range starts within the header rows.
+     * 
+     * @param startRow int
+     * @param endRow int
+     * @param parsers Supplier of the RowParser of each parser thread
+     * @param rowsPerBlock int
+     * @param numberOfBlocks int
+     * @param numberOfParsers int
+     * @return RowBlockPipeline
+     */
+    private RowBlockPipeline createPipeline(int startRow, int endRow, Supplier<RowParser> parsers, 
+            int rowsPerBlock, int numberOfBlocks, int numberOfParsers) {
+        int firstLine = Math.max(startRow, fileAttributes.getHeaderRows() + 1);
+        RowOffsetIndex rowIndex = null;
+        if ( fileAttributes.isUseRowIndex() ) {
+            try {
+                rowIndex = RowOffsetIndex.open(fileAttributes.getFilename());
+            } catch (IOException e) {
+                // Still usable by reading the rows before the range.
+                e.printStackTrace();
+            }
+        }
+        return new RowBlockPipeline(fileAttributes.getFilename(), rowIndex, firstLine, 
+                Math.max(0, endRow - firstLine + 1), numberOfVectorColumns, parsers, 
+                rowsPerBlock, numberOfBlocks, numberOfParsers);
+    }
+
+    /**
+     * The number of rows of both data sets.
+     * 
+     * @return long
+     */
+    private long getNumberOfLoadedRows() {
+        long rows = 0;
+        for ( DataStorage storage : getStorages() ) rows += storage.getNumberOfRows();
+        return rows;
+    }
+
+    /**
+     * The fingerprint of the file, its attributes and the column maps, along
+     * with the given mode.
+     * 
+     * @param mode NormalisationMode
+     * @return String or null if the file cannot be found
+     */
+    @Override
+    protected String getNormalisationKey(NormalisationMode mode) {
+        try {
+            return NormalisationStore.getKey(fileAttributes, outputColumnMap, inputColumnMap, mode);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Checks the cached data was normalised with the same min and max values
+     * normalise() would use now: either those already set or saved, or else
+     * those of the data itself. Data normalised in other modes is only
+     * known to be so from the values set or saved.
+     * 
+     * @param entry CacheEntry
+     * @return boolean
+     */
+    private boolean isNormalisedAsCached(DataSetCache.CacheEntry entry) {
+        if ( loadSavedNormalisationValues() ) {
+            return Arrays.equals(minValues, entry.getMinValues()) && Arrays.equals(maxValues, entry.getMaxValues());
+        }
+        if ( getNormalisationMode() != NormalisationMode.MIN_MAX ) return false;
+        return Arrays.equals(entry.getDataMinValues(), entry.getMinValues()) 
+                && Arrays.equals(entry.getDataMaxValues(), entry.getMaxValues());
+    }
+
+    /**
+     * Gets everything ready to load the file: validates the ranges, finds
+     * the number of columns and sets the default maps.
+     */
+    private void prepareLoad() {
         // Validate possible new index ranges supplied.
         validateStartAndEndIndexes();
 
@@ -81,8 +457,28 @@ public class FileDataSet extends DataSet {
         // together.
         numberOfVectorColumns = outputColumnMap.size() + inputColumnMap.size();
 
-        // Load Training and Testing data sets in one single pass.
-        loadData();
+        // Only the source columns used by any map need to be parsed.
+        projectedColumns = getProjectedColumns();
+
+        // The maps as applied to every row.
+        rowTransform = new RowTransform(outputColumnMap, inputColumnMap);
+    }
+
+    /**
+     * The source columns used by the output and input maps.
+     * 
+     * @return boolean[] true for each source column in use
+     */
+    private boolean[] getProjectedColumns() {
+        boolean[] projection = new boolean[numberOfSourceColumnsPerRow];
+        for ( List<VectorMap> columnMap : Arrays.asList(outputColumnMap, inputColumnMap) ) {
+            for ( VectorMap vector : columnMap ) {
+                for ( int sourceIndex : vector.getSourceIndexes() ) {
+                    if ( sourceIndex >= 0 && sourceIndex < projection.length ) projection[sourceIndex] = true;
+                }
+            }
+        }
+        return projection;
     }
 
     /**
@@ -179,26 +575,20 @@ public class FileDataSet extends DataSet {
      * Finds the first non header row to calculate the number of columns.
      */
     private void calculateNumberOfColumnsInFile() {
-        // Get the buffer handler ready..
-        BufferedReader bf = null;
-        try {
-            bf = new BufferedReader(new FileReader(fileAttributes.getFilename()));
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
-        
-        try {
+        // Get the line reader ready..
+        try ( ByteLineReader lineReader = new ByteLineReader(new FileInputStream(fileAttributes.getFilename())) ) {
             // Skip header rows.
             if ( fileAttributes.getHeaderRows() > 0 ) {
                 int ignoreRows = fileAttributes.getHeaderRows();
-                while ( bf.readLine() != null & ignoreRows-- > 0 );
+                while ( lineReader.readLine() & ignoreRows-- > 0 );
             }
 
             // Grab first data line
-            String line = bf.readLine();
+            lineReader.readLine();
 
             // Now we know the columns
-            numberOfSourceColumnsPerRow = line.split(fileAttributes.getSeparator()).length;
+            numberOfSourceColumnsPerRow = new DelimitedLineParser(fileAttributes.getSeparator())
+                    .countFields(lineReader.getBuffer(), lineReader.getLineStart(), lineReader.getLineEnd());
             
         } catch (IOException e) {
             e.printStackTrace();
@@ -213,41 +603,87 @@ public class FileDataSet extends DataSet {
         int startTrainingIndex = fileAttributes.getTrainingStartIndex();
         int endTrainingIndex   = fileAttributes.getTrainingEndIndex();
         int totalTrainingRows  = endTrainingIndex - startTrainingIndex + 1;
-        if ( fileAttributes.isHasTrainingRange()) super.trainingDataSet  = new double[totalTrainingRows][numberOfVectorColumns];
+        if ( fileAttributes.isHasTrainingRange()) setTrainingStorage(createStorage(totalTrainingRows, numberOfVectorColumns));
         int startTestingIndex  = fileAttributes.getTestingStartIndex();
         int endTestingIndex    = fileAttributes.getTestingEndIndex();
         int totalTestingRows   = endTestingIndex - startTestingIndex + 1;
-        if ( fileAttributes.isHasTestingRange()) super.testingDataSet   = new double[totalTestingRows][numberOfVectorColumns];
+        if ( fileAttributes.isHasTestingRange()) setTestingStorage(createStorage(totalTestingRows, numberOfVectorColumns));
     }
 
     /**
-     * Loading both data sets in one go, finding which is to load first.
+     * Creates the storage for the rows of one data set. By default, all rows
+     * are kept in memory, in the column precisions if any set, or else in
+     * the storage layout.
+     * 
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     * @return DataStorage
+     */
+    protected DataStorage createStorage(int numberOfRows, int numberOfColumns) {
+        ColumnPrecision[] precisions = getStoragePrecisions(false);
+        if ( precisions != null ) {
+            if ( precisions.length != numberOfColumns ) 
+                throw new IllegalStateException("Expected a precision for each of the "+numberOfColumns+" columns.");
+            return new QuantizedDataStorage(numberOfRows, precisions);
+        }
+        switch ( getStorageLayout() ) {
+            case ROW_MAJOR:    return new RowMajorDataStorage(numberOfRows, numberOfColumns);
+            case COLUMN_MAJOR: return new ColumnMajorDataStorage(numberOfRows, numberOfColumns);
+            default:           return new ArrayDataStorage(numberOfRows, numberOfColumns);
+        }
+    }
+
+    /**
+     * Loading both data sets in one go, gathering the statistics of each
+     * column from the row parsers of all threads.
      */
     private void loadData() {
+        setColumnStatistics(null, false);
+        synchronized ( rowParsers ) {
+            rowParsers.clear();
+        }
+        readData();
+        ColumnStatistics statistics = new ColumnStatistics(numberOfVectorColumns, isGatheringQuantiles());
+        synchronized ( rowParsers ) {
+            for ( FileRowParser rowParser : rowParsers ) statistics.merge(rowParser.statistics);
+            rowParsers.clear();
+        }
+        // Rows kept in less than double precision are no longer exactly as parsed.
+        setColumnStatistics(statistics, normalisers == null && getColumnPrecisions() == null);
+    }
+
+    /**
+     * Reading both data sets in one go, finding which is to load first.
+     */
+    private void readData() {
         // Allocate space in memory for this.
         initialiseDataSets();
 
-        // Get the buffer handler ready..
-        BufferedReader bufferedReader = null;
-        try {
-            bufferedReader = new BufferedReader(new FileReader(fileAttributes.getFilename()));
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+        if ( FileLoadMode.PARALLEL_MAPPED.equals(loadMode) ) {
+            loadMappedData();
+            return;
+        }
+        if ( fileAttributes.isUseRowIndex() ) {
+            loadIndexedData();
+            return;
         }
 
+        // Get the line reader ready, reading each line as bytes parsed
+        // straight into its row.
         int currentRowPosition = 1;
+        RowParser rowParser = new FileRowParser();
 
-        try {
+        try ( ByteLineReader lineReader = new ByteLineReader(new FileInputStream(fileAttributes.getFilename())) ) {
             // If any header rows, ignore them, move buffered reader header to next rows.
             int ignoreRows = fileAttributes.getHeaderRows();
             if ( ignoreRows > 0 ) {
                 // Move the file pointer to the end of the header rows.
                 currentRowPosition += ignoreRows; 
                 while ( ignoreRows > 0 ) {
-                    String line = bufferedReader.readLine();
+                    boolean hasLine = lineReader.readLine();
                     ignoreRows--;
                     // If the file finishes here, nothing else to load.
-                    if ( line == null ) return;
+                    if ( ! hasLine ) return;
                 }
             }
 
@@ -257,26 +693,26 @@ public class FileDataSet extends DataSet {
                 if ( fileAttributes.getTrainingStartIndex() < fileAttributes.getTestingStartIndex() ) {
                     while ( fileAttributes.getTrainingStartIndex() > currentRowPosition ) { 
                         // Premature end of file, finishes loading.
-                        if ( bufferedReader.readLine() == null ) return; 
+                        if ( ! lineReader.readLine() ) return; 
                         currentRowPosition++; 
                     }
                 }
                 else {
                     while ( fileAttributes.getTestingStartIndex() > currentRowPosition ) { 
                         // Premature end of file, finishes loading.
-                        if ( bufferedReader.readLine() == null ) return; 
+                        if ( ! lineReader.readLine() ) return; 
                         currentRowPosition++; 
                     }
                 }
 
                 // If Testing starts after, Training loads first
                 if ( fileAttributes.getTrainingStartIndex() < fileAttributes.getTestingStartIndex() ) {
-                    currentRowPosition = loadTraining(bufferedReader, currentRowPosition);
-                    currentRowPosition = loadTesting(bufferedReader, currentRowPosition);
+                    currentRowPosition = loadTraining(lineReader, rowParser, currentRowPosition);
+                    currentRowPosition = loadTesting(lineReader, rowParser, currentRowPosition);
                 }
                 else {
-                    currentRowPosition = loadTesting(bufferedReader, currentRowPosition);
-                    currentRowPosition = loadTraining(bufferedReader, currentRowPosition);
+                    currentRowPosition = loadTesting(lineReader, rowParser, currentRowPosition);
+                    currentRowPosition = loadTraining(lineReader, rowParser, currentRowPosition);
                 }
             }
             else {
@@ -284,57 +720,131 @@ public class FileDataSet extends DataSet {
                 if ( fileAttributes.isHasTrainingRange() ) {
                     while ( fileAttributes.getTrainingStartIndex() > currentRowPosition ) { 
                         // Premature end of file, finishes loading.
-                        if ( bufferedReader.readLine() == null ) return; 
+                        if ( ! lineReader.readLine() ) return; 
                         currentRowPosition++; 
                     }
                 }
                 else {
                     while ( fileAttributes.getTestingStartIndex() > currentRowPosition ) { 
                         // Premature end of file, finishes loading.
-                        if ( bufferedReader.readLine() == null ) return; 
+                        if ( ! lineReader.readLine() ) return; 
                         currentRowPosition++; 
                     }
                 }
 
                 if ( fileAttributes.isHasTestingRange() ) {
-                    loadTesting(bufferedReader, currentRowPosition);
+                    loadTesting(lineReader, rowParser, currentRowPosition);
                 }
                 else {
-                    loadTraining(bufferedReader, currentRowPosition);
+                    loadTraining(lineReader, rowParser, currentRowPosition);
                 }
             }
 
-            bufferedReader.close();
-
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
     
+    /**
+     * Loading both data sets in parallel from the memory mapped file,
+     * straight into the already allocated data set rows.
+     */
+    private void loadMappedData() {
+        try {
+            new MappedFileLoader(fileAttributes).load(
+                    fileAttributes.isHasTrainingRange() ? getTrainingStorage() : null,
+                    fileAttributes.isHasTestingRange() ? getTestingStorage() : null,
+                    FileRowParser::new);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loading each data set by seeking straight to its first row through
+     * the row offset index, so the rows before it are never read.
+     */
+    private void loadIndexedData() {
+        int firstDataRow = fileAttributes.getHeaderRows() + 1;
+        int trainingStartIndex = Math.max(fileAttributes.getTrainingStartIndex(), firstDataRow);
+        int testingStartIndex = Math.max(fileAttributes.getTestingStartIndex(), firstDataRow);
+        try {
+            RowOffsetIndex rowIndex = RowOffsetIndex.open(fileAttributes.getFilename());
+            RowParser rowParser = new FileRowParser();
+
+            // Premature end of file before the first range, nothing to load.
+            int firstRangeStart = Integer.MAX_VALUE;
+            if ( fileAttributes.isHasTrainingRange() ) firstRangeStart = trainingStartIndex;
+            if ( fileAttributes.isHasTestingRange() ) firstRangeStart = Math.min(firstRangeStart, testingStartIndex);
+            if ( firstRangeStart > rowIndex.getTotalRows() ) return;
+
+            if ( fileAttributes.isHasTrainingRange() ) {
+                loadIndexedRange(rowIndex, rowParser, trainingStartIndex,
+                        fileAttributes.getTrainingEndIndex(), getTrainingStorage());
+            }
+            if ( fileAttributes.isHasTestingRange() ) {
+                loadIndexedRange(rowIndex, rowParser, testingStartIndex,
+                        fileAttributes.getTestingEndIndex(), getTestingStorage());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the given range of rows from file into the data set rows.
+     * 
+     * @param rowIndex RowOffsetIndex
+     * @param rowParser RowParser
+     * @param startRow int
+     * @param endRow int
+     * @param storage DataStorage
+     * @throws IOException
+     */
+    private void loadIndexedRange(RowOffsetIndex rowIndex, RowParser rowParser, int startRow, int endRow,
+            DataStorage storage) throws IOException {
+        RowBlock block = newLoadBlock();
+        if ( endRow - startRow >= storage.getNumberOfRows() ) 
+            throw new IllegalArgumentException("Attempting to load more rows than initially allocated for.");
+        try ( ByteLineReader lineReader = rowIndex.openAt(fileAttributes.getFilename(), startRow) ) {
+            for ( int rowPosition = startRow; rowPosition <= endRow; rowPosition++ ) {
+                // Premature end of file is a sign of something going wrong somewhere.
+                if ( ! lineReader.readLine() ) 
+                    throw new ArrayIndexOutOfBoundsException("File contains only: "+rowPosition+" rows.");
+                block.addLine(lineReader.getBuffer(), lineReader.getLineStart(), lineReader.getLineEnd());
+                if ( block.isFull() ) writeBlock(block, rowParser, storage);
+            }
+        }
+        writeBlock(block, rowParser, storage);
+    }
+
     /**
      * Loads the Training data set from file into memory and returns the row 
      * position in file for further processing.
      * 
-     * @param bufferedReader BufferedReader
+     * @param lineReader ByteLineReader
+     * @param rowParser RowParser
      * @param currentRowPosition int
      * @return int currentRowPosition
      */
-    private int loadTraining(BufferedReader bufferedReader, int currentRowPosition) {
+    private int loadTraining(ByteLineReader lineReader, RowParser rowParser, int currentRowPosition) {
+        DataStorage trainingStorage = getTrainingStorage();
+        RowBlock block = newLoadBlock();
         int trainingDataSetIndex = 0;
         try {
             do {
-                String line = bufferedReader.readLine();
                 // Premature end of file is a sign of something going wrong somewhere.
-                if ( line == null ) 
+                if ( ! lineReader.readLine() ) 
                     throw new ArrayIndexOutOfBoundsException("File contains only: "+currentRowPosition+" rows.");
-                if ( trainingDataSetIndex >= trainingDataSet.length ) 
+                if ( trainingDataSetIndex >= trainingStorage.getNumberOfRows() ) 
                     throw new IllegalArgumentException("Attempting to load more rows than initially allocated for.");
 
                 if ( currentRowPosition < fileAttributes.getTrainingStartIndex() ) {
                     currentRowPosition++; 
                     continue;
                 }
-                trainingDataSet[trainingDataSetIndex] = getParsedRow(line);
+                block.addLine(lineReader.getBuffer(), lineReader.getLineStart(), lineReader.getLineEnd());
+                if ( block.isFull() ) writeBlock(block, rowParser, trainingStorage);
                 currentRowPosition++; 
                 trainingDataSetIndex++;
 
@@ -343,6 +853,7 @@ public class FileDataSet extends DataSet {
         } catch (IOException e) {
             e.printStackTrace();
         } 
+        writeBlock(block, rowParser, trainingStorage);
 
         return currentRowPosition;
     }
@@ -351,28 +862,30 @@ public class FileDataSet extends DataSet {
      * Loads the Testing data set from file into memory and returns the row 
      * position in file for further processing.
      * 
-     * @param bufferedReader BufferedReader
+     * @param lineReader ByteLineReader
+     * @param rowParser RowParser
      * @param currentRowPosition int
      * @return int currentRowPosition
      */
-    private int loadTesting(BufferedReader bufferedReader, int currentRowPosition) {
+    private int loadTesting(ByteLineReader lineReader, RowParser rowParser, int currentRowPosition) {
+        DataStorage testingStorage = getTestingStorage();
+        RowBlock block = newLoadBlock();
         int testingDataSetIndex = 0;
         try {
             do {
-                String line;
-                line = bufferedReader.readLine();
                 // Premature end of file is a sign of something going wrong somewhere.
-                if ( line == null ) 
+                if ( ! lineReader.readLine() ) 
                     throw new ArrayIndexOutOfBoundsException("File contains only: "+currentRowPosition+" rows.");
 
-                if ( testingDataSetIndex >= testingDataSet.length ) 
+                if ( testingDataSetIndex >= testingStorage.getNumberOfRows() ) 
                     throw new IllegalArgumentException("Attempting to load more rows than initially allocated for.");
                 
                 if ( currentRowPosition < fileAttributes.getTestingStartIndex() ) {
                     currentRowPosition++; 
                     continue;
                 }
-                testingDataSet[testingDataSetIndex] = getParsedRow(line);
+                block.addLine(lineReader.getBuffer(), lineReader.getLineStart(), lineReader.getLineEnd());
+                if ( block.isFull() ) writeBlock(block, rowParser, testingStorage);
                 testingDataSetIndex++;
                 currentRowPosition++; 
             } while ( fileAttributes.getTestingEndIndex() >= currentRowPosition );
@@ -380,42 +893,143 @@ public class FileDataSet extends DataSet {
         } catch (IOException e) {
             e.printStackTrace();
         } 
+        writeBlock(block, rowParser, testingStorage);
         
         return currentRowPosition;
     }
 
     /**
-     * Takes one line, splits into columns, applies the input/output 
-     * mapping and any transforms, and returns the array of doubles
-     * already normalised.
+     * A new empty block of lines to load, written into the storage from its
+     * first row.
      * 
-     * @param rowLine String
-     * @return double[]
-     */
-    private double[] getParsedRow(String rowLine) {
-        double[] sourceColumns = new double[numberOfSourceColumnsPerRow];
-        double[] finalVector = new double[numberOfVectorColumns];
-        int index = 0;
-        for( String element : rowLine.split(fileAttributes.getSeparator())) {
-            sourceColumns[index] = Double.parseDouble(element);
-            index++;
-        }
-
-        // The final column vector is composed of the output and input mappings.
-        // To apply this, each of the maps needs to be applied in turn, picking
-        // the selected source column, and added in turn as per supplied sequence.
-        int vectorIndex = 0;
-        for( VectorMap outputVector : outputColumnMap ) {
-            outputVector.setSource(sourceColumns);
-            finalVector[vectorIndex] = outputVector.getTargetValue();
-            vectorIndex++;
-        }
-        for( VectorMap inputVector : inputColumnMap ) {
-            inputVector.setSource(sourceColumns);
-            finalVector[vectorIndex] = inputVector.getTargetValue();
-            vectorIndex++;
+     * @return RowBlock
+     */
+    private RowBlock newLoadBlock() {
+        RowBlock block = new RowBlock(RowBlockPipeline.DEFAULT_ROWS_PER_BLOCK, numberOfVectorColumns);
+        block.reset(0, 0);
+        return block;
+    }
+
+    /**
+     * Parses the lines held by the block, all at once, into their rows of the
+     * storage, and empties the block for the rows following.
+     * 
+     * @param block RowBlock
+     * @param rowParser RowParser
+     * @param storage DataStorage
+     */
+    private static void writeBlock(RowBlock block, RowParser rowParser, DataStorage storage) {
+        if ( block.isEmpty() ) return;
+        block.parse(rowParser);
+        block.writeTo(storage);
+        block.reset(block.getSequence() + 1, block.getFirstRow() + block.getNumberOfRows());
+    }
+
+    /**
+     * Takes one line, splits into columns, applies the input/output 
+     * mapping and any transforms, writing the values into the given row.
+     * Each instance keeps its own buffer of source columns and statistics
+     * of the rows parsed, so one is to be used per thread.
+     */
+    private class FileRowParser implements RowParser {
+
+        /**
+         * The statistics of the rows parsed, before any normalisation.
+         */
+        private final ColumnStatistics statistics = new ColumnStatistics(numberOfVectorColumns, isGatheringQuantiles());
+
+        /**
+         * The normalisation of each column, null if none.
+         */
+        private final NormalisationKernel rowNormalisers;
+
+        /**
+         * Constructing the parser as one of those of the current load.
+         */
+        private FileRowParser() {
+            this(normalisers);
+            synchronized ( rowParsers ) {
+                rowParsers.add(this);
+            }
+        }
+
+        /**
+         * Constructing the parser with the given normalisation, apart from
+         * any load.
+         * 
+         * @param rowNormalisers NormalisationKernel or null to keep the rows as parsed
+         */
+        private FileRowParser(NormalisationKernel rowNormalisers) {
+            this.rowNormalisers = rowNormalisers;
+        }
+
+        /**
+         * The fields of the line being parsed.
+         */
+        private final double[] sourceColumns = new double[numberOfSourceColumnsPerRow];
+
+        /**
+         * The splitter of each line into its fields.
+         */
+        private final DelimitedLineParser lineParser = 
+                new DelimitedLineParser(fileAttributes.getSeparator(), projectedColumns);
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void parse(byte[] line, int from, int to, double[] row) {
+            int columns = lineParser.parse(line, from, to, sourceColumns);
+            // Short rows leave the missing columns as zero, as are those past the last in use.
+            if ( columns < sourceColumns.length ) Arrays.fill(sourceColumns, columns, sourceColumns.length, 0.0);
+
+            // The final column vector is composed of the output and input mappings,
+            // compiled once into a transform of the whole row.
+            rowTransform.apply(sourceColumns, row);
+
+            statistics.add(row);
+            if ( rowNormalisers != null ) rowNormalisers.applyToRow(row, numberOfVectorColumns);
+        }
+
+        /**
+         * The fields of each line of the block being parsed, one line after
+         * the other.
+         */
+        private double[] sourceRows = new double[0];
+
+        /**
+         * Each row of the block being parsed, once transformed.
+         */
+        private final double[] blockRow = new double[numberOfVectorColumns];
+
+        /**
+         * Parses the fields of all lines first, and then applies the maps a
+         * column at a time over all rows.
+         */
+        @Override
+        public void parse(byte[] lines, int[] lineBounds, int numberOfLines, double[] rows, int numberOfColumns) {
+            if ( numberOfColumns != numberOfVectorColumns ) 
+                throw new IllegalArgumentException("Rows must have "+numberOfVectorColumns+" columns.");
+            int numberOfSourceColumns = sourceColumns.length;
+            if ( sourceRows.length < numberOfLines * numberOfSourceColumns ) {
+                sourceRows = new double[numberOfLines * numberOfSourceColumns];
+            }
+            for ( int index = 0; index < numberOfLines; index++ ) {
+                int columns = lineParser.parse(lines, lineBounds[index * 2], lineBounds[index * 2 + 1], sourceColumns);
+                if ( columns < numberOfSourceColumns ) Arrays.fill(sourceColumns, columns, numberOfSourceColumns, 0.0);
+                System.arraycopy(sourceColumns, 0, sourceRows, index * numberOfSourceColumns, numberOfSourceColumns);
+            }
+
+            rowTransform.apply(sourceRows, numberOfSourceColumns, numberOfLines, rows);
+
+            for ( int index = 0; index < numberOfLines; index++ ) {
+                System.arraycopy(rows, index * numberOfColumns, blockRow, 0, numberOfColumns);
+                statistics.add(blockRow);
+                if ( rowNormalisers != null ) {
+                    rowNormalisers.applyToRow(blockRow, numberOfColumns);
+                    System.arraycopy(blockRow, 0, rows, index * numberOfColumns, numberOfColumns);
+                }
+            }
         }
-        
-        return finalVector;
     }
 }
@@ -0,0 +1,21 @@
+package app.core.dataSet;
+
+/**
+ * List of all the known strategies a FileDataSet can use to read
+ * its source file into memory.
+ *
+ * @author Vasco
+ *
+ */
+public enum FileLoadMode {
+    /**
+     * Reads the file line by line on the calling thread.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Memory maps the file, splits it into newline aligned chunks and
+     * parses these in parallel on the fork-join pool.
+     */
+    PARALLEL_MAPPED,
+}
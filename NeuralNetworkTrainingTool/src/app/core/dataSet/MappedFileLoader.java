@@ -0,0 +1,434 @@
+package app.core.dataSet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+import app.model.serializable.FileAttributes;
+
+/**
+ * Loads the training and testing rows of a file by memory mapping it,
+ * splitting it into newline aligned chunks and parsing all chunks in
+ * parallel on the fork-join pool. Each line is parsed from its bytes and
+ * written into its row of the storage, a block of lines at a time, with
+ * one RowParser per task.<p>
+ *
+ * Rows are counted the same way as the sequential load does: the first
+ * line in file is row 1, header rows are never loaded, and a range that
+ * starts within the header rows is loaded from the first data row.<p>
+ *
+ * The load is done in two passes. The first counts the rows in each chunk
+ * so every chunk knows the number of its first row, and the second parses
+ * only the chunks holding rows from any of the requested ranges.
+ *
+ * @author Vasco
+ *
+ */
+public class MappedFileLoader {
+
+    /**
+     * The default maximum size in bytes of each chunk mapped into memory.
+     */
+    public static final int DEFAULT_MAX_CHUNK_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * The minimum size in bytes of each chunk, so small files are not
+     * split into more tasks than worth it.
+     */
+    private static final int MIN_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * The number of chunks to aim for per thread, to keep all threads busy
+     * when some chunks take longer than others.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * The number of bytes read at a time while looking for the end of line
+     * closing a chunk.
+     */
+    private static final int PROBE_SIZE = 4096;
+
+    /**
+     * The end of line byte.
+     */
+    private static final byte NEW_LINE = '\n';
+
+    /**
+     * The carriage return byte, ignored at the end of each line.
+     */
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    /**
+     * The file attributes describing the file and the ranges to load.
+     */
+    private final FileAttributes fileAttributes;
+
+    /**
+     * The maximum size in bytes of each chunk.
+     */
+    private final int maxChunkSize;
+
+    /**
+     * The fork-join pool to run all tasks on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructing the loader with the default chunk size.
+     *
+     * @param fileAttributes FileAttributes
+     */
+    public MappedFileLoader(FileAttributes fileAttributes) {
+        this(fileAttributes, DEFAULT_MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructing the loader with the given maximum chunk size in bytes.
+     *
+     * @param fileAttributes FileAttributes
+     * @param maxChunkSize int
+     */
+    public MappedFileLoader(FileAttributes fileAttributes, int maxChunkSize) {
+        if ( maxChunkSize <= 0 ) throw new IllegalArgumentException("Chunk size must be positive.");
+        this.fileAttributes = fileAttributes;
+        this.maxChunkSize = maxChunkSize;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Loads the training and testing ranges set on the file attributes into
+     * the given storages, which must be able to take rows written from many
+     * threads at once. Any of the storages may be null if the respective
+     * range is not in use.
+     *
+     * @param trainingRows DataStorage
+     * @param testingRows DataStorage
+     * @param rowParsers supplying one parser for each parsing task
+     * @throws IOException
+     */
+    public void load(DataStorage trainingRows, DataStorage testingRows,
+            Supplier<RowParser> rowParsers) throws IOException {
+        try ( FileChannel channel = FileChannel.open(
+                Paths.get(fileAttributes.getFilename()), StandardOpenOption.READ) ) {
+
+            // First pass: count the rows per chunk, turned into first row per chunk.
+            long[] boundaries = getChunkBoundaries(channel);
+            int chunks = boundaries.length - 1;
+            long[] firstRows = new long[chunks + 1];
+            pool.invoke(new CountRowsTask(channel, boundaries, firstRows, 0, chunks));
+            firstRows[0] = 1;
+            for ( int chunk = 0; chunk < chunks; chunk++ ) {
+                firstRows[chunk + 1] += firstRows[chunk];
+            }
+            long totalRows = firstRows[chunks] - 1;
+
+            List<RowRange> ranges = getRowRanges(trainingRows, testingRows, totalRows);
+            if ( ranges.isEmpty() ) return;
+
+            // Second pass: parse all chunks holding requested rows.
+            pool.invoke(new ParseRowsTask(channel, boundaries, firstRows, ranges, rowParsers, 0, chunks));
+
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Builds the list of ranges to load in file order, ensuring these follow
+     * the same rules as the sequential load: nothing is loaded when the file
+     * finishes before the first range starts, and it is an error for the
+     * file to finish in the middle of any range.
+     *
+     * @param trainingRows DataStorage
+     * @param testingRows DataStorage
+     * @param totalRows long
+     * @return List of RowRange
+     */
+    private List<RowRange> getRowRanges(DataStorage trainingRows, DataStorage testingRows, long totalRows) {
+        int firstDataRow = fileAttributes.getHeaderRows() + 1;
+        List<RowRange> ranges = new ArrayList<>();
+        if ( fileAttributes.isHasTrainingRange() & trainingRows != null ) {
+            ranges.add(new RowRange(
+                    Math.max(fileAttributes.getTrainingStartIndex(), firstDataRow),
+                    fileAttributes.getTrainingEndIndex(),
+                    trainingRows));
+        }
+        if ( fileAttributes.isHasTestingRange() & testingRows != null ) {
+            ranges.add(new RowRange(
+                    Math.max(fileAttributes.getTestingStartIndex(), firstDataRow),
+                    fileAttributes.getTestingEndIndex(),
+                    testingRows));
+        }
+        ranges.sort(Comparator.comparingLong(range -> range.firstRow));
+
+        // Premature end of file before any range starts, nothing to load.
+        if ( ranges.isEmpty() || ranges.get(0).firstRow > totalRows ) {
+            ranges.clear();
+            return ranges;
+        }
+
+        for ( RowRange range : ranges ) {
+            if ( range.lastRow > totalRows )
+                throw new ArrayIndexOutOfBoundsException("File contains only: "+totalRows+" rows.");
+            if ( range.lastRow - range.firstRow >= range.rows.getNumberOfRows() )
+                throw new IllegalArgumentException("Attempting to load more rows than initially allocated for.");
+        }
+        return ranges;
+    }
+
+    /**
+     * Splits the file into chunks of about the same size, each ending right
+     * after an end of line so no row is ever split between two chunks.
+     *
+     * @param channel FileChannel
+     * @return long[] with the start of each chunk followed by the file size
+     * @throws IOException
+     */
+    private long[] getChunkBoundaries(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long chunkSize = fileSize / ( (long) pool.getParallelism() * CHUNKS_PER_THREAD ) + 1;
+        chunkSize = Math.max(chunkSize, Math.min(MIN_CHUNK_SIZE, maxChunkSize));
+        chunkSize = Math.min(chunkSize, maxChunkSize);
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long position = 0;
+        while ( position + chunkSize < fileSize ) {
+            position = getNextRowStart(channel, position + chunkSize, probe);
+            if ( position >= fileSize ) break;
+            boundaries.add(position);
+        }
+        boundaries.add(fileSize);
+
+        long[] result = new long[boundaries.size()];
+        for ( int index = 0; index < result.length; index++ ) {
+            result[index] = boundaries.get(index);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the position of the first row starting at or after the given
+     * position.
+     *
+     * @param channel FileChannel
+     * @param from long
+     * @param probe ByteBuffer
+     * @return long position, or the file size if no other row starts.
+     * @throws IOException
+     */
+    private long getNextRowStart(FileChannel channel, long from, ByteBuffer probe) throws IOException {
+        long position = from - 1;
+        while ( true ) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if ( read <= 0 ) return channel.size();
+            for ( int index = 0; index < read; index++ ) {
+                if ( probe.get(index) == NEW_LINE ) return position + index + 1;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Maps the given chunk into memory.
+     *
+     * @param channel FileChannel
+     * @param boundaries long[]
+     * @param chunk int
+     * @return MappedByteBuffer
+     */
+    private static MappedByteBuffer map(FileChannel channel, long[] boundaries, int chunk) {
+        try {
+            return channel.map(MapMode.READ_ONLY, boundaries[chunk], boundaries[chunk + 1] - boundaries[chunk]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A range of rows to load and where to store them. The first row is
+     * stored at slot zero.
+     */
+    private static class RowRange {
+        private final long firstRow;
+        private final long lastRow;
+        private final DataStorage rows;
+
+        private RowRange(long firstRow, long lastRow, DataStorage rows) {
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Counting the rows of each chunk in parallel, splitting the chunks
+     * in half until one is left per task. The number of rows of each chunk
+     * is stored at the index after the chunk.
+     */
+    private static class CountRowsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final long[] rowCounts;
+        private final int fromChunk;
+        private final int toChunk;
+
+        private CountRowsTask(FileChannel channel, long[] boundaries, long[] rowCounts,
+                int fromChunk, int toChunk) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.rowCounts = rowCounts;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if ( toChunk - fromChunk > 1 ) {
+                int middle = ( fromChunk + toChunk ) >>> 1;
+                invokeAll(new CountRowsTask(channel, boundaries, rowCounts, fromChunk, middle),
+                          new CountRowsTask(channel, boundaries, rowCounts, middle, toChunk));
+                return;
+            }
+            MappedByteBuffer buffer = map(channel, boundaries, fromChunk);
+            int length = buffer.limit();
+            long rows = 0;
+            for ( int index = 0; index < length; index++ ) {
+                if ( buffer.get(index) == NEW_LINE ) rows++;
+            }
+            // Last row in file may not be closed by an end of line.
+            if ( length > 0 && buffer.get(length - 1) != NEW_LINE ) rows++;
+            rowCounts[fromChunk + 1] = rows;
+        }
+    }
+
+    /**
+     * Parsing the rows of each chunk in parallel, splitting the chunks in
+     * half until one is left per task. Chunks with no rows to load are not
+     * even mapped into memory.
+     */
+    private class ParseRowsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final long[] firstRows;
+        private final List<RowRange> ranges;
+        private final Supplier<RowParser> rowParsers;
+        private final int fromChunk;
+        private final int toChunk;
+
+        private ParseRowsTask(FileChannel channel, long[] boundaries, long[] firstRows,
+                List<RowRange> ranges, Supplier<RowParser> rowParsers,
+                int fromChunk, int toChunk) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.firstRows = firstRows;
+            this.ranges = ranges;
+            this.rowParsers = rowParsers;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if ( toChunk - fromChunk > 1 ) {
+                int middle = ( fromChunk + toChunk ) >>> 1;
+                invokeAll(new ParseRowsTask(channel, boundaries, firstRows, ranges, rowParsers, fromChunk, middle),
+                          new ParseRowsTask(channel, boundaries, firstRows, ranges, rowParsers, middle, toChunk));
+                return;
+            }
+            long firstRow = firstRows[fromChunk];
+            long lastRow = firstRows[fromChunk + 1] - 1;
+            if ( ! hasRowsToLoad(firstRow, lastRow) ) return;
+
+            MappedByteBuffer buffer = map(channel, boundaries, fromChunk);
+            RowParser rowParser = rowParsers.get();
+            // The rows of the chunk in the same range are parsed a block at a time.
+            RowBlock block = new RowBlock(RowBlockPipeline.DEFAULT_ROWS_PER_BLOCK, ranges.get(0).rows.getNumberOfColumns());
+            RowRange blockRange = null;
+            byte[] line = new byte[256];
+            int length = buffer.limit();
+            int position = 0;
+            long row = firstRow;
+            while ( position < length && row <= lastRow ) {
+                int end = position;
+                while ( end < length && buffer.get(end) != NEW_LINE ) end++;
+
+                RowRange range = getRange(row);
+                if ( range != blockRange || ( blockRange != null && block.isFull() ) ) {
+                    writeBlock(block, blockRange, rowParser);
+                    blockRange = range;
+                    if ( range != null ) block.reset(0, (int) ( row - range.firstRow ));
+                }
+                if ( range != null ) {
+                    int lineEnd = end;
+                    if ( lineEnd > position && buffer.get(lineEnd - 1) == CARRIAGE_RETURN ) lineEnd--;
+                    int lineLength = lineEnd - position;
+                    if ( line.length < lineLength ) line = new byte[lineLength * 2];
+                    buffer.position(position);
+                    buffer.get(line, 0, lineLength);
+                    block.addLine(line, 0, lineLength);
+                }
+                row++;
+                position = end + 1;
+            }
+            writeBlock(block, blockRange, rowParser);
+        }
+
+        /**
+         * Parses the lines held by the block into their rows of the given
+         * range, if any.
+         *
+         * @param block RowBlock
+         * @param range RowRange or null if none
+         * @param rowParser RowParser
+         */
+        private void writeBlock(RowBlock block, RowRange range, RowParser rowParser) {
+            if ( range == null || block.isEmpty() ) return;
+            block.parse(rowParser);
+            block.writeTo(range.rows);
+        }
+
+        /**
+         * Checks if any of the rows given are in any of the ranges to load.
+         *
+         * @param firstRow long
+         * @param lastRow long
+         * @return true if any row is to be loaded.
+         */
+        private boolean hasRowsToLoad(long firstRow, long lastRow) {
+            for ( RowRange range : ranges ) {
+                if ( range.firstRow <= lastRow && range.lastRow >= firstRow ) return true;
+            }
+            return false;
+        }
+
+        /**
+         * The range the given row belongs to.
+         *
+         * @param row long
+         * @return RowRange or null if not to be loaded.
+         */
+        private RowRange getRange(long row) {
+            for ( RowRange range : ranges ) {
+                if ( row >= range.firstRow && row <= range.lastRow ) return range;
+            }
+            return null;
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package app.core.dataSet;
 
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
-public interface MathOperatorCore<T> extends Function<Double, Double>{
+/**
+ * The transformation of a value by a constant bias. Values are transformed
+ * with applyAsDouble on plain doubles, as done for every value loaded, while
+ * the boxed apply is kept for callers working with Double objects.
+ * 
+ * @author Vasco
+ */
+public interface MathOperatorCore<T> extends Function<Double, Double>, DoubleUnaryOperator {
 
 	/**
      * The MathOperator description.
@@ -31,4 +39,20 @@ public interface MathOperatorCore<T> extends Function<Double, Double>{
      * @param bias double
      */
     public void setBiasValue(double bias);
+
+    /**
+     * The initial value used on the operation, zero if none is used.
+     * 
+     * @return double
+     */
+    public double getBiasValue();
+
+    /**
+     * Transforms the given value with no objects created.
+     * 
+     * @param value double
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value);
 }
@@ -2,14 +2,20 @@ package app.core.dataSet;
 
 import app.core.dataSet.mathOperator.AddMathOperator;
 import app.core.dataSet.mathOperator.BinMathOperator;
+import app.core.dataSet.mathOperator.ClampMathOperator;
 import app.core.dataSet.mathOperator.DivMathOperator;
 import app.core.dataSet.mathOperator.InvMathOperator;
+import app.core.dataSet.mathOperator.Log1pMathOperator;
 import app.core.dataSet.mathOperator.MulMathOperator;
+import app.core.dataSet.mathOperator.ProductMathOperator;
+import app.core.dataSet.mathOperator.RatioMathOperator;
 import app.core.dataSet.mathOperator.SubMathOperator;
 
 /**
  * Abstract class to return Math Operator objects which will apply
  * transformations linked to the selected transformation operation name.
+ * All operators returned transform plain doubles with applyAsDouble, and
+ * those deriving a column from others are MultiColumnOperatorCore.
  * 
  * @author Vasco
  */
@@ -32,6 +38,10 @@ public abstract class MathOperatorFactory {
         if ( MathOperatorKey.DIV.equals(mathOperator) ) return new DivMathOperator();
         if ( MathOperatorKey.INV.equals(mathOperator) ) return new InvMathOperator();
         if ( MathOperatorKey.BIN.equals(mathOperator) ) return new BinMathOperator();
+        if ( MathOperatorKey.LOG1P.equals(mathOperator) ) return new Log1pMathOperator();
+        if ( MathOperatorKey.CLAMP.equals(mathOperator) ) return new ClampMathOperator();
+        if ( MathOperatorKey.RATIO.equals(mathOperator) ) return new RatioMathOperator();
+        if ( MathOperatorKey.PRODUCT.equals(mathOperator) ) return new ProductMathOperator();
         throw new IllegalStateException("Unknown Math Operation "+mathOperator);
     }
 
@@ -58,6 +68,14 @@ public abstract class MathOperatorFactory {
             return new InvMathOperator();
         if ( getMathOperation(MathOperatorKey.BIN).getName().equals(mathOperator) ) 
             return new BinMathOperator();
+        if ( getMathOperation(MathOperatorKey.LOG1P).getName().equals(mathOperator) ) 
+            return new Log1pMathOperator();
+        if ( getMathOperation(MathOperatorKey.CLAMP).getName().equals(mathOperator) ) 
+            return new ClampMathOperator();
+        if ( getMathOperation(MathOperatorKey.RATIO).getName().equals(mathOperator) ) 
+            return new RatioMathOperator();
+        if ( getMathOperation(MathOperatorKey.PRODUCT).getName().equals(mathOperator) ) 
+            return new ProductMathOperator();
         throw new IllegalStateException("Unknown Math Operation "+mathOperator);
     }
 
@@ -37,4 +37,25 @@ public enum MathOperatorKey {
      * Ensure binary values: 0 = 0.0 anything else is 1.0.
      */
     BIN, 
+
+    /**
+     * Natural logarithm of one plus the given number.
+     */
+    LOG1P,
+
+    /**
+     * Limit given number to plus or minus instantiated one.
+     */
+    CLAMP,
+
+    /**
+     * Divide given number by those of other columns, or give the constant
+     * where any is zero.
+     */
+    RATIO,
+
+    /**
+     * Multiply given number by those of other columns.
+     */
+    PRODUCT,
 }
@@ -0,0 +1,48 @@
+package app.core.dataSet;
+
+/**
+ * The transformation of a value by the values of other source columns of
+ * the same row, deriving a new column, as ratios or products of columns.
+ * The other columns are read from the source row with no objects created,
+ * or else the whole column is transformed at once over a block of rows,
+ * looping over primitive arrays only. With no other columns set the value
+ * is kept as is.
+ *
+ * @author Vasco
+ */
+public interface MultiColumnOperatorCore<T> extends MathOperatorCore<T> {
+
+    /**
+     * The other source columns the value is operated with.
+     *
+     * @param sourceIndexes int[] each a source column index
+     */
+    public void setOtherSourceIndexes(int... sourceIndexes);
+
+    /**
+     * The other source columns the value is operated with.
+     *
+     * @return int[] empty if none
+     */
+    public int[] getOtherSourceIndexes();
+
+    /**
+     * Transforms the given value by the other columns of the source row.
+     *
+     * @param value double
+     * @param source double[] the source row holding the other columns
+     * @return double
+     */
+    public double applyAsDouble(double value, double[] source);
+
+    /**
+     * Transforms the value of each row by the other columns of the same
+     * row, a column at a time over all rows, giving exactly the values
+     * applyAsDouble gives one row at a time.
+     *
+     * @param values double[] the value of each row, replaced by its transformation
+     * @param otherColumns double[][] each other column in the order set, holding the value of each row
+     * @param count int the number of rows
+     */
+    public void applyToColumn(double[] values, double[][] otherColumns, int count);
+}
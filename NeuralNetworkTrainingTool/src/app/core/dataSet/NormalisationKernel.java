@@ -0,0 +1,254 @@
+package app.core.dataSet;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import app.core.vector.VectorKernelCore;
+import app.core.vector.VectorKernelFactory;
+
+/**
+ * The normalisation, or de-normalisation, of every column at once, kept as
+ * the offset and range of each column so values are worked out with plain
+ * doubles in tight loops, with no objects created per value.<p>
+ *
+ * Values are worked out exactly as Normalize and DeNormalize do, and the
+ * same values out of range are refused, unless the column is unbounded, as
+ * with the z-score or robust normalisations. Whole storages are gone
+ * through in parallel, a range of rows per task on the fork-join pool, and
+ * whole columns through the fastest VectorKernelCore available, giving the
+ * same values as one at a time.
+ *
+ * @author Vasco
+ *
+ */
+public final class NormalisationKernel {
+
+    /**
+     * The least number of rows gone through by one task.
+     */
+    public static final int ROWS_PER_TASK = 4096;
+
+    /**
+     * True to normalise, false to de-normalise.
+     */
+    private final boolean normalising;
+
+    /**
+     * The value of each column normalised into 0, its min value by default.
+     */
+    private final double[] offsets;
+
+    /**
+     * The value of each column normalised into 1, its max value by default.
+     */
+    private final double[] maxValues;
+
+    /**
+     * The max value less the min value of each column.
+     */
+    private final double[] ranges;
+
+    /**
+     * Whether values out of range are refused, for each column.
+     */
+    private final boolean[] bounded;
+
+    /**
+     * The kernels going through whole columns.
+     */
+    private final VectorKernelCore kernel = VectorKernelFactory.getKernel();
+
+    /**
+     * Constructing the kernel from the min and max values of each column.
+     *
+     * @param normalising boolean
+     * @param offsets double[]
+     * @param maxValues double[]
+     * @param bounded boolean[] or null if all columns are
+     */
+    private NormalisationKernel(boolean normalising, double[] offsets, double[] maxValues, boolean[] bounded) {
+        if ( offsets.length != maxValues.length ) throw new IllegalArgumentException("Expected as many min as max values.");
+        if ( bounded != null && bounded.length != offsets.length ) 
+            throw new IllegalArgumentException("Expected a bound for each column.");
+        this.normalising = normalising;
+        this.offsets = offsets;
+        this.maxValues = maxValues;
+        this.bounded = new boolean[offsets.length];
+        for ( int column = 0; column < offsets.length; column++ ) this.bounded[column] = bounded == null || bounded[column];
+        this.ranges = new double[offsets.length];
+        for ( int column = 0; column < offsets.length; column++ ) ranges[column] = maxValues[column] - offsets[column];
+    }
+
+    /**
+     * The kernel normalising each column from its min and max values into
+     * the range between zero and one.
+     *
+     * @param minValues double[]
+     * @param maxValues double[]
+     * @return NormalisationKernel
+     */
+    public static NormalisationKernel normalising(double[] minValues, double[] maxValues) {
+        return normalising(minValues, maxValues, null);
+    }
+
+    /**
+     * The kernel normalising each column from the values given into 0 and
+     * 1, refusing values out of range only for bounded columns.
+     *
+     * @param minValues double[] each normalised into 0
+     * @param maxValues double[] each normalised into 1
+     * @param bounded boolean[] or null if all columns are
+     * @return NormalisationKernel
+     */
+    public static NormalisationKernel normalising(double[] minValues, double[] maxValues, boolean[] bounded) {
+        double[] offsets = new double[minValues.length];
+        double[] maxes = new double[maxValues.length];
+        for ( int column = 0; column < minValues.length && column < maxValues.length; column++ ) {
+            // Adding zero turns -0.0 into 0.0, as Normalize does.
+            offsets[column] = minValues[column] + 0.0;
+            maxes[column] = maxValues[column] + 0.0;
+            if ( offsets[column] == maxes[column] )
+                throw new IllegalArgumentException("Min and Max cannot be of the exact same value.");
+        }
+        return new NormalisationKernel(true, offsets, maxes, bounded);
+    }
+
+    /**
+     * The kernel de-normalising each column from the range between zero and
+     * one back into its min and max values.
+     *
+     * @param minValues double[]
+     * @param maxValues double[]
+     * @return NormalisationKernel
+     */
+    public static NormalisationKernel deNormalising(double[] minValues, double[] maxValues) {
+        return deNormalising(minValues, maxValues, null);
+    }
+
+    /**
+     * The kernel de-normalising each column from 0 and 1 back into the
+     * values given, refusing values out of range only for bounded columns.
+     *
+     * @param minValues double[] each de-normalised from 0
+     * @param maxValues double[] each de-normalised from 1
+     * @param bounded boolean[] or null if all columns are
+     * @return NormalisationKernel
+     */
+    public static NormalisationKernel deNormalising(double[] minValues, double[] maxValues, boolean[] bounded) {
+        return new NormalisationKernel(false, minValues.clone(), maxValues.clone(), bounded);
+    }
+
+    /**
+     * The number of columns.
+     *
+     * @return int
+     */
+    public int getNumberOfColumns() {
+        return offsets.length;
+    }
+
+    /**
+     * Normalises, or de-normalises, one value of the given column.
+     *
+     * @param column int
+     * @param value double
+     * @return double
+     */
+    public double apply(int column, double value) {
+        if ( normalising ) {
+            if ( bounded[column] && ! ( value >= offsets[column] && value <= maxValues[column] ) )
+                throw new IllegalArgumentException("Supplied value '"
+                  + value + "' is out of range ["
+                  + offsets[column] + ", " + maxValues[column] + "]");
+            return ( value - offsets[column] ) / ranges[column];
+        }
+        if ( bounded[column] && ! ( value >= 0.0 && value <= 1.0 ) )
+            throw new IllegalArgumentException("Supplied value '" + value + "' is out of range [0.0, 1.0]");
+        return offsets[column] + value * ranges[column];
+    }
+
+    /**
+     * Normalises, or de-normalises, the first columns of the row in place.
+     *
+     * @param row double[]
+     * @param numberOfColumns int
+     */
+    public void applyToRow(double[] row, int numberOfColumns) {
+        for ( int column = 0; column < numberOfColumns; column++ ) row[column] = apply(column, row[column]);
+    }
+
+    /**
+     * Normalises, or de-normalises, the first values of one column in place.
+     *
+     * @param column int
+     * @param values double[]
+     * @param count int
+     */
+    public void applyToColumn(int column, double[] values, int count) {
+        if ( normalising ) {
+            int outside = bounded[column] ? kernel.firstOutside(values, count, offsets[column], maxValues[column]) : -1;
+            // Refused just as one value at a time would be.
+            if ( outside >= 0 ) apply(column, values[outside]);
+            kernel.normalise(values, count, offsets[column], ranges[column]);
+            return;
+        }
+        int outside = bounded[column] ? kernel.firstOutside(values, count, 0.0, 1.0) : -1;
+        if ( outside >= 0 ) apply(column, values[outside]);
+        kernel.deNormalise(values, count, offsets[column], ranges[column]);
+    }
+
+    /**
+     * Normalises, or de-normalises, every value of the storage in place, the
+     * rows split among the threads of the fork-join pool.
+     *
+     * @param storage DataStorage safe to write different rows from different threads
+     */
+    public void applyTo(DataStorage storage) {
+        if ( storage.getNumberOfColumns() > offsets.length ) throw new ArrayIndexOutOfBoundsException(offsets.length);
+        if ( storage.getNumberOfRows() == 0 ) return;
+        ForkJoinPool.commonPool().invoke(new ApplyTask(storage, 0, storage.getNumberOfRows()));
+    }
+
+    /**
+     * Going through a range of rows, splitting it in half until small enough
+     * for one task. Column major storages are gone through a column at a
+     * time, and all others a row at a time.
+     */
+    private class ApplyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final DataStorage storage;
+        private final int fromRow;
+        private final int toRow;
+
+        private ApplyTask(DataStorage storage, int fromRow, int toRow) {
+            this.storage = storage;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if ( toRow - fromRow > ROWS_PER_TASK ) {
+                int middle = ( fromRow + toRow ) >>> 1;
+                invokeAll(new ApplyTask(storage, fromRow, middle), new ApplyTask(storage, middle, toRow));
+                return;
+            }
+            int numberOfColumns = storage.getNumberOfColumns();
+            if ( storage.getLayout() == StorageLayout.COLUMN_MAJOR ) {
+                double[] values = new double[toRow - fromRow];
+                for ( int column = 0; column < numberOfColumns; column++ ) {
+                    storage.readColumn(column, fromRow, values.length, values);
+                    applyToColumn(column, values, values.length);
+                    storage.writeColumn(column, fromRow, values.length, values);
+                }
+                return;
+            }
+            double[] values = new double[numberOfColumns];
+            for ( int row = fromRow; row < toRow; row++ ) {
+                storage.readRow(row, values);
+                applyToRow(values, numberOfColumns);
+                storage.writeRow(row, values);
+            }
+        }
+    }
+}
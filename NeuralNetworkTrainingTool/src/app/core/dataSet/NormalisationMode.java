@@ -0,0 +1,32 @@
+package app.core.dataSet;
+
+/**
+ * The ways to normalise the input columns of a DataSet. Each maps two
+ * values of a column to 0 and 1, and every other value along the line
+ * through them. Output columns are always normalised by their min and max
+ * values, so they stay within the range of the output activation.
+ * 
+ * @author Vasco
+ *
+ */
+public enum NormalisationMode {
+
+    /**
+     * The min value to 0 and the max value to 1. Values out of this range
+     * are refused.
+     */
+    MIN_MAX,
+
+    /**
+     * The mean to 0 and the mean plus one standard deviation to 1, so the
+     * column has zero mean and unit variance.
+     */
+    Z_SCORE,
+
+    /**
+     * The median to 0 and the median plus the interquartile range to 1, or
+     * plus the whole range if the quartiles are equal. Outliers of heavy
+     * tailed columns then no longer squash all other values together.
+     */
+    ROBUST;
+}
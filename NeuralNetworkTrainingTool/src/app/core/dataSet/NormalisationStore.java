@@ -0,0 +1,270 @@
+package app.core.dataSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import app.model.serializable.FileAttributes;
+
+/**
+ * Keeps the values each data set was normalised with in binary files, so
+ * later runs normalise the same data the same way without working the
+ * values out again.<p>
+ *
+ * Each entry is named after a fingerprint of everything the values depend
+ * on: the source file path, size and last modified time, the header and
+ * footer rows, the separator, the training range, every column map with its
+ * transformation, and the normalisation mode. Values of other data, or other
+ * maps, are never used. The testing range is left out, so the same values
+ * are used whichever rows are tested with, as the network was trained with
+ * them.
+ * Entries are written to a temporary file first and renamed into place, so
+ * an entry is never seen half written. Working the values out is done
+ * holding a lock on the source file, both between threads and between
+ * processes, so runs sharing a store wait for the one working the values
+ * out instead of each working them out again.
+ *
+ * @author Vasco
+ *
+ */
+public class NormalisationStore {
+
+    /**
+     * The directory of the store used by default, within the working
+     * directory.
+     */
+    public static final String DEFAULT_DIRECTORY = "normalisation";
+
+    /**
+     * The extension of each entry file.
+     */
+    public static final String EXTENSION = ".nsv";
+
+    /**
+     * The extension of the lock file of each source file.
+     */
+    private static final String LOCK_EXTENSION = ".lock";
+
+    /**
+     * Identifies the entry file format.
+     */
+    private static final int MAGIC = 0x4E4E5356;
+
+    /**
+     * The entry file format version, also part of each key.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The size of the entry header: magic, version and columns.
+     */
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+    /**
+     * The byte order of all values.
+     */
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * The lock of each lock file held by this process, as a file lock is
+     * held by the whole process and not by one thread.
+     */
+    private static final ConcurrentHashMap<String, ReentrantLock> THREAD_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * The directory keeping all entries, created when first written.
+     */
+    private final File directory;
+
+    /**
+     * Constructing the store over the given directory.
+     *
+     * @param directory String
+     */
+    public NormalisationStore(String directory) {
+        if ( directory == null ) throw new IllegalArgumentException("Directory cannot be null.");
+        this.directory = new File(directory);
+    }
+
+    /**
+     * The key of the values of the data loaded from the given file with the
+     * given maps and normalised in the given mode, the same whatever the
+     * testing range. Keys of the same source file all start with the same
+     * prefix, up to the first '-'.
+     *
+     * @param fileAttributes FileAttributes
+     * @param outputColumnMap List of VectorMap
+     * @param inputColumnMap List of VectorMap
+     * @param normalisationMode NormalisationMode
+     * @return String
+     * @throws IOException if the source file cannot be found
+     */
+    public static String getKey(FileAttributes fileAttributes, List<VectorMap> outputColumnMap,
+            List<VectorMap> inputColumnMap, NormalisationMode normalisationMode) throws IOException {
+        String description = "store=" + VERSION + "\n" + DataSetCache.describe(fileAttributes, outputColumnMap,
+                inputColumnMap, null, false) + "\nnormalisation=" + normalisationMode;
+        return getSourcePrefix(fileAttributes) + "-" + DataSetCache.toHex(DataSetCache.sha256(description));
+    }
+
+    /**
+     * The values stored with the given key.
+     *
+     * @param key String
+     * @return double[][] the min and max values, or null if not stored or not valid
+     */
+    public double[][] load(String key) {
+        File file = getEntryFile(key);
+        if ( ! file.isFile() ) return null;
+        try ( FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ) ) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+            if ( channel.read(header, 0) != HEADER_SIZE ) return null;
+            header.flip();
+            if ( header.getInt() != MAGIC || header.getInt() != VERSION ) return null;
+            int columns = header.getInt();
+            if ( columns <= 0 || channel.size() != HEADER_SIZE + 2L * columns * Double.BYTES ) return null;
+
+            ByteBuffer buffer = ByteBuffer.allocate(2 * columns * Double.BYTES).order(BYTE_ORDER);
+            while ( buffer.hasRemaining() ) {
+                if ( channel.read(buffer, HEADER_SIZE + buffer.position()) < 0 ) return null;
+            }
+            buffer.flip();
+            double[][] values = new double[2][columns];
+            buffer.asDoubleBuffer().get(values[0]).get(values[1]);
+            return values;
+        } catch (IOException e) {
+            // Unreadable entries are just not used.
+            return null;
+        }
+    }
+
+    /**
+     * Saves the values with the given key, replacing any previous ones at
+     * once.
+     *
+     * @param key String
+     * @param minValues double[]
+     * @param maxValues double[]
+     * @throws IOException
+     */
+    public void save(String key, double[] minValues, double[] maxValues) throws IOException {
+        if ( minValues.length != maxValues.length ) throw new IllegalArgumentException("Expected as many min as max values.");
+        if ( ! directory.isDirectory() ) Files.createDirectories(directory.toPath());
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 2 * minValues.length * Double.BYTES).order(BYTE_ORDER);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(minValues.length);
+        for ( double value : minValues ) buffer.putDouble(value);
+        for ( double value : maxValues ) buffer.putDouble(value);
+        buffer.flip();
+
+        File temporary = File.createTempFile(key, ".tmp", directory);
+        try {
+            try ( FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE) ) {
+                while ( buffer.hasRemaining() ) channel.write(buffer);
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary.toPath(), getEntryFile(key).toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary.toPath(), getEntryFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temporary.delete();
+        }
+    }
+
+    /**
+     * The values stored with the given key, or else those worked out by the
+     * given calculation, which are stored. The calculation is only run
+     * holding the lock of the source file, so of all threads and processes
+     * asking for the same values at once only one works them out, the
+     * others waiting for and reading its values.
+     *
+     * @param key String
+     * @param calculation Supplier of the min and max values
+     * @return double[][] the min and max values
+     * @throws IOException if the lock cannot be held, or the values cannot be stored
+     */
+    public double[][] loadOrCalculate(String key, Supplier<double[][]> calculation) throws IOException {
+        double[][] values = load(key);
+        if ( values != null ) return values;
+
+        if ( ! directory.isDirectory() ) Files.createDirectories(directory.toPath());
+        File lockFile = getLockFile(key);
+        ReentrantLock threadLock = THREAD_LOCKS.computeIfAbsent(lockFile.getCanonicalPath(), path -> new ReentrantLock());
+        threadLock.lock();
+        try ( FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE) ) {
+            FileLock lock = channel.lock();
+            try {
+                // Another run may have worked them out while waiting.
+                values = load(key);
+                if ( values != null ) return values;
+                values = calculation.get();
+                save(key, values[0], values[1]);
+                return values;
+            } finally {
+                lock.release();
+            }
+        } finally {
+            threadLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes all entries of the same source file as the given key, for
+     * every map and mode, and the lock file of the source file. Not to be
+     * done while other runs are working out values of the same file.
+     *
+     * @param key String
+     */
+    public void deleteAll(String key) {
+        String prefix = key.substring(0, key.indexOf('-') + 1);
+        File[] files = directory.listFiles((folder, name) -> name.startsWith(prefix) && name.endsWith(EXTENSION));
+        if ( files != null ) {
+            for ( File file : files ) file.delete();
+        }
+        getLockFile(key).delete();
+    }
+
+    /**
+     * The file of the entry of the given key.
+     *
+     * @param key String
+     * @return File
+     */
+    public File getEntryFile(String key) {
+        return new File(directory, key + EXTENSION);
+    }
+
+    /**
+     * The lock file of the source file of the given key.
+     *
+     * @param key String
+     * @return File
+     */
+    private File getLockFile(String key) {
+        return new File(directory, key.substring(0, key.indexOf('-')) + LOCK_EXTENSION);
+    }
+
+    /**
+     * The prefix of the keys of the given source file.
+     *
+     * @param fileAttributes FileAttributes
+     * @return String
+     * @throws IOException if the source file cannot be found
+     */
+    private static String getSourcePrefix(FileAttributes fileAttributes) throws IOException {
+        String path = new File(fileAttributes.getFilename()).getCanonicalPath();
+        return DataSetCache.toHex(DataSetCache.sha256(path)).substring(0, 16);
+    }
+}
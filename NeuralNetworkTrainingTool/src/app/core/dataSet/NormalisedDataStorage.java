@@ -0,0 +1,135 @@
+package app.core.dataSet;
+
+/**
+ * A read only view of another storage, normalising, or de-normalising, each
+ * value as it is read, so the rows stored are never rewritten. Views with
+ * different normalisations can be kept over the same rows at once, as long
+ * as those rows are no longer written.<p>
+ *
+ * Values are worked out by a NormalisationKernel, exactly as normalising
+ * the rows in place would, and only for the columns read.
+ *
+ * @author Vasco
+ *
+ */
+public final class NormalisedDataStorage implements DataStorage {
+
+    /**
+     * The storage of the rows as they are.
+     */
+    private final DataStorage source;
+
+    /**
+     * The normalisation of each column.
+     */
+    private final NormalisationKernel kernel;
+
+    /**
+     * Constructing the view over the given storage.
+     *
+     * @param source DataStorage
+     * @param kernel NormalisationKernel of at least as many columns
+     */
+    public NormalisedDataStorage(DataStorage source, NormalisationKernel kernel) {
+        if ( source == null ) throw new IllegalArgumentException("Storage cannot be null.");
+        if ( kernel.getNumberOfColumns() < source.getNumberOfColumns() )
+            throw new IllegalArgumentException("Expected "+source.getNumberOfColumns()+" columns.");
+        this.source = source;
+        this.kernel = kernel;
+    }
+
+    /**
+     * The storage of the rows as they are.
+     *
+     * @return DataStorage
+     */
+    public DataStorage getSource() {
+        return source;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfRows() {
+        return source.getNumberOfRows();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfColumns() {
+        return source.getNumberOfColumns();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getRow(int row, int fromColumn, int toColumn) {
+        double[] values = source.getRow(row, fromColumn, toColumn);
+        for ( int index = 0; index < values.length; index++ ) values[index] = kernel.apply(fromColumn + index, values[index]);
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, double[] target) {
+        source.readRow(row, target);
+        kernel.applyToRow(target, source.getNumberOfColumns());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, int fromColumn, int toColumn, double[] target) {
+        source.readRow(row, fromColumn, toColumn, target);
+        for ( int column = fromColumn; column < toColumn; column++ ) {
+            target[column - fromColumn] = kernel.apply(column, target[column - fromColumn]);
+        }
+    }
+
+    /**
+     * Not allowed, as views are read only.
+     */
+    @Override
+    public void writeRow(int row, double[] values) {
+        throw new IllegalStateException("Normalised views are read only.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readColumn(int column, int fromRow, int count, double[] target) {
+        source.readColumn(column, fromRow, count, target);
+        kernel.applyToColumn(column, target, count);
+    }
+
+    /**
+     * Not allowed, as views are read only.
+     */
+    @Override
+    public void writeColumn(int column, int fromRow, int count, double[] values) {
+        throw new IllegalStateException("Normalised views are read only.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StorageLayout getLayout() {
+        return source.getLayout();
+    }
+
+    /**
+     * Leaves the storage viewed open, as it is not owned by the view.
+     */
+    @Override
+    public void close() {
+    }
+}
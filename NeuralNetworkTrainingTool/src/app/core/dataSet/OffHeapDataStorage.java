@@ -0,0 +1,404 @@
+package app.core.dataSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Keeps all rows outside the Java heap, one after the other in direct or
+ * memory mapped ByteBuffers. Each buffer, or slab, holds a whole number of
+ * rows and at most 2GB, so any number of rows can be stored while the heap
+ * only holds the buffer objects.<p>
+ *
+ * Memory mapped storages keep their values in a file, which other processes
+ * may map as well. The memory of all slabs is released as soon as closed,
+ * rather than whenever the garbage collector gets to it. Each access holds a
+ * read lock closing waits for, so threads still reading while the storage is
+ * closed finish first, and those reading after it fail with an
+ * IllegalStateException rather than reading memory already released.
+ *
+ * @author Vasco
+ *
+ */
+public class OffHeapDataStorage implements DataStorage {
+
+    /**
+     * The largest slab size, in bytes.
+     */
+    public static final int MAX_SLAB_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * The number of rows.
+     */
+    private final int numberOfRows;
+
+    /**
+     * The number of columns per row.
+     */
+    private final int numberOfColumns;
+
+    /**
+     * The number of rows held in each slab.
+     */
+    private final int rowsPerSlab;
+
+    /**
+     * The file the slabs are mapped from, null if direct.
+     */
+    private final File file;
+
+    /**
+     * Whether the file is to be deleted once closed.
+     */
+    private final boolean deleteOnClose;
+
+    /**
+     * The slabs holding all values, null once closed.
+     */
+    private volatile ByteBuffer[] slabs;
+
+    /**
+     * Held for reading by each access to the slabs, and for writing while
+     * releasing them.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Constructing the storage in direct buffers, all values zero.
+     *
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     */
+    public OffHeapDataStorage(int numberOfRows, int numberOfColumns) {
+        this(numberOfRows, numberOfColumns, MAX_SLAB_SIZE);
+    }
+
+    /**
+     * Constructing the storage in direct buffers, all values zero.
+     *
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     * @param slabSize int largest number of bytes per slab, never less than one row
+     */
+    public OffHeapDataStorage(int numberOfRows, int numberOfColumns, int slabSize) {
+        this(numberOfRows, numberOfColumns, slabSize, null, false);
+    }
+
+    /**
+     * Constructing the storage mapped from the given file, which is created or
+     * grown as needed and kept once closed. Values already in the file are
+     * kept, so the file can be shared with other processes.
+     *
+     * @param file File
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     */
+    public OffHeapDataStorage(File file, int numberOfRows, int numberOfColumns) {
+        this(numberOfRows, numberOfColumns, MAX_SLAB_SIZE, file, false);
+    }
+
+    /**
+     * Constructing the storage mapped from a new temporary file in the given
+     * directory, deleted once closed.
+     *
+     * @param directory File, or null for the default temporary directory
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     * @return OffHeapDataStorage
+     */
+    public static OffHeapDataStorage createMapped(File directory, int numberOfRows, int numberOfColumns) {
+        try {
+            File file = File.createTempFile("dataSet", ".slabs", directory);
+            file.deleteOnExit();
+            return new OffHeapDataStorage(numberOfRows, numberOfColumns, MAX_SLAB_SIZE, file, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Constructing the storage in direct buffers, or mapped from the file if
+     * given.
+     *
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     * @param slabSize int largest number of bytes per slab
+     * @param file File or null for direct buffers
+     * @param deleteOnClose boolean
+     */
+    private OffHeapDataStorage(int numberOfRows, int numberOfColumns, int slabSize, File file, boolean deleteOnClose) {
+        if ( numberOfRows < 0 || numberOfColumns < 0 ) throw new IllegalArgumentException("Cannot have negative sizes.");
+        if ( slabSize <= 0 ) throw new IllegalArgumentException("Slab size must be positive.");
+        int rowSize = Math.max(1, numberOfColumns) * Double.BYTES;
+        if ( rowSize > slabSize ) throw new IllegalArgumentException("Slab size too small for one row.");
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.rowsPerSlab = slabSize / rowSize;
+        this.file = file;
+        this.deleteOnClose = deleteOnClose;
+
+        ByteBuffer[] newSlabs = new ByteBuffer[( numberOfRows + rowsPerSlab - 1 ) / rowsPerSlab];
+        if ( file == null ) {
+            for ( int slab = 0; slab < newSlabs.length; slab++ ) {
+                newSlabs[slab] = ByteBuffer.allocateDirect(getSlabRows(slab) * rowSize).order(ByteOrder.nativeOrder());
+            }
+        }
+        else {
+            try ( FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE) ) {
+                // The mapping stays valid once the channel is closed.
+                for ( int slab = 0; slab < newSlabs.length; slab++ ) {
+                    newSlabs[slab] = channel.map(MapMode.READ_WRITE, (long) slab * rowsPerSlab * rowSize,
+                            (long) getSlabRows(slab) * rowSize).order(ByteOrder.nativeOrder());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        this.slabs = newSlabs;
+    }
+
+    /**
+     * The file the slabs are mapped from.
+     *
+     * @return File or null if direct
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * The number of slabs.
+     *
+     * @return int
+     */
+    public int getNumberOfSlabs() {
+        return getSlabs().length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getRow(int row, int fromColumn, int toColumn) {
+        if ( fromColumn > toColumn ) throw new IllegalArgumentException(fromColumn+" > "+toColumn);
+        if ( fromColumn < 0 || toColumn > numberOfColumns ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        double[] values = new double[toColumn - fromColumn];
+        readRow(row, fromColumn, toColumn, values);
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, double[] target) {
+        int slab = getSlab(row);
+        int offset = getOffset(row);
+        long stamp = lock.readLock();
+        try {
+            ByteBuffer buffer = getSlabs()[slab];
+            for ( int column = 0; column < numberOfColumns; column++ ) {
+                target[column] = buffer.getDouble(offset + column * Double.BYTES);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, int fromColumn, int toColumn, double[] target) {
+        if ( fromColumn > toColumn ) throw new IllegalArgumentException(fromColumn+" > "+toColumn);
+        if ( fromColumn < 0 || toColumn > numberOfColumns ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        int slab = getSlab(row);
+        int offset = getOffset(row);
+        long stamp = lock.readLock();
+        try {
+            ByteBuffer buffer = getSlabs()[slab];
+            for ( int column = fromColumn; column < toColumn; column++ ) {
+                target[column - fromColumn] = buffer.getDouble(offset + column * Double.BYTES);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeRow(int row, double[] values) {
+        int slab = getSlab(row);
+        int offset = getOffset(row);
+        long stamp = lock.readLock();
+        try {
+            ByteBuffer buffer = getSlabs()[slab];
+            for ( int column = 0; column < numberOfColumns; column++ ) {
+                buffer.putDouble(offset + column * Double.BYTES, values[column]);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readColumn(int column, int fromRow, int count, double[] target) {
+        if ( column < 0 || column >= numberOfColumns ) throw new ArrayIndexOutOfBoundsException(column);
+        long stamp = lock.readLock();
+        try {
+            ByteBuffer[] current = getSlabs();
+            for ( int index = 0; index < count; index++ ) {
+                int row = fromRow + index;
+                target[index] = current[getSlab(row)].getDouble(getOffset(row) + column * Double.BYTES);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeColumn(int column, int fromRow, int count, double[] values) {
+        if ( column < 0 || column >= numberOfColumns ) throw new ArrayIndexOutOfBoundsException(column);
+        long stamp = lock.readLock();
+        try {
+            ByteBuffer[] current = getSlabs();
+            for ( int index = 0; index < count; index++ ) {
+                int row = fromRow + index;
+                current[getSlab(row)].putDouble(getOffset(row) + column * Double.BYTES, values[index]);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StorageLayout getLayout() {
+        return StorageLayout.ROW_MAJOR;
+    }
+
+    /**
+     * Releases the memory of all slabs, once the threads reading or writing
+     * them are done, and deletes the file if temporary.
+     */
+    @Override
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            ByteBuffer[] current = slabs;
+            if ( current == null ) return;
+            slabs = null;
+            for ( ByteBuffer slab : current ) release(slab);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if ( deleteOnClose ) file.delete();
+    }
+
+    /**
+     * The slabs, as long as not closed.
+     *
+     * @return ByteBuffer[]
+     */
+    private ByteBuffer[] getSlabs() {
+        ByteBuffer[] current = slabs;
+        if ( current == null ) throw new IllegalStateException("Storage already closed.");
+        return current;
+    }
+
+    /**
+     * The number of rows of the given slab, the last one holding the rest.
+     *
+     * @param slab int
+     * @return int
+     */
+    private int getSlabRows(int slab) {
+        return Math.min(rowsPerSlab, numberOfRows - slab * rowsPerSlab);
+    }
+
+    /**
+     * The slab holding the row.
+     *
+     * @param row int
+     * @return int
+     */
+    private int getSlab(int row) {
+        if ( row < 0 || row >= numberOfRows ) throw new ArrayIndexOutOfBoundsException(row);
+        return row / rowsPerSlab;
+    }
+
+    /**
+     * The position of the first byte of the row within its slab.
+     *
+     * @param row int
+     * @return int
+     */
+    private int getOffset(int row) {
+        return ( row % rowsPerSlab ) * numberOfColumns * Double.BYTES;
+    }
+
+    /**
+     * Releases the memory of a direct or mapped buffer straight away. This
+     * relies on JDK internals, so if not available the memory is left to be
+     * released by the garbage collector.
+     *
+     * @param buffer ByteBuffer
+     */
+    private static void release(ByteBuffer buffer) {
+        if ( ! buffer.isDirect() ) return;
+        try {
+            // Java 9 onwards.
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available, try the Java 8 way.
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if ( cleaner != null ) cleaner.getClass().getMethod("clean").invoke(cleaner);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Left to the garbage collector.
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package app.core.dataSet;
+
+import java.io.File;
+import java.util.LinkedList;
+import java.util.List;
+
+import app.model.serializable.FileAttributes;
+
+/**
+ * OffHeapFileDataSet is a FileDataSet keeping its rows outside the Java heap,
+ * in direct buffers or in memory mapped temporary files. The heap then only
+ * needs to hold the rows in use, which keeps garbage collection short however
+ * large the data set.<p>
+ *
+ * The memory is released as soon as the data set is closed, after which it
+ * must be loaded again to be used.
+ *
+ * @author Vasco
+ *
+ */
+public class OffHeapFileDataSet extends FileDataSet {
+
+    /**
+     * The directory the mapped files are created in, null for direct buffers.
+     */
+    private final File mapDirectory;
+
+    /**
+     * All storages created so far, to be closed.
+     */
+    private final List<OffHeapDataStorage> storages = new LinkedList<>();
+
+    /**
+     * Constructing the data set with its rows in direct buffers.
+     *
+     * @param fileAttributes FileAttributes
+     */
+    public OffHeapFileDataSet(FileAttributes fileAttributes) {
+        this(fileAttributes, null);
+    }
+
+    /**
+     * Constructing the data set with its rows in files mapped from the given
+     * directory, or in direct buffers if none given.
+     *
+     * @param fileAttributes FileAttributes
+     * @param mapDirectory File or null for direct buffers
+     */
+    public OffHeapFileDataSet(FileAttributes fileAttributes, File mapDirectory) {
+        super(fileAttributes);
+        this.mapDirectory = mapDirectory;
+    }
+
+    /**
+     * Creates an off heap storage, mapped or direct.
+     */
+    @Override
+    protected DataStorage createStorage(int numberOfRows, int numberOfColumns) {
+        OffHeapDataStorage storage = mapDirectory == null ?
+                new OffHeapDataStorage(numberOfRows, numberOfColumns) :
+                OffHeapDataStorage.createMapped(mapDirectory, numberOfRows, numberOfColumns);
+        synchronized ( storages ) {
+            storages.add(storage);
+        }
+        return storage;
+    }
+
+    /**
+     * Closes the storage replaced, if created by this data set, so each load
+     * leaves only the storages in use behind.
+     */
+    @Override
+    protected void releaseStorage(DataStorage storage) {
+        synchronized ( storages ) {
+            if ( storages.remove(storage) ) storage.close();
+        }
+    }
+
+    /**
+     * Releases the memory of all storages, removing any mapped files. The
+     * data set must be loaded again to be used after.
+     */
+    public void close() {
+        synchronized ( storages ) {
+            for ( OffHeapDataStorage storage : storages ) storage.close();
+            storages.clear();
+        }
+    }
+}
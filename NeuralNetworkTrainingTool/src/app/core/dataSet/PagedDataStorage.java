@@ -0,0 +1,304 @@
+package app.core.dataSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps all rows on disk in a binary file split into pages of a fixed number
+ * of rows, holding only a bounded number of pages in memory at any time. The
+ * least recently used page is written back to disk, if changed, and its
+ * memory reused whenever another page is needed.<p>
+ *
+ * The memory used is bounded by the number of pages in memory times the page
+ * size, whatever the number of rows stored. All methods are synchronised so
+ * the storage can be shared by threads training at once.
+ *
+ * @author Vasco
+ *
+ */
+public class PagedDataStorage implements DataStorage {
+
+    /**
+     * The default number of rows per page.
+     */
+    public static final int DEFAULT_ROWS_PER_PAGE = 4096;
+
+    /**
+     * The default number of pages held in memory.
+     */
+    public static final int DEFAULT_MAX_PAGES = 64;
+
+    /**
+     * The byte order of all values, native on most platforms.
+     */
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * The number of rows.
+     */
+    private final int numberOfRows;
+
+    /**
+     * The number of columns per row.
+     */
+    private final int numberOfColumns;
+
+    /**
+     * The number of rows per page.
+     */
+    private final int rowsPerPage;
+
+    /**
+     * The maximum number of pages held in memory.
+     */
+    private final int maxPages;
+
+    /**
+     * The file keeping all pages.
+     */
+    private final File file;
+
+    /**
+     * The channel to read and write pages.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The buffer used to read and write each page.
+     */
+    private final ByteBuffer pageBuffer;
+
+    /**
+     * The pages in memory by page number, least recently used first.
+     */
+    private final LinkedHashMap<Integer, Page> pages;
+
+    /**
+     * The number of pages read from disk so far.
+     */
+    private long pagesRead = 0;
+
+    /**
+     * Constructing the storage in a new temporary file in the given
+     * directory, with the default page size and number of pages in memory.
+     *
+     * @param directory File, or null for the default temporary directory
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     */
+    public PagedDataStorage(File directory, int numberOfRows, int numberOfColumns) {
+        this(directory, numberOfRows, numberOfColumns, DEFAULT_ROWS_PER_PAGE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * Constructing the storage in a new temporary file in the given directory.
+     *
+     * @param directory File, or null for the default temporary directory
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     * @param rowsPerPage int
+     * @param maxPages int maximum number of pages held in memory
+     */
+    public PagedDataStorage(File directory, int numberOfRows, int numberOfColumns, int rowsPerPage, int maxPages) {
+        if ( numberOfRows < 0 || numberOfColumns < 0 ) throw new IllegalArgumentException("Cannot have negative sizes.");
+        if ( rowsPerPage <= 0 || maxPages <= 0 ) throw new IllegalArgumentException("Pages must hold rows.");
+        if ( (long) rowsPerPage * numberOfColumns * Double.BYTES > Integer.MAX_VALUE )
+            throw new IllegalArgumentException("Page size too large.");
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.rowsPerPage = rowsPerPage;
+        this.maxPages = maxPages;
+        this.pageBuffer = ByteBuffer.allocate(rowsPerPage * numberOfColumns * Double.BYTES).order(BYTE_ORDER);
+        this.pages = new LinkedHashMap<>(16, 0.75f, true);
+        try {
+            this.file = File.createTempFile("dataSet", ".pages", directory);
+            this.file.deleteOnExit();
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized double[] getRow(int row, int fromColumn, int toColumn) {
+        if ( fromColumn > toColumn ) throw new IllegalArgumentException(fromColumn+" > "+toColumn);
+        if ( fromColumn < 0 || toColumn > numberOfColumns ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        Page page = getPage(row);
+        int offset = ( row % rowsPerPage ) * numberOfColumns;
+        return Arrays.copyOfRange(page.values, offset + fromColumn, offset + toColumn);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void readRow(int row, double[] target) {
+        Page page = getPage(row);
+        System.arraycopy(page.values, ( row % rowsPerPage ) * numberOfColumns, target, 0, numberOfColumns);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void readRow(int row, int fromColumn, int toColumn, double[] target) {
+        if ( fromColumn > toColumn ) throw new IllegalArgumentException(fromColumn+" > "+toColumn);
+        if ( fromColumn < 0 || toColumn > numberOfColumns ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        Page page = getPage(row);
+        System.arraycopy(page.values, ( row % rowsPerPage ) * numberOfColumns + fromColumn, target, 0, toColumn - fromColumn);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void writeRow(int row, double[] values) {
+        Page page = getPage(row);
+        System.arraycopy(values, 0, page.values, ( row % rowsPerPage ) * numberOfColumns, numberOfColumns);
+        page.dirty = true;
+    }
+
+    /**
+     * Writes all changed pages back to disk.
+     */
+    public synchronized void flush() {
+        for ( Page page : pages.values() ) writePage(page);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() {
+        pages.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        file.delete();
+    }
+
+    /**
+     * The number of pages read from disk so far.
+     *
+     * @return long
+     */
+    public synchronized long getPagesRead() {
+        return pagesRead;
+    }
+
+    /**
+     * The page holding the given row, read into memory if not already.
+     *
+     * @param row int
+     * @return Page
+     */
+    private Page getPage(int row) {
+        if ( row < 0 || row >= numberOfRows ) throw new ArrayIndexOutOfBoundsException(row);
+        int pageNumber = row / rowsPerPage;
+        Page page = pages.get(pageNumber);
+        if ( page != null ) return page;
+
+        // Reuse the least recently used page if all in use.
+        if ( pages.size() >= maxPages ) {
+            Iterator<Page> leastRecentlyUsed = pages.values().iterator();
+            page = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            writePage(page);
+            page.number = pageNumber;
+        }
+        else {
+            page = new Page(pageNumber, new double[rowsPerPage * numberOfColumns]);
+        }
+        readPage(page);
+        pages.put(pageNumber, page);
+        return page;
+    }
+
+    /**
+     * Reads the page from disk. Pages never written are all zeros.
+     *
+     * @param page Page
+     */
+    private void readPage(Page page) {
+        pageBuffer.clear();
+        try {
+            long position = (long) page.number * pageBuffer.capacity();
+            while ( pageBuffer.hasRemaining() ) {
+                if ( channel.read(pageBuffer, position + pageBuffer.position()) < 0 ) break;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Past the end of the file is all zeros.
+        while ( pageBuffer.hasRemaining() ) pageBuffer.put((byte) 0);
+        pageBuffer.flip();
+        DoubleBuffer values = pageBuffer.asDoubleBuffer();
+        values.get(page.values);
+        page.dirty = false;
+        pagesRead++;
+    }
+
+    /**
+     * Writes the page to disk if changed.
+     *
+     * @param page Page
+     */
+    private void writePage(Page page) {
+        if ( ! page.dirty ) return;
+        pageBuffer.clear();
+        pageBuffer.asDoubleBuffer().put(page.values);
+        try {
+            long position = (long) page.number * pageBuffer.capacity();
+            while ( pageBuffer.hasRemaining() ) {
+                channel.write(pageBuffer, position + pageBuffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        page.dirty = false;
+    }
+
+    /**
+     * One page of rows in memory.
+     */
+    private static class Page {
+        private int number;
+        private final double[] values;
+        private boolean dirty = false;
+
+        private Page(int number, double[] values) {
+            this.number = number;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package app.core.dataSet;
+
+import java.io.File;
+import java.util.LinkedList;
+import java.util.List;
+
+import app.model.serializable.FileAttributes;
+
+/**
+ * PagedFileDataSet is a FileDataSet keeping its rows on disk rather than in
+ * memory, in pages of rows of which only a bounded number is held in memory
+ * at any time. This allows data sets larger than the available memory to be
+ * loaded, normalised and trained on, at the cost of reading pages back from
+ * disk while going through the rows.<p>
+ *
+ * The page files are removed once closed, or else when the application exits.
+ *
+ * @author Vasco
+ *
+ */
+public class PagedFileDataSet extends FileDataSet {
+
+    /**
+     * The directory the page files are created in, null for the default
+     * temporary directory.
+     */
+    private final File pageDirectory;
+
+    /**
+     * The number of rows per page.
+     */
+    private final int rowsPerPage;
+
+    /**
+     * The maximum number of pages held in memory for each of the training
+     * and testing data sets.
+     */
+    private final int maxPages;
+
+    /**
+     * All storages created so far, to be closed.
+     */
+    private final List<PagedDataStorage> storages = new LinkedList<>();
+
+    /**
+     * Constructing the data set with its page files in the default temporary
+     * directory, with the default page size and number of pages in memory.
+     *
+     * @param fileAttributes FileAttributes
+     */
+    public PagedFileDataSet(FileAttributes fileAttributes) {
+        this(fileAttributes, null, PagedDataStorage.DEFAULT_ROWS_PER_PAGE, PagedDataStorage.DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * Constructing the data set with its page files in the given directory.
+     *
+     * @param fileAttributes FileAttributes
+     * @param pageDirectory File, or null for the default temporary directory
+     * @param rowsPerPage int
+     * @param maxPages int maximum number of pages held in memory per data set
+     */
+    public PagedFileDataSet(FileAttributes fileAttributes, File pageDirectory, int rowsPerPage, int maxPages) {
+        super(fileAttributes);
+        if ( rowsPerPage <= 0 || maxPages <= 0 ) throw new IllegalArgumentException("Pages must hold rows.");
+        this.pageDirectory = pageDirectory;
+        this.rowsPerPage = rowsPerPage;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Creates a paged storage in a new file of the page directory.
+     */
+    @Override
+    protected DataStorage createStorage(int numberOfRows, int numberOfColumns) {
+        PagedDataStorage storage = new PagedDataStorage(pageDirectory, numberOfRows, numberOfColumns,
+                rowsPerPage, maxPages);
+        synchronized ( storages ) {
+            storages.add(storage);
+        }
+        return storage;
+    }
+
+    /**
+     * The number of pages read from disk so far by all storages.
+     *
+     * @return long
+     */
+    public long getPagesRead() {
+        long pagesRead = 0;
+        synchronized ( storages ) {
+            for ( PagedDataStorage storage : storages ) pagesRead += storage.getPagesRead();
+        }
+        return pagesRead;
+    }
+
+    /**
+     * Closes the storage replaced, if created by this data set, so each load
+     * leaves only the storages in use behind.
+     */
+    @Override
+    protected void releaseStorage(DataStorage storage) {
+        synchronized ( storages ) {
+            if ( storages.remove(storage) ) storage.close();
+        }
+    }
+
+    /**
+     * Closes all storages, removing their page files. The data set must be
+     * loaded again to be used after.
+     */
+    public void close() {
+        synchronized ( storages ) {
+            for ( PagedDataStorage storage : storages ) storage.close();
+            storages.clear();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package app.core.dataSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A mergeable sketch of the distribution of a stream of values, answering
+ * any quantile within a small error from a bounded number of values kept,
+ * however many values were added. Sketches of values added apart, as by
+ * different threads, can be merged into one.<p>
+ *
+ * This is the KLL sketch of Karnin, Lang and Liberty: values are kept in
+ * levels, each value of a level standing for twice as many values as one of
+ * the level below. Once a level is full it is sorted and every other value
+ * is moved to the level above, the lower levels holding more values than
+ * the upper ones. The values moved are picked by a seeded random, so the
+ * same values added in the same order always give the same sketch. Not to
+ * be shared by threads while adding.
+ *
+ * @author Vasco
+ *
+ */
+public class QuantileSketch {
+
+    /**
+     * The default number of values kept by the top level, for quantiles
+     * within about one percent of rank.
+     */
+    public static final int DEFAULT_K = 200;
+
+    /**
+     * The ratio of the capacity of a level to the capacity of the level
+     * above.
+     */
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+
+    /**
+     * The number of values kept by the top level.
+     */
+    private final int k;
+
+    /**
+     * The values of each level, the lowest first.
+     */
+    private final List<double[]> levels = new ArrayList<>();
+
+    /**
+     * The number of values held by each level.
+     */
+    private int[] sizes = new int[0];
+
+    /**
+     * The number of values held by all levels.
+     */
+    private int size = 0;
+
+    /**
+     * The number of values all levels can hold before compacting.
+     */
+    private int maxSize = 0;
+
+    /**
+     * The number of values added.
+     */
+    private long count = 0;
+
+    /**
+     * Picks the values moved up when compacting.
+     */
+    private final Random random = new Random(0x5EEDL);
+
+    /**
+     * Constructing an empty sketch of the default size.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Constructing an empty sketch keeping k values on its top level.
+     *
+     * @param k int the larger, the more accurate
+     */
+    public QuantileSketch(int k) {
+        if ( k < 2 ) throw new IllegalArgumentException("k must be at least 2.");
+        this.k = k;
+        grow();
+    }
+
+    /**
+     * Adds one value to the sketch.
+     *
+     * @param value double, not NaN
+     */
+    public void add(double value) {
+        append(0, value);
+        count++;
+        if ( size >= maxSize ) compress();
+    }
+
+    /**
+     * Adds all values of the other sketch to this one.
+     *
+     * @param other QuantileSketch
+     */
+    public void merge(QuantileSketch other) {
+        while ( levels.size() < other.levels.size() ) grow();
+        for ( int level = 0; level < other.levels.size(); level++ ) {
+            double[] values = other.levels.get(level);
+            for ( int index = 0; index < other.sizes[level]; index++ ) append(level, values[index]);
+        }
+        count += other.count;
+        while ( size >= maxSize ) compress();
+    }
+
+    /**
+     * The number of values added.
+     *
+     * @return long
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The value with the given fraction of all values added below it.
+     *
+     * @param quantile double between 0 and 1
+     * @return double or NaN if no values added
+     */
+    public double getQuantile(double quantile) {
+        if ( quantile < 0.0 || quantile > 1.0 ) throw new IllegalArgumentException("Quantile out of range [0.0, 1.0]");
+        if ( size == 0 ) return Double.NaN;
+
+        // Every value kept, sorted, with the number of values it stands for.
+        double[] values = new double[size];
+        long[] weights = new long[size];
+        int position = 0;
+        for ( int level = 0; level < levels.size(); level++ ) {
+            double[] levelValues = levels.get(level);
+            Arrays.sort(levelValues, 0, sizes[level]);
+            for ( int index = 0; index < sizes[level]; index++ ) {
+                values[position] = levelValues[index];
+                weights[position++] = 1L << level;
+            }
+        }
+        Integer[] order = new Integer[size];
+        for ( int index = 0; index < size; index++ ) order[index] = index;
+        Arrays.sort(order, (first, second) -> Double.compare(values[first], values[second]));
+
+        long total = 0;
+        for ( long weight : weights ) total += weight;
+        double rank = quantile * total;
+        long cumulative = 0;
+        for ( Integer index : order ) {
+            cumulative += weights[index];
+            if ( cumulative >= rank ) return values[index];
+        }
+        return values[order[size - 1]];
+    }
+
+    /**
+     * Adds a value to the given level, growing its buffer as needed.
+     *
+     * @param level int
+     * @param value double
+     */
+    private void append(int level, double value) {
+        double[] values = levels.get(level);
+        if ( sizes[level] == values.length ) {
+            values = Arrays.copyOf(values, values.length * 2);
+            levels.set(level, values);
+        }
+        values[sizes[level]++] = value;
+        size++;
+    }
+
+    /**
+     * Adds a new top level, lowering the capacity of all others.
+     */
+    private void grow() {
+        levels.add(new double[Math.max(2, k)]);
+        sizes = Arrays.copyOf(sizes, levels.size());
+        maxSize = 0;
+        for ( int level = 0; level < levels.size(); level++ ) maxSize += getCapacity(level);
+    }
+
+    /**
+     * The number of values the given level holds before compacting.
+     *
+     * @param level int
+     * @return int
+     */
+    private int getCapacity(int level) {
+        int depth = levels.size() - level - 1;
+        return (int) Math.ceil(Math.pow(CAPACITY_RATIO, depth) * k) + 1;
+    }
+
+    /**
+     * Compacts the lowest full level, moving every other of its values to
+     * the level above.
+     */
+    private void compress() {
+        for ( int level = 0; level < levels.size(); level++ ) {
+            if ( sizes[level] < getCapacity(level) ) continue;
+            if ( level + 1 >= levels.size() ) grow();
+
+            double[] values = levels.get(level);
+            int length = sizes[level];
+            Arrays.sort(values, 0, length);
+            // An odd value out stays on this level.
+            int kept = length % 2;
+            double odd = values[length - 1];
+            int offset = random.nextBoolean() ? 1 : 0;
+            sizes[level] = 0;
+            size -= length;
+            for ( int index = offset; index < length - kept; index += 2 ) append(level + 1, values[index]);
+            if ( kept == 1 ) append(level, odd);
+            if ( size < maxSize ) return;
+        }
+    }
+}
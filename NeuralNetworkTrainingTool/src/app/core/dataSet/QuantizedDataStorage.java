@@ -0,0 +1,274 @@
+package app.core.dataSet;
+
+/**
+ * Keeps all rows in memory, one array per column holding each value in the
+ * precision chosen for its column. Values are widened back to double when
+ * read.<p>
+ *
+ * Writing a value a column cannot hold, such as a FIXED16 value out of
+ * [0, 1] or a BIT value other than 0 or 1, throws IllegalArgumentException
+ * rather than silently changing it. Different rows can be written by
+ * different threads at once.
+ *
+ * @author Vasco
+ *
+ */
+public class QuantizedDataStorage implements DataStorage {
+
+    /**
+     * The scale of FIXED16 values, the largest unsigned 16 bit value.
+     */
+    private static final double FIXED16_SCALE = Character.MAX_VALUE;
+
+    /**
+     * The number of rows.
+     */
+    private final int numberOfRows;
+
+    /**
+     * The precision of each column.
+     */
+    private final ColumnPrecision[] precisions;
+
+    /**
+     * The values of the DOUBLE columns, null for all others.
+     */
+    private final double[][] doubleColumns;
+
+    /**
+     * The values of the FLOAT columns, null for all others.
+     */
+    private final float[][] floatColumns;
+
+    /**
+     * The values of the FIXED16 columns, null for all others.
+     */
+    private final char[][] fixedColumns;
+
+    /**
+     * The values of the BIT columns, 64 rows per long, null for all others.
+     */
+    private final long[][] bitColumns;
+
+    /**
+     * Constructing the storage with new rows, all values zero.
+     *
+     * @param numberOfRows int
+     * @param precisions ColumnPrecision[] one per column
+     */
+    public QuantizedDataStorage(int numberOfRows, ColumnPrecision[] precisions) {
+        if ( numberOfRows < 0 ) throw new IllegalArgumentException("Cannot have negative sizes.");
+        if ( precisions == null ) throw new IllegalArgumentException("Precisions cannot be null.");
+        this.numberOfRows = numberOfRows;
+        this.precisions = precisions.clone();
+        this.doubleColumns = new double[precisions.length][];
+        this.floatColumns = new float[precisions.length][];
+        this.fixedColumns = new char[precisions.length][];
+        this.bitColumns = new long[precisions.length][];
+        for ( int column = 0; column < precisions.length; column++ ) {
+            if ( precisions[column] == null ) throw new IllegalArgumentException("Precisions cannot be null.");
+            switch ( precisions[column] ) {
+                case DOUBLE:  doubleColumns[column] = new double[numberOfRows]; break;
+                case FLOAT:   floatColumns[column] = new float[numberOfRows]; break;
+                case FIXED16: fixedColumns[column] = new char[numberOfRows]; break;
+                case BIT:     bitColumns[column] = new long[( numberOfRows + 63 ) >>> 6]; break;
+            }
+        }
+    }
+
+    /**
+     * Constructing the storage as a copy of all rows of the given storage,
+     * each value converted to the precision of its column.
+     *
+     * @param source DataStorage
+     * @param precisions ColumnPrecision[] one per column
+     */
+    public QuantizedDataStorage(DataStorage source, ColumnPrecision[] precisions) {
+        this(source.getNumberOfRows(), precisions);
+        if ( source.getNumberOfColumns() != precisions.length && numberOfRows > 0 )
+            throw new IllegalArgumentException("Expected "+precisions.length+" columns.");
+        double[] row = new double[precisions.length];
+        for ( int index = 0; index < numberOfRows; index++ ) {
+            source.readRow(index, row);
+            writeRow(index, row);
+        }
+    }
+
+    /**
+     * The precision of each column.
+     *
+     * @return ColumnPrecision[]
+     */
+    public ColumnPrecision[] getPrecisions() {
+        return precisions.clone();
+    }
+
+    /**
+     * The number of bytes taken by all values.
+     *
+     * @return long
+     */
+    public long getSizeInBytes() {
+        long bytes = 0;
+        for ( ColumnPrecision precision : precisions ) {
+            if ( precision == ColumnPrecision.BIT ) bytes += ( ( numberOfRows + 63L ) >>> 6 ) * Long.BYTES;
+            else bytes += (long) numberOfRows * precision.getBits() / Byte.SIZE;
+        }
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfColumns() {
+        return precisions.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getRow(int row, int fromColumn, int toColumn) {
+        if ( fromColumn > toColumn ) throw new IllegalArgumentException(fromColumn+" > "+toColumn);
+        if ( fromColumn < 0 || toColumn > precisions.length ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        checkRow(row);
+        double[] values = new double[toColumn - fromColumn];
+        for ( int column = fromColumn; column < toColumn; column++ ) values[column - fromColumn] = getValue(row, column);
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, double[] target) {
+        checkRow(row);
+        for ( int column = 0; column < precisions.length; column++ ) target[column] = getValue(row, column);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, int fromColumn, int toColumn, double[] target) {
+        if ( fromColumn > toColumn ) throw new IllegalArgumentException(fromColumn+" > "+toColumn);
+        if ( fromColumn < 0 || toColumn > precisions.length ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        checkRow(row);
+        for ( int column = fromColumn; column < toColumn; column++ ) target[column - fromColumn] = getValue(row, column);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeRow(int row, double[] values) {
+        checkRow(row);
+        for ( int column = 0; column < precisions.length; column++ ) setValue(row, column, values[column]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readColumn(int column, int fromRow, int count, double[] target) {
+        if ( count > 0 ) {
+            checkRow(fromRow);
+            checkRow(fromRow + count - 1);
+        }
+        for ( int index = 0; index < count; index++ ) target[index] = getValue(fromRow + index, column);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeColumn(int column, int fromRow, int count, double[] values) {
+        if ( count > 0 ) {
+            checkRow(fromRow);
+            checkRow(fromRow + count - 1);
+        }
+        for ( int index = 0; index < count; index++ ) setValue(fromRow + index, column, values[index]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StorageLayout getLayout() {
+        return StorageLayout.COLUMN_MAJOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        // Nothing to release, left to the garbage collector.
+    }
+
+    /**
+     * Ensures the row is in range.
+     *
+     * @param row int
+     */
+    private void checkRow(int row) {
+        if ( row < 0 || row >= numberOfRows ) throw new ArrayIndexOutOfBoundsException(row);
+    }
+
+    /**
+     * The value of the row and column, widened to double.
+     *
+     * @param row int
+     * @param column int
+     * @return double
+     */
+    private double getValue(int row, int column) {
+        switch ( precisions[column] ) {
+            case FLOAT:   return floatColumns[column][row];
+            case FIXED16: return fixedColumns[column][row] / FIXED16_SCALE;
+            case BIT:     return ( bitColumns[column][row >>> 6] >>> row & 1L );
+            default:      return doubleColumns[column][row];
+        }
+    }
+
+    /**
+     * Sets the value of the row and column, converted to its precision.
+     *
+     * @param row int
+     * @param column int
+     * @param value double
+     */
+    private void setValue(int row, int column, double value) {
+        switch ( precisions[column] ) {
+            case FLOAT:
+                floatColumns[column][row] = (float) value;
+                break;
+            case FIXED16:
+                if ( ! ( value >= 0.0 && value <= 1.0 ) )
+                    throw new IllegalArgumentException("Supplied value '"+value+"' is out of range [0.0, 1.0]");
+                fixedColumns[column][row] = (char) Math.round(value * FIXED16_SCALE);
+                break;
+            case BIT:
+                if ( value != 0.0 && value != 1.0 )
+                    throw new IllegalArgumentException("Supplied value '"+value+"' is not binary.");
+                // Rows next to each other share a long, and may be written by other threads.
+                long[] bits = bitColumns[column];
+                synchronized ( bits ) {
+                    if ( value == 1.0 ) bits[row >>> 6] |= 1L << row;
+                    else bits[row >>> 6] &= ~( 1L << row );
+                }
+                break;
+            default:
+                doubleColumns[column][row] = value;
+        }
+    }
+}
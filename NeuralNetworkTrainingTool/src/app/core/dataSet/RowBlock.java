@@ -0,0 +1,217 @@
+package app.core.dataSet;
+
+import java.util.Arrays;
+
+/**
+ * A block of consecutive rows prepared by a RowBlockPipeline, holding first
+ * the lines as read from file and then the rows parsed from them, one after
+ * the other, all at once. Blocks are reused by the pipeline once released,
+ * so the rows are only valid until then. Loading into memory goes through
+ * blocks as well, written into the storage once parsed.
+ *
+ * @author Vasco
+ *
+ */
+public final class RowBlock {
+
+    /**
+     * The number of columns per row.
+     */
+    private final int numberOfColumns;
+
+    /**
+     * The values of all rows, one row after the other.
+     */
+    private final double[] values;
+
+    /**
+     * The start and end of each line in the lines buffer.
+     */
+    private final int[] lineBounds;
+
+    /**
+     * The bytes of all lines read, one after the other.
+     */
+    private byte[] lines = new byte[8192];
+
+    /**
+     * The number of bytes in use in the lines buffer.
+     */
+    private int linesLength = 0;
+
+    /**
+     * The place of the block in the stream of blocks.
+     */
+    private long sequence;
+
+    /**
+     * The index within the range of the first row.
+     */
+    private int firstRow;
+
+    /**
+     * The number of rows held.
+     */
+    private int numberOfRows;
+
+    /**
+     * Constructing an empty block.
+     *
+     * @param maxRows int
+     * @param numberOfColumns int
+     */
+    RowBlock(int maxRows, int numberOfColumns) {
+        this.numberOfColumns = numberOfColumns;
+        this.values = new double[maxRows * numberOfColumns];
+        this.lineBounds = new int[maxRows * 2];
+    }
+
+    /**
+     * The index within the range of the pipeline of the first row.
+     *
+     * @return int
+     */
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * The number of rows held.
+     *
+     * @return int
+     */
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * The number of columns per row.
+     *
+     * @return int
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * The given columns of a row, in a new array.
+     *
+     * @param row int index within the block
+     * @param fromColumn int inclusive
+     * @param toColumn int exclusive
+     * @return double[]
+     */
+    public double[] getRow(int row, int fromColumn, int toColumn) {
+        if ( row < 0 || row >= numberOfRows ) throw new ArrayIndexOutOfBoundsException(row);
+        if ( fromColumn < 0 || toColumn > numberOfColumns ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        int offset = row * numberOfColumns;
+        return Arrays.copyOfRange(values, offset + fromColumn, offset + toColumn);
+    }
+
+    /**
+     * Copies the given columns of a row into the start of the target.
+     *
+     * @param row int index within the block
+     * @param fromColumn int inclusive
+     * @param toColumn int exclusive
+     * @param target double[] at least as long as the number of columns given
+     */
+    public void readRow(int row, int fromColumn, int toColumn, double[] target) {
+        if ( row < 0 || row >= numberOfRows ) throw new ArrayIndexOutOfBoundsException(row);
+        if ( fromColumn < 0 || toColumn > numberOfColumns ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        System.arraycopy(values, row * numberOfColumns + fromColumn, target, 0, toColumn - fromColumn);
+    }
+
+    /**
+     * Copies all columns of a row into the target.
+     *
+     * @param row int index within the block
+     * @param target double[] at least as long as the number of columns
+     */
+    public void readRow(int row, double[] target) {
+        if ( row < 0 || row >= numberOfRows ) throw new ArrayIndexOutOfBoundsException(row);
+        System.arraycopy(values, row * numberOfColumns, target, 0, numberOfColumns);
+    }
+
+    /**
+     * The place of the block in the stream of blocks.
+     *
+     * @return long
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Empties the block to be filled again.
+     *
+     * @param sequence long
+     * @param firstRow int
+     */
+    void reset(long sequence, int firstRow) {
+        this.sequence = sequence;
+        this.firstRow = firstRow;
+        this.numberOfRows = 0;
+        this.linesLength = 0;
+    }
+
+    /**
+     * Checks if no more rows fit.
+     *
+     * @return boolean
+     */
+    boolean isFull() {
+        return numberOfRows * 2 == lineBounds.length;
+    }
+
+    /**
+     * Copies one more line into the block, to be parsed later.
+     *
+     * @param line byte[]
+     * @param from int
+     * @param to int
+     */
+    void addLine(byte[] line, int from, int to) {
+        int length = to - from;
+        if ( linesLength + length > lines.length ) {
+            lines = Arrays.copyOf(lines, Math.max(lines.length * 2, linesLength + length));
+        }
+        System.arraycopy(line, from, lines, linesLength, length);
+        lineBounds[numberOfRows * 2] = linesLength;
+        linesLength += length;
+        lineBounds[numberOfRows * 2 + 1] = linesLength;
+        numberOfRows++;
+    }
+
+    /**
+     * Parses all lines held into their rows, all at once.
+     *
+     * @param rowParser RowParser
+     */
+    void parse(RowParser rowParser) {
+        rowParser.parse(lines, lineBounds, numberOfRows, values, numberOfColumns);
+    }
+
+    /**
+     * Writes the rows parsed into the storage, the first one into the first
+     * row of the block.
+     *
+     * @param storage DataStorage
+     */
+    void writeTo(DataStorage storage) {
+        double[] row = new double[numberOfColumns];
+        for ( int index = 0; index < numberOfRows; index++ ) {
+            System.arraycopy(values, index * numberOfColumns, row, 0, numberOfColumns);
+            storage.writeRow(firstRow + index, row);
+        }
+    }
+
+    /**
+     * Checks if no rows are held.
+     *
+     * @return boolean
+     */
+    boolean isEmpty() {
+        return numberOfRows == 0;
+    }
+}
@@ -0,0 +1,424 @@
+package app.core.dataSet;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Streams a range of rows from file in blocks, prepared by background
+ * threads while the blocks already prepared are being used, so rows can be
+ * used as soon as the first block is ready rather than once all loaded.<p>
+ *
+ * A reader thread copies the lines of each block from file, and parser
+ * threads parse them into rows, normalising them if the row parsers do.
+ * The blocks go round a ring of a fixed number of blocks: the reader waits
+ * for a block to be released once all are in use, so memory stays the same
+ * however many rows are streamed. Blocks are taken in the order of their
+ * rows, whichever parser finished them first.<p>
+ *
+ * The rows streamed may cycle over the range, so the blocks of the next
+ * pass are already being prepared while those of the last pass are used.
+ * Rows are counted from 0, the first being the first line of the range.
+ * Blocks are to be taken and released by one thread only.
+ *
+ * @author Vasco
+ *
+ */
+public class RowBlockPipeline implements Closeable {
+
+    /**
+     * The default number of rows per block.
+     */
+    public static final int DEFAULT_ROWS_PER_BLOCK = 1024;
+
+    /**
+     * The default number of blocks in the ring.
+     */
+    public static final int DEFAULT_NUMBER_OF_BLOCKS = 8;
+
+    /**
+     * The default number of parser threads, leaving the rest of the
+     * processors to the consumer of the rows.
+     */
+    public static final int DEFAULT_NUMBER_OF_PARSERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Handed to each parser once all blocks have been read.
+     */
+    private static final RowBlock END_OF_ROWS = new RowBlock(0, 0);
+
+    /**
+     * The file to read.
+     */
+    private final String filename;
+
+    /**
+     * The index to seek the first row with, null to read from the start.
+     */
+    private final RowOffsetIndex rowIndex;
+
+    /**
+     * The line in file of the first row, starting at 1.
+     */
+    private final int firstLine;
+
+    /**
+     * The number of rows in the range.
+     */
+    private final int numberOfRows;
+
+    /**
+     * The number of columns per row.
+     */
+    private final int numberOfColumns;
+
+    /**
+     * Supplies the row parser of each parser thread.
+     */
+    private final Supplier<RowParser> rowParsers;
+
+    /**
+     * The number of parser threads.
+     */
+    private final int numberOfParsers;
+
+    /**
+     * All blocks in the ring.
+     */
+    private final RowBlock[] blocks;
+
+    /**
+     * The blocks free to be read into.
+     */
+    private final BlockingQueue<RowBlock> freeBlocks;
+
+    /**
+     * The blocks read, waiting to be parsed.
+     */
+    private final BlockingQueue<RowBlock> readBlocks = new LinkedBlockingQueue<>();
+
+    /**
+     * The blocks parsed, by sequence, waiting to be taken.
+     */
+    private final Map<Long, RowBlock> readyBlocks = new HashMap<>();
+
+    /**
+     * The threads of the current stream.
+     */
+    private final List<Thread> stages = new LinkedList<>();
+
+    /**
+     * The sequence of the first block of the current stream. Sequences keep
+     * growing from one stream to the next, so blocks of past streams are
+     * told apart.
+     */
+    private long firstSequence = 0;
+
+    /**
+     * The sequence of the next block to read, only changed by the reader
+     * while streaming.
+     */
+    private long readSequence = 0;
+
+    /**
+     * The sequence of the next block to take.
+     */
+    private long nextSequence = 0;
+
+    /**
+     * The sequence after the last block, once all read.
+     */
+    private long endSequence = Long.MAX_VALUE;
+
+    /**
+     * The first failure of any stage, rethrown when taking the next block.
+     */
+    private Throwable failure;
+
+    /**
+     * Set once closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * Constructing the pipeline over the given lines in file, not yet
+     * streaming.
+     *
+     * @param filename String
+     * @param rowIndex RowOffsetIndex of the file, or null to read the lines before the range
+     * @param firstLine int line in file of the first row, starting at 1
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     * @param rowParsers Supplier of the RowParser used by each parser thread
+     * @param rowsPerBlock int
+     * @param numberOfBlocks int at least 2, so one block is prepared while another is used
+     * @param numberOfParsers int
+     */
+    public RowBlockPipeline(String filename, RowOffsetIndex rowIndex, int firstLine, int numberOfRows,
+            int numberOfColumns, Supplier<RowParser> rowParsers, int rowsPerBlock, int numberOfBlocks,
+            int numberOfParsers) {
+        if ( firstLine <= 0 ) throw new IllegalArgumentException("Rows start at 1.");
+        if ( numberOfRows < 0 || numberOfColumns < 0 ) throw new IllegalArgumentException("Cannot have negative sizes.");
+        if ( rowsPerBlock <= 0 ) throw new IllegalArgumentException("Blocks must hold at least one row.");
+        if ( numberOfBlocks < 2 ) throw new IllegalArgumentException("Need at least two blocks.");
+        if ( numberOfParsers <= 0 ) throw new IllegalArgumentException("Need at least one parser.");
+        this.filename = filename;
+        this.rowIndex = rowIndex;
+        this.firstLine = firstLine;
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.rowParsers = rowParsers;
+        this.numberOfParsers = numberOfParsers;
+        this.blocks = new RowBlock[numberOfBlocks];
+        for ( int block = 0; block < numberOfBlocks; block++ ) blocks[block] = new RowBlock(rowsPerBlock, numberOfColumns);
+        this.freeBlocks = new ArrayBlockingQueue<>(numberOfBlocks);
+    }
+
+    /**
+     * The number of rows in the range.
+     *
+     * @return int
+     */
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * The number of columns per row.
+     *
+     * @return int
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * Starts streaming the rows from the first to the last row given, over
+     * and over if cycling, stopping the current stream if any. Blocks of
+     * the current stream are no longer valid.
+     *
+     * @param fromRow int inclusive
+     * @param toRow int exclusive
+     * @param cycle boolean to start over from the first row once past the last
+     */
+    public void open(int fromRow, int toRow, boolean cycle) {
+        if ( fromRow < 0 || toRow > numberOfRows || fromRow > toRow )
+            throw new IllegalArgumentException("Rows "+fromRow+" to "+toRow+" out of 0 to "+numberOfRows+".");
+        stop();
+        if ( closed ) throw new IllegalStateException("Pipeline already closed.");
+
+        // Every block is free again, and those still held are left behind.
+        freeBlocks.clear();
+        readBlocks.clear();
+        for ( RowBlock block : blocks ) freeBlocks.add(block);
+        synchronized ( readyBlocks ) {
+            readyBlocks.clear();
+            firstSequence = nextSequence = readSequence;
+            endSequence = Long.MAX_VALUE;
+            failure = null;
+        }
+
+        // Nothing to cycle over.
+        boolean cycling = cycle && fromRow < toRow;
+        for ( int parser = 0; parser < numberOfParsers; parser++ ) {
+            RowParser rowParser = rowParsers.get();
+            stages.add(newStage("parser-"+parser, () -> parse(rowParser)));
+        }
+        stages.add(newStage("reader", () -> read(fromRow, toRow, cycling)));
+        for ( Thread stage : stages ) stage.start();
+    }
+
+    /**
+     * Takes the next block of rows, waiting for it to be prepared. The block
+     * is to be released once its rows are no longer needed.
+     *
+     * @return RowBlock or null once all rows were taken
+     */
+    public RowBlock take() {
+        synchronized ( readyBlocks ) {
+            while ( true ) {
+                if ( failure != null ) rethrow(failure);
+                RowBlock block = readyBlocks.remove(nextSequence);
+                if ( block != null ) {
+                    nextSequence++;
+                    return block;
+                }
+                if ( nextSequence >= endSequence ) return null;
+                if ( stages.isEmpty() ) throw new IllegalStateException("Pipeline not open.");
+                try {
+                    readyBlocks.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for rows.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands back a block taken, to be filled with the next rows. Blocks of
+     * past streams are ignored.
+     *
+     * @param block RowBlock
+     */
+    public void release(RowBlock block) {
+        if ( block.getSequence() < firstSequence ) return;
+        freeBlocks.offer(block);
+    }
+
+    /**
+     * Stops streaming. The pipeline cannot be opened again after.
+     */
+    @Override
+    public void close() {
+        stop();
+        closed = true;
+    }
+
+    /**
+     * Stops all threads of the current stream, waiting for them to finish.
+     */
+    private void stop() {
+        for ( Thread stage : stages ) stage.interrupt();
+        boolean interrupted = false;
+        for ( Thread stage : stages ) {
+            while ( stage.isAlive() ) {
+                try {
+                    stage.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        stages.clear();
+        if ( interrupted ) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Reads the lines of each block from file, for as long as blocks are
+     * free.
+     *
+     * @param fromRow int
+     * @param toRow int
+     * @param cycle boolean
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void read(int fromRow, int toRow, boolean cycle) throws IOException, InterruptedException {
+        do {
+            try ( ByteLineReader lineReader = openAt(fromRow) ) {
+                int row = fromRow;
+                while ( row < toRow ) {
+                    RowBlock block = freeBlocks.take();
+                    block.reset(readSequence++, row);
+                    while ( row < toRow && ! block.isFull() ) {
+                        // Premature end of file is a sign of something going wrong somewhere.
+                        if ( ! lineReader.readLine() )
+                            throw new ArrayIndexOutOfBoundsException("File contains only: "+( firstLine + row - 1 )+" rows.");
+                        block.addLine(lineReader.getBuffer(), lineReader.getLineStart(), lineReader.getLineEnd());
+                        row++;
+                    }
+                    readBlocks.put(block);
+                }
+            }
+        } while ( cycle );
+
+        synchronized ( readyBlocks ) {
+            endSequence = readSequence;
+            readyBlocks.notifyAll();
+        }
+        for ( int parser = 0; parser < numberOfParsers; parser++ ) readBlocks.put(END_OF_ROWS);
+    }
+
+    /**
+     * Opens the file with the reader placed right before the given row.
+     *
+     * @param row int
+     * @return ByteLineReader
+     * @throws IOException
+     */
+    private ByteLineReader openAt(int row) throws IOException {
+        if ( rowIndex != null ) return rowIndex.openAt(filename, firstLine + row);
+        ByteLineReader lineReader = new ByteLineReader(new FileInputStream(filename));
+        int skipLines = firstLine + row - 1;
+        while ( skipLines-- > 0 && lineReader.readLine() );
+        return lineReader;
+    }
+
+    /**
+     * Parses the rows of each block read, until all blocks are read.
+     *
+     * @param rowParser RowParser
+     * @throws InterruptedException
+     */
+    private void parse(RowParser rowParser) throws InterruptedException {
+        while ( true ) {
+            RowBlock block = readBlocks.take();
+            if ( block == END_OF_ROWS ) return;
+            block.parse(rowParser);
+            synchronized ( readyBlocks ) {
+                readyBlocks.put(block.getSequence(), block);
+                readyBlocks.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * A new daemon thread running one stage, keeping its failure if any.
+     *
+     * @param name String
+     * @param stage Stage
+     * @return Thread
+     */
+    private Thread newStage(String name, Stage stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (InterruptedException e) {
+                // Stopped.
+            } catch (Throwable e) {
+                synchronized ( readyBlocks ) {
+                    if ( failure == null ) failure = e;
+                    readyBlocks.notifyAll();
+                }
+            }
+        }, "RowBlockPipeline-"+name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Throws the failure of a stage in the thread taking the blocks.
+     *
+     * @param failure Throwable
+     */
+    private static void rethrow(Throwable failure) {
+        if ( failure instanceof RuntimeException ) throw (RuntimeException) failure;
+        if ( failure instanceof Error ) throw (Error) failure;
+        if ( failure instanceof IOException ) throw new UncheckedIOException((IOException) failure);
+        throw new IllegalStateException(failure);
+    }
+
+    /**
+     * One stage of the pipeline, run by its own thread.
+     */
+    @FunctionalInterface
+    private interface Stage {
+
+        /**
+         * Runs the stage until done or interrupted.
+         *
+         * @throws Exception
+         */
+        void run() throws Exception;
+    }
+}
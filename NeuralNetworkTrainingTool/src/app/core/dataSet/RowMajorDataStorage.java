@@ -0,0 +1,178 @@
+package app.core.dataSet;
+
+import java.util.Arrays;
+
+/**
+ * Keeps all rows in memory one after the other in a few large arrays, each
+ * holding a whole number of rows. Going through the rows in order reads
+ * memory sequentially, without one object per row to follow.<p>
+ *
+ * The arrays are kept to a bounded size so each is allocated as a regular
+ * object by the garbage collector, rather than as one huge region.
+ *
+ * @author Vasco
+ *
+ */
+public class RowMajorDataStorage implements DataStorage {
+
+    /**
+     * The default number of values held in each array, 256KB.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 15;
+
+    /**
+     * The number of rows.
+     */
+    private final int numberOfRows;
+
+    /**
+     * The number of columns per row.
+     */
+    private final int numberOfColumns;
+
+    /**
+     * The number of rows held in each array.
+     */
+    private final int rowsPerChunk;
+
+    /**
+     * The arrays holding all values.
+     */
+    private final double[][] chunks;
+
+    /**
+     * Constructing the storage with new rows, all values zero, in arrays of
+     * the default size.
+     *
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     */
+    public RowMajorDataStorage(int numberOfRows, int numberOfColumns) {
+        this(numberOfRows, numberOfColumns, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructing the storage with new rows, all values zero.
+     *
+     * @param numberOfRows int
+     * @param numberOfColumns int
+     * @param chunkSize int number of values per array, rounded down to whole
+     *                  rows but never less than one row
+     */
+    public RowMajorDataStorage(int numberOfRows, int numberOfColumns, int chunkSize) {
+        if ( numberOfRows < 0 || numberOfColumns < 0 ) throw new IllegalArgumentException("Cannot have negative sizes.");
+        if ( chunkSize <= 0 ) throw new IllegalArgumentException("Chunk size must be positive.");
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.rowsPerChunk = Math.max(1, chunkSize / Math.max(1, numberOfColumns));
+        this.chunks = new double[( numberOfRows + rowsPerChunk - 1 ) / rowsPerChunk][];
+        for ( int chunk = 0; chunk < chunks.length; chunk++ ) {
+            int rows = Math.min(rowsPerChunk, numberOfRows - chunk * rowsPerChunk);
+            chunks[chunk] = new double[rows * numberOfColumns];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double[] getRow(int row, int fromColumn, int toColumn) {
+        if ( fromColumn > toColumn ) throw new IllegalArgumentException(fromColumn+" > "+toColumn);
+        if ( fromColumn < 0 || toColumn > numberOfColumns ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        int offset = getOffset(row);
+        return Arrays.copyOfRange(chunks[row / rowsPerChunk], offset + fromColumn, offset + toColumn);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, double[] target) {
+        System.arraycopy(chunks[row / rowsPerChunk], getOffset(row), target, 0, numberOfColumns);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readRow(int row, int fromColumn, int toColumn, double[] target) {
+        if ( fromColumn > toColumn ) throw new IllegalArgumentException(fromColumn+" > "+toColumn);
+        if ( fromColumn < 0 || toColumn > numberOfColumns ) throw new ArrayIndexOutOfBoundsException(toColumn);
+        System.arraycopy(chunks[row / rowsPerChunk], getOffset(row) + fromColumn, target, 0, toColumn - fromColumn);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeRow(int row, double[] values) {
+        System.arraycopy(values, 0, chunks[row / rowsPerChunk], getOffset(row), numberOfColumns);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readColumn(int column, int fromRow, int count, double[] target) {
+        if ( column < 0 || column >= numberOfColumns ) throw new ArrayIndexOutOfBoundsException(column);
+        for ( int index = 0; index < count; index++ ) {
+            int row = fromRow + index;
+            target[index] = chunks[row / rowsPerChunk][getOffset(row) + column];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeColumn(int column, int fromRow, int count, double[] values) {
+        if ( column < 0 || column >= numberOfColumns ) throw new ArrayIndexOutOfBoundsException(column);
+        for ( int index = 0; index < count; index++ ) {
+            int row = fromRow + index;
+            chunks[row / rowsPerChunk][getOffset(row) + column] = values[index];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StorageLayout getLayout() {
+        return StorageLayout.ROW_MAJOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        // Nothing to release, left to the garbage collector.
+    }
+
+    /**
+     * The position of the first value of the row within its array.
+     *
+     * @param row int
+     * @return int
+     */
+    private int getOffset(int row) {
+        if ( row < 0 || row >= numberOfRows ) throw new ArrayIndexOutOfBoundsException(row);
+        return ( row % rowsPerChunk ) * numberOfColumns;
+    }
+}
@@ -0,0 +1,283 @@
+package app.core.dataSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Index of the byte offset where every Nth row of a file starts, so any row
+ * can be reached by seeking to the nearest indexed row before it and reading
+ * only the few rows left in between.<p>
+ *
+ * Rows are counted the same way as FileAttributes ranges are: the first line
+ * in file is row 1, header rows included. The index is kept in a sidecar
+ * file named after the indexed file with the {@value #EXTENSION} extension,
+ * built once on first use and rebuilt whenever the size or the last modified
+ * time of the indexed file no longer match those recorded in it.
+ *
+ * @author Vasco
+ *
+ */
+public class RowOffsetIndex {
+
+    /**
+     * The extension added to the indexed file name for the sidecar file.
+     */
+    public static final String EXTENSION = ".idx";
+
+    /**
+     * The default number of rows between indexed rows.
+     */
+    public static final int DEFAULT_STRIDE = 1024;
+
+    /**
+     * Identifies the sidecar file format.
+     */
+    private static final int MAGIC = 0x4E4E4958;
+
+    /**
+     * The sidecar file format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The buffer size used while scanning the indexed file.
+     */
+    private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * The size of the indexed file when indexed.
+     */
+    private final long fileSize;
+
+    /**
+     * The last modified time of the indexed file when indexed.
+     */
+    private final long lastModified;
+
+    /**
+     * The number of rows between indexed rows.
+     */
+    private final int stride;
+
+    /**
+     * The total number of rows in the indexed file.
+     */
+    private final long totalRows;
+
+    /**
+     * The byte offsets of rows 1, 1 + stride, 1 + 2 * stride and so on.
+     */
+    private final long[] offsets;
+
+    /**
+     * Constructing the index with all its values.
+     *
+     * @param fileSize long
+     * @param lastModified long
+     * @param stride int
+     * @param totalRows long
+     * @param offsets long[]
+     */
+    private RowOffsetIndex(long fileSize, long lastModified, int stride, long totalRows, long[] offsets) {
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.stride = stride;
+        this.totalRows = totalRows;
+        this.offsets = offsets;
+    }
+
+    /**
+     * The index of the given file, read from its sidecar file if up to date,
+     * or else built from the file and saved into the sidecar file.
+     *
+     * @param filename String
+     * @return RowOffsetIndex
+     * @throws IOException if the file cannot be read
+     */
+    public static RowOffsetIndex open(String filename) throws IOException {
+        RowOffsetIndex index = loadIfValid(filename);
+        if ( index != null ) return index;
+
+        index = build(filename, DEFAULT_STRIDE);
+        try {
+            index.save(getIndexFile(filename));
+        } catch (IOException e) {
+            // Still usable from memory, just not saved for next time.
+            e.printStackTrace();
+        }
+        return index;
+    }
+
+    /**
+     * The index of the given file read from its sidecar file, or null if no
+     * sidecar file exists or it is out of date.
+     *
+     * @param filename String
+     * @return RowOffsetIndex or null
+     */
+    public static RowOffsetIndex loadIfValid(String filename) {
+        File file = new File(filename);
+        File indexFile = getIndexFile(filename);
+        if ( ! indexFile.isFile() ) return null;
+
+        try ( DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile))) ) {
+            if ( in.readInt() != MAGIC || in.readInt() != VERSION ) return null;
+            long fileSize = in.readLong();
+            long lastModified = in.readLong();
+            if ( fileSize != file.length() || lastModified != file.lastModified() ) return null;
+            int stride = in.readInt();
+            long totalRows = in.readLong();
+            long[] offsets = new long[in.readInt()];
+            for ( int entry = 0; entry < offsets.length; entry++ ) {
+                offsets[entry] = in.readLong();
+            }
+            return new RowOffsetIndex(fileSize, lastModified, stride, totalRows, offsets);
+        } catch (IOException e) {
+            // A damaged sidecar file is just rebuilt.
+            return null;
+        }
+    }
+
+    /**
+     * Builds the index of the given file by scanning it once, recording the
+     * offset of every stride rows.
+     *
+     * @param filename String
+     * @param stride int number of rows between indexed rows
+     * @return RowOffsetIndex
+     * @throws IOException
+     */
+    public static RowOffsetIndex build(String filename, int stride) throws IOException {
+        if ( stride <= 0 ) throw new IllegalArgumentException("Stride must be positive.");
+        File file = new File(filename);
+        long lastModified = file.lastModified();
+
+        try ( FileInputStream in = new FileInputStream(file) ) {
+            FileChannel channel = in.getChannel();
+            long fileSize = channel.size();
+            long[] offsets = new long[16];
+            int entries = 0;
+            long newLines = 0;
+            boolean endsWithNewLine = true;
+
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            byte[] bytes = buffer.array();
+            long position = 0;
+            if ( fileSize > 0 ) offsets[entries++] = 0;
+            int read;
+            while ( ( read = channel.read(buffer) ) > 0 ) {
+                for ( int index = 0; index < read; index++ ) {
+                    if ( bytes[index] != '\n' ) continue;
+                    newLines++;
+                    long rowStart = position + index + 1;
+                    // Row newLines + 1 starts here, index it if due and not past the end.
+                    if ( newLines % stride == 0 && rowStart < fileSize ) {
+                        if ( entries == offsets.length ) offsets = Arrays.copyOf(offsets, entries * 2);
+                        offsets[entries++] = rowStart;
+                    }
+                }
+                endsWithNewLine = bytes[read - 1] == '\n';
+                position += read;
+                buffer.clear();
+            }
+            long totalRows = newLines + ( endsWithNewLine ? 0 : 1 );
+            return new RowOffsetIndex(fileSize, lastModified, stride, totalRows, Arrays.copyOf(offsets, entries));
+        }
+    }
+
+    /**
+     * Saves the index into the given sidecar file, written aside first and
+     * then moved in place, so it is never seen half written.
+     *
+     * @param indexFile File
+     * @throws IOException
+     */
+    public void save(File indexFile) throws IOException {
+        File temporary = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getAbsoluteFile().getParentFile());
+        try {
+            try ( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary))) ) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(fileSize);
+                out.writeLong(lastModified);
+                out.writeInt(stride);
+                out.writeLong(totalRows);
+                out.writeInt(offsets.length);
+                for ( long offset : offsets ) {
+                    out.writeLong(offset);
+                }
+            }
+            Files.move(temporary.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            temporary.delete();
+        }
+    }
+
+    /**
+     * The sidecar file for the given file.
+     *
+     * @param filename String
+     * @return File
+     */
+    public static File getIndexFile(String filename) {
+        return new File(filename + EXTENSION);
+    }
+
+    /**
+     * Opens the given file with the reader placed right before the given row,
+     * so the next line read is that row. If the file has fewer rows, the
+     * reader is left at the end of the file.
+     *
+     * @param filename String the indexed file
+     * @param row long starting at 1
+     * @return ByteLineReader
+     * @throws IOException
+     */
+    public ByteLineReader openAt(String filename, long row) throws IOException {
+        if ( row <= 0 ) throw new IllegalArgumentException("Rows start at 1.");
+        int entry = (int) Math.min(( row - 1 ) / stride, offsets.length - 1);
+        long skipRows = 0;
+        FileInputStream in = new FileInputStream(filename);
+        try {
+            if ( entry >= 0 ) {
+                in.getChannel().position(offsets[entry]);
+                skipRows = row - 1 - (long) entry * stride;
+            }
+            ByteLineReader lineReader = new ByteLineReader(in);
+            while ( skipRows-- > 0 && lineReader.readLine() );
+            return lineReader;
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The total number of rows in the indexed file.
+     *
+     * @return long
+     */
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * The number of rows between indexed rows.
+     *
+     * @return int
+     */
+    public int getStride() {
+        return stride;
+    }
+}
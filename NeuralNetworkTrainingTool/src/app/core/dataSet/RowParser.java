@@ -0,0 +1,42 @@
+package app.core.dataSet;
+
+/**
+ * Parses one line of bytes into the final row vector, applying all the
+ * input and output maps on the way, or a block of lines into their rows at
+ * once. Each instance may hold its own working buffers, so one is to be
+ * used per thread.
+ *
+ * @author Vasco
+ *
+ */
+public interface RowParser {
+
+    /**
+     * Parses the line held between the given indexes into the row.
+     *
+     * @param line byte[]
+     * @param from int first index
+     * @param to int index after the last
+     * @param row double[] the final row vector to fill in
+     */
+    public void parse(byte[] line, int from, int to, double[] row);
+
+    /**
+     * Parses the given lines into their rows, one row after the other. By
+     * default each line is parsed on its own; parsers may instead apply the
+     * maps a column at a time over all rows, giving the same rows.
+     *
+     * @param lines byte[] holding all lines
+     * @param lineBounds int[] the first index and the index after the last of each line
+     * @param numberOfLines int
+     * @param rows double[] to hold the rows, one after the other
+     * @param numberOfColumns int the number of columns of each row
+     */
+    public default void parse(byte[] lines, int[] lineBounds, int numberOfLines, double[] rows, int numberOfColumns) {
+        double[] row = new double[numberOfColumns];
+        for ( int index = 0; index < numberOfLines; index++ ) {
+            parse(lines, lineBounds[index * 2], lineBounds[index * 2 + 1], row);
+            System.arraycopy(row, 0, rows, index * numberOfColumns, numberOfColumns);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package app.core.dataSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * The output and input maps compiled once into a single transform from the
+ * source columns of a row into its final vector, outputs first, as going
+ * through each VectorMap in turn would give.<p>
+ *
+ * Maps with no transformation taking consecutive source columns into
+ * consecutive vector columns are copied as one run with System.arraycopy,
+ * and all other maps go through the applyAsDouble of their
+ * transformation, those deriving a column from others given the whole
+ * source row, so no VectorMap is called per value. Blocks of rows are
+ * transformed a column at a time instead: each transformation loops over
+ * the values of its column in all rows, and those deriving a column from
+ * others are given whole columns, so the loops run over primitive arrays
+ * the JIT can unroll and vectorise.<p>
+ *
+ * The maps are not kept, so maps added or removed after compiling are not
+ * seen, but their transformations are shared, so changes to their bias or
+ * other source columns are. Safe to share between threads transforming
+ * different rows, as long as the transformations are not changed
+ * meanwhile.
+ *
+ * @author Vasco
+ *
+ */
+public final class RowTransform {
+
+    /**
+     * The first source column of each run copied as is.
+     */
+    private final int[] copySources;
+
+    /**
+     * The first vector column of each run copied as is.
+     */
+    private final int[] copyTargets;
+
+    /**
+     * The number of columns of each run copied as is.
+     */
+    private final int[] copyLengths;
+
+    /**
+     * The source column of each transformed value.
+     */
+    private final int[] transformSources;
+
+    /**
+     * The vector column of each transformed value.
+     */
+    private final int[] transformTargets;
+
+    /**
+     * The transformation of each transformed value.
+     */
+    private final DoubleUnaryOperator[] operators;
+
+    /**
+     * The source column of each value derived from other columns.
+     */
+    private final int[] derivedSources;
+
+    /**
+     * The vector column of each value derived from other columns.
+     */
+    private final int[] derivedTargets;
+
+    /**
+     * The transformation of each value derived from other columns.
+     */
+    private final MultiColumnOperatorCore<?>[] derivedOperators;
+
+    /**
+     * The number of vector columns.
+     */
+    private final int numberOfColumns;
+
+    /**
+     * Compiling the transform of the given maps, outputs first.
+     *
+     * @param outputColumnMap List of VectorMap, or null if none
+     * @param inputColumnMap List of VectorMap, or null if none
+     */
+    public RowTransform(List<VectorMap> outputColumnMap, List<VectorMap> inputColumnMap) {
+        List<int[]> copies = new ArrayList<>();
+        List<int[]> transforms = new ArrayList<>();
+        List<DoubleUnaryOperator> transformOperators = new ArrayList<>();
+        List<int[]> derivations = new ArrayList<>();
+        List<MultiColumnOperatorCore<?>> derivationOperators = new ArrayList<>();
+        int target = 0;
+        for ( List<VectorMap> columnMap : Arrays.asList(outputColumnMap, inputColumnMap) ) {
+            if ( columnMap == null ) continue;
+            for ( VectorMap vector : columnMap ) {
+                int source = vector.getSourceIndex();
+                if ( vector.getMapTransform() instanceof MultiColumnOperatorCore ) {
+                    derivations.add(new int[] { source, target });
+                    derivationOperators.add((MultiColumnOperatorCore<?>) vector.getMapTransform());
+                }
+                else if ( vector.getMapTransform() != null ) {
+                    transforms.add(new int[] { source, target });
+                    transformOperators.add(vector.getMapTransform());
+                }
+                else if ( ! copies.isEmpty() && continuesRun(copies.get(copies.size() - 1), source, target) ) {
+                    copies.get(copies.size() - 1)[2]++;
+                }
+                else {
+                    copies.add(new int[] { source, target, 1 });
+                }
+                target++;
+            }
+        }
+
+        numberOfColumns = target;
+        copySources = new int[copies.size()];
+        copyTargets = new int[copies.size()];
+        copyLengths = new int[copies.size()];
+        for ( int index = 0; index < copies.size(); index++ ) {
+            copySources[index] = copies.get(index)[0];
+            copyTargets[index] = copies.get(index)[1];
+            copyLengths[index] = copies.get(index)[2];
+        }
+        transformSources = new int[transforms.size()];
+        transformTargets = new int[transforms.size()];
+        for ( int index = 0; index < transforms.size(); index++ ) {
+            transformSources[index] = transforms.get(index)[0];
+            transformTargets[index] = transforms.get(index)[1];
+        }
+        operators = transformOperators.toArray(new DoubleUnaryOperator[0]);
+        derivedSources = new int[derivations.size()];
+        derivedTargets = new int[derivations.size()];
+        for ( int index = 0; index < derivations.size(); index++ ) {
+            derivedSources[index] = derivations.get(index)[0];
+            derivedTargets[index] = derivations.get(index)[1];
+        }
+        derivedOperators = derivationOperators.toArray(new MultiColumnOperatorCore<?>[0]);
+    }
+
+    /**
+     * The number of vector columns written.
+     *
+     * @return int
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * The number of runs of columns copied as is.
+     *
+     * @return int
+     */
+    public int getNumberOfCopies() {
+        return copySources.length;
+    }
+
+    /**
+     * Writes the vector columns of the given source columns into the row.
+     *
+     * @param source double[] the source columns
+     * @param row double[] at least as long as the number of vector columns
+     */
+    public void apply(double[] source, double[] row) {
+        for ( int index = 0; index < copySources.length; index++ ) {
+            System.arraycopy(source, copySources[index], row, copyTargets[index], copyLengths[index]);
+        }
+        for ( int index = 0; index < operators.length; index++ ) {
+            row[transformTargets[index]] = operators[index].applyAsDouble(source[transformSources[index]]);
+        }
+        for ( int index = 0; index < derivedOperators.length; index++ ) {
+            row[derivedTargets[index]] = derivedOperators[index].applyAsDouble(source[derivedSources[index]], source);
+        }
+    }
+
+    /**
+     * Writes the vector rows of the given source rows, a column at a time,
+     * giving exactly the rows apply gives one row at a time.
+     *
+     * @param sources double[] the source columns of each row, one row after the other
+     * @param numberOfSourceColumns int the number of source columns of each row
+     * @param count int the number of rows
+     * @param rows double[] to hold the vector columns of each row, one row after the other
+     */
+    public void apply(double[] sources, int numberOfSourceColumns, int count, double[] rows) {
+        for ( int row = 0; row < count; row++ ) {
+            int source = row * numberOfSourceColumns;
+            int target = row * numberOfColumns;
+            for ( int index = 0; index < copySources.length; index++ ) {
+                System.arraycopy(sources, source + copySources[index], rows, target + copyTargets[index], copyLengths[index]);
+            }
+        }
+        for ( int index = 0; index < operators.length; index++ ) {
+            DoubleUnaryOperator operator = operators[index];
+            int source = transformSources[index];
+            int target = transformTargets[index];
+            for ( int row = 0; row < count; row++ ) {
+                rows[row * numberOfColumns + target] = operator.applyAsDouble(sources[row * numberOfSourceColumns + source]);
+            }
+        }
+        if ( derivedOperators.length == 0 ) return;
+
+        // Each source column is taken out of the rows once, however many maps use it.
+        double[][] sourceColumns = new double[numberOfSourceColumns][];
+        double[] values = new double[count];
+        for ( int index = 0; index < derivedOperators.length; index++ ) {
+            int[] otherSourceIndexes = derivedOperators[index].getOtherSourceIndexes();
+            double[][] otherColumns = new double[otherSourceIndexes.length][];
+            for ( int other = 0; other < otherSourceIndexes.length; other++ ) {
+                otherColumns[other] = getColumn(sources, numberOfSourceColumns, count, otherSourceIndexes[other], sourceColumns);
+            }
+            System.arraycopy(getColumn(sources, numberOfSourceColumns, count, derivedSources[index], sourceColumns), 0, values, 0, count);
+            derivedOperators[index].applyToColumn(values, otherColumns, count);
+            int target = derivedTargets[index];
+            for ( int row = 0; row < count; row++ ) rows[row * numberOfColumns + target] = values[row];
+        }
+    }
+
+    /**
+     * The values of the given source column of each row, taken out of the
+     * rows the first time asked for.
+     *
+     * @param sources double[] the source columns of each row, one row after the other
+     * @param numberOfSourceColumns int
+     * @param count int the number of rows
+     * @param column int
+     * @param sourceColumns double[][] the source columns already taken out, null if not yet
+     * @return double[] not to be changed
+     */
+    private static double[] getColumn(double[] sources, int numberOfSourceColumns, int count, int column,
+            double[][] sourceColumns) {
+        if ( sourceColumns[column] == null ) {
+            double[] values = new double[count];
+            for ( int row = 0; row < count; row++ ) values[row] = sources[row * numberOfSourceColumns + column];
+            sourceColumns[column] = values;
+        }
+        return sourceColumns[column];
+    }
+
+    /**
+     * Checks the given source and vector columns follow on the given run.
+     *
+     * @param copy int[] the source, vector column and length of the run
+     * @param source int
+     * @param target int
+     * @return boolean
+     */
+    private static boolean continuesRun(int[] copy, int source, int target) {
+        return copy[0] + copy[2] == source && copy[1] + copy[2] == target;
+    }
+}
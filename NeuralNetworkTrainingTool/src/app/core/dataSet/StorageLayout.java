@@ -0,0 +1,25 @@
+package app.core.dataSet;
+
+/**
+ * List of all the known layouts a DataSet can keep its rows in memory with.
+ *
+ * @author Vasco
+ *
+ */
+public enum StorageLayout {
+    /**
+     * One array per row, as a double[][].
+     */
+    ROW_ARRAYS,
+
+    /**
+     * All rows one after the other in a few large arrays, best for going
+     * through whole rows in order.
+     */
+    ROW_MAJOR,
+
+    /**
+     * One array per column, best for going through each column in turn.
+     */
+    COLUMN_MAJOR,
+}
@@ -52,12 +52,27 @@ public class VectorMap {
 	 * @return double transformed value
 	 */
 	public double getTargetValue() {
+		return getTargetValue(source);
+	}
+
+	/**
+	 * The target value processed from the given source double array,
+	 * ignoring any source previously set. This allows the same map to 
+	 * be shared between threads parsing different rows at once.
+	 * 
+	 * @param source double[]
+	 * @return double transformed value
+	 */
+	public double getTargetValue(double[] source) {
 		if ( source == null ) throw new IllegalArgumentException("Source values were not set.");
 		if ( source.length < sourceIndex ) throw new IllegalAccessError("Supplied source index is out of range.");
 		
 		if ( mapTransform == null ) return source[sourceIndex];
 
-		return mapTransform.apply(source[sourceIndex]);
+		if ( mapTransform instanceof MultiColumnOperatorCore )
+			return ((MultiColumnOperatorCore<?>) mapTransform).applyAsDouble(source[sourceIndex], source);
+
+		return mapTransform.applyAsDouble(source[sourceIndex]);
 	}
 
 	/**
@@ -68,4 +83,28 @@ public class VectorMap {
 	public int getSourceIndex() {
 		return sourceIndex;
 	}
+
+	/**
+	 * Returns every source index the target value is worked out from,
+	 * the source index first, followed by any others of the transformation.
+	 * 
+	 * @return int[] source indexes
+	 */
+	public int[] getSourceIndexes() {
+		if ( ! ( mapTransform instanceof MultiColumnOperatorCore ) ) return new int[] { sourceIndex };
+		int[] otherSourceIndexes = ((MultiColumnOperatorCore<?>) mapTransform).getOtherSourceIndexes();
+		int[] sourceIndexes = new int[otherSourceIndexes.length + 1];
+		sourceIndexes[0] = sourceIndex;
+		System.arraycopy(otherSourceIndexes, 0, sourceIndexes, 1, otherSourceIndexes.length);
+		return sourceIndexes;
+	}
+
+	/**
+	 * Returns the transformation applied to the source value, if any.
+	 * 
+	 * @return MathOperatorCore or null if none
+	 */
+	public MathOperatorCore<?> getMapTransform() {
+		return mapTransform;
+	}
 }
@@ -38,6 +38,13 @@ public class BinMathOperator implements MathOperatorCore<Double> {
 		// No bias will be used.
 	}
 
+    /**
+     * {@inheritDoc}
+     */
+	@Override public double getBiasValue() {
+		return 0.0;
+	}
+
     /**
      * {@inheritDoc}
      */
@@ -65,12 +72,22 @@ public class BinMathOperator implements MathOperatorCore<Double> {
     /**
      * Take the bias value, and operate on this double to return the result.
      * 
+     * @param value double
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value) {
+        return value == 0 ? 0.0 : 1.0;
+    }
+
+    /**
+     * The boxed version of applyAsDouble.
+     * 
      * @param value Double
      * @return Double
      */
     @Override
     public Double apply(Double value) {
-    	if ( value == 0 ) return 0.0;
-    	return 1.0;
+        return applyAsDouble(value);
     }
 }
@@ -0,0 +1,101 @@
+package app.core.dataSet.mathOperator;
+
+import app.core.dataSet.MathOperatorCore;
+import app.core.dataSet.MathOperatorKey;
+
+/**
+ * The Clamp operator to limit outliers, keeping all values within plus
+ * or minus the initial value supplied. With no value supplied, no limit
+ * is set.
+ * 
+ * @author Vasco
+ *
+ */
+public class ClampMathOperator implements MathOperatorCore<Double> {
+    /**
+     * The operation description.
+     */
+    public final String DESCRIPTION = "Limiting value to plus or minus this constant.";
+    
+    /**
+     * The operation user friendly name.
+     */
+    public final String NAME = "Clamp";
+    
+    /**
+     * The operation key id.
+     */
+    public final MathOperatorKey ID = MathOperatorKey.CLAMP;
+
+    /**
+     * The largest magnitude values are kept within.
+     */
+    private double limit;
+
+    /**
+     * Simple object instantiation.
+     */
+    public ClampMathOperator() {
+        this.limit = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+	@Override public void setBiasValue(double bias) {
+		this.limit = Math.abs(bias);
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+	@Override public double getBiasValue() {
+		return limit;
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return DESCRIPTION;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MathOperatorKey getId() {
+        return ID;
+    }
+
+    /**
+     * Take the bias value, and operate on this double to return the result.
+     * 
+     * @param value double
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value) {
+        return Math.max(-limit, Math.min(limit, value));
+    }
+
+    /**
+     * The boxed version of applyAsDouble.
+     * 
+     * @param value Double
+     * @return Double
+     */
+    @Override
+    public Double apply(Double value) {
+        return applyAsDouble(value);
+    }
+}
@@ -0,0 +1,127 @@
+package app.core.dataSet.mathOperator;
+
+import java.math.BigDecimal;
+
+/**
+ * Adding and multiplying doubles as the decimals they are written as, giving
+ * the same results as BigDecimal.valueOf would, but with no objects created
+ * for the values most often found in data sets.<p>
+ *
+ * A double of few enough decimal places is turned into a whole number of
+ * units of its last place, exact as a long. Whole numbers are added or
+ * multiplied exactly, and the result divided by the power of ten of its
+ * units, which as both are exact doubles rounds just as BigDecimal does.
+ * Doubles of too many digits, or results too large to be exact, are worked
+ * out with BigDecimal instead. Values not finite are worked out as doubles.
+ *
+ * @author Vasco
+ *
+ */
+final class DecimalArithmetic {
+
+    /**
+     * The most decimal places of a value worked out with no BigDecimal.
+     */
+    static final int MAX_SCALE = 15;
+
+    /**
+     * The largest whole number of units of a value, few enough digits for
+     * the decimals of each double to be the shortest ones written for it.
+     */
+    private static final long MAX_UNITS = 1_000_000_000_000_000L;
+
+    /**
+     * The largest whole number of units of a result, exact as a double.
+     */
+    private static final long MAX_RESULT = 1L << 53;
+
+    /**
+     * The powers of ten exact as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = new double[23];
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for ( int power = 1; power < POWERS_OF_TEN.length; power++ ) POWERS_OF_TEN[power] = POWERS_OF_TEN[power - 1] * 10.0;
+    }
+
+    /**
+     * No instances.
+     */
+    private DecimalArithmetic() {
+    }
+
+    /**
+     * The fewest decimal places the given value is written with.
+     *
+     * @param value double
+     * @return int or -1 if more than MAX_SCALE, too large, or not finite
+     */
+    static int scale(double value) {
+        for ( int scale = 0; scale <= MAX_SCALE; scale++ ) {
+            double units = Math.rint(value * POWERS_OF_TEN[scale]);
+            if ( Math.abs(units) > MAX_UNITS ) return -1;
+            if ( units / POWERS_OF_TEN[scale] == value ) return scale;
+        }
+        return -1;
+    }
+
+    /**
+     * The whole number of units of the given value at the given scale.
+     *
+     * @param value double
+     * @param scale int as given by scale
+     * @return long
+     */
+    static long units(double value, int scale) {
+        return (long) Math.rint(value * POWERS_OF_TEN[scale]);
+    }
+
+    /**
+     * The sum of the value and the given addend, as BigDecimal would add
+     * them.
+     *
+     * @param value double
+     * @param addend double
+     * @param addendUnits long the units of the addend at its scale
+     * @param addendScale int the scale of the addend, -1 if none
+     * @return double
+     */
+    static double add(double value, double addend, long addendUnits, int addendScale) {
+        if ( ! Double.isFinite(value) || ! Double.isFinite(addend) ) return value + addend;
+        int valueScale = scale(value);
+        if ( valueScale >= 0 && addendScale >= 0 ) {
+            int scale = Math.max(valueScale, addendScale);
+            long valueFactor = (long) POWERS_OF_TEN[scale - valueScale];
+            long addendFactor = (long) POWERS_OF_TEN[scale - addendScale];
+            long valueUnits = units(value, valueScale);
+            // Each term below half the largest exact result, so is their sum.
+            if ( Math.abs(valueUnits) <= MAX_RESULT / 2 / valueFactor
+                    && Math.abs(addendUnits) <= MAX_RESULT / 2 / addendFactor ) {
+                return ( valueUnits * valueFactor + addendUnits * addendFactor ) / POWERS_OF_TEN[scale];
+            }
+        }
+        return BigDecimal.valueOf(value).add(BigDecimal.valueOf(addend)).doubleValue();
+    }
+
+    /**
+     * The product of the value and the given factor, as BigDecimal would
+     * multiply them.
+     *
+     * @param value double
+     * @param factor double
+     * @param factorUnits long the units of the factor at its scale
+     * @param factorScale int the scale of the factor, -1 if none
+     * @return double
+     */
+    static double multiply(double value, double factor, long factorUnits, int factorScale) {
+        if ( ! Double.isFinite(value) || ! Double.isFinite(factor) ) return value * factor;
+        int valueScale = scale(value);
+        if ( valueScale >= 0 && factorScale >= 0 && valueScale + factorScale < POWERS_OF_TEN.length ) {
+            long valueUnits = units(value, valueScale);
+            if ( factorUnits == 0 || Math.abs(valueUnits) <= MAX_RESULT / Math.abs(factorUnits) ) {
+                return ( valueUnits * factorUnits ) / POWERS_OF_TEN[valueScale + factorScale];
+            }
+        }
+        return BigDecimal.valueOf(value).multiply(BigDecimal.valueOf(factor)).doubleValue();
+    }
+}
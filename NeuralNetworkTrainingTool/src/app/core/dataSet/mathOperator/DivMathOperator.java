@@ -1,7 +1,5 @@
 package app.core.dataSet.mathOperator;
 
-import java.math.BigDecimal;
-
 import app.core.dataSet.MathOperatorCore;
 import app.core.dataSet.MathOperatorKey;
 
@@ -38,14 +36,14 @@ public class DivMathOperator implements MathOperatorCore<Double> {
      * The biasValue to be used with the operation to transform
      * the apply given value.
      */
-    private BigDecimal biasValue;
+    private double biasValue;
     
     /**
      * If no operation is supplied at the start, then no transformation 
      * will be required, and the input value will be returned.
      */
     public DivMathOperator() {
-        this.biasValue = new BigDecimal(0d);
+        this.biasValue = 0d;
     }
 
     /**
@@ -53,7 +51,14 @@ public class DivMathOperator implements MathOperatorCore<Double> {
      */
 	@Override public void setBiasValue(double bias) {
 		if ( bias == 0 ) throw new ArithmeticException(ILLEGAL_DIVISION_BY_ZERO);
-		this.biasValue = BigDecimal.valueOf(bias);
+		this.biasValue = bias;
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+	@Override public double getBiasValue() {
+		return biasValue;
 	}
 
     /**
@@ -83,12 +88,22 @@ public class DivMathOperator implements MathOperatorCore<Double> {
     /**
      * Take the bias value, and operate on this double to return the result.
      * 
+     * @param value double
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value) {
+        return value / biasValue;
+    }
+
+    /**
+     * The boxed version of applyAsDouble.
+     * 
      * @param value Double
      * @return Double
      */
     @Override
     public Double apply(Double value) {
-        BigDecimal bigDecimalValue = BigDecimal.valueOf(value);
-        return bigDecimalValue.doubleValue() / biasValue.doubleValue();
+        return applyAsDouble(value);
     }
 }
@@ -49,6 +49,13 @@ public class InvMathOperator implements MathOperatorCore<Double> {
 		// Value ignored for this operation
 	}
 
+    /**
+     * {@inheritDoc}
+     */
+	@Override public double getBiasValue() {
+		return 0.0;
+	}
+
     /**
      * {@inheritDoc}
      */
@@ -76,12 +83,22 @@ public class InvMathOperator implements MathOperatorCore<Double> {
     /**
      * Take the bias value, and operate on this double to return the result.
      * 
+     * @param value double
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value) {
+        return value == 0 ? 1.0 : 0.0;
+    }
+
+    /**
+     * The boxed version of applyAsDouble.
+     * 
      * @param value Double
      * @return Double
      */
     @Override
     public Double apply(Double value) {
-    	if ( value == 0 ) return 1.0;
-        return 0.0;
+        return applyAsDouble(value);
     }
 }
@@ -0,0 +1,95 @@
+package app.core.dataSet.mathOperator;
+
+import app.core.dataSet.MathOperatorCore;
+import app.core.dataSet.MathOperatorKey;
+
+/**
+ * The Log1p operator to compress values of long tailed distributions,
+ * taking the natural logarithm of one plus each value, so zero stays zero.
+ * Values below -1 become NaN.
+ * 
+ * @author Vasco
+ *
+ */
+public class Log1pMathOperator implements MathOperatorCore<Double> {
+    /**
+     * The operation description.
+     */
+    public final String DESCRIPTION = "Natural logarithm of one plus value.";
+    
+    /**
+     * The operation user friendly name.
+     */
+    public final String NAME = "Logarithm";
+    
+    /**
+     * The operation key id.
+     */
+    public final MathOperatorKey ID = MathOperatorKey.LOG1P;
+
+    /**
+     * Simple object instantiation.
+     */
+    public Log1pMathOperator() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+	@Override public void setBiasValue(double bias) {
+		// No bias will be used.
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+	@Override public double getBiasValue() {
+		return 0.0;
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return DESCRIPTION;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MathOperatorKey getId() {
+        return ID;
+    }
+
+    /**
+     * Take the bias value, and operate on this double to return the result.
+     * 
+     * @param value double
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value) {
+        return Math.log1p(value);
+    }
+
+    /**
+     * The boxed version of applyAsDouble.
+     * 
+     * @param value Double
+     * @return Double
+     */
+    @Override
+    public Double apply(Double value) {
+        return applyAsDouble(value);
+    }
+}
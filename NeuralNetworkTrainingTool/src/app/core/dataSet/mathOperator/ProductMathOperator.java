@@ -0,0 +1,149 @@
+package app.core.dataSet.mathOperator;
+
+import app.core.dataSet.MathOperatorKey;
+import app.core.dataSet.MultiColumnOperatorCore;
+
+/**
+ * The Product operator to derive the product of one source column with
+ * others of the same row. The bias is not used.
+ * 
+ * @author Vasco
+ *
+ */
+public class ProductMathOperator implements MultiColumnOperatorCore<Double> {
+    /**
+     * The operation description.
+     */
+    public final String DESCRIPTION = "Multiplying value by other columns.";
+    
+    /**
+     * The operation user friendly name.
+     */
+    public final String NAME = "Product";
+    
+    /**
+     * The operation key id.
+     */
+    public final MathOperatorKey ID = MathOperatorKey.PRODUCT;
+
+    /**
+     * The other source columns the value is operated with.
+     */
+    private int[] otherSourceIndexes;
+
+    /**
+     * Simple object instantiation.
+     */
+    public ProductMathOperator() {
+        this.otherSourceIndexes = new int[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+	@Override public void setBiasValue(double bias) {
+		// No bias will be used.
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+	@Override public double getBiasValue() {
+		return 0.0;
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOtherSourceIndexes(int... sourceIndexes) {
+        for ( int sourceIndex : sourceIndexes )
+            if ( sourceIndex < 0 ) throw new IllegalArgumentException("Source index cannot be negative.");
+        this.otherSourceIndexes = sourceIndexes.clone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[] getOtherSourceIndexes() {
+        return otherSourceIndexes.clone();
+    }
+
+    /**
+     * Multiplies the value by each other column of the source row.
+     * 
+     * @param value double
+     * @param source double[]
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value, double[] source) {
+        double result = value;
+        for ( int index = 0; index < otherSourceIndexes.length; index++ ) result *= source[otherSourceIndexes[index]];
+        return result;
+    }
+
+    /**
+     * Multiplies the value of each row by each other column in turn.
+     * 
+     * @param values double[]
+     * @param otherColumns double[][]
+     * @param count int
+     */
+    @Override
+    public void applyToColumn(double[] values, double[][] otherColumns, int count) {
+        for ( double[] factors : otherColumns ) {
+            for ( int row = 0; row < count; row++ ) values[row] *= factors[row];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return DESCRIPTION;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MathOperatorKey getId() {
+        return ID;
+    }
+
+    /**
+     * The value kept as is, as no other columns are at hand, which is only
+     * allowed with no other columns set.
+     * 
+     * @param value double
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value) {
+        if ( otherSourceIndexes.length > 0 ) 
+            throw new IllegalStateException("Other source columns are only at hand given the source row.");
+        return value;
+    }
+
+    /**
+     * The boxed version of applyAsDouble.
+     * 
+     * @param value Double
+     * @return Double
+     */
+    @Override
+    public Double apply(Double value) {
+        return applyAsDouble(value);
+    }
+}
@@ -0,0 +1,170 @@
+package app.core.dataSet.mathOperator;
+
+import app.core.dataSet.MathOperatorKey;
+import app.core.dataSet.MultiColumnOperatorCore;
+
+/**
+ * The Ratio operator to derive the ratio of one source column to others of
+ * the same row, as the ratio of two invariant masses. Where any of the other
+ * columns is zero the ratio is not defined, as for jets with no b-tag, and
+ * the initial value supplied is given instead, zero unless supplied, so
+ * such rows still load with a value within the range of the column.
+ * 
+ * @author Vasco
+ *
+ */
+public class RatioMathOperator implements MultiColumnOperatorCore<Double> {
+    /**
+     * The operation description.
+     */
+    public final String DESCRIPTION = "Dividing value by other columns, this constant where any is zero.";
+    
+    /**
+     * The operation user friendly name.
+     */
+    public final String NAME = "Ratio";
+    
+    /**
+     * The operation key id.
+     */
+    public final MathOperatorKey ID = MathOperatorKey.RATIO;
+
+    /**
+     * The other source columns the value is operated with.
+     */
+    private int[] otherSourceIndexes;
+
+    /**
+     * The value given where any other column is zero.
+     */
+    private double zeroDivisorValue;
+
+    /**
+     * Simple object instantiation.
+     */
+    public RatioMathOperator() {
+        this.otherSourceIndexes = new int[0];
+        this.zeroDivisorValue = 0.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+	@Override public void setBiasValue(double bias) {
+		this.zeroDivisorValue = bias;
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+	@Override public double getBiasValue() {
+		return zeroDivisorValue;
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOtherSourceIndexes(int... sourceIndexes) {
+        for ( int sourceIndex : sourceIndexes )
+            if ( sourceIndex < 0 ) throw new IllegalArgumentException("Source index cannot be negative.");
+        this.otherSourceIndexes = sourceIndexes.clone();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[] getOtherSourceIndexes() {
+        return otherSourceIndexes.clone();
+    }
+
+    /**
+     * Divides the value by each other column of the source row in turn, or
+     * gives the value set for a zero divisor if any of them is zero.
+     * 
+     * @param value double
+     * @param source double[]
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value, double[] source) {
+        double result = value;
+        for ( int index = 0; index < otherSourceIndexes.length; index++ ) {
+            double divisor = source[otherSourceIndexes[index]];
+            if ( divisor == 0 ) return zeroDivisorValue;
+            result /= divisor;
+        }
+        return result;
+    }
+
+    /**
+     * Divides the value of each row by each other column in turn, those
+     * rows where any of them is zero given the value set for a zero divisor
+     * once all divided, so the divisions loop with no branches.
+     * 
+     * @param values double[]
+     * @param otherColumns double[][]
+     * @param count int
+     */
+    @Override
+    public void applyToColumn(double[] values, double[][] otherColumns, int count) {
+        for ( double[] divisors : otherColumns ) {
+            for ( int row = 0; row < count; row++ ) values[row] /= divisors[row];
+        }
+        for ( double[] divisors : otherColumns ) {
+            for ( int row = 0; row < count; row++ ) {
+                if ( divisors[row] == 0 ) values[row] = zeroDivisorValue;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return DESCRIPTION;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MathOperatorKey getId() {
+        return ID;
+    }
+
+    /**
+     * The value kept as is, as no other columns are at hand, which is only
+     * allowed with no other columns set.
+     * 
+     * @param value double
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value) {
+        if ( otherSourceIndexes.length > 0 ) 
+            throw new IllegalStateException("Other source columns are only at hand given the source row.");
+        return value;
+    }
+
+    /**
+     * The boxed version of applyAsDouble.
+     * 
+     * @param value Double
+     * @return Double
+     */
+    @Override
+    public Double apply(Double value) {
+        return applyAsDouble(value);
+    }
+}
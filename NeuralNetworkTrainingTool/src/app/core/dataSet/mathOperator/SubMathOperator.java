@@ -1,7 +1,5 @@
 package app.core.dataSet.mathOperator;
 
-import java.math.BigDecimal;
-
 import app.core.dataSet.MathOperatorCore;
 import app.core.dataSet.MathOperatorKey;
 
@@ -32,21 +30,42 @@ public class SubMathOperator implements MathOperatorCore<Double> {
      * The biasValue to be used with the operation to transform
      * the apply given value.
      */
-    private BigDecimal biasValue;
+    private double biasValue;
+
+    /**
+     * The biasValue as a whole number of units of its last decimal place.
+     */
+    private long biasUnits;
+
+    /**
+     * The decimal places of the biasValue, -1 if too many.
+     */
+    private int biasScale;
     
     /**
      * If no operation is supplied at the start, then no transformation 
      * will be required, and the input value will be returned.
      */
     public SubMathOperator() {
-        this.biasValue = new BigDecimal(0d);
+        this.biasValue = 0d;
+        this.biasUnits = 0;
+        this.biasScale = 0;
     }
 
     /**
      * {@inheritDoc}
      */
 	@Override public void setBiasValue(double bias) {
-		this.biasValue = new BigDecimal(bias);
+		this.biasValue = bias;
+		this.biasScale = DecimalArithmetic.scale(bias);
+		this.biasUnits = biasScale < 0 ? 0 : DecimalArithmetic.units(bias, biasScale);
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+	@Override public double getBiasValue() {
+		return biasValue;
 	}
 
     /**
@@ -74,14 +93,25 @@ public class SubMathOperator implements MathOperatorCore<Double> {
     }
 
     /**
-     * Take the bias value, and operate on this double to return the result.
+     * Take the bias value, and operate on this double to return the result,
+     * as the decimals both are written as, with no objects created.
+     * 
+     * @param value double
+     * @return double
+     */
+    @Override
+    public double applyAsDouble(double value) {
+        return DecimalArithmetic.add(value, -biasValue, -biasUnits, biasScale);
+    }
+
+    /**
+     * The boxed version of applyAsDouble.
      * 
      * @param value Double
      * @return Double
      */
     @Override
     public Double apply(Double value) {
-        BigDecimal bigDecimalValue = BigDecimal.valueOf(value);
-        return bigDecimalValue.subtract(biasValue).doubleValue();
+        return applyAsDouble(value);
     }
 }
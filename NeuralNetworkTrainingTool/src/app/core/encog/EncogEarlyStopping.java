@@ -0,0 +1,451 @@
+package app.core.encog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.encog.ml.train.MLTrain;
+import org.encog.neural.networks.BasicNetwork;
+
+import app.core.dataSet.DataSet;
+import app.core.neuralNetwork.DenseNetwork;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Trains a network until its score on rows held out for validation stops
+ * improving, rather than until the training error stops changing.<p>
+ *
+ * The rows held out are the last rows of the training set, as many as the
+ * FileAttributes give, and the training set handed out for the training
+ * leaves them out. Every few epochs a snapshot of the weights is scored on
+ * the rows held out by a background thread, while the training goes on, so
+ * scoring costs the training no time. The training stops once as many
+ * scores in a row as the patience fail to improve on the best score by more
+ * than the minimum delta, and the weights of the best score, kept in memory,
+ * are put back into the network.<p>
+ *
+ * The score is either the mean squared error of all outputs, the lower the
+ * better, or the area under the ROC curve of the first output, the rows
+ * with a first ideal value above 0.5 being the signal, the higher the better.
+ *
+ * @author Vasco
+ *
+ */
+public class EncogEarlyStopping {
+
+	/**
+	 * The scores of the rows held out.
+	 *
+	 * @author Vasco
+	 *
+	 */
+	public enum Metric {
+		/**
+		 * The mean squared error of all outputs.
+		 */
+		LOSS,
+		/**
+		 * The area under the ROC curve of the first output.
+		 */
+		AUC
+	}
+
+	/**
+	 * The default number of epochs between scores.
+	 */
+	public static final int DEFAULT_EVALUATION_INTERVAL = 10;
+
+	/**
+	 * The default number of scores in a row not improving before stopping.
+	 */
+	public static final int DEFAULT_PATIENCE = 5;
+
+	/**
+	 * The default improvement on the best score for a score to improve.
+	 */
+	public static final double DEFAULT_MIN_DELTA = 1e-4;
+
+	/**
+	 * The number of rows held out scored at a time.
+	 */
+	private static final int ROWS_PER_BATCH = 256;
+
+	/**
+	 * The network trained.
+	 */
+	private final BasicNetwork network;
+
+	/**
+	 * The data set trained on.
+	 */
+	private final DataSet dataSet;
+
+	/**
+	 * The number of rows at the end of the training rows held out.
+	 */
+	private final int validationRows;
+
+	/**
+	 * The score of the rows held out.
+	 */
+	private final Metric metric;
+
+	/**
+	 * The network the snapshots are scored by, over weights of its own.
+	 */
+	private final DenseNetwork scoringNetwork;
+
+	/**
+	 * The number of epochs between scores.
+	 */
+	private int evaluationInterval = DEFAULT_EVALUATION_INTERVAL;
+
+	/**
+	 * The number of scores in a row not improving before stopping.
+	 */
+	private int patience = DEFAULT_PATIENCE;
+
+	/**
+	 * The improvement on the best score for a score to improve.
+	 */
+	private double minDelta = DEFAULT_MIN_DELTA;
+
+	/**
+	 * The most epochs to train for.
+	 */
+	private int maxEpochs = Integer.MAX_VALUE;
+
+	/**
+	 * The number of epochs trained.
+	 */
+	private int epoch = 0;
+
+	/**
+	 * The best score, NaN if none yet.
+	 */
+	private double bestScore = Double.NaN;
+
+	/**
+	 * The epoch of the best score, 0 if none yet.
+	 */
+	private int bestEpoch = 0;
+
+	/**
+	 * The weights of the best score, null if none yet.
+	 */
+	private double[] bestWeights;
+
+	/**
+	 * All scores, in order, one every evaluation interval and one for the
+	 * last epoch.
+	 */
+	private final List<Double> scores = new ArrayList<>();
+
+	/**
+	 * The epoch of each score, in the same order.
+	 */
+	private final List<Integer> scoredEpochs = new ArrayList<>();
+
+	/**
+	 * Constructing the early stopping of the given network, holding out the
+	 * number of validation rows of the given FileAttributes.
+	 *
+	 * @param network BasicNetwork
+	 * @param dataSet DataSet loaded and normalised
+	 * @param fileAttributes FileAttributes the data set was loaded with
+	 * @param metric Metric
+	 */
+	public EncogEarlyStopping(BasicNetwork network, DataSet dataSet, FileAttributes fileAttributes, Metric metric) {
+		this(network, dataSet, fileAttributes.getValidationRows(), metric);
+	}
+
+	/**
+	 * Constructing the early stopping of the given network, holding out the
+	 * given number of rows at the end of the training rows.
+	 *
+	 * @param network BasicNetwork
+	 * @param dataSet DataSet loaded and normalised
+	 * @param validationRows int
+	 * @param metric Metric
+	 */
+	public EncogEarlyStopping(BasicNetwork network, DataSet dataSet, int validationRows, Metric metric) {
+		if ( network == null || dataSet == null || metric == null )
+			throw new IllegalArgumentException("Network, data set and metric cannot be null.");
+		if ( validationRows <= 0 || validationRows >= dataSet.getNumberOfTrainingRows() )
+			throw new IllegalArgumentException("Cannot hold out " + validationRows + " of "
+					+ dataSet.getNumberOfTrainingRows() + " training rows for validation.");
+		if ( network.getInputCount() != dataSet.getNumberOfInputColumns()
+				|| network.getOutputCount() != dataSet.getNumberOfOutputColumns() )
+			throw new IllegalArgumentException("Network does not match the columns of the data set.");
+		this.network = network;
+		this.dataSet = dataSet;
+		this.validationRows = validationRows;
+		this.metric = metric;
+		this.scoringNetwork = new DenseNetwork((BasicNetwork) network.clone());
+	}
+
+	/**
+	 * The training set to train the network on, leaving out the rows held
+	 * out.
+	 *
+	 * @param threadCount int as given to Propagation.setThreadCount, 0 for as many as Encog works out
+	 * @return EncogMLDataSetTrainingAdaptor
+	 */
+	public EncogMLDataSetTrainingAdaptor getTrainingSet(int threadCount) {
+		return new EncogMLDataSetTrainingAdaptor(dataSet, threadCount, validationRows);
+	}
+
+	/**
+	 * Sets the number of epochs between scores.
+	 *
+	 * @param evaluationInterval int
+	 */
+	public void setEvaluationInterval(int evaluationInterval) {
+		if ( evaluationInterval <= 0 ) throw new IllegalArgumentException("Evaluation interval must be positive.");
+		this.evaluationInterval = evaluationInterval;
+	}
+
+	/**
+	 * Sets the number of scores in a row not improving before stopping.
+	 *
+	 * @param patience int
+	 */
+	public void setPatience(int patience) {
+		if ( patience <= 0 ) throw new IllegalArgumentException("Patience must be positive.");
+		this.patience = patience;
+	}
+
+	/**
+	 * Sets the improvement on the best score for a score to improve.
+	 *
+	 * @param minDelta double
+	 */
+	public void setMinDelta(double minDelta) {
+		if ( !( minDelta >= 0 ) ) throw new IllegalArgumentException("Minimum delta cannot be negative.");
+		this.minDelta = minDelta;
+	}
+
+	/**
+	 * Sets the most epochs to train for, whether or not the scores still
+	 * improve.
+	 *
+	 * @param maxEpochs int
+	 */
+	public void setMaxEpochs(int maxEpochs) {
+		if ( maxEpochs <= 0 ) throw new IllegalArgumentException("Maximum epochs must be positive.");
+		this.maxEpochs = maxEpochs;
+	}
+
+	/**
+	 * Trains until the scores stop improving, the most epochs are trained,
+	 * or the training is done, then puts the weights of the best score back
+	 * into the network. A score that is not a number never improves, and if
+	 * no score is a number the network is left with its last weights. The
+	 * training is to be over the training set of this
+	 * early stopping, and is not to be gone on with after, its state no
+	 * longer matching the weights.
+	 *
+	 * @param train MLTrain training the network
+	 * @return int the epoch of the best score, 0 if none
+	 */
+	public int train(MLTrain train) {
+		ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Validation scoring");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			int checksNotImproving = 0;
+			int scoredEpoch = 0;
+			double[] scoredWeights = null;
+			Future<Double> score = null;
+			while ( true ) {
+				train.iteration();
+				epoch++;
+				boolean last = epoch >= maxEpochs || train.isTrainingDone();
+				if ( epoch % evaluationInterval != 0 && !last ) continue;
+
+				// The last snapshot was scored while these epochs trained.
+				if ( score != null ) {
+					checksNotImproving = accept(scoredEpoch, scoredWeights, score) ? 0 : checksNotImproving + 1;
+					if ( checksNotImproving >= patience ) break;
+				}
+				scoredEpoch = epoch;
+				scoredWeights = network.getStructure().getFlat().getWeights().clone();
+				final double[] weights = scoredWeights;
+				score = executor.submit(() -> score(weights));
+				if ( last ) {
+					accept(scoredEpoch, scoredWeights, score);
+					break;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		if ( bestWeights != null ) {
+			double[] weights = network.getStructure().getFlat().getWeights();
+			System.arraycopy(bestWeights, 0, weights, 0, weights.length);
+		}
+		return bestEpoch;
+	}
+
+	/**
+	 * The number of epochs trained.
+	 *
+	 * @return int
+	 */
+	public int getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * The best score of the rows held out.
+	 *
+	 * @return double NaN if no score yet is a number
+	 */
+	public double getBestScore() {
+		return bestScore;
+	}
+
+	/**
+	 * The epoch of the best score, whose weights the network is left with.
+	 *
+	 * @return int 0 if no score yet is a number
+	 */
+	public int getBestEpoch() {
+		return bestEpoch;
+	}
+
+	/**
+	 * All scores, in order, one every evaluation interval and one for the
+	 * last epoch.
+	 *
+	 * @return List of Double
+	 */
+	public List<Double> getScores() {
+		return Collections.unmodifiableList(scores);
+	}
+
+	/**
+	 * The epoch of each score, in the same order as the scores.
+	 *
+	 * @return List of Integer
+	 */
+	public List<Integer> getScoredEpochs() {
+		return Collections.unmodifiableList(scoredEpochs);
+	}
+
+	/**
+	 * Waits for the score of the given snapshot, keeping the snapshot if the
+	 * best. A score that is not a number never improves, the first that is
+	 * being the best so far.
+	 *
+	 * @param scoredEpoch int
+	 * @param weights double[]
+	 * @param score Future of the score
+	 * @return boolean true if the score improved
+	 */
+	private boolean accept(int scoredEpoch, double[] weights, Future<Double> score) {
+		double value;
+		try {
+			value = score.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while scoring the rows held out.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Failed scoring the rows held out.", e.getCause());
+		}
+		scores.add(value);
+		scoredEpochs.add(scoredEpoch);
+		boolean improved = !Double.isNaN(value) && ( Double.isNaN(bestScore)
+				|| ( metric == Metric.AUC ? value > bestScore + minDelta : value < bestScore - minDelta ) );
+		if ( improved ) {
+			bestScore = value;
+			bestEpoch = scoredEpoch;
+			bestWeights = weights;
+		}
+		return improved;
+	}
+
+	/**
+	 * The score of the rows held out for the given weights, worked out in
+	 * batches by the scoring network.
+	 *
+	 * @param weights double[]
+	 * @return double
+	 */
+	private double score(double[] weights) {
+		System.arraycopy(weights, 0, scoringNetwork.getWeights(), 0, weights.length);
+		int inputCount = scoringNetwork.getInputCount();
+		int outputCount = scoringNetwork.getOutputCount();
+		double[] input = new double[inputCount];
+		double[] ideal = new double[outputCount];
+		double[] inputs = new double[ROWS_PER_BATCH * inputCount];
+		double[] ideals = new double[ROWS_PER_BATCH * outputCount];
+		double[] outputs = new double[ROWS_PER_BATCH * outputCount];
+		double[] firstOutputs = new double[validationRows];
+		boolean[] signals = new boolean[validationRows];
+		double squaredError = 0.0;
+		int firstRow = dataSet.getNumberOfTrainingRows() - validationRows;
+		for ( int batchStart = 0; batchStart < validationRows; batchStart += ROWS_PER_BATCH ) {
+			int rows = Math.min(ROWS_PER_BATCH, validationRows - batchStart);
+			for ( int row = 0; row < rows; row++ ) {
+				dataSet.readTrainingInputRow(firstRow + batchStart + row, input);
+				dataSet.readTrainingOutputRow(firstRow + batchStart + row, ideal);
+				System.arraycopy(input, 0, inputs, row * inputCount, inputCount);
+				System.arraycopy(ideal, 0, ideals, row * outputCount, outputCount);
+			}
+			scoringNetwork.computeBatch(inputs, rows, outputs);
+			for ( int row = 0; row < rows; row++ ) {
+				for ( int output = 0; output < outputCount; output++ ) {
+					double difference = ideals[row * outputCount + output] - outputs[row * outputCount + output];
+					squaredError += difference * difference;
+				}
+				firstOutputs[batchStart + row] = outputs[row * outputCount];
+				signals[batchStart + row] = ideals[row * outputCount] > 0.5;
+			}
+		}
+		if ( metric == Metric.LOSS ) return squaredError / ( (double) validationRows * outputCount );
+		return calculateAUC(firstOutputs, signals, validationRows);
+	}
+
+	/**
+	 * The area under the ROC curve of the given outputs, the chance a signal
+	 * row has a higher output than a background row, ties counting half.
+	 *
+	 * @param outputs double[]
+	 * @param signals boolean[] true for the signal rows
+	 * @param count int the number of rows
+	 * @return double
+	 */
+	public static double calculateAUC(double[] outputs, boolean[] signals, int count) {
+		int signalCount = 0;
+		for ( int row = 0; row < count; row++ ) if ( signals[row] ) signalCount++;
+		if ( signalCount == 0 || signalCount == count )
+			throw new IllegalStateException("Rows must hold both signal and background.");
+		double[] signalOutputs = new double[signalCount];
+		double[] backgroundOutputs = new double[count - signalCount];
+		int signal = 0, background = 0;
+		for ( int row = 0; row < count; row++ ) {
+			if ( signals[row] ) signalOutputs[signal++] = outputs[row];
+			else backgroundOutputs[background++] = outputs[row];
+		}
+		Arrays.sort(signalOutputs);
+		Arrays.sort(backgroundOutputs);
+		// Counting the background outputs below, and equal to, each signal output.
+		double pairs = 0.0;
+		int below = 0, belowOrEqual = 0;
+		for ( double output : signalOutputs ) {
+			while ( below < backgroundOutputs.length && backgroundOutputs[below] < output ) below++;
+			if ( belowOrEqual < below ) belowOrEqual = below;
+			while ( belowOrEqual < backgroundOutputs.length && backgroundOutputs[belowOrEqual] <= output ) belowOrEqual++;
+			pairs += below + ( belowOrEqual - below ) * 0.5;
+		}
+		return pairs / ( (double) signalOutputs.length * backgroundOutputs.length );
+	}
+}
@@ -5,7 +5,11 @@ import org.encog.ml.data.MLDataPair;
 import org.encog.util.kmeans.Centroid;
 
 /**
- * The Encog MLDataPair Adaptor
+ * The Encog MLDataPair Adaptor<p>
+ * 
+ * The input and ideal views are made once, over the arrays held, so a pair
+ * can be refilled row after row, its arrays read into in place, with no
+ * objects created per row.
  * 
  * @author Vasco
  *
@@ -22,6 +26,16 @@ public class EncogMLDataPairAdaptor implements MLDataPair {
 	 */
 	private double[] rowIdeal;
 
+	/**
+	 * The view of the input array.
+	 */
+	private final EncogMLDataAdaptor input;
+
+	/**
+	 * The view of the ideal array.
+	 */
+	private final EncogMLDataAdaptor ideal;
+
 	/**
 	 * Constructor for the adaptor accepting only the input data,
 	 * not to be supervised.
@@ -29,8 +43,7 @@ public class EncogMLDataPairAdaptor implements MLDataPair {
 	 * @param row double[]
 	 */
 	public EncogMLDataPairAdaptor(double[] row) {
-		this.rowInput = row;
-		this.rowIdeal = null;
+		this(row, null);
 	}
 
 	/**
@@ -42,6 +55,19 @@ public class EncogMLDataPairAdaptor implements MLDataPair {
 	public EncogMLDataPairAdaptor(double[] rowInput, double[] rowIdeal) {
 		this.rowInput = rowInput;
 		this.rowIdeal = rowIdeal;
+		this.input = new EncogMLDataAdaptor(rowInput);
+		this.ideal = new EncogMLDataAdaptor(rowIdeal);
+	}
+
+	/**
+	 * Constructor for the adaptor holding arrays of the given sizes, to be
+	 * read into row after row.
+	 * 
+	 * @param inputSize int
+	 * @param idealSize int
+	 */
+	public EncogMLDataPairAdaptor(int inputSize, int idealSize) {
+		this(new double[inputSize], new double[idealSize]);
 	}
 
 	/**
@@ -70,16 +96,16 @@ public class EncogMLDataPairAdaptor implements MLDataPair {
 	 * {@inheritDoc}
 	 */
 	@Override public void setIdealArray(double[] data) {
-		throw new IllegalStateException("setIdealArray(double[]) Not implemented");
-//		this.rowIdeal = data;
+		this.rowIdeal = data;
+		ideal.setData(data);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override public void setInputArray(double[] data) {
-		throw new IllegalStateException("setInputArray(double[]) Not implemented");
-//		this.rowInput = data;
+		this.rowInput = data;
+		input.setData(data);
 	}
 
 	/**
@@ -95,14 +121,14 @@ public class EncogMLDataPairAdaptor implements MLDataPair {
 	 * {@inheritDoc}
 	 */
 	@Override public MLData getIdeal() {
-		return new EncogMLDataAdaptor(rowIdeal);
+		return ideal;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override public MLData getInput() {
-		return new EncogMLDataAdaptor(rowInput);
+		return input;
 	}
 
 	/**
@@ -0,0 +1,400 @@
+package app.core.encog;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.encog.EncogError;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.RowBlock;
+import app.core.dataSet.RowBlockPipeline;
+
+/**
+ * The Encog Adaptor for the training rows streamed from file through a
+ * RowBlockPipeline, so training starts as soon as the first rows are ready
+ * rather than once the whole file is loaded and normalised.<p>
+ *
+ * Each adaptor opened, as by each training thread, streams its own rows.
+ * Rows are best read in order, as Encog does: once the first row read is
+ * read again, the rows read so far are streamed over and over, so the rows
+ * of the next iteration are prepared while those of the last are used. Any
+ * other jump restarts the stream from the row read. Each adaptor opened
+ * parses its rows with PARSERS_PER_WORKER threads, as the training threads
+ * already keep the processors busy. Closing the adaptor stops the streams
+ * of all adaptors opened from it, which are forgotten once closed.
+ *
+ * @author Vasco
+ *
+ */
+public class EncogMLDataSetPipelineAdaptor implements MLDataSet {
+
+	/**
+	 * The number of parser threads of each adaptor opened for a training
+	 * thread.
+	 */
+	public static final int PARSERS_PER_WORKER = 1;
+
+	/**
+	 * The data set streaming the training rows.
+	 */
+	private final FileDataSet trainingDataSet;
+
+	/**
+	 * The number of rows per block.
+	 */
+	private final int rowsPerBlock;
+
+	/**
+	 * The number of blocks prepared ahead.
+	 */
+	private final int numberOfBlocks;
+
+	/**
+	 * The number of output columns, first in each row.
+	 */
+	private final int numberOfOutputColumns;
+
+	/**
+	 * The number of columns per row.
+	 */
+	private final int numberOfColumns;
+
+	/**
+	 * The number of training rows.
+	 */
+	private final int numberOfRows;
+
+	/**
+	 * The adaptor this one was opened from, or null if none.
+	 */
+	private final EncogMLDataSetPipelineAdaptor parent;
+
+	/**
+	 * The adaptors opened from this one and not yet closed, closed with it.
+	 */
+	private final List<EncogMLDataSetPipelineAdaptor> additional = new LinkedList<>();
+
+	/**
+	 * The pipeline streaming the rows, null until the first row is read.
+	 */
+	private RowBlockPipeline pipeline;
+
+	/**
+	 * The block holding the last row read.
+	 */
+	private RowBlock block;
+
+	/**
+	 * The first row of the current stream.
+	 */
+	private int firstRow = -1;
+
+	/**
+	 * The last row read.
+	 */
+	private int lastRow = -1;
+
+	/**
+	 * The row after the last of the cycle once streaming over and over, or
+	 * -1 if not yet cycling.
+	 */
+	private int cycleEnd = -1;
+
+	/**
+	 * Constructing an adaptor streaming the training rows of the supplied
+	 * FileDataSet, in blocks of the default size.
+	 *
+	 * @param trainingDataSet FileDataSet
+	 */
+	public EncogMLDataSetPipelineAdaptor(FileDataSet trainingDataSet) {
+		this(trainingDataSet, RowBlockPipeline.DEFAULT_ROWS_PER_BLOCK, RowBlockPipeline.DEFAULT_NUMBER_OF_BLOCKS);
+	}
+
+	/**
+	 * Constructing an adaptor streaming the training rows of the supplied
+	 * FileDataSet, in blocks of the given size. The min and max values are
+	 * found straight away if not yet known.
+	 *
+	 * @param trainingDataSet FileDataSet
+	 * @param rowsPerBlock int
+	 * @param numberOfBlocks int
+	 */
+	public EncogMLDataSetPipelineAdaptor(FileDataSet trainingDataSet, int rowsPerBlock, int numberOfBlocks) {
+		this(null, trainingDataSet, rowsPerBlock, numberOfBlocks, trainingDataSet.openTrainingPipeline(rowsPerBlock, numberOfBlocks));
+	}
+
+	/**
+	 * Constructing an adaptor over the given pipeline.
+	 *
+	 * @param parent EncogMLDataSetPipelineAdaptor opened from, or null if none
+	 * @param trainingDataSet FileDataSet
+	 * @param rowsPerBlock int
+	 * @param numberOfBlocks int
+	 * @param pipeline RowBlockPipeline
+	 */
+	private EncogMLDataSetPipelineAdaptor(EncogMLDataSetPipelineAdaptor parent, FileDataSet trainingDataSet,
+			int rowsPerBlock, int numberOfBlocks, RowBlockPipeline pipeline) {
+		this.parent = parent;
+		this.trainingDataSet = trainingDataSet;
+		this.rowsPerBlock = rowsPerBlock;
+		this.numberOfBlocks = numberOfBlocks;
+		this.pipeline = pipeline;
+		this.numberOfOutputColumns = trainingDataSet.getNumberOfOutputColumns();
+		this.numberOfColumns = pipeline.getNumberOfColumns();
+		this.numberOfRows = pipeline.getNumberOfRows();
+	}
+
+	/**
+	 * An iterator over all rows, streamed by an adaptor of its own parsing
+	 * with the default number of threads, closed once all rows are read.
+	 */
+	@Override
+	public Iterator<MLDataPair> iterator() {
+		return new EncogMLIteratorAdaptor(openAdditional(RowBlockPipeline.DEFAULT_NUMBER_OF_PARSERS));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override public MLDataPair get(int index) {
+		MLDataPair pair = new EncogMLDataPairAdaptor(getInputSize(), getIdealSize());
+		getRecord(index, pair);
+		return pair;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getIdealSize() {
+		return numberOfOutputColumns;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getInputSize() {
+		return numberOfColumns - numberOfOutputColumns;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSupervised() {
+		return numberOfOutputColumns > 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRecordCount() {
+		return numberOfRows;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void getRecord(long index, MLDataPair pair) {
+		seek((int) index);
+		int row = (int) index - block.getFirstRow();
+
+		// Read straight into the arrays of the pair when of the right size.
+		double[] rowInput = pair.getInputArray();
+		if ( rowInput != null && rowInput.length == getInputSize() ) block.readRow(row, numberOfOutputColumns, numberOfColumns, rowInput);
+		else pair.setInputArray(block.getRow(row, numberOfOutputColumns, numberOfColumns));
+
+		double[] rowIdeal = pair.getIdealArray();
+		if ( rowIdeal == null ) return;
+		if ( rowIdeal.length == numberOfOutputColumns ) block.readRow(row, 0, numberOfOutputColumns, rowIdeal);
+		else pair.setIdealArray(block.getRow(row, 0, numberOfOutputColumns));
+	}
+
+	/**
+	 * An adaptor streaming the rows for one training thread, parsing them
+	 * with PARSERS_PER_WORKER threads.
+	 */
+	@Override
+	public MLDataSet openAdditional() {
+		return openAdditional(PARSERS_PER_WORKER);
+	}
+
+	/**
+	 * Opens an adaptor streaming the rows through a pipeline of its own,
+	 * closed with this one.
+	 *
+	 * @param numberOfParsers int
+	 * @return EncogMLDataSetPipelineAdaptor
+	 */
+	private EncogMLDataSetPipelineAdaptor openAdditional(int numberOfParsers) {
+		EncogMLDataSetPipelineAdaptor adaptor = new EncogMLDataSetPipelineAdaptor(this, trainingDataSet, rowsPerBlock,
+				numberOfBlocks, trainingDataSet.openTrainingPipeline(rowsPerBlock, numberOfBlocks, numberOfParsers));
+		synchronized ( additional ) {
+			additional.add(adaptor);
+		}
+		return adaptor;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(MLData data) {
+		// Not allowed to add any extra data to the dataset through the adaptor.
+		throw new IllegalArgumentException("Operation not supported by Encog Adaptor.");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(MLData inputData, MLData idealData) {
+		// Not allowed to add any extra data to the dataset through the adaptor.
+		throw new IllegalArgumentException("Operation not supported by Encog Adaptor.");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void add(MLDataPair inputData) {
+		// Not allowed to add any extra data to the dataset through the adaptor.
+		throw new IllegalArgumentException("Operation not supported by Encog Adaptor.");
+	}
+
+	/**
+	 * Stops streaming, here and in all adaptors opened from this one, and
+	 * leaves the adaptor this one was opened from.
+	 */
+	@Override
+	public void close() {
+		List<EncogMLDataSetPipelineAdaptor> opened;
+		synchronized ( additional ) {
+			opened = new ArrayList<>(additional);
+			additional.clear();
+		}
+		for ( EncogMLDataSetPipelineAdaptor adaptor : opened ) adaptor.close();
+		if ( parent != null ) {
+			synchronized ( parent.additional ) {
+				parent.additional.remove(this);
+			}
+		}
+		pipeline.close();
+		block = null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return numberOfRows;
+	}
+
+	/**
+	 * Makes the current block the one holding the given row, taking the next
+	 * block from the stream if the row comes next, or else restarting the
+	 * stream from the row.
+	 *
+	 * @param row int
+	 */
+	private void seek(int row) {
+		if ( row < 0 || row >= numberOfRows ) throw new ArrayIndexOutOfBoundsException(row);
+		if ( block != null && row >= block.getFirstRow() && row < block.getFirstRow() + block.getNumberOfRows() ) {
+			lastRow = row;
+			return;
+		}
+
+		int nextRow = block == null ? -1 : block.getFirstRow() + block.getNumberOfRows();
+		if ( nextRow == cycleEnd ) nextRow = firstRow;
+		if ( block == null || row != nextRow ) {
+			if ( block != null && cycleEnd < 0 && row == firstRow ) {
+				// All rows of one pass were read: stream them over and over.
+				cycleEnd = lastRow + 1;
+				pipeline.open(firstRow, cycleEnd, true);
+			}
+			else {
+				firstRow = row;
+				cycleEnd = -1;
+				pipeline.open(row, numberOfRows, false);
+			}
+		}
+		else {
+			pipeline.release(block);
+		}
+
+		block = pipeline.take();
+		if ( block == null || row < block.getFirstRow() || row >= block.getFirstRow() + block.getNumberOfRows() )
+			throw new IllegalStateException("Row "+row+" not streamed.");
+		lastRow = row;
+	}
+
+	/**
+	 * An iterator over all rows streamed by an adaptor of its own.
+	 * This iterator does not support removes. Each row is read into the
+	 * same pair, so a pair is only good until the next is asked for.
+	 *
+	 * @author jheaton
+	 */
+	public class EncogMLIteratorAdaptor implements Iterator<MLDataPair> {
+
+		/**
+		 * The index that the iterator is currently at.
+		 */
+		private int currentIndex = 0;
+
+		/**
+		 * The adaptor streaming the rows.
+		 */
+		private final EncogMLDataSetPipelineAdaptor adaptor;
+
+		/**
+		 * The pair each row is read into.
+		 */
+		private final MLDataPair pair;
+
+		/**
+		 * Constructing a new Iterator Adaptor.
+		 *
+		 * @param adaptor EncogMLDataSetPipelineAdaptor
+		 */
+		public EncogMLIteratorAdaptor(EncogMLDataSetPipelineAdaptor adaptor) {
+			this.adaptor = adaptor;
+			this.pair = new EncogMLDataPairAdaptor(adaptor.getInputSize(), adaptor.getIdealSize());
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override public final boolean hasNext() {
+			return this.currentIndex < adaptor.size();
+		}
+
+		/**
+		 * The next row, read into the same pair as the last one.
+		 */
+		@Override public final MLDataPair next() {
+			if (!hasNext()) return null;
+
+			adaptor.getRecord(currentIndex, pair);
+			currentIndex++;
+			if ( ! hasNext() ) adaptor.close();
+			return pair;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override public final void remove() {
+			throw new EncogError("Called remove, unsupported operation.");
+		}
+	}
+}
@@ -10,7 +10,8 @@ import org.encog.ml.data.MLDataSet;
 import app.core.dataSet.DataSet;
 
 /**
- * The Encog MLDataSet Testing Adaptor.
+ * The Encog MLDataSet Testing Adaptor. Records are read straight from the
+ * storage of the data set into the arrays of the pair given.
  * 
  * @author jheaton
  * @author Vasco
@@ -43,7 +44,9 @@ public class EncogMLDataSetTestingAdaptor implements MLDataSet {
 	 * {@inheritDoc}
 	 */
 	@Override public MLDataPair get(int index) { 
-		return new EncogMLDataPairAdaptor(dataSet.getTestingInputRow(index), dataSet.getTestingOutputRow(index));
+		MLDataPair pair = new EncogMLDataPairAdaptor(getInputSize(), getIdealSize());
+		getRecord(index, pair);
+		return pair;
 	}
 
 	/**
@@ -79,15 +82,15 @@ public class EncogMLDataSetTestingAdaptor implements MLDataSet {
 	 * {@inheritDoc}
 	 */
 	@Override public void getRecord(long index, MLDataPair pair) {
-		final double[] rowIdeal = dataSet.getTestingOutputRow((int)index);
-		final double[] rowInput = dataSet.getTestingInputRow((int)index);
-		final MLDataPair source = new EncogMLDataPairAdaptor(rowInput,rowIdeal);
-
-		pair.setInputArray(source.getInputArray());
-		
-		if (pair.getIdealArray() != null) {
-			pair.setIdealArray(source.getIdealArray());
-		}
+		// Read straight into the arrays of the pair when of the right size.
+		double[] rowInput = pair.getInputArray();
+		if ( rowInput != null && rowInput.length == getInputSize() ) dataSet.readTestingInputRow((int)index, rowInput);
+		else pair.setInputArray(dataSet.getTestingInputRow((int)index));
+
+		double[] rowIdeal = pair.getIdealArray();
+		if ( rowIdeal == null ) return;
+		if ( rowIdeal.length == getIdealSize() ) dataSet.readTestingOutputRow((int)index, rowIdeal);
+		else pair.setIdealArray(dataSet.getTestingOutputRow((int)index));
 	}
 
 	/**
@@ -133,7 +136,8 @@ public class EncogMLDataSetTestingAdaptor implements MLDataSet {
 
 	/**
 	 * An iterator to be used with the BasicMLDataSet. This iterator does not
-	 * support removes.
+	 * support removes. Each row is read into the same pair, so a pair is
+	 * only good until the next is asked for.
 	 * 
 	 * @author jheaton
 	 */
@@ -149,6 +153,11 @@ public class EncogMLDataSetTestingAdaptor implements MLDataSet {
 		 */
 		private DataSet dataSet;
 
+		/**
+		 * The pair each row is read into.
+		 */
+		private final MLDataPair pair;
+
 		/**
 		 * Constructor.
 		 * 
@@ -156,25 +165,28 @@ public class EncogMLDataSetTestingAdaptor implements MLDataSet {
 		 */
 		public EncogMLIteratorAdaptor(DataSet dataSet) {
 			this.dataSet = dataSet;
+			this.pair = new EncogMLDataPairAdaptor(dataSet.getNumberOfInputColumns(), dataSet.getNumberOfOutputColumns());
 		}
 
 		/**
 		 * {@inheritDoc}
 		 */
 		@Override public final boolean hasNext() {
-			return this.currentIndex+1 < dataSet.getNumberOfTestingRows();
+			return this.currentIndex < dataSet.getNumberOfTestingRows();
 		}
 
 		/**
-		 * {@inheritDoc}
+		 * The next row, read into the same pair as the last one.
 		 */
 		@Override public final MLDataPair next() {
 			if (!hasNext()) {
 				return null;
 			}
+			dataSet.readTestingInputRow(currentIndex, pair.getInputArray());
+			dataSet.readTestingOutputRow(currentIndex, pair.getIdealArray());
 			currentIndex++;
 
-			return new EncogMLDataPairAdaptor(dataSet.getTestingInputRow(currentIndex), dataSet.getTestingOutputRow(currentIndex));
+			return pair;
 		}
 
 		/**
@@ -1,16 +1,34 @@
 package app.core.encog;
 
 import java.util.Iterator;
+import java.util.List;
 
 import org.encog.EncogError;
+import org.encog.mathutil.IntRange;
 import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
+import org.encog.util.concurrency.DetermineWorkload;
 
 import app.core.dataSet.DataSet;
 
 /**
  * The Encog Adaptor for the training data set, adapted for the Encog API.
+ * Records are read straight from the storage of the data set into the
+ * arrays of the pair given, so training goes through the rows with no
+ * objects created per row.<p>
+ * 
+ * Given the thread count of the training, the rows are split into shards
+ * just as Encog splits them between its workers, so each worker goes
+ * through its own contiguous rows. Each cursor opened by openAdditional
+ * takes the shard of the first row it reads, which is the first row of the
+ * range of its worker, whatever the order the cursors are opened or read
+ * in. A cursor over a shard, also opened by openShard, refuses rows
+ * outside it, and counts only its own rows, while indexing them as in the
+ * whole data set.<p>
+ * 
+ * Rows at the end of the training rows may be held out for validation, the
+ * adaptor then counting, splitting and handing out only the rows before.
  * 
  * @author jheaton
  * @author Vasco
@@ -28,13 +46,137 @@ public class EncogMLDataSetTrainingAdaptor implements MLDataSet {
 	 */
 	private MLData outputMLData;
 	
+	/**
+	 * The thread count of the training the shards are split for, 0 for as
+	 * many as Encog works out, or -1 if not split into shards.
+	 */
+	private final int threadCount;
+	
+	/**
+	 * The first row of the shard, 0 if the whole data set.
+	 */
+	private int fromRow;
+	
+	/**
+	 * The row after the last of the shard, or -1 if the whole data set.
+	 */
+	private int toRow;
+	
+	/**
+	 * The number of rows at the end held out, not handed out.
+	 */
+	private final int heldOutRows;
+	
+	/**
+	 * The shards of the training, the cursor taking the one of the first
+	 * row read, or null once taken or if not a cursor of a worker.
+	 */
+	private List<IntRange> shards;
+	
 	/**
 	 * Constructing an adaptor for supplied training DataSet.
 	 * 
 	 * @param trainingDataSet DataSet
 	 */
 	public EncogMLDataSetTrainingAdaptor(DataSet trainingDataSet) {
+		this(trainingDataSet, -1, 0, -1, 0);
+	}
+	
+	/**
+	 * Constructing an adaptor for supplied training DataSet, handing out a
+	 * shard of rows for each worker of a training of the given thread count.
+	 * 
+	 * @param trainingDataSet DataSet
+	 * @param threadCount int as given to Propagation.setThreadCount, 0 for as many as Encog works out
+	 */
+	public EncogMLDataSetTrainingAdaptor(DataSet trainingDataSet, int threadCount) {
+		this(trainingDataSet, threadCount, 0);
+	}
+	
+	/**
+	 * Constructing an adaptor for supplied training DataSet, holding out the
+	 * given number of rows at the end, and handing out a shard of the rows
+	 * before for each worker of a training of the given thread count.
+	 * 
+	 * @param trainingDataSet DataSet
+	 * @param threadCount int as given to Propagation.setThreadCount, 0 for as many as Encog works out
+	 * @param heldOutRows int the rows at the end not to be trained on
+	 */
+	public EncogMLDataSetTrainingAdaptor(DataSet trainingDataSet, int threadCount, int heldOutRows) {
+		this(trainingDataSet, threadCount, 0, -1, heldOutRows);
+		if ( threadCount < 0 ) throw new IllegalArgumentException("Thread count cannot be negative.");
+		if ( heldOutRows < 0 || heldOutRows > 0 && heldOutRows >= trainingDataSet.getNumberOfTrainingRows() )
+			throw new IllegalArgumentException("Cannot hold out " + heldOutRows + " of " 
+					+ trainingDataSet.getNumberOfTrainingRows() + " training rows.");
+	}
+	
+	/**
+	 * Constructing an adaptor over the given rows of the training DataSet.
+	 * 
+	 * @param trainingDataSet DataSet
+	 * @param threadCount int or -1 if not split into shards
+	 * @param fromRow int
+	 * @param toRow int or -1 if the whole data set
+	 * @param heldOutRows int
+	 */
+	private EncogMLDataSetTrainingAdaptor(DataSet trainingDataSet, int threadCount, int fromRow, int toRow,
+			int heldOutRows) {
 		this.trainingDataSet = trainingDataSet;
+		this.threadCount = threadCount;
+		this.fromRow = fromRow;
+		this.toRow = toRow;
+		this.heldOutRows = heldOutRows;
+	}
+
+	/**
+	 * A cursor over the given rows only, refusing all others.
+	 * 
+	 * @param fromRow int the first row
+	 * @param toRow int the row after the last
+	 * @return EncogMLDataSetTrainingAdaptor
+	 */
+	public EncogMLDataSetTrainingAdaptor openShard(int fromRow, int toRow) {
+		if ( fromRow < 0 || toRow < fromRow || toRow > getNumberOfRows() )
+			throw new IllegalArgumentException("Invalid shard of rows [" + fromRow + ", " + toRow + ").");
+		return new EncogMLDataSetTrainingAdaptor(trainingDataSet, -1, fromRow, toRow, heldOutRows);
+	}
+	
+	/**
+	 * The first row of this cursor, 0 until the cursor of a worker reads
+	 * its first row.
+	 * 
+	 * @return int
+	 */
+	public int getFromRow() {
+		return fromRow;
+	}
+	
+	/**
+	 * The row after the last of this cursor, the number of rows handed out
+	 * until the cursor of a worker reads its first row.
+	 * 
+	 * @return int
+	 */
+	public int getToRow() {
+		return toRow < 0 ? getNumberOfRows() : toRow;
+	}
+	
+	/**
+	 * The number of rows at the end held out.
+	 * 
+	 * @return int
+	 */
+	public int getHeldOutRows() {
+		return heldOutRows;
+	}
+	
+	/**
+	 * The number of rows handed out, those before the rows held out.
+	 * 
+	 * @return int
+	 */
+	private int getNumberOfRows() {
+		return trainingDataSet.getNumberOfTrainingRows() - heldOutRows;
 	}
 
 	/**
@@ -42,16 +184,16 @@ public class EncogMLDataSetTrainingAdaptor implements MLDataSet {
 	 */
 	@Override
 	public Iterator<MLDataPair> iterator() { 
-		return new EncogMLIteratorAdaptor(trainingDataSet);
+		return new EncogMLIteratorAdaptor(trainingDataSet, fromRow, getToRow());
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override public MLDataPair get(int index) { 
-		return new EncogMLDataPairAdaptor(
-				trainingDataSet.getTrainingInputRow(index), 
-				trainingDataSet.getTrainingOutputRow(index));
+		MLDataPair pair = new EncogMLDataPairAdaptor(getInputSize(), getIdealSize());
+		getRecord(index, pair);
+		return pair;
 	}
 
 	/**
@@ -80,11 +222,11 @@ public class EncogMLDataSetTrainingAdaptor implements MLDataSet {
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * The number of rows of this cursor, those of its shard if over one.
 	 */
 	@Override
 	public long getRecordCount() {
-		return trainingDataSet.getNumberOfTrainingRows();
+		return getToRow() - fromRow;
 	}
 
 	/**
@@ -92,23 +234,49 @@ public class EncogMLDataSetTrainingAdaptor implements MLDataSet {
 	 */
 	@Override
 	public void getRecord(long index, MLDataPair pair) {
-		final double[] rowIdeal = trainingDataSet.getTrainingOutputRow((int)index);
-		final double[] rowInput = trainingDataSet.getTrainingInputRow((int)index);
-		
-		final MLDataPair source = new EncogMLDataPairAdaptor(rowInput,rowIdeal);
-
-		pair.setInputArray(source.getInputArray());
-		if (pair.getIdealArray() != null) {
-			pair.setIdealArray(source.getIdealArray());
-		}
+		if ( shards != null ) takeShard(index);
+		if ( index < fromRow || index >= getToRow() )
+			throw new IllegalArgumentException("Row " + index + " is outside the shard of rows [" 
+					+ fromRow + ", " + getToRow() + "), expected the same thread count as the training.");
+		// Read straight into the arrays of the pair when of the right size.
+		double[] rowInput = pair.getInputArray();
+		if ( rowInput != null && rowInput.length == getInputSize() ) trainingDataSet.readTrainingInputRow((int)index, rowInput);
+		else pair.setInputArray(trainingDataSet.getTrainingInputRow((int)index));
+
+		double[] rowIdeal = pair.getIdealArray();
+		if ( rowIdeal == null ) return;
+		if ( rowIdeal.length == getIdealSize() ) trainingDataSet.readTrainingOutputRow((int)index, rowIdeal);
+		else pair.setIdealArray(trainingDataSet.getTrainingOutputRow((int)index));
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * A cursor over the same rows, or given the thread count of the training,
+	 * a cursor for one worker, taking the shard of the first row it reads.
 	 */
 	@Override
 	public MLDataSet openAdditional() {
-		return new EncogMLDataSetTrainingAdaptor(trainingDataSet);
+		if ( toRow >= 0 ) return openShard(fromRow, toRow);
+		EncogMLDataSetTrainingAdaptor cursor = new EncogMLDataSetTrainingAdaptor(trainingDataSet, -1, 0, -1, heldOutRows);
+		// The same shards as the workers Encog creates.
+		if ( threadCount >= 0 ) cursor.shards = new DetermineWorkload(threadCount, getNumberOfRows()).calculateWorkers();
+		return cursor;
+	}
+
+	/**
+	 * Takes the shard holding the given row as the rows of this cursor, if
+	 * any holds it.
+	 * 
+	 * @param row long
+	 */
+	private void takeShard(long row) {
+		for ( IntRange shard : shards ) {
+			if ( row >= shard.getLow() && row <= shard.getHigh() ) {
+				fromRow = shard.getLow();
+				toRow = shard.getHigh() + 1;
+				shards = null;
+				return;
+			}
+		}
 	}
 
 	/**
@@ -147,16 +315,18 @@ public class EncogMLDataSetTrainingAdaptor implements MLDataSet {
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * The number of rows of this cursor, those of its shard if over one.
 	 */
 	@Override
 	public int size() {
-		return trainingDataSet.getNumberOfTrainingRows();
+		return getToRow() - fromRow;
 	}
 
 	/**
 	 * An iterator to be used with the BasicMLDataSet. 
-	 * This iterator does not support removes.
+	 * This iterator does not support removes. Each row is read into the
+	 * same pair, so a pair is only good until the next is asked for. Only
+	 * the rows of the shard are gone through.
 	 * 
 	 * @author jheaton
 	 */
@@ -165,40 +335,64 @@ public class EncogMLDataSetTrainingAdaptor implements MLDataSet {
 		/**
 		 * The index that the iterator is currently at.
 		 */
-		private int currentIndex = 0;
+		private int currentIndex;
+
+		/**
+		 * The row after the last to go through.
+		 */
+		private final int toRow;
 
 		/**
 		 * The training set to be used.
 		 */
 		private DataSet trainingDataSet;
 
+		/**
+		 * The pair each row is read into.
+		 */
+		private final MLDataPair pair;
+
 		/**
 		 * Constructing a new Iterator Adaptor.
 		 * 
 		 * @param trainingDataSet DataSet
 		 */
 		public EncogMLIteratorAdaptor(DataSet trainingDataSet) {
+			this(trainingDataSet, 0, trainingDataSet.getNumberOfTrainingRows());
+		}
+
+		/**
+		 * Constructing a new Iterator Adaptor over the given rows.
+		 * 
+		 * @param trainingDataSet DataSet
+		 * @param fromRow int the first row
+		 * @param toRow int the row after the last
+		 */
+		public EncogMLIteratorAdaptor(DataSet trainingDataSet, int fromRow, int toRow) {
 			this.trainingDataSet = trainingDataSet;
+			this.currentIndex = fromRow;
+			this.toRow = toRow;
+			this.pair = new EncogMLDataPairAdaptor(trainingDataSet.getNumberOfInputColumns(),
+					trainingDataSet.getNumberOfOutputColumns());
 		}
 
 		/**
 		 * {@inheritDoc}
 		 */
 		@Override public final boolean hasNext() {
-			return this.currentIndex+1 < trainingDataSet.getNumberOfTrainingRows();
+			return this.currentIndex < toRow;
 		}
 
 		/**
-		 * {@inheritDoc}
+		 * The next row, read into the same pair as the last one.
 		 */
 		@Override public final MLDataPair next() {
 			if (!hasNext()) return null;
 
+			trainingDataSet.readTrainingInputRow(currentIndex, pair.getInputArray());
+			trainingDataSet.readTrainingOutputRow(currentIndex, pair.getIdealArray());
 			currentIndex++;
-
-			return new EncogMLDataPairAdaptor(
-					trainingDataSet.getTrainingInputRow(currentIndex), 
-					trainingDataSet.getTrainingOutputRow(currentIndex));
+			return pair;
 		}
 
 		/**
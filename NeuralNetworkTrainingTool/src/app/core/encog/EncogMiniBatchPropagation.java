@@ -0,0 +1,370 @@
+package app.core.encog;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.ml.MLMethod;
+import org.encog.ml.TrainingImplementationType;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.train.BasicTraining;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.TrainingContinuation;
+
+import app.core.neuralNetwork.DenseNetwork;
+
+/**
+ * Mini-batch training of a feed forward BasicNetwork, updating the weights
+ * after each batch of rows instead of once per pass over all rows as the
+ * Encog propagations do, so each pass makes many updates.<p>
+ *
+ * Each iteration is one pass over all rows, shuffled through a permutation
+ * of the row indexes, each row read in place with getRecord into the same
+ * pair and gathered into the batch. The gradients of each batch are worked
+ * out by a DenseNetwork over the weights of the network, as Encog's
+ * propagation works them out for rows all of the same significance, and
+ * the weights updated by stochastic gradient descent with momentum, or by
+ * Adam. The error reported is the same error Encog works out, over every
+ * row of the pass.
+ *
+ * @author Vasco
+ *
+ */
+public class EncogMiniBatchPropagation extends BasicTraining {
+
+	/**
+	 * The ways of updating the weights after each batch.
+	 */
+	public enum UpdateRule {
+		/** Stochastic gradient descent with momentum. */
+		SGD,
+		/** Adaptive moment estimation. */
+		ADAM
+	}
+
+	/**
+	 * The number of rows of each batch used by default.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 128;
+
+	/**
+	 * The decay of the mean of the gradients for Adam.
+	 */
+	public static final double ADAM_BETA1 = 0.9;
+
+	/**
+	 * The decay of the mean of the squared gradients for Adam.
+	 */
+	public static final double ADAM_BETA2 = 0.999;
+
+	/**
+	 * Keeps Adam from dividing by zero.
+	 */
+	public static final double ADAM_EPSILON = 1e-8;
+
+	/**
+	 * The network trained.
+	 */
+	private final BasicNetwork network;
+
+	/**
+	 * The flat network of the network trained, holding its weights.
+	 */
+	private final FlatNetwork flat;
+
+	/**
+	 * The way of updating the weights.
+	 */
+	private final UpdateRule updateRule;
+
+	/**
+	 * The rate each update is scaled by.
+	 */
+	private final double learningRate;
+
+	/**
+	 * The number of rows of each batch.
+	 */
+	private final int batchSize;
+
+	/**
+	 * The part of the last update of each weight kept in the next, for SGD.
+	 */
+	private double momentum = 0.0;
+
+	/**
+	 * The shuffling of the rows of each pass.
+	 */
+	private Random random = new Random();
+
+	/**
+	 * The order the rows are gone through, shuffled each pass.
+	 */
+	private int[] permutation;
+
+	/**
+	 * The gradient of each weight over the current batch.
+	 */
+	private final double[] gradients;
+
+	/**
+	 * The last update of each weight for SGD, the mean of its gradients
+	 * for Adam.
+	 */
+	private final double[] firstMoments;
+
+	/**
+	 * The mean of the squared gradients of each weight for Adam.
+	 */
+	private final double[] secondMoments;
+
+	/**
+	 * The number of Adam updates made.
+	 */
+	private long step = 0;
+
+	/**
+	 * The engine working out the gradients of each batch.
+	 */
+	private final DenseNetwork dense;
+
+	/**
+	 * The inputs of the rows of the batch, one row after another.
+	 */
+	private final double[] batchInputs;
+
+	/**
+	 * The ideal outputs of the rows of the batch, one row after another.
+	 */
+	private final double[] batchIdeals;
+
+	/**
+	 * The flat spot added to the derivative of each layer.
+	 */
+	private final double[] flatSpot;
+
+	/**
+	 * The pair each row is read into.
+	 */
+	private final MLDataPair pair;
+
+	/**
+	 * The error of the current pass.
+	 */
+	private final ErrorCalculation errorCalculation = new ErrorCalculation();
+
+	/**
+	 * Constructing the training of the network over the training set,
+	 * batches of the default size.
+	 *
+	 * @param network BasicNetwork
+	 * @param training MLDataSet
+	 * @param updateRule UpdateRule
+	 * @param learningRate double
+	 */
+	public EncogMiniBatchPropagation(BasicNetwork network, MLDataSet training, UpdateRule updateRule, double learningRate) {
+		this(network, training, updateRule, learningRate, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Constructing the training of the network over the training set.
+	 *
+	 * @param network BasicNetwork
+	 * @param training MLDataSet
+	 * @param updateRule UpdateRule
+	 * @param learningRate double
+	 * @param batchSize int the number of rows of each batch
+	 */
+	public EncogMiniBatchPropagation(BasicNetwork network, MLDataSet training, UpdateRule updateRule, double learningRate,
+			int batchSize) {
+		super(TrainingImplementationType.Iterative);
+		if ( updateRule == null ) throw new IllegalArgumentException("Update rule cannot be null.");
+		if ( ! ( learningRate > 0.0 ) ) throw new IllegalArgumentException("Learning rate must be positive.");
+		if ( batchSize < 1 ) throw new IllegalArgumentException("Batch size must be at least one.");
+		if ( network.getStructure().getFlat().getHasContext() )
+			throw new IllegalArgumentException("Only feed forward networks can be trained in mini-batches.");
+		setTraining(training);
+		this.network = network;
+		this.flat = network.getStructure().getFlat();
+		this.updateRule = updateRule;
+		this.learningRate = learningRate;
+		this.batchSize = batchSize;
+
+		this.gradients = new double[flat.getWeights().length];
+		this.firstMoments = new double[gradients.length];
+		this.secondMoments = updateRule == UpdateRule.ADAM ? new double[gradients.length] : null;
+		this.dense = new DenseNetwork(network);
+		this.batchInputs = new double[batchSize * flat.getInputCount()];
+		this.batchIdeals = new double[batchSize * flat.getOutputCount()];
+		this.pair = BasicMLDataPair.createPair(flat.getInputCount(), flat.getOutputCount());
+		this.flatSpot = new double[flat.getActivationFunctions().length];
+		setFixFlatSpot(true);
+	}
+
+	/**
+	 * The part of the last update of each weight kept in the next, for SGD.
+	 *
+	 * @param momentum double
+	 */
+	public void setMomentum(double momentum) {
+		if ( momentum < 0.0 || momentum >= 1.0 ) throw new IllegalArgumentException("Momentum must be in [0, 1).");
+		this.momentum = momentum;
+	}
+
+	/**
+	 * The part of the last update of each weight kept in the next, for SGD.
+	 *
+	 * @return double
+	 */
+	public double getMomentum() {
+		return momentum;
+	}
+
+	/**
+	 * Seeds the shuffling of the rows, so passes go through the same orders.
+	 *
+	 * @param seed long
+	 */
+	public void setSeed(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Whether the flat spot of sigmoid layers is fixed, as the Encog
+	 * propagations do by default.
+	 *
+	 * @param fixFlatSpot boolean
+	 */
+	public void setFixFlatSpot(boolean fixFlatSpot) {
+		ActivationFunction[] activations = flat.getActivationFunctions();
+		for ( int layer = 0; layer < activations.length; layer++ ) {
+			flatSpot[layer] = fixFlatSpot && activations[layer] instanceof ActivationSigmoid ? 0.1 : 0.0;
+		}
+	}
+
+	/**
+	 * The way of updating the weights.
+	 *
+	 * @return UpdateRule
+	 */
+	public UpdateRule getUpdateRule() {
+		return updateRule;
+	}
+
+	/**
+	 * The number of rows of each batch.
+	 *
+	 * @return int
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * One pass over all rows in a new order, updating the weights after
+	 * each batch.
+	 */
+	@Override
+	public void iteration() {
+		preIteration();
+		shuffle();
+		errorCalculation.reset();
+		for ( int first = 0; first < permutation.length; first += batchSize ) {
+			int last = Math.min(first + batchSize, permutation.length);
+			for ( int index = first; index < last; index++ ) {
+				getTraining().getRecord(permutation[index], pair);
+				System.arraycopy(pair.getInputArray(), 0, batchInputs, ( index - first ) * pair.getInputArray().length,
+						pair.getInputArray().length);
+				System.arraycopy(pair.getIdealArray(), 0, batchIdeals, ( index - first ) * pair.getIdealArray().length,
+						pair.getIdealArray().length);
+			}
+			Arrays.fill(gradients, 0.0);
+			dense.addGradients(batchInputs, batchIdeals, last - first, gradients, flatSpot, errorCalculation);
+			update(last - first);
+		}
+		setError(errorCalculation.calculate());
+		postIteration();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canContinue() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public MLMethod getMethod() {
+		return network;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TrainingContinuation pause() {
+		// Cannot be paused, as Backpropagation cannot.
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void resume(TrainingContinuation state) {
+		// Cannot be resumed.
+	}
+
+	/**
+	 * Shuffles the order of the rows, holding all rows of the training set.
+	 */
+	private void shuffle() {
+		int rows = (int) getTraining().getRecordCount();
+		if ( permutation == null || permutation.length != rows ) {
+			permutation = new int[rows];
+			for ( int row = 0; row < rows; row++ ) permutation[row] = row;
+		}
+		for ( int index = rows - 1; index > 0; index-- ) {
+			int other = random.nextInt(index + 1);
+			int row = permutation[index];
+			permutation[index] = permutation[other];
+			permutation[other] = row;
+		}
+	}
+
+	/**
+	 * Updates the weights by the mean gradients of the batch.
+	 *
+	 * @param rows int the number of rows of the batch
+	 */
+	private void update(int rows) {
+		double[] weights = flat.getWeights();
+		if ( updateRule == UpdateRule.SGD ) {
+			double rate = learningRate / rows;
+			for ( int weight = 0; weight < weights.length; weight++ ) {
+				firstMoments[weight] = momentum * firstMoments[weight] + rate * gradients[weight];
+				weights[weight] += firstMoments[weight];
+			}
+			return;
+		}
+		step++;
+		double firstCorrection = 1.0 - Math.pow(ADAM_BETA1, step);
+		double secondCorrection = 1.0 - Math.pow(ADAM_BETA2, step);
+		for ( int weight = 0; weight < weights.length; weight++ ) {
+			double gradient = gradients[weight] / rows;
+			firstMoments[weight] = ADAM_BETA1 * firstMoments[weight] + ( 1.0 - ADAM_BETA1 ) * gradient;
+			secondMoments[weight] = ADAM_BETA2 * secondMoments[weight] + ( 1.0 - ADAM_BETA2 ) * gradient * gradient;
+			weights[weight] += learningRate * ( firstMoments[weight] / firstCorrection )
+					/ ( Math.sqrt(secondMoments[weight] / secondCorrection) + ADAM_EPSILON );
+		}
+	}
+}
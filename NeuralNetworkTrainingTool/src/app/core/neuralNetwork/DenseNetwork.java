@@ -0,0 +1,367 @@
+package app.core.neuralNetwork;
+
+import org.encog.engine.network.activation.ActivationElliottSymmetric;
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.networks.BasicNetwork;
+
+import app.core.vector.VectorKernelCore;
+import app.core.vector.VectorKernelFactory;
+
+/**
+ * A dense feed forward network worked out over batches of rows at a time,
+ * as generated by the FeedForwardPattern, with any of the activation
+ * functions of the ActivationFunctionFactory.<p>
+ *
+ * The weights are those of the flat network of the BasicNetwork given,
+ * shared and not copied, each layer a matrix of one row of weights per
+ * neuron, bias last, so training either changes both. The rows of a batch
+ * are kept as matrices of one row per data row, and the sums of each layer
+ * worked out as dot products of contiguous rows, in blocks of rows and
+ * neurons small enough to stay in cache, four rows at a time so each
+ * weight is read once for all four. Going backwards, the deltas of
+ * each layer are worked out along with the gradients of the weights into
+ * it. The loops over each block, and the TANH and Elliott symmetric
+ * activations, are run by the fastest VectorKernelCore available. With the
+ * scalar kernels values are added up in the same order as the flat network
+ * does, so the outputs are those of the BasicNetwork; vector kernels add
+ * the sums in another order. Not safe to share between threads, as the
+ * matrices of the batch are kept for the next.
+ *
+ * @author Vasco
+ *
+ */
+public final class DenseNetwork {
+
+    /**
+     * The number of rows of each block of the batch.
+     */
+    public static final int ROWS_PER_BLOCK = 32;
+
+    /**
+     * The number of neurons of each block of a layer.
+     */
+    public static final int NEURONS_PER_BLOCK = 64;
+
+    /**
+     * The number of layers, input layer first.
+     */
+    private final int numberOfLayers;
+
+    /**
+     * The number of neurons of each layer, with no bias.
+     */
+    private final int[] feedCounts;
+
+    /**
+     * The number of values of each layer, with any bias.
+     */
+    private final int[] widths;
+
+    /**
+     * The activation of the bias of each layer.
+     */
+    private final double[] biasActivations;
+
+    /**
+     * The activation function of each layer.
+     */
+    private final ActivationFunction[] activations;
+
+    /**
+     * The first weight of each layer of weights, into the next layer.
+     */
+    private final int[] weightOffsets;
+
+    /**
+     * The weights of all layers, shared with the flat network.
+     */
+    private final double[] weights;
+
+    /**
+     * The kernels running the loops over each block.
+     */
+    private final VectorKernelCore kernel;
+
+    /**
+     * The number of rows the batch matrices hold.
+     */
+    private int capacity = 0;
+
+    /**
+     * The output of each layer for each row of the batch, with any bias.
+     */
+    private final double[][] outputs;
+
+    /**
+     * The sums of each layer for each row of the batch.
+     */
+    private final double[][] sums;
+
+    /**
+     * The deltas of each layer for each row of the batch.
+     */
+    private final double[][] deltas;
+
+    /**
+     * Constructing the network over the weights of the given feed forward
+     * network.
+     *
+     * @param network BasicNetwork
+     */
+    public DenseNetwork(BasicNetwork network) {
+        this(network, VectorKernelFactory.getKernel());
+    }
+
+    /**
+     * Constructing the network over the weights of the given feed forward
+     * network, run by the given kernels.
+     *
+     * @param network BasicNetwork
+     * @param kernel VectorKernelCore
+     */
+    public DenseNetwork(BasicNetwork network, VectorKernelCore kernel) {
+        if ( kernel == null ) throw new IllegalArgumentException("Kernel cannot be null.");
+        this.kernel = kernel;
+        FlatNetwork flat = network.getStructure().getFlat();
+        if ( flat.getHasContext() ) throw new IllegalArgumentException("Only feed forward networks are supported.");
+        numberOfLayers = flat.getLayerCounts().length;
+        feedCounts = new int[numberOfLayers];
+        widths = new int[numberOfLayers];
+        biasActivations = new double[numberOfLayers];
+        activations = new ActivationFunction[numberOfLayers];
+        weightOffsets = new int[numberOfLayers - 1];
+        // The flat network keeps its layers output layer first.
+        for ( int layer = 0; layer < numberOfLayers; layer++ ) {
+            int flatLayer = numberOfLayers - 1 - layer;
+            feedCounts[layer] = flat.getLayerFeedCounts()[flatLayer];
+            widths[layer] = flat.getLayerCounts()[flatLayer];
+            biasActivations[layer] = flat.getBiasActivation()[flatLayer];
+            activations[layer] = flat.getActivationFunctions()[flatLayer];
+            if ( layer > 0 ) weightOffsets[layer - 1] = flat.getWeightIndex()[flatLayer];
+        }
+        weights = flat.getWeights();
+        outputs = new double[numberOfLayers][];
+        sums = new double[numberOfLayers][];
+        deltas = new double[numberOfLayers][];
+    }
+
+    /**
+     * The number of input neurons.
+     *
+     * @return int
+     */
+    public int getInputCount() {
+        return feedCounts[0];
+    }
+
+    /**
+     * The number of output neurons.
+     *
+     * @return int
+     */
+    public int getOutputCount() {
+        return feedCounts[numberOfLayers - 1];
+    }
+
+    /**
+     * The weights of all layers, shared with the flat network, and indexed
+     * as its weights are.
+     *
+     * @return double[]
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Works out the output of one row.
+     *
+     * @param input double[]
+     * @param output double[]
+     */
+    public void compute(double[] input, double[] output) {
+        computeBatch(input, 1, output);
+    }
+
+    /**
+     * Works out the outputs of a batch of rows.
+     *
+     * @param inputs double[] the inputs of each row, one row after another
+     * @param rows int
+     * @param outputs double[] the outputs of each row, one row after another
+     */
+    public void computeBatch(double[] inputs, int rows, double[] outputs) {
+        forward(inputs, rows);
+        int last = numberOfLayers - 1;
+        for ( int row = 0; row < rows; row++ ) {
+            System.arraycopy(this.outputs[last], row * widths[last], outputs, row * feedCounts[last], feedCounts[last]);
+        }
+    }
+
+    /**
+     * Works out the outputs of a batch of rows and adds the gradients of
+     * each weight over the batch into those given, as the Encog propagation
+     * works them out: the ideal less the actual output, going backwards.
+     * The error of each output is added into the error calculation.
+     *
+     * @param inputs double[] the inputs of each row, one row after another
+     * @param ideals double[] the ideal outputs of each row, one row after another
+     * @param rows int
+     * @param gradients double[] indexed as the weights
+     * @param flatSpot double[] added to the derivative of each layer, output layer first as in the flat network, or null
+     * @param errorCalculation ErrorCalculation
+     */
+    public void addGradients(double[] inputs, double[] ideals, int rows, double[] gradients, double[] flatSpot,
+            ErrorCalculation errorCalculation) {
+        forward(inputs, rows);
+        int last = numberOfLayers - 1;
+        double outputFlatSpot = flatSpot == null ? 0.0 : flatSpot[0];
+        for ( int row = 0; row < rows; row++ ) {
+            for ( int neuron = 0; neuron < feedCounts[last]; neuron++ ) {
+                int index = row * feedCounts[last] + neuron;
+                double actual = outputs[last][row * widths[last] + neuron];
+                errorCalculation.updateError(actual, ideals[index]);
+                deltas[last][index] = ( activations[last].derivativeFunction(sums[last][index], actual) + outputFlatSpot )
+                        * ( ideals[index] - actual );
+            }
+        }
+        for ( int layer = last - 1; layer >= 0; layer-- ) {
+            addLayerGradients(layer, rows, gradients);
+            if ( layer > 0 ) backward(layer, rows, flatSpot == null ? 0.0 : flatSpot[last - layer]);
+        }
+    }
+
+    /**
+     * Works out the sums and outputs of every layer for a batch of rows.
+     *
+     * @param inputs double[]
+     * @param rows int
+     */
+    private void forward(double[] inputs, int rows) {
+        ensureCapacity(rows);
+        for ( int row = 0; row < rows; row++ ) {
+            System.arraycopy(inputs, row * feedCounts[0], outputs[0], row * widths[0], feedCounts[0]);
+        }
+        setBias(0, rows);
+        for ( int layer = 1; layer < numberOfLayers; layer++ ) {
+            multiply(outputs[layer - 1], widths[layer - 1], rows, weightOffsets[layer - 1], feedCounts[layer], sums[layer]);
+            for ( int row = 0; row < rows; row++ ) {
+                System.arraycopy(sums[layer], row * feedCounts[layer], outputs[layer], row * widths[layer], feedCounts[layer]);
+                activate(layer, row * widths[layer]);
+            }
+            setBias(layer, rows);
+        }
+    }
+
+    /**
+     * The sums of each neuron of the next layer for each row, each the dot
+     * product of the row of values and the row of weights of the neuron,
+     * in blocks of rows and neurons.
+     *
+     * @param values double[] the values of the layer, a row per data row
+     * @param width int the number of values of each row, with any bias
+     * @param rows int
+     * @param weightOffset int the first weight into the next layer
+     * @param neurons int the number of neurons of the next layer
+     * @param target double[] the sums, a row per data row
+     */
+    private void multiply(double[] values, int width, int rows, int weightOffset, int neurons, double[] target) {
+        for ( int firstRow = 0; firstRow < rows; firstRow += ROWS_PER_BLOCK ) {
+            int lastRow = Math.min(firstRow + ROWS_PER_BLOCK, rows);
+            for ( int firstNeuron = 0; firstNeuron < neurons; firstNeuron += NEURONS_PER_BLOCK ) {
+                int lastNeuron = Math.min(firstNeuron + NEURONS_PER_BLOCK, neurons);
+                kernel.multiply(values, width, firstRow, lastRow, weights, weightOffset, firstNeuron, lastNeuron, neurons, target);
+            }
+        }
+    }
+
+    /**
+     * Adds the gradients of the weights from the given layer into the next,
+     * the deltas of the next times the values of the given layer.
+     *
+     * @param layer int
+     * @param rows int
+     * @param gradients double[]
+     */
+    private void addLayerGradients(int layer, int rows, double[] gradients) {
+        int width = widths[layer];
+        int neurons = feedCounts[layer + 1];
+        double[] values = outputs[layer];
+        double[] delta = deltas[layer + 1];
+        for ( int firstRow = 0; firstRow < rows; firstRow += ROWS_PER_BLOCK ) {
+            int lastRow = Math.min(firstRow + ROWS_PER_BLOCK, rows);
+            kernel.addGradients(values, width, firstRow, lastRow, delta, neurons, gradients, weightOffsets[layer]);
+        }
+    }
+
+    /**
+     * Works out the deltas of the given layer from those of the next.
+     *
+     * @param layer int
+     * @param rows int
+     * @param flatSpot double added to the derivative
+     */
+    private void backward(int layer, int rows, double flatSpot) {
+        int width = widths[layer];
+        int feedCount = feedCounts[layer];
+        int neurons = feedCounts[layer + 1];
+        double[] delta = deltas[layer];
+        double[] nextDelta = deltas[layer + 1];
+        for ( int row = 0; row < rows; row++ ) {
+            int rowStart = row * feedCount;
+            for ( int column = 0; column < feedCount; column++ ) delta[rowStart + column] = 0.0;
+            for ( int neuron = 0; neuron < neurons; neuron++ ) {
+                double neuronDelta = nextDelta[row * neurons + neuron];
+                kernel.addScaled(neuronDelta, weights, weightOffsets[layer] + neuron * width, delta, rowStart, feedCount);
+            }
+            for ( int column = 0; column < feedCount; column++ ) {
+                delta[rowStart + column] *= activations[layer].derivativeFunction(sums[layer][rowStart + column],
+                        outputs[layer][row * width + column]) + flatSpot;
+            }
+        }
+    }
+
+    /**
+     * Applies the activation function of the layer to the outputs of one
+     * row, through the kernels for those they run.
+     *
+     * @param layer int
+     * @param offset int the first output of the row
+     */
+    private void activate(int layer, int offset) {
+        ActivationFunction activation = activations[layer];
+        if ( activation instanceof ActivationTANH ) kernel.tanh(outputs[layer], offset, feedCounts[layer]);
+        else if ( activation instanceof ActivationElliottSymmetric ) 
+            kernel.elliottSymmetric(outputs[layer], offset, feedCounts[layer], activation.getParams()[0]);
+        else activation.activationFunction(outputs[layer], offset, feedCounts[layer]);
+    }
+
+    /**
+     * Sets the bias of the given layer of each row, if it has one.
+     *
+     * @param layer int
+     * @param rows int
+     */
+    private void setBias(int layer, int rows) {
+        if ( widths[layer] == feedCounts[layer] ) return;
+        for ( int row = 0; row < rows; row++ ) outputs[layer][row * widths[layer] + feedCounts[layer]] = biasActivations[layer];
+    }
+
+    /**
+     * Makes the batch matrices hold at least the given number of rows.
+     *
+     * @param rows int
+     */
+    private void ensureCapacity(int rows) {
+        if ( rows <= capacity ) return;
+        for ( int layer = 0; layer < numberOfLayers; layer++ ) {
+            outputs[layer] = new double[rows * widths[layer]];
+            sums[layer] = new double[rows * feedCounts[layer]];
+            deltas[layer] = new double[rows * feedCounts[layer]];
+        }
+        capacity = rows;
+    }
+}
@@ -0,0 +1,149 @@
+package app.core.vector;
+
+/**
+ * The kernels worked out one value at a time, as the JVM of any version
+ * runs them, adding sums in the same order as Encog's flat network does.
+ *
+ * @author Vasco
+ *
+ */
+public class ScalarVectorKernel implements VectorKernelCore {
+
+    /**
+     * The user friendly name.
+     */
+    private final String KERNEL_NAME = "Scalar";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return KERNEL_NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void multiply(double[] values, int width, int firstRow, int lastRow, double[] weights, int weightOffset,
+            int firstNeuron, int lastNeuron, int neurons, double[] target) {
+        int row = firstRow;
+        // Four rows at a time, each weight read once for all four.
+        for ( ; row + 4 <= lastRow; row += 4 ) {
+            int rowStart = row * width;
+            for ( int neuron = firstNeuron; neuron < lastNeuron; neuron++ ) {
+                int weight = weightOffset + neuron * width;
+                double sum0 = 0.0, sum1 = 0.0, sum2 = 0.0, sum3 = 0.0;
+                for ( int column = 0; column < width; column++ ) {
+                    double value = weights[weight + column];
+                    sum0 += values[rowStart + column] * value;
+                    sum1 += values[rowStart + width + column] * value;
+                    sum2 += values[rowStart + 2 * width + column] * value;
+                    sum3 += values[rowStart + 3 * width + column] * value;
+                }
+                target[row * neurons + neuron] = sum0;
+                target[( row + 1 ) * neurons + neuron] = sum1;
+                target[( row + 2 ) * neurons + neuron] = sum2;
+                target[( row + 3 ) * neurons + neuron] = sum3;
+            }
+        }
+        for ( ; row < lastRow; row++ ) {
+            int rowStart = row * width;
+            for ( int neuron = firstNeuron; neuron < lastNeuron; neuron++ ) {
+                int weight = weightOffset + neuron * width;
+                double sum = 0.0;
+                for ( int column = 0; column < width; column++ ) sum += values[rowStart + column] * weights[weight + column];
+                target[row * neurons + neuron] = sum;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addGradients(double[] values, int width, int firstRow, int lastRow, double[] deltas, int neurons,
+            double[] gradients, int weightOffset) {
+        for ( int neuron = 0; neuron < neurons; neuron++ ) {
+            int weight = weightOffset + neuron * width;
+            int row = firstRow;
+            // Four rows at a time, each gradient read and written once, the
+            // rows still added in order.
+            for ( ; row + 4 <= lastRow; row += 4 ) {
+                double delta0 = deltas[row * neurons + neuron];
+                double delta1 = deltas[( row + 1 ) * neurons + neuron];
+                double delta2 = deltas[( row + 2 ) * neurons + neuron];
+                double delta3 = deltas[( row + 3 ) * neurons + neuron];
+                int rowStart = row * width;
+                for ( int column = 0; column < width; column++ ) {
+                    double gradient = gradients[weight + column];
+                    gradient += values[rowStart + column] * delta0;
+                    gradient += values[rowStart + width + column] * delta1;
+                    gradient += values[rowStart + 2 * width + column] * delta2;
+                    gradient += values[rowStart + 3 * width + column] * delta3;
+                    gradients[weight + column] = gradient;
+                }
+            }
+            for ( ; row < lastRow; row++ ) {
+                double delta = deltas[row * neurons + neuron];
+                int rowStart = row * width;
+                for ( int column = 0; column < width; column++ ) gradients[weight + column] += values[rowStart + column] * delta;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addScaled(double factor, double[] values, int valuesOffset, double[] target, int targetOffset, int length) {
+        for ( int index = 0; index < length; index++ ) target[targetOffset + index] += values[valuesOffset + index] * factor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void normalise(double[] values, int count, double offset, double range) {
+        for ( int index = 0; index < count; index++ ) values[index] = ( values[index] - offset ) / range;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deNormalise(double[] values, int count, double offset, double range) {
+        for ( int index = 0; index < count; index++ ) values[index] = offset + values[index] * range;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int firstOutside(double[] values, int count, double low, double high) {
+        for ( int index = 0; index < count; index++ ) {
+            if ( ! ( values[index] >= low & values[index] <= high ) ) return index;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tanh(double[] values, int offset, int length) {
+        for ( int index = offset; index < offset + length; index++ ) values[index] = Math.tanh(values[index]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void elliottSymmetric(double[] values, int offset, int length, double slope) {
+        for ( int index = offset; index < offset + length; index++ ) {
+            double scaled = values[index] * slope;
+            values[index] = scaled / ( 1.0 + Math.abs(scaled) );
+        }
+    }
+}
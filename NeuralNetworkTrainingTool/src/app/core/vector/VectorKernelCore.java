@@ -0,0 +1,125 @@
+package app.core.vector;
+
+/**
+ * The loops run for every row of training and normalisation, over plain
+ * arrays of doubles, given by the fastest implementation available to the
+ * running JVM through the VectorKernelFactory.<p>
+ *
+ * Values worked out one by one, as scaling and adding in gradients, are the
+ * same whichever implementation works them out. Sums of many values, and
+ * the activation functions, may differ in the last bits, as sums are added
+ * in another order by vector implementations.
+ *
+ * @author Vasco
+ *
+ */
+public interface VectorKernelCore {
+
+    /**
+     * The short name of the implementation.
+     *
+     * @return String
+     */
+    public String getName();
+
+    /**
+     * The sums of the given block of neurons for the given block of rows,
+     * each the dot product of the row of values and the row of weights of
+     * the neuron.
+     *
+     * @param values double[] the values of the layer, a row per data row
+     * @param width int the number of values of each row, with any bias
+     * @param firstRow int
+     * @param lastRow int the row after the last
+     * @param weights double[] the weights of each neuron, a row per neuron
+     * @param weightOffset int the first weight of the first neuron of the layer
+     * @param firstNeuron int
+     * @param lastNeuron int the neuron after the last
+     * @param neurons int the number of neurons of the layer
+     * @param target double[] the sums, a row per data row
+     */
+    public void multiply(double[] values, int width, int firstRow, int lastRow, double[] weights, int weightOffset,
+            int firstNeuron, int lastNeuron, int neurons, double[] target);
+
+    /**
+     * Adds the values of each of the given block of rows, times the delta of
+     * each neuron for the row, into the gradients of the weights of the
+     * neuron, the rows added in order.
+     *
+     * @param values double[] the values of the layer, a row per data row
+     * @param width int the number of values of each row, with any bias
+     * @param firstRow int
+     * @param lastRow int the row after the last
+     * @param deltas double[] the deltas of the neurons, a row per data row
+     * @param neurons int the number of neurons
+     * @param gradients double[] the gradients of each neuron, a row per neuron
+     * @param weightOffset int the first gradient of the first neuron
+     */
+    public void addGradients(double[] values, int width, int firstRow, int lastRow, double[] deltas, int neurons,
+            double[] gradients, int weightOffset);
+
+    /**
+     * Adds the given values times the factor into the target.
+     *
+     * @param factor double
+     * @param values double[]
+     * @param valuesOffset int
+     * @param target double[]
+     * @param targetOffset int
+     * @param length int
+     */
+    public void addScaled(double factor, double[] values, int valuesOffset, double[] target, int targetOffset, int length);
+
+    /**
+     * Normalises the first values in place, less the offset over the range.
+     *
+     * @param values double[]
+     * @param count int
+     * @param offset double
+     * @param range double
+     */
+    public void normalise(double[] values, int count, double offset, double range);
+
+    /**
+     * De-normalises the first values in place, the offset plus the value
+     * times the range.
+     *
+     * @param values double[]
+     * @param count int
+     * @param offset double
+     * @param range double
+     */
+    public void deNormalise(double[] values, int count, double offset, double range);
+
+    /**
+     * The index of the first of the first values below low, above high or
+     * NaN.
+     *
+     * @param values double[]
+     * @param count int
+     * @param low double
+     * @param high double
+     * @return int or -1 if none
+     */
+    public int firstOutside(double[] values, int count, double low, double high);
+
+    /**
+     * The hyperbolic tangent of the values in place, as ActivationTANH.
+     *
+     * @param values double[]
+     * @param offset int
+     * @param length int
+     */
+    public void tanh(double[] values, int offset, int length);
+
+    /**
+     * The Elliott symmetric function of the values in place, as
+     * ActivationElliottSymmetric.
+     *
+     * @param values double[]
+     * @param offset int
+     * @param length int
+     * @param slope double
+     */
+    public void elliottSymmetric(double[] values, int offset, int length, double slope);
+}
@@ -0,0 +1,64 @@
+package app.core.vector;
+
+/**
+ * Abstract class to return the fastest kernels the running JVM can run.<p>
+ *
+ * The Java 17 layer of the multi-release jar adds kernels on the incubating
+ * Vector API, used when the JVM runs with the jdk.incubator.vector module
+ * added, as with --add-modules jdk.incubator.vector, and the CPU has vectors
+ * of more than one double. All other JVMs, and any run with the system
+ * property given by SCALAR_PROPERTY set to true, get the scalar kernels.
+ *
+ * @author Vasco
+ */
+public abstract class VectorKernelFactory {
+
+    /**
+     * The system property forcing the scalar kernels when true.
+     */
+    public static final String SCALAR_PROPERTY = "app.core.vector.scalar";
+
+    /**
+     * The kernels on the Vector API, only in the Java 17 layer.
+     */
+    private static final String VECTOR_API_KERNEL = "app.core.vector.VectorApiKernel";
+
+    /**
+     * The kernels picked, once for the whole run.
+     */
+    private static final VectorKernelCore KERNEL = detect();
+
+    /**
+     * The fastest kernels available.
+     *
+     * @return VectorKernelCore
+     */
+    public static VectorKernelCore getKernel() {
+        return KERNEL;
+    }
+
+    /**
+     * The kernels working out values one at a time, on any JVM.
+     *
+     * @return VectorKernelCore
+     */
+    public static VectorKernelCore getScalarKernel() {
+        return new ScalarVectorKernel();
+    }
+
+    /**
+     * Picks the vector kernels if they can be loaded and are of use, else
+     * the scalar ones.
+     *
+     * @return VectorKernelCore
+     */
+    private static VectorKernelCore detect() {
+        if ( Boolean.getBoolean(SCALAR_PROPERTY) ) return getScalarKernel();
+        try {
+            return (VectorKernelCore) Class.forName(VECTOR_API_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | IllegalStateException e) {
+            // Not in this layer, the module is not added, or no vectors to use.
+            return getScalarKernel();
+        }
+    }
+}
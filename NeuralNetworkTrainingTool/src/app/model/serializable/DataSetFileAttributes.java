@@ -7,7 +7,10 @@ import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 
+import app.core.dataSet.ByteLineReader;
+import app.core.dataSet.DelimitedLineParser;
 import app.core.dataSet.FileParser;
+import app.core.dataSet.RowOffsetIndex;
 import app.model.file.DataSetFileGUIReader;
 
 /**
@@ -78,6 +81,17 @@ public class DataSetFileAttributes implements FileAttributes, FileParser, DataSe
      */
     private boolean hasTestingRange;
 
+    /**
+     * If set, rows are reached through the row offset index.
+     */
+    private boolean useRowIndex;
+
+    /**
+     * The number of rows at the end of the training range held out for
+     * validation.
+     */
+    private int validationRows;
+
     /**
      * The default number of data rows to be displayed when requested
      * by the end user.
@@ -215,7 +229,8 @@ public class DataSetFileAttributes implements FileAttributes, FileParser, DataSe
                 + "FileName: "+filename+"\n"
                 + "Separator: '"+separator+"'\n"
                 + "TestingRange: "+testingStartIndex+" to "+testingEndIndex+"\n"
-                + "TrainingRange: "+trainingStartIndex+" to "+trainingEndIndex+"\n";
+                + "TrainingRange: "+trainingStartIndex+" to "+trainingEndIndex+"\n"
+                + "ValidationRows: "+validationRows+"\n";
     }
 
     /**
@@ -250,6 +265,39 @@ public class DataSetFileAttributes implements FileAttributes, FileParser, DataSe
         this.hasTestingRange = hasTestingRange;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isUseRowIndex() {
+        return useRowIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setUseRowIndex(boolean useRowIndex) {
+        this.useRowIndex = useRowIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getValidationRows() {
+        return validationRows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValidationRows(int validationRows) {
+        if ( validationRows < 0 ) throw new IllegalArgumentException("Validation rows cannot be negative.");
+        this.validationRows = validationRows;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -304,6 +352,20 @@ public class DataSetFileAttributes implements FileAttributes, FileParser, DataSe
 
         List<List<String>> firstDataRow = new LinkedList<>();
 
+        // Seek straight past the header rows if already indexed, a preview
+        // of a few rows being no reason to scan the whole file for an index.
+        RowOffsetIndex rowIndex = useRowIndex ? RowOffsetIndex.loadIfValid(filename) : null;
+        if ( rowIndex != null ) {
+            try ( ByteLineReader lineReader = rowIndex.openAt(filename, headerRows + 1) ) {
+                while ( firstDataRow.size() < dataRows && lineReader.readLine() ) {
+                    firstDataRow.add(getParsedRow(lineReader.getLine()));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return firstDataRow;
+        }
+
         // Get the buffer handler ready..
         BufferedReader bufferedReader = null;
         try {
@@ -358,13 +420,14 @@ public class DataSetFileAttributes implements FileAttributes, FileParser, DataSe
         	return parsedRow;
         }
         
-        String[] splitRow = rowLine.split(separator);
+        // Same literal split the data set loaders use.
+        List<String> splitRow = new DelimitedLineParser(separator).split(rowLine);
         
-        if ( headerColumns < splitRow.length ) headerColumns = splitRow.length;
+        if ( headerColumns < splitRow.size() ) headerColumns = splitRow.size();
 
         for( int i = 0; i < headerColumns; i++ ) {
-            if ( splitRow.length > i ) {
-                parsedRow.add(splitRow[i]);
+            if ( splitRow.size() > i ) {
+                parsedRow.add(splitRow.get(i));
             }
             else {
                 parsedRow.add("");
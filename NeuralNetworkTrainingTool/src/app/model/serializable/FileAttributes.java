@@ -111,6 +111,22 @@ public interface FileAttributes extends Serializable {
 	 */
 	int getTrainingEndIndex();
 
+	/**
+	 * The number of rows at the end of the training range held out for
+	 * validation, not trained on.
+	 * 
+	 * @return int 0 if none
+	 */
+	int getValidationRows();
+
+	/**
+	 * Sets the number of rows at the end of the training range held out
+	 * for validation.
+	 * 
+	 * @param validationRows
+	 */
+	void setValidationRows(int validationRows);
+
 	/**
 	 * The default print of all data set.
 	 */
@@ -143,4 +159,19 @@ public interface FileAttributes extends Serializable {
 	 * @param hasTestingRange
 	 */
 	void setHasTestingRange(boolean hasTestingRange);
-}
\ No newline at end of file
+
+	/**
+	 * If set, rows are reached by seeking through the row offset index
+	 * kept next to the file, rather than reading all rows before them.
+	 * 
+	 * @return true if the row offset index is to be used.
+	 */
+	boolean isUseRowIndex();
+
+	/**
+	 * Sets the row offset index to be used, built on first use.
+	 * 
+	 * @param useRowIndex
+	 */
+	void setUseRowIndex(boolean useRowIndex);
+}
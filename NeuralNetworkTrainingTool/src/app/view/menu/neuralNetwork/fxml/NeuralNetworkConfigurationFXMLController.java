@@ -753,10 +753,11 @@ public class NeuralNetworkConfigurationFXMLController implements FXMLController
             initialValue.setId(""+outputId);
 
             if ( mainController.getOutputFunction(outputId) != null ) {
-                // The two functions that do not expect user input.
+                // The functions that do not expect user input.
             	String mathOperatorKey = mainController.getOutputFunction(outputId).getMathOperatorKey();
                 if ( !mathOperatorKey.equals(MathOperatorFactory.getName(MathOperatorKey.INV)) & 
                      !mathOperatorKey.equals(MathOperatorFactory.getName(MathOperatorKey.BIN)) &
+                     !mathOperatorKey.equals(MathOperatorFactory.getName(MathOperatorKey.LOG1P)) &
                      !mathOperatorKey.equals(NO_FUNCTION_DESCRIPTION)) {
                 	initialValue.setVisible(true); // Showing if function requires it.
                 }
@@ -802,9 +803,10 @@ public class NeuralNetworkConfigurationFXMLController implements FXMLController
         description.setText("");
         functionValue.clear();
         
-        // The two functions that do not expect user input.
+        // The functions that do not expect user input.
         if ( mathOperatorKey.equals(MathOperatorFactory.getName(MathOperatorKey.INV)) | 
              mathOperatorKey.equals(MathOperatorFactory.getName(MathOperatorKey.BIN)) |
+             mathOperatorKey.equals(MathOperatorFactory.getName(MathOperatorKey.LOG1P)) |
              mathOperatorKey.equals(NO_FUNCTION_DESCRIPTION)) {
 
             functionValue.setVisible(false);
@@ -26,8 +26,9 @@ import app.core.dataSet.FileDataSet;
 import app.core.dataSet.MathOperatorFactory;
 import app.core.dataSet.MathOperatorKey;
 import app.core.dataSet.VectorMap;
+import app.core.encog.EncogEarlyStopping;
+import app.core.encog.EncogEarlyStopping.Metric;
 import app.core.encog.EncogMLDataSetTestingAdaptor;
-import app.core.encog.EncogMLDataSetTrainingAdaptor;
 import app.core.neuralNetwork.NeuralNetworkPatternCore;
 import app.core.neuralNetwork.NeuralNetworkPatternFactory;
 import app.core.neuralNetwork.NeuralNetworkPatternKey;
@@ -35,9 +36,10 @@ import app.model.serializable.DataSetFileAttributes;
 import app.model.serializable.FileAttributes;
 
 /**
- * Analysing network configuration by running indefinitely, saving trained 
- * networks to file every X epochs for later comparison and analysis 
- * throughout time.
+ * Analysing network configuration by training until the AUC of the training
+ * rows held out for validation stops improving, keeping the network of the
+ * best AUC, and logging the AUC every X epochs for later comparison and
+ * analysis throughout time.
  * 
  * @author Vasco
  *
@@ -49,11 +51,6 @@ public class TestTemplate {
 	 */
 	private static final String PATH = "";
 
-	/**
-	 * Latest saved Encog file name.
-	 */
-	private static String latestSavedEncogFileName = null;
-
 	/**
 	 * The current epoch number.
 	 */
@@ -80,9 +77,9 @@ public class TestTemplate {
 	private static BufferedWriter outputFileBuffer = null;
 
 	/**
-	 * The minimum error difference after which the process ends.
+	 * The number of training rows held out to stop the training on.
 	 */
-	private static final double MIN_ERROR_DIFF = 1e-7;
+	private static final int VALIDATION_ROWS = 50000;
 	
 	/**
 	 * The Activation Function to use.
@@ -115,6 +112,7 @@ public class TestTemplate {
 		fileAttributes.setSeparator(",");
 		fileAttributes.setTrainingRangeIndex(1, 1050000);
 		fileAttributes.setTestingRangeIndex(    1050001, 1100000);
+		fileAttributes.setValidationRows(VALIDATION_ROWS);
 
 		// Feed the file into a File DataSet
 		DataSet dataSet = new FileDataSet(fileAttributes);
@@ -164,8 +162,10 @@ public class TestTemplate {
 		dataSet.normalise();
 		Long normaliseTime = System.currentTimeMillis();
 		
-		// Set the loaded data with the Encog API through the built Adaptor.
-		MLDataSet dataSetTrainingAdapted = new EncogMLDataSetTrainingAdaptor(dataSet);
+		// Hold out the validation rows, setting the rows before with the Encog
+		// API through the built Adaptor.
+		EncogEarlyStopping stopping = new EncogEarlyStopping(network, dataSet, fileAttributes, Metric.AUC);
+		MLDataSet dataSetTrainingAdapted = stopping.getTrainingSet(0);
 		
 		// Use a Resilient Propagation training strategy.
 //		BasicTraining train = (BasicTraining) new ResilientPropagation(network, dataSetTrainingAdapted);
@@ -178,36 +178,18 @@ public class TestTemplate {
 		// Start the training iterations.
 		append("Training...");
 		Long startTrainingTime = System.currentTimeMillis();
-		append("Epoch Number,Network Error,Error Diff,Total Rows,Correct Rows,Accuracy Percent");
-		double previousError = 0.0;
-		double errorDiff = 1.0;
-		do {
-			previousError = train.getError();
-			train.iteration();
-			epoch++;
-			
-			// Saving the network files for each epoch for further analysis..
-		    if ( epoch % 10 == 0 ) {
-
-		    	// Save an Encog file every 100 epochs.
-				if ( epoch % 100 == 0 ) {
-			    	latestSavedEncogFileName = PATH+epoch+"_"+ENCOG_FILE_NAME;
-					EncogDirectoryPersistence.saveObject(new File(latestSavedEncogFileName), network);
-		    	}
-
-				// Save to file current network state at this epoch
-				append(epoch + ","
-					+ train.getError() + ","
-					+ errorDiff + ",");
-
-				// Calculate the error diff to check if it has converged enough.
-				errorDiff = Math.abs(previousError - train.getError());
-		    }
-
-		} while ( errorDiff > MIN_ERROR_DIFF );
-
+		int bestEpoch = stopping.train(train);
+		epoch = stopping.getEpoch();
 		Long endTrainingTime = System.currentTimeMillis();
 		
+		// Save to file the validation AUC throughout the training.
+		append("Epoch Number,Validation AUC");
+		List<Integer> scoredEpochs = stopping.getScoredEpochs();
+		List<Double> scores = stopping.getScores();
+		for ( int i = 0; i < scores.size(); i++ ) {
+			append(scoredEpochs.get(i) + "," + scores.get(i));
+		}
+
 		// Finalise the training.
 		train.finishTraining();
 
@@ -230,6 +212,9 @@ public class TestTemplate {
 		append("                      RESULTS");
 		append("----------------------------------------------------");
 		append("Final Encog Error:  " + train.getError());
+		append("Epochs trained:     " + epoch);
+		append("Best epoch:         " + bestEpoch);
+		append("Validation AUC:     " + stopping.getBestScore());
 		append("Total rows:         " + result.getTotal());
 		append("Current answers:    " + result.getCorrect());
 		append("Accuracy:           " + result.getResult() + "%");
@@ -261,9 +246,6 @@ public class TestTemplate {
 		if ( masterFile.exists() ) {
 			network = (BasicNetwork) EncogDirectoryPersistence.loadObject(masterFile);
 		}
-		else if ( latestSavedEncogFileName != null )
-			// Loading the network to file if exists..
-			network = (BasicNetwork) EncogDirectoryPersistence.loadObject(new File(latestSavedEncogFileName));
 
 		if ( network == null ) return new Result(0,0,0);
 		
@@ -166,7 +166,7 @@ public class Test_015_TANH_RESIL {
 		Long normaliseTime = System.currentTimeMillis();
 		
 		// Set the loaded data with the Encog API through the built Adaptor.
-		MLDataSet dataSetTrainingAdapted = new EncogMLDataSetTrainingAdaptor(dataSet);
+		MLDataSet dataSetTrainingAdapted = new EncogMLDataSetTrainingAdaptor(dataSet, 0);
 		
 		// Use a Resilient Propagation training strategy.
 		BasicTraining train = (BasicTraining) new ResilientPropagation(network, dataSetTrainingAdapted);
@@ -165,7 +165,7 @@ public class Test_045_TANH_BKPROP {
 		Long normaliseTime = System.currentTimeMillis();
 		
 		// Set the loaded data with the Encog API through the built Adaptor.
-		MLDataSet dataSetTrainingAdapted = new EncogMLDataSetTrainingAdaptor(dataSet);
+		MLDataSet dataSetTrainingAdapted = new EncogMLDataSetTrainingAdaptor(dataSet, 0);
 		
 		// Use a Resilient Propagation training strategy.
 //		BasicTraining train = (BasicTraining) new ResilientPropagation(network, dataSetTrainingAdapted);
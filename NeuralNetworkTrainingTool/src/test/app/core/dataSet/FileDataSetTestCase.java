@@ -0,0 +1,194 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+import app.core.dataSet.DataSet;
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.NormalisationStore;
+import app.core.dataSet.VectorMap;
+import app.model.serializable.DataSetFileAttributes;
+import app.model.serializable.FileAttributes;
+
+/**
+ * The fixture of the tests loading a FileDataSet from file: the folder the
+ * test files are written into, the store the normalisation values are saved
+ * into, within a folder of its own, the FileAttributes of the file loaded,
+ * with the normalisation values saved for them reset before and after each
+ * test, and the checks of the rows loaded.
+ *
+ * @author Vasco
+ *
+ */
+public abstract class FileDataSetTestCase {
+
+    /**
+     * The folder holding the test files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The folder holding the normalisation values saved.
+     */
+    @Rule
+    public TemporaryFolder normalisationFolder = new TemporaryFolder();
+
+    /**
+     * The store of the normalisation values saved, used by all data sets
+     * created by the test.
+     */
+    protected NormalisationStore normalisationStore;
+
+    /**
+     * The FileAttributes of the file loaded.
+     */
+    protected FileAttributes fileAttributes;
+
+    /**
+     * Creating the empty store of the normalisation values.
+     */
+    @Before
+    public void createNormalisationStore() {
+        normalisationStore = new NormalisationStore(normalisationFolder.getRoot().getPath());
+    }
+
+    /**
+     * A new data set of the given file using the store of the test.
+     *
+     * @param fileAttributes FileAttributes
+     * @return FileDataSet
+     */
+    protected FileDataSet newFileDataSet(FileAttributes fileAttributes) {
+        return withStore(new FileDataSet(fileAttributes));
+    }
+
+    /**
+     * Sets the store of the test to the given data set.
+     *
+     * @param dataSet DataSet
+     * @return the same data set
+     */
+    protected <T extends DataSet> T withStore(T dataSet) {
+        dataSet.setNormalisationStore(normalisationStore);
+        return dataSet;
+    }
+
+    /**
+     * Writes a test file into the folder, a line per row.
+     *
+     * @param name String
+     * @param header String the header line, or null if none
+     * @param rows int
+     * @param line IntFunction giving the line of each row
+     * @return File
+     * @throws IOException
+     */
+    protected File writeFile(String name, String header, int rows, IntFunction<String> line) throws IOException {
+        File file = folder.newFile(name);
+        try ( PrintWriter writer = new PrintWriter(file) ) {
+            if ( header != null ) writer.println(header);
+            for ( int row = 0; row < rows; row++ ) writer.println(line.apply(row));
+        }
+        return file;
+    }
+
+    /**
+     * Writes a test file into the folder of rows of a random class of 0 or
+     * 1, a normal value and a value evenly spread over [-50, 50).
+     *
+     * @param name String
+     * @param header String the header line, or null if none
+     * @param rows int
+     * @param seed long
+     * @return File
+     * @throws IOException
+     */
+    protected File writeRandomFile(String name, String header, int rows, long seed) throws IOException {
+        Random random = new Random(seed);
+        return writeFile(name, header, rows,
+                row -> random.nextInt(2)+","+random.nextGaussian()+","+(random.nextDouble() * 100 - 50));
+    }
+
+    /**
+     * Sets the FileAttributes of the given comma separated file and rows,
+     * leaving no normalisation values saved for them.
+     *
+     * @param filename String
+     * @param headerRows int
+     * @param footerRows int
+     * @param trainingStartIndex int
+     * @param trainingEndIndex int
+     * @param testingStartIndex int
+     * @param testingEndIndex int
+     * @return FileAttributes
+     */
+    protected FileAttributes useFile(String filename, int headerRows, int footerRows, int trainingStartIndex,
+            int trainingEndIndex, int testingStartIndex, int testingEndIndex) {
+        fileAttributes = new DataSetFileAttributes();
+        fileAttributes.setHeaderRows(headerRows);
+        fileAttributes.setFooterRows(footerRows);
+        fileAttributes.setTrainingRangeIndex(trainingStartIndex, trainingEndIndex);
+        fileAttributes.setTestingRangeIndex(testingStartIndex, testingEndIndex);
+        fileAttributes.setFilename(filename);
+        fileAttributes.setSeparator(",");
+        newFileDataSet(fileAttributes).resetNormalisationValues();
+        return fileAttributes;
+    }
+
+    /**
+     * The data set of the file used, with the output taken as is from the
+     * first column, loaded and normalised.
+     *
+     * @return FileDataSet
+     */
+    protected FileDataSet loadNormalised() {
+        FileDataSet dataSet = newFileDataSet(fileAttributes);
+        List<VectorMap> outputMap = new LinkedList<>();
+        outputMap.add(new VectorMap(0, null));
+        dataSet.setOutputColumns(outputMap);
+        dataSet.load();
+        dataSet.normalise();
+        return dataSet;
+    }
+
+    /**
+     * Leaving no normalisation values behind.
+     */
+    @After
+    public void resetNormalisationValues() {
+        if ( fileAttributes != null ) newFileDataSet(fileAttributes).resetNormalisationValues();
+    }
+
+    /**
+     * Checks both data sets hold the same rows, inputs and outputs.
+     *
+     * @param expected DataSet
+     * @param found DataSet
+     */
+    public static void assertSameRows(DataSet expected, DataSet found) {
+        assertEquals(expected.getNumberOfTrainingRows(), found.getNumberOfTrainingRows());
+        assertEquals(expected.getNumberOfTestingRows(), found.getNumberOfTestingRows());
+        for ( int row = 0; row < expected.getNumberOfTrainingRows(); row++ ) {
+            assertArrayEquals(expected.getTrainingInputRow(row), found.getTrainingInputRow(row), 0.0);
+            assertArrayEquals(expected.getTrainingOutputRow(row), found.getTrainingOutputRow(row), 0.0);
+        }
+        for ( int row = 0; row < expected.getNumberOfTestingRows(); row++ ) {
+            assertArrayEquals(expected.getTestingInputRow(row), found.getTestingInputRow(row), 0.0);
+            assertArrayEquals(expected.getTestingOutputRow(row), found.getTestingOutputRow(row), 0.0);
+        }
+    }
+}
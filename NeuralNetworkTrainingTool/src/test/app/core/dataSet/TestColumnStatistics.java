@@ -0,0 +1,251 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.ArrayDataStorage;
+import app.core.dataSet.ColumnMajorDataStorage;
+import app.core.dataSet.ColumnStatistics;
+import app.core.dataSet.DataStorage;
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.FileLoadMode;
+import app.core.dataSet.NormalisationMode;
+import app.core.dataSet.RowMajorDataStorage;
+import app.core.dataSet.VectorMap;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing the ColumnStatistics gathered while loading, or in parallel from
+ * storages, match those of the data, and normalising while loading gives
+ * the same rows as normalising once loaded.
+ *
+ * @author Vasco
+ *
+ */
+public class TestColumnStatistics extends FileDataSetTestCase {
+
+    /**
+     * The number of rows in the test file.
+     */
+    private final int ROWS = 200;
+
+    /**
+     * Writing the test file and initialising the FileAttributes.
+     *
+     * @throws IOException
+     */
+    @Before
+    public void before() throws IOException {
+        File file = writeRandomFile("statistics.csv", null, ROWS, 7);
+        useFile(file.getPath(), 0, 0, 1, 150, 151, ROWS);
+    }
+
+    /**
+     * Check merging statistics gathered apart gives the same as gathering
+     * all rows together.
+     */
+    @Test
+    public void testMerge() {
+        Random random = new Random(3);
+        ColumnStatistics all = new ColumnStatistics(2);
+        ColumnStatistics[] parts = { new ColumnStatistics(2), new ColumnStatistics(2), new ColumnStatistics(2) };
+        for ( int row = 0; row < 1000; row++ ) {
+            double[] values = { random.nextGaussian() * 5 + 3, random.nextInt(10) };
+            all.add(values);
+            parts[row % 7 == 0 ? 0 : row < 500 ? 1 : 2].add(values);
+        }
+        ColumnStatistics merged = new ColumnStatistics(2);
+        for ( ColumnStatistics part : parts ) merged.merge(part);
+        assertTrue(1000 == merged.getCount());
+        assertArrayEquals(all.getMinValues(), merged.getMinValues(), 0.0);
+        assertArrayEquals(all.getMaxValues(), merged.getMaxValues(), 0.0);
+        assertArrayEquals(all.getMeans(), merged.getMeans(), 1e-12);
+        assertArrayEquals(all.getVariances(), merged.getVariances(), 1e-9);
+    }
+
+    /**
+     * Check the mean and variance of a few known values.
+     */
+    @Test
+    public void testKnownValues() {
+        ColumnStatistics statistics = new ColumnStatistics(1);
+        for ( double value : new double[] { 2, 4, 4, 4, 5, 5, 7, 9 } ) statistics.add(new double[] { value });
+        assertEquals(5.0, statistics.getMeans()[0], 0.0);
+        assertEquals(4.0, statistics.getVariances()[0], 1e-15);
+        assertEquals(2.0, statistics.getMinValues()[0], 0.0);
+        assertEquals(9.0, statistics.getMaxValues()[0], 0.0);
+    }
+
+    /**
+     * Check NaN values are counted apart and left out of all other
+     * statistics, whether added by row, merged or gathered.
+     */
+    @Test
+    public void testNaN() {
+        double[][] rows = { { 1, Double.NaN }, { Double.NaN, Double.NaN }, { 3, 4 }, { 5, 8 } };
+        ColumnStatistics added = new ColumnStatistics(2);
+        for ( double[] row : rows ) added.add(row);
+        ArrayDataStorage storage = new ArrayDataStorage(rows.length, 2);
+        for ( int row = 0; row < rows.length; row++ ) storage.writeRow(row, rows[row]);
+        ColumnStatistics gathered = ColumnStatistics.gather(2, Arrays.asList(storage));
+        for ( ColumnStatistics statistics : new ColumnStatistics[] { added, gathered } ) {
+            assertTrue(4 == statistics.getCount());
+            assertArrayEquals(new long[] { 1, 2 }, statistics.getNaNCounts());
+            assertArrayEquals(new double[] { 1, 4 }, statistics.getMinValues(), 0.0);
+            assertArrayEquals(new double[] { 5, 8 }, statistics.getMaxValues(), 0.0);
+            assertArrayEquals(new double[] { 3, 6 }, statistics.getMeans(), 1e-15);
+            assertArrayEquals(new double[] { 8.0 / 3, 4 }, statistics.getVariances(), 1e-15);
+        }
+    }
+
+    /**
+     * Check the statistics gathered in parallel from storages of every
+     * layout, split in many tasks, are those of all their rows.
+     */
+    @Test
+    public void testGather() {
+        int rows = ColumnStatistics.ROWS_PER_TASK * 2 + 1500;
+        Random random = new Random(13);
+        ColumnStatistics expected = new ColumnStatistics(3);
+        DataStorage[][] storages = { 
+                { new ArrayDataStorage(rows, 3), new ArrayDataStorage(100, 3) },
+                { new RowMajorDataStorage(rows, 3), new RowMajorDataStorage(100, 3) },
+                { new ColumnMajorDataStorage(rows, 3), new ColumnMajorDataStorage(100, 3) } };
+        for ( int storage = 0; storage < 2; storage++ ) {
+            for ( int row = 0; row < storages[0][storage].getNumberOfRows(); row++ ) {
+                double[] values = { random.nextGaussian() * 1e3 + 1e6, random.nextInt(2), random.nextDouble() };
+                expected.add(values);
+                for ( DataStorage[] layout : storages ) layout[storage].writeRow(row, values);
+            }
+        }
+        for ( DataStorage[] layout : storages ) {
+            ColumnStatistics found = ColumnStatistics.gather(3, Arrays.asList(layout));
+            assertTrue(expected.getCount() == found.getCount());
+            assertArrayEquals(expected.getMinValues(), found.getMinValues(), 0.0);
+            assertArrayEquals(expected.getMaxValues(), found.getMaxValues(), 0.0);
+            assertArrayEquals(expected.getMeans(), found.getMeans(), 1e-6);
+            assertArrayEquals(expected.getVariances(), found.getVariances(), 1e-4);
+        }
+    }
+
+    /**
+     * Check the statistics gathered in either load mode are those of the
+     * loaded rows.
+     */
+    @Test
+    public void testGatheredWhileLoading() {
+        for ( FileLoadMode loadMode : FileLoadMode.values() ) {
+            FileDataSet dataSet = newFileDataSet(fileAttributes);
+            dataSet.setLoadMode(loadMode);
+            dataSet.load();
+            ColumnStatistics expected = new ColumnStatistics(3);
+            for ( int row = 0; row < dataSet.getNumberOfTrainingRows(); row++ ) {
+                expected.add(dataSet.getTrainingInputRow(row));
+            }
+            for ( int row = 0; row < dataSet.getNumberOfTestingRows(); row++ ) {
+                expected.add(dataSet.getTestingInputRow(row));
+            }
+            ColumnStatistics found = dataSet.getColumnStatistics();
+            assertTrue(ROWS == found.getCount());
+            assertArrayEquals(expected.getMinValues(), found.getMinValues(), 0.0);
+            assertArrayEquals(expected.getMaxValues(), found.getMaxValues(), 0.0);
+            assertArrayEquals(expected.getMeans(), found.getMeans(), 1e-12);
+            assertArrayEquals(expected.getVariances(), found.getVariances(), 1e-9);
+        }
+    }
+
+    /**
+     * Check normalising while loading, with the saved min and max values,
+     * gives exactly the same rows as normalising once loaded.
+     */
+    @Test
+    public void testNormalisedWhileLoading() {
+        FileDataSet expected = newFileDataSet(fileAttributes);
+        expected.load();
+        expected.normalise();
+        for ( FileLoadMode loadMode : FileLoadMode.values() ) {
+            FileDataSet fused = newFileDataSet(fileAttributes);
+            fused.setLoadMode(loadMode);
+            fused.loadNormalised();
+            assertSameRows(expected, fused);
+            assertTrue(ROWS == fused.getColumnStatistics().getCount());
+        }
+    }
+
+    /**
+     * Check the z-score mode gives input columns of mean 0 and variance 1,
+     * and the robust mode input columns of median 0, while output columns
+     * stay within 0 and 1. Normalising while loading with the values saved
+     * gives the same rows in either mode.
+     */
+    @Test
+    public void testNormalisationModes() {
+        for ( NormalisationMode mode : new NormalisationMode[] { NormalisationMode.Z_SCORE, NormalisationMode.ROBUST } ) {
+            FileDataSet dataSet = newModeDataSet(mode);
+            dataSet.load();
+            dataSet.normalise();
+            ColumnStatistics statistics = new ColumnStatistics(3, true);
+            for ( int row = 0; row < dataSet.getNumberOfTrainingRows(); row++ ) {
+                statistics.add(concat(dataSet.getTrainingOutputRow(row), dataSet.getTrainingInputRow(row)));
+            }
+            for ( int row = 0; row < dataSet.getNumberOfTestingRows(); row++ ) {
+                statistics.add(concat(dataSet.getTestingOutputRow(row), dataSet.getTestingInputRow(row)));
+            }
+            assertEquals(0.0, statistics.getMinValues()[0], 0.0);
+            assertEquals(1.0, statistics.getMaxValues()[0], 0.0);
+            for ( int column = 1; column < 3; column++ ) {
+                if ( mode == NormalisationMode.Z_SCORE ) {
+                    assertEquals(0.0, statistics.getMeans()[column], 1e-9);
+                    assertEquals(1.0, statistics.getVariances()[column], 1e-9);
+                }
+                else {
+                    assertEquals(0.0, statistics.getQuantiles(0.5)[column], 0.05);
+                }
+            }
+
+            FileDataSet fused = newModeDataSet(mode);
+            fused.loadNormalised();
+            assertSameRows(dataSet, fused);
+        }
+    }
+
+    /**
+     * A new data set over the test file in the given normalisation mode, the
+     * first column as output.
+     *
+     * @param mode NormalisationMode
+     * @return FileDataSet
+     */
+    private FileDataSet newModeDataSet(NormalisationMode mode) {
+        FileDataSet dataSet = newFileDataSet(fileAttributes);
+        List<VectorMap> outputMap = new LinkedList<>();
+        outputMap.add(new VectorMap(0, null));
+        dataSet.setOutputColumns(outputMap);
+        dataSet.setNormalisationMode(mode);
+        return dataSet;
+    }
+
+    /**
+     * The values of both rows, one after the other.
+     *
+     * @param first double[]
+     * @param second double[]
+     * @return double[]
+     */
+    private double[] concat(double[] first, double[] second) {
+        double[] row = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, row, first.length, second.length);
+        return row;
+    }
+}
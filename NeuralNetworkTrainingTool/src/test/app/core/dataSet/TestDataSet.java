@@ -1,17 +1,21 @@
 package test.app.core.dataSet;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.LinkedList;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import app.core.dataSet.DataSet;
 import app.core.dataSet.MathOperatorCore;
 import app.core.dataSet.MathOperatorFactory;
 import app.core.dataSet.MathOperatorKey;
+import app.core.dataSet.NormalisationStore;
 import app.core.dataSet.VectorMap;
 
 /**
@@ -29,8 +33,15 @@ import app.core.dataSet.VectorMap;
  *
  */
 public class TestDataSet extends DataSet {
+
+    /**
+     * The folder holding the normalisation values saved.
+     */
+    @Rule
+    public TemporaryFolder normalisationFolder = new TemporaryFolder();
 	
 	@Before public void beforeTest() {
+		setNormalisationStore(new NormalisationStore(normalisationFolder.getRoot().getPath()));
 		resetNormalisationValues();
 	}
 
@@ -681,4 +692,31 @@ public class TestDataSet extends DataSet {
         assertTrue(4.5 == inputFound[0]);
         assertTrue(125.0 == inputFound[1]);
     }
+
+    /**
+     * Asserting normalising reads the rows normalised while the rows stored
+     * are left as loaded, and de-normalising reads them as stored again.
+     */
+    @Test
+    public void testNormaliseKeepsStoredRows() {
+        trainingDataSet = new double[][] { { -1.0, 0.0, -125.0 }, { 1.5, 2.25, 125.0 } };
+        double[][] stored = trainingDataSet;
+        outputColumnMap = new LinkedList<VectorMap>();
+        outputColumnMap.add(new VectorMap(0, null));
+        inputColumnMap = new LinkedList<VectorMap>();
+        inputColumnMap.add(new VectorMap(1, null));
+        inputColumnMap.add(new VectorMap(2, null));
+        minValues = new double[] { -1.0, 0.0, -125.0 };
+        maxValues = new double[] { 1.5, 4.5, 125.0 };
+
+        normalise();
+        assertArrayEquals(new double[] { 0.0 }, getTrainingOutputRow(0), 0.0);
+        assertArrayEquals(new double[] { 0.5, 1.0 }, getTrainingInputRow(1), 0.0);
+        assertTrue(stored == trainingDataSet);
+        assertArrayEquals(new double[] { 1.5, 2.25, 125.0 }, trainingDataSet[1], 0.0);
+
+        deNormalise();
+        assertArrayEquals(new double[] { 2.25, 125.0 }, getTrainingInputRow(1), 0.0);
+        assertArrayEquals(new double[] { 1.5, 2.25, 125.0 }, trainingDataSet[1], 0.0);
+    }
 }
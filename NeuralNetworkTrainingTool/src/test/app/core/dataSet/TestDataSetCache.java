@@ -0,0 +1,168 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import app.core.dataSet.DataSetCache;
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.MathOperatorCore;
+import app.core.dataSet.MathOperatorFactory;
+import app.core.dataSet.MathOperatorKey;
+import app.core.dataSet.NormalisationStore;
+import app.core.dataSet.VectorMap;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing the DataSetCache gives back exactly the same data as loading and
+ * normalising from file, and is only used while nothing it depends on has
+ * changed.
+ *
+ * @author Vasco
+ *
+ */
+public class TestDataSetCache extends FileDataSetTestCase {
+
+    /**
+     * The test file name with header and footer.
+     */
+    private final String FILENAME = "testingResources"+File.separatorChar+"TestFileDataSetHeaderFooter.csv";
+
+    /**
+     * The folder holding the normalisation values.
+     */
+    @Rule
+    public TemporaryFolder storeFolder = new TemporaryFolder();
+
+    /**
+     * The cache to test.
+     */
+    private DataSetCache cache;
+
+    /**
+     * The store of the normalisation values.
+     */
+    private NormalisationStore store;
+
+    /**
+     * Initialising the FileAttributes and an empty cache.
+     */
+    @Before
+    public void before() {
+        useFile(FILENAME, 2, 2, 3, 5, 6, 7);
+        cache = new DataSetCache(folder.getRoot().getPath());
+        store = new NormalisationStore(storeFolder.getRoot().getPath());
+        newDataSet(1).resetNormalisationValues();
+    }
+
+    /**
+     * A new data set using the cache, with output mapped from column zero.
+     *
+     * @param bias double of the output transformation
+     * @return FileDataSet
+     */
+    private FileDataSet newDataSet(double bias) {
+        FileDataSet dataSet = newFileDataSet(fileAttributes);
+        MathOperatorCore<?> operator = MathOperatorFactory.getMathOperation(MathOperatorKey.ADD);
+        operator.setBiasValue(bias);
+        List<VectorMap> outputList = new LinkedList<>();
+        outputList.add(new VectorMap(0, operator));
+        dataSet.setOutputColumns(outputList);
+        dataSet.setCache(cache);
+        dataSet.setNormalisationStore(store);
+        return dataSet;
+    }
+
+    /**
+     * Check the second run reads from the cache the same data the first
+     * one loaded and normalised from file.
+     */
+    @Test
+    public void testSameDataFromCache() {
+        FileDataSet first = newDataSet(1);
+        first.loadNormalised();
+        assertFalse(first.isLoadedFromCache());
+        assertTrue(folder.getRoot().listFiles().length == 1);
+
+        FileDataSet second = newDataSet(1);
+        second.loadNormalised();
+        assertTrue(second.isLoadedFromCache());
+        assertSameRows(first, second);
+
+        // Same as not using the cache at all.
+        FileDataSet uncached = newDataSet(1);
+        uncached.setCache(null);
+        uncached.load();
+        uncached.normalise();
+        assertSameRows(uncached, second);
+    }
+
+    /**
+     * Check a change to any map or range is not read from the cache.
+     */
+    @Test
+    public void testKeyChanges() {
+        newDataSet(1).loadNormalised();
+
+        newDataSet(1).resetNormalisationValues();
+        FileDataSet otherBias = newDataSet(2);
+        otherBias.loadNormalised();
+        assertFalse(otherBias.isLoadedFromCache());
+
+        newDataSet(1).resetNormalisationValues();
+        fileAttributes.setTestingRangeIndex(6, 6);
+        FileDataSet otherRange = newDataSet(1);
+        otherRange.loadNormalised();
+        assertFalse(otherRange.isLoadedFromCache());
+    }
+
+    /**
+     * Check the cache is not used once normalising would use other values.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testOtherNormalisationValues() throws IOException {
+        newDataSet(1).loadNormalised();
+
+        // Values stored for the same data take precedence over the data.
+        File[] entries = storeFolder.getRoot().listFiles((folder, name) -> name.endsWith(NormalisationStore.EXTENSION));
+        assertTrue(entries.length == 1);
+        String key = entries[0].getName().replace(NormalisationStore.EXTENSION, "");
+        double[][] values = store.load(key);
+        for ( int column = 0; column < values[0].length; column++ ) {
+            values[0][column] -= 1.0;
+            values[1][column] += 1.0;
+        }
+        store.save(key, values[0], values[1]);
+
+        FileDataSet dataSet = newDataSet(1);
+        dataSet.loadNormalised();
+        assertFalse(dataSet.isLoadedFromCache());
+    }
+
+    /**
+     * Check a damaged entry is not used.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testDamagedEntry() throws IOException {
+        FileDataSet dataSet = newDataSet(1);
+        dataSet.loadNormalised();
+        File entry = folder.getRoot().listFiles()[0];
+        Files.write(entry.toPath(), new byte[] { 1, 2, 3 });
+        assertNull(cache.open(entry.getName().replace(DataSetCache.EXTENSION, "")));
+    }
+}
@@ -0,0 +1,160 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.ArrayDataStorage;
+import app.core.dataSet.DataSetView;
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.NormalisationKernel;
+import app.core.dataSet.NormalisationMode;
+import app.core.dataSet.NormalisedDataStorage;
+import app.core.dataSet.VectorMap;
+import app.core.encog.EncogMLDataSetTrainingAdaptor;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing views of a loaded data set give exactly the rows normalising in
+ * place gives, each in its own mode, while the rows loaded are never
+ * rewritten.
+ *
+ * @author Vasco
+ *
+ */
+public class TestDataSetView extends FileDataSetTestCase {
+
+    /**
+     * The number of rows in the test file.
+     */
+    private final int ROWS = 300;
+
+    /**
+     * Writing the test file and initialising the FileAttributes.
+     *
+     * @throws IOException
+     */
+    @Before
+    public void before() throws IOException {
+        File file = writeRandomFile("view.csv", null, ROWS, 23);
+        useFile(file.getPath(), 0, 0, 1, 200, 201, ROWS);
+    }
+
+    /**
+     * Check views in different modes over the same rows give those
+     * normalised in place in each mode, and the rows loaded stay as they
+     * were, also once de-normalised.
+     */
+    @Test
+    public void testSameAsNormalisedInPlace() {
+        FileDataSet raw = newDataSet(NormalisationMode.MIN_MAX);
+        raw.load();
+        FileDataSet expectedRaw = newDataSet(NormalisationMode.MIN_MAX);
+        expectedRaw.load();
+
+        DataSetView minMax = raw.createView();
+        DataSetView zScore = raw.createView();
+        zScore.setNormalisationMode(NormalisationMode.Z_SCORE);
+        minMax.normalise();
+        zScore.normalise();
+        assertTrue(minMax.isNormalised() && zScore.isNormalised());
+
+        for ( NormalisationMode mode : new NormalisationMode[] { NormalisationMode.MIN_MAX, NormalisationMode.Z_SCORE } ) {
+            FileDataSet expected = newDataSet(mode);
+            expected.load();
+            expected.normalise();
+            assertSameRows(expected, mode == NormalisationMode.MIN_MAX ? minMax : zScore);
+        }
+        assertSameRows(expectedRaw, raw);
+
+        zScore.deNormalise();
+        assertFalse(zScore.isNormalised());
+        assertSameRows(expectedRaw, zScore);
+    }
+
+    /**
+     * Check a view of a data set normalised, which only reads its rows
+     * normalised, takes the rows as loaded.
+     */
+    @Test
+    public void testViewOfNormalised() {
+        FileDataSet expectedRaw = newDataSet(NormalisationMode.MIN_MAX);
+        expectedRaw.load();
+        FileDataSet normalised = newDataSet(NormalisationMode.MIN_MAX);
+        normalised.load();
+        normalised.normalise();
+
+        DataSetView view = normalised.createView();
+        assertSameRows(expectedRaw, view);
+        view.normalise();
+        assertSameRows(normalised, view);
+    }
+
+    /**
+     * Check the Encog adaptor reads the rows of a view normalised.
+     */
+    @Test
+    public void testAdaptor() {
+        FileDataSet expected = newDataSet(NormalisationMode.MIN_MAX);
+        expected.load();
+        expected.normalise();
+        FileDataSet raw = newDataSet(NormalisationMode.MIN_MAX);
+        raw.load();
+        DataSetView view = raw.createView();
+        view.normalise();
+
+        EncogMLDataSetTrainingAdaptor adaptor = new EncogMLDataSetTrainingAdaptor(view);
+        MLDataPair pair = BasicMLDataPair.createPair(2, 1);
+        for ( int row = 0; row < expected.getNumberOfTrainingRows(); row++ ) {
+            adaptor.getRecord(row, pair);
+            assertArrayEquals(expected.getTrainingInputRow(row), pair.getInputArray(), 0.0);
+            assertArrayEquals(expected.getTrainingOutputRow(row), pair.getIdealArray(), 0.0);
+        }
+    }
+
+    /**
+     * Check views cannot be written.
+     */
+    @Test(expected=IllegalStateException.class)
+    public void testReadOnly() {
+        ArrayDataStorage storage = new ArrayDataStorage(new double[][] { { 1, 2 }, { 3, 4 } });
+        NormalisedDataStorage view = new NormalisedDataStorage(storage, 
+                NormalisationKernel.normalising(new double[] { 1, 2 }, new double[] { 3, 4 }));
+        assertArrayEquals(new double[] { 1, 1 }, view.getRow(1, 0, 2), 0.0);
+        view.writeRow(0, new double[] { 0, 0 });
+    }
+
+    /**
+     * Check a view of a data set not loaded is refused.
+     */
+    @Test(expected=IllegalStateException.class)
+    public void testNotLoaded() {
+        newDataSet(NormalisationMode.MIN_MAX).createView();
+    }
+
+    /**
+     * A new data set over the test file in the given normalisation mode, the
+     * first column as output.
+     *
+     * @param mode NormalisationMode
+     * @return FileDataSet
+     */
+    private FileDataSet newDataSet(NormalisationMode mode) {
+        FileDataSet dataSet = newFileDataSet(fileAttributes);
+        List<VectorMap> outputMap = new LinkedList<>();
+        outputMap.add(new VectorMap(0, null));
+        dataSet.setOutputColumns(outputMap);
+        dataSet.setNormalisationMode(mode);
+        return dataSet;
+    }
+}
@@ -0,0 +1,123 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import app.core.dataSet.DelimitedLineParser;
+import app.core.dataSet.FastDoubleParser;
+
+/**
+ * Testing the FastDoubleParser and DelimitedLineParser give back exactly
+ * the same as Double.parseDouble and String.split would.
+ *
+ * @author Vasco
+ *
+ */
+public class TestFastDoubleParser {
+
+    /**
+     * Parsing the whole String as bytes.
+     *
+     * @param value String
+     * @return double
+     */
+    private double parse(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        return FastDoubleParser.parse(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Asserting the parsed value is the exact same double.
+     *
+     * @param value String
+     */
+    private void assertSameAsParseDouble(String value) {
+        assertTrue(value, Double.doubleToRawLongBits(Double.parseDouble(value)) ==
+                Double.doubleToRawLongBits(parse(value)));
+    }
+
+    /**
+     * Check the usual and edge cases.
+     */
+    @Test
+    public void testEdgeCases() {
+        String[] values = { "0", "-0", "+1", "1.", ".5", "0.1", " 2.3 ", "1.4e-3", "8.692932128906250000e-01",
+                "-1.635630011558532715e+00", "9007199254740993", "1e22", "1e23", "1.7976931348623157e308",
+                "1e309", "4.9e-324", "2.2250738585072014E-308", "1e-400", "123456789012345678901234567890",
+                "NaN", "-Infinity", "0x1p3", "1d", "2.5f" };
+        for ( String value : values ) assertSameAsParseDouble(value);
+    }
+
+    /**
+     * Check random numbers printed in the formats used in data files.
+     */
+    @Test
+    public void testRandomValues() {
+        Random random = new Random(1);
+        for ( int count = 0; count < 100000; count++ ) {
+            double value = ( random.nextDouble() - 0.5 ) * Math.pow(10, random.nextInt(40) - 20);
+            assertSameAsParseDouble(Double.toString(value));
+            assertSameAsParseDouble(String.format("%.18e", value));
+            assertSameAsParseDouble(String.format("%.6f", value));
+        }
+    }
+
+    /**
+     * Check exception on a field not being a number.
+     */
+    @Test(expected=NumberFormatException.class)
+    public void testNotANumber() {
+        parse("1.2.3");
+    }
+
+    /**
+     * Check exception on an empty field.
+     */
+    @Test(expected=NumberFormatException.class)
+    public void testEmptyField() {
+        byte[] line = "1,,3".getBytes(StandardCharsets.ISO_8859_1);
+        new DelimitedLineParser(",").parse(line, 0, line.length, new double[3]);
+    }
+
+    /**
+     * Check the separator is taken literally, trailing empty fields dropped.
+     */
+    @Test
+    public void testLiteralSeparator() {
+        byte[] line = "1.5|2|-3e2||".getBytes(StandardCharsets.ISO_8859_1);
+        double[] target = new double[3];
+        DelimitedLineParser parser = new DelimitedLineParser("|");
+        assertTrue(3 == parser.parse(line, 0, line.length, target));
+        assertTrue(3 == parser.countFields(line, 0, line.length));
+        assertArrayEquals(new double[] { 1.5, 2, -300 }, target, 0.0);
+
+        List<String> fields = new DelimitedLineParser("::").split("a::b::::c::::");
+        assertTrue(fields.size() == 4);
+        assertTrue(fields.get(2).isEmpty());
+        assertTrue(fields.get(3).equals("c"));
+    }
+
+    /**
+     * Check fields not in use are skipped without being parsed, and nothing
+     * is looked at past the last field in use.
+     */
+    @Test
+    public void testProjection() {
+        byte[] line = "1.5,x,-3e2,4,y".getBytes(StandardCharsets.ISO_8859_1);
+        double[] target = { 9, 9, 9, 9, 9 };
+        DelimitedLineParser parser = new DelimitedLineParser(",", new boolean[] { true, false, true });
+        assertTrue(3 == parser.parse(line, 0, line.length, target));
+        assertArrayEquals(new double[] { 1.5, 9, -300, 9, 9 }, target, 0.0);
+
+        line = "1.5::x::2".getBytes(StandardCharsets.ISO_8859_1);
+        parser = new DelimitedLineParser("::", new boolean[] { false, false, true });
+        assertTrue(3 == parser.parse(line, 0, line.length, target));
+        assertTrue(2 == target[2]);
+    }
+}
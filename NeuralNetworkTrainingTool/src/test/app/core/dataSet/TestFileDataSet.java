@@ -8,13 +8,18 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import app.core.dataSet.DataSet;
 import app.core.dataSet.FileDataSet;
+import app.core.dataSet.FileLoadMode;
 import app.core.dataSet.MathOperatorCore;
 import app.core.dataSet.MathOperatorFactory;
 import app.core.dataSet.MathOperatorKey;
+import app.core.dataSet.MultiColumnOperatorCore;
+import app.core.dataSet.NormalisationStore;
 import app.core.dataSet.VectorMap;
 import app.model.serializable.DataSetFileAttributes;
 import app.model.serializable.FileAttributes;
@@ -47,6 +52,12 @@ public class TestFileDataSet {
      */
     private final String SEPARATOR = ",";
 
+    /**
+     * The folder holding the normalisation values saved.
+     */
+    @Rule
+    public TemporaryFolder normalisationFolder = new TemporaryFolder();
+
     /**
      * The number of header rows in file.
      */
@@ -107,7 +118,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadWasImplemented() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
     }
     
@@ -121,7 +132,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTrainingFileAttributesRow0() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
         double[] input = fileDataSet.getTrainingInputRow(0);
         assertNotNull(input);
@@ -137,7 +148,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTrainingFileAttributesRow1() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
         double[] input = fileDataSet.getTrainingInputRow(1);
         assertNotNull(input);
@@ -153,7 +164,7 @@ public class TestFileDataSet {
      */
     @Test(expected=ArrayIndexOutOfBoundsException.class)
     public void testLoadTrainingFileAttributesRow2() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
         fileDataSet.getTrainingInputRow(2);
     }
@@ -163,7 +174,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingFileAttributesRow2() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
         double[] input = fileDataSet.getTestingInputRow(0);
         assertNotNull(input);
@@ -179,7 +190,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingFileAttributesRow3() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
         double[] input = fileDataSet.getTestingInputRow(1);
         assertNotNull(input);
@@ -195,7 +206,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingFileAttributesRow4() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
         double[] input = fileDataSet.getTestingInputRow(2);
         assertNotNull(input);
@@ -211,7 +222,7 @@ public class TestFileDataSet {
      */
     @Test(expected=ArrayIndexOutOfBoundsException.class)
     public void testLoadTestingFileAttributesRow5() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
         fileDataSet.getTestingInputRow(3);
     }
@@ -221,7 +232,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTrainingFileHeaderAttributesRow0() {
-        DataSet fileDataSet = new FileDataSet(fileHeaderAttributes);
+        DataSet fileDataSet = newFileDataSet(fileHeaderAttributes);
         fileDataSet.load();
         double[] input = fileDataSet.getTrainingInputRow(0);
         assertNotNull(input);
@@ -237,7 +248,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTrainingFileHeaderAttributesRow1() {
-        DataSet fileDataSet = new FileDataSet(fileHeaderAttributes);
+        DataSet fileDataSet = newFileDataSet(fileHeaderAttributes);
         fileDataSet.load();
         double[] input = fileDataSet.getTrainingInputRow(1);
         assertNotNull(input);
@@ -253,7 +264,7 @@ public class TestFileDataSet {
      */
     @Test(expected=ArrayIndexOutOfBoundsException.class)
     public void testLoadTrainingFileHeaderAttributesRow2() {
-        DataSet fileDataSet = new FileDataSet(fileHeaderAttributes);
+        DataSet fileDataSet = newFileDataSet(fileHeaderAttributes);
         fileDataSet.load();
         fileDataSet.getTrainingInputRow(2);
     }
@@ -263,7 +274,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingFileHeaderAttributesRow2() {
-        DataSet fileDataSet = new FileDataSet(fileHeaderAttributes);
+        DataSet fileDataSet = newFileDataSet(fileHeaderAttributes);
         fileDataSet.load();
         double[] input = fileDataSet.getTestingInputRow(0);
         assertNotNull(input);
@@ -279,7 +290,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingFileHeaderAttributesRow3() {
-        DataSet fileDataSet = new FileDataSet(fileHeaderAttributes);
+        DataSet fileDataSet = newFileDataSet(fileHeaderAttributes);
         fileDataSet.load();
         double[] input = fileDataSet.getTestingInputRow(1);
         assertNotNull(input);
@@ -295,7 +306,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingFileHeaderAttributesRow4() {
-        DataSet fileDataSet = new FileDataSet(fileHeaderAttributes);
+        DataSet fileDataSet = newFileDataSet(fileHeaderAttributes);
         fileDataSet.load();
         double[] input = fileDataSet.getTestingInputRow(2);
         assertNotNull(input);
@@ -311,7 +322,7 @@ public class TestFileDataSet {
      */
     @Test(expected=ArrayIndexOutOfBoundsException.class)
     public void testLoadTestingFileHeaderAttributesRow5() {
-        DataSet fileDataSet = new FileDataSet(fileHeaderAttributes);
+        DataSet fileDataSet = newFileDataSet(fileHeaderAttributes);
         fileDataSet.load();
         fileDataSet.getTestingInputRow(3);
     }
@@ -321,7 +332,7 @@ public class TestFileDataSet {
      */
     @Test(expected=ArrayIndexOutOfBoundsException.class)
     public void testLoadTrainingFileAttributesLoadMoreThanAvailable() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(TRAINING_START_INDEX, 120125);
         fileAttributes.setHasTestingRange(false);
         fileDataSet.load();
@@ -333,7 +344,7 @@ public class TestFileDataSet {
      */
     @Test(expected=ArrayIndexOutOfBoundsException.class)
     public void testLoadTestingFileAttributesLoadMoreThanAvailable() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(TESTING_START_INDEX, 120125);
         fileAttributes.setHasTrainingRange(false);
         fileDataSet.load();
@@ -350,7 +361,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadFileAttributesDataSetNegativeRangesTesting() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(-1, 5);
         fileDataSet.load();
     }
@@ -360,7 +371,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadFileAttributesDataSetNegativeRangesTraining() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(-1, 5);
         fileDataSet.load();
     }
@@ -370,7 +381,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadFileAttributesDataSetOverlapSame() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 5);
         fileAttributes.setTrainingRangeIndex(1, 5);
         fileDataSet.load();
@@ -381,7 +392,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadFileAttributesDataSetOverlapPartialTestingFirst() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 3);
         fileAttributes.setTrainingRangeIndex(2, 5);
         fileDataSet.load();
@@ -392,7 +403,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadFileAttributesDataSetOverlapPartialTrainingFirst() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(2, 5);
         fileAttributes.setTrainingRangeIndex(1, 3);
         fileDataSet.load();
@@ -403,7 +414,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadFileAttributesDataSetOverlapTestingWithinTraining() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 5);
         fileAttributes.setTrainingRangeIndex(3, 4);
         fileDataSet.load();
@@ -414,7 +425,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadFileAttributesDataSetOverlapTrainingWithingTesting() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(2, 4);
         fileAttributes.setTrainingRangeIndex(1, 5);
         fileDataSet.load();
@@ -425,7 +436,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadFileAttributesDataSetOverlapTestingEdges() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 3);
         fileAttributes.setTrainingRangeIndex(3, 5);
         fileDataSet.load();
@@ -436,7 +447,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadFileAttributesDataSetOverlapTrainingEdges() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(1, 3);
         fileAttributes.setTestingRangeIndex(3, 5);
         fileDataSet.load();
@@ -447,7 +458,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadFileAttributesDataSetNoOverlap() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 3);
         fileAttributes.setTrainingRangeIndex(4, 5);
         fileDataSet.load();
@@ -458,7 +469,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTrainingUpdatedForRow5a() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(1, 5);
         fileAttributes.setHasTestingRange(false);
         fileDataSet.load();
@@ -476,7 +487,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTrainingUpdatedForRow5b() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(2, 5);
         fileAttributes.setHasTestingRange(false);
         fileDataSet.load();
@@ -494,7 +505,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTrainingUpdatedForRow5c() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(3, 5);
         fileAttributes.setHasTestingRange(false);
         fileDataSet.load();
@@ -512,7 +523,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTrainingUpdatedForRow5d() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(4, 5);
         fileAttributes.setHasTestingRange(false);
         fileDataSet.load();
@@ -530,7 +541,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTrainingUpdatedForRow5e() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(5, 5);
         fileAttributes.setHasTestingRange(false);
         fileDataSet.load();
@@ -548,7 +559,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingUpdatedForRow5a() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 5);
         fileAttributes.setHasTrainingRange(false);
         fileDataSet.load();
@@ -566,7 +577,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingUpdatedForRow5b() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(2, 5);
         fileAttributes.setHasTrainingRange(false);
         fileDataSet.load();
@@ -584,7 +595,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingUpdatedForRow5c() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(3, 5);
         fileDataSet.load();
         double[] input = fileDataSet.getTestingInputRow(2);
@@ -601,7 +612,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingUpdatedForRow5d() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(4, 5);
         fileAttributes.setHasTrainingRange(false);
         fileDataSet.load();
@@ -619,7 +630,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingUpdatedForRow5e() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(5, 5);
         fileAttributes.setHasTrainingRange(false);
         fileDataSet.load();
@@ -651,7 +662,7 @@ public class TestFileDataSet {
      */
     @Test(expected=ArrayIndexOutOfBoundsException.class)
     public void testLoadWasImplementedAndDataSetUpdatedForTestingRow5Exception() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 4);
         fileAttributes.setTrainingRangeIndex(5, 5);
         fileDataSet.load();
@@ -663,7 +674,7 @@ public class TestFileDataSet {
      */
     @Test(expected=ArrayIndexOutOfBoundsException.class)
     public void testLoadWasImplementedAndDataSetUpdatedWithOutOfBoundsOnRow2() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
         fileDataSet.getTrainingInputRow(2);
     }
@@ -673,7 +684,7 @@ public class TestFileDataSet {
      */
     @Test(expected=ArrayIndexOutOfBoundsException.class)
     public void testLoadWasImplementedAndDataSetUpdatedForRow5Exception() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(1, 5);
         fileAttributes.setHasTestingRange(false);
         fileDataSet.load();
@@ -685,7 +696,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadWithRangeFromZeroException() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(0, 5);
         fileDataSet.load();
     }
@@ -695,7 +706,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadWithRangeHigherThenMaxFromSourceException() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(1, 1000);
         fileDataSet.load();
     }
@@ -711,7 +722,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testNoOutputMapGetOutputRow() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
         double foundRow[] = fileDataSet.getTrainingOutputRow(0);
         assertNotNull(foundRow);
@@ -723,7 +734,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadAtMiddleRangeWasImplementedCorrectlyTrainingOnly() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(2, 4);
         fileAttributes.setHasTestingRange(false);
         fileDataSet.load();
@@ -741,7 +752,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadAtMiddleRangeWasImplementedCorrectlyTestingOnly() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(3, 4);
         fileAttributes.setHasTrainingRange(false);
         fileDataSet.load();
@@ -759,7 +770,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadAtMiddleRangeWasImplementedCorrectlyTestingAndTraining() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 2);
         fileAttributes.setTrainingRangeIndex(4, 5);
         fileDataSet.load();
@@ -777,7 +788,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadAtMiddleRangeWasImplementedCorrectlyTrainingAndTesting() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(4, 5);
         fileAttributes.setTrainingRangeIndex(1, 2);
         fileDataSet.load();
@@ -796,7 +807,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadWithNoInputMap() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
 
         // When not internal map is set, source is all mapped as input.
@@ -818,7 +829,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadHeaderWithNoInputMap() {
-        DataSet fileDataSet = new FileDataSet(fileHeaderAttributes);
+        DataSet fileDataSet = newFileDataSet(fileHeaderAttributes);
         fileDataSet.load();
 
         // When not internal map is set, source is all mapped as input.
@@ -840,7 +851,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingWithNoInputMap() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileDataSet.load();
 
         // When not internal map is set, source is all mapped as input.
@@ -864,7 +875,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingHeaderWithNoInputMap() {
-        DataSet fileDataSet = new FileDataSet(fileHeaderAttributes);
+        DataSet fileDataSet = newFileDataSet(fileHeaderAttributes);
         fileDataSet.load();
 
         // When not internal map is set, source is all mapped as input.
@@ -897,7 +908,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadWithNoInputWithOutputMap1() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         List<VectorMap> outputColumns = new java.util.LinkedList<>();
         outputColumns.add(new VectorMap(0, null));
         fileDataSet.setOutputColumns(outputColumns);
@@ -923,7 +934,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadWithNoInputWithOutputMap2() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         List<VectorMap> outputColumns = new java.util.LinkedList<>();
         outputColumns.add(new VectorMap(0, null));
         outputColumns.add(new VectorMap(1, null));
@@ -950,7 +961,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadWithNoInputWithOutputMap3() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         List<VectorMap> outputColumns = new java.util.LinkedList<>();
         outputColumns.add(new VectorMap(0, null));
         outputColumns.add(new VectorMap(1, null));
@@ -981,7 +992,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadWithNoInputWithOutputMap4() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         List<VectorMap> outputColumns = new java.util.LinkedList<>();
         outputColumns.add(new VectorMap(0, null));
         outputColumns.add(new VectorMap(1, null));
@@ -1013,7 +1024,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadWithNoInputWithOutputMap4all() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         List<VectorMap> outputColumns = new java.util.LinkedList<>();
         outputColumns.add(new VectorMap(0, null));
         outputColumns.add(new VectorMap(1, null));
@@ -1030,7 +1041,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingWithNoInputWithOutputMap1() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         List<VectorMap> outputColumns = new java.util.LinkedList<>();
         outputColumns.add(new VectorMap(0, null));
         fileDataSet.setOutputColumns(outputColumns);
@@ -1056,7 +1067,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingWithNoInputWithOutputMap2() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         List<VectorMap> outputColumns = new java.util.LinkedList<>();
         outputColumns.add(new VectorMap(0, null));
         outputColumns.add(new VectorMap(1, null));
@@ -1083,7 +1094,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingWithNoInputWithOutputMap3() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         List<VectorMap> outputColumns = new java.util.LinkedList<>();
         outputColumns.add(new VectorMap(0, null));
         outputColumns.add(new VectorMap(1, null));
@@ -1112,7 +1123,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testLoadTestingWithNoInputWithOutputMap4() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         List<VectorMap> outputColumns = new java.util.LinkedList<>();
         outputColumns.add(new VectorMap(0, null));
         outputColumns.add(new VectorMap(1, null));
@@ -1144,7 +1155,7 @@ public class TestFileDataSet {
      */
     @Test(expected=IllegalArgumentException.class)
     public void testLoadTestingWithNoInputWithOutputMap4all() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         List<VectorMap> outputColumns = new java.util.LinkedList<>();
         outputColumns.add(new VectorMap(0, null));
         outputColumns.add(new VectorMap(1, null));
@@ -1170,7 +1181,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testOutputInputMapAndTransforms() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         // Override training range to use all file.
         fileAttributes.setTrainingRangeIndex(1, 5);
         fileAttributes.setHasTestingRange(false);
@@ -1259,7 +1270,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testOutputInputMapAndTransformsTesting() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         // Override testing range to use all file.
         fileAttributes.setTestingRangeIndex(1, 5);
         fileAttributes.setHasTrainingRange(false);
@@ -1350,7 +1361,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testTrainingNormalisationDeNormalisation() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(1, 5);
         fileAttributes.setHasTestingRange(false);
         List<VectorMap> inputColumns = new LinkedList<>();
@@ -1454,7 +1465,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testTestingNormalisationDeNormalisation() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 5);
         fileAttributes.setHasTrainingRange(false);
         List<VectorMap> inputColumns = new LinkedList<>();
@@ -1557,7 +1568,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testTrainingNormalisationDeNormalisationOneOutput() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(1, 5);
         fileAttributes.setHasTestingRange(false);
         List<VectorMap> inputColumns = new LinkedList<>();
@@ -1693,7 +1704,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testTestingNormalisationDeNormalisationOneOutput() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 5);
         fileAttributes.setHasTrainingRange(false);
         List<VectorMap> inputColumns = new LinkedList<>();
@@ -1829,7 +1840,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testTrainingNormalisationDeNormalisationTwoOutput() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTrainingRangeIndex(1, 5);
         fileAttributes.setHasTestingRange(false);
         List<VectorMap> inputColumns = new LinkedList<>();
@@ -1977,7 +1988,7 @@ public class TestFileDataSet {
      */
     @Test
     public void testTestingNormalisationDeNormalisationTwoOutput() {
-        DataSet fileDataSet = new FileDataSet(fileAttributes);
+        DataSet fileDataSet = newFileDataSet(fileAttributes);
         fileAttributes.setTestingRangeIndex(1, 5);
         fileAttributes.setHasTrainingRange(false);
         List<VectorMap> inputColumns = new LinkedList<>();
@@ -2114,4 +2125,102 @@ public class TestFileDataSet {
         assertTrue(4.2 == inputRow[1]); 
         assertTrue(4.3 == inputRow[2]);
     }
-}
\ No newline at end of file
+
+    /**
+     * Check only the columns in use by the maps are loaded, whatever the
+     * order they are mapped in.
+     */
+    @Test
+    public void testProjectedColumns() {
+        for ( FileLoadMode loadMode : FileLoadMode.values() ) {
+            FileDataSet fileDataSet = newFileDataSet(fileAttributes);
+            fileDataSet.setLoadMode(loadMode);
+            List<VectorMap> inputColumns = new LinkedList<>();
+            inputColumns.add(new VectorMap(3, null));
+            inputColumns.add(new VectorMap(1, null));
+            fileDataSet.setInputColumns(inputColumns);
+            List<VectorMap> outputColumns = new LinkedList<>();
+            outputColumns.add(new VectorMap(1, null));
+            fileDataSet.setOutputColumns(outputColumns);
+            fileDataSet.load();
+
+            for ( int row = 0; row < fileDataSet.getNumberOfTrainingRows(); row++ ) {
+                double[] inputRow = fileDataSet.getTrainingInputRow(row);
+                assertTrue(2 == inputRow.length);
+                assertTrue(row + 0.3 == inputRow[0]);
+                assertTrue(row + 0.1 == inputRow[1]);
+                assertTrue(row + 0.1 == fileDataSet.getTrainingOutputRow(row)[0]);
+            }
+        }
+    }
+
+    /**
+     * Check columns derived from others load the other columns too, even
+     * when mapped to nothing else, and are cached with the maps.
+     */
+    @Test
+    public void testDerivedColumns() {
+        for ( FileLoadMode loadMode : FileLoadMode.values() ) {
+            FileDataSet fileDataSet = newFileDataSet(fileAttributes);
+            fileDataSet.setLoadMode(loadMode);
+            MultiColumnOperatorCore<?> ratio = (MultiColumnOperatorCore<?>) MathOperatorFactory.getMathOperation(MathOperatorKey.RATIO);
+            ratio.setOtherSourceIndexes(3);
+            MultiColumnOperatorCore<?> product = (MultiColumnOperatorCore<?>) MathOperatorFactory.getMathOperation(MathOperatorKey.PRODUCT);
+            product.setOtherSourceIndexes(2, 3);
+            List<VectorMap> inputColumns = new LinkedList<>();
+            inputColumns.add(new VectorMap(1, ratio));
+            inputColumns.add(new VectorMap(1, product));
+            fileDataSet.setInputColumns(inputColumns);
+            List<VectorMap> outputColumns = new LinkedList<>();
+            outputColumns.add(new VectorMap(0, null));
+            fileDataSet.setOutputColumns(outputColumns);
+            fileDataSet.load();
+
+            for ( int row = 0; row < fileDataSet.getNumberOfTrainingRows(); row++ ) {
+                double[] inputRow = fileDataSet.getTrainingInputRow(row);
+                assertTrue(( row + 0.1 ) / ( row + 0.3 ) == inputRow[0]);
+                assertTrue(( row + 0.1 ) * ( row + 0.2 ) * ( row + 0.3 ) == inputRow[1]);
+                assertTrue(row + 0.0 == fileDataSet.getTrainingOutputRow(row)[0]);
+            }
+        }
+    }
+
+    /**
+     * Check a row dividing by a zero column loads with the value set for a
+     * zero divisor, whatever the load mode, while the others are divided.
+     */
+    @Test
+    public void testDerivedColumnZeroDivisor() {
+        for ( FileLoadMode loadMode : FileLoadMode.values() ) {
+            FileDataSet fileDataSet = newFileDataSet(fileAttributes);
+            fileDataSet.setLoadMode(loadMode);
+            MultiColumnOperatorCore<?> ratio = (MultiColumnOperatorCore<?>) MathOperatorFactory.getMathOperation(MathOperatorKey.RATIO);
+            // Column 0 of the first training row is zero.
+            ratio.setOtherSourceIndexes(0);
+            ratio.setBiasValue(-1.0);
+            List<VectorMap> inputColumns = new LinkedList<>();
+            inputColumns.add(new VectorMap(1, ratio));
+            fileDataSet.setInputColumns(inputColumns);
+            List<VectorMap> outputColumns = new LinkedList<>();
+            outputColumns.add(new VectorMap(0, null));
+            fileDataSet.setOutputColumns(outputColumns);
+            fileDataSet.load();
+
+            assertTrue(-1.0 == fileDataSet.getTrainingInputRow(0)[0]);
+            assertTrue(1.1 / 1.0 == fileDataSet.getTrainingInputRow(1)[0]);
+        }
+    }
+
+    /**
+     * A new data set of the given file, saving its normalisation values into
+     * the folder of the test.
+     *
+     * @param fileAttributes FileAttributes
+     * @return FileDataSet
+     */
+    private FileDataSet newFileDataSet(FileAttributes fileAttributes) {
+        FileDataSet fileDataSet = new FileDataSet(fileAttributes);
+        fileDataSet.setNormalisationStore(new NormalisationStore(normalisationFolder.getRoot().getPath()));
+        return fileDataSet;
+    }
+}
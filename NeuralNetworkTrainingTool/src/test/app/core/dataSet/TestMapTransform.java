@@ -3,6 +3,8 @@ package test.app.core.dataSet;
 import static org.junit.Assert.assertTrue;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.function.Function;
 
 import org.junit.Test;
@@ -10,6 +12,8 @@ import org.junit.Test;
 import app.core.dataSet.MathOperatorCore;
 import app.core.dataSet.MathOperatorFactory;
 import app.core.dataSet.MathOperatorKey;
+import app.core.dataSet.MultiColumnOperatorCore;
+import app.core.dataSet.VectorMap;
 import app.core.dataSet.mathOperator.AddMathOperator;
 import app.core.dataSet.mathOperator.SubMathOperator;
 
@@ -186,4 +190,122 @@ public class TestMapTransform {
         double foundValue = mapTransform.apply(GIVEN_VALUE.doubleValue());
         assertTrue(expectedValue == foundValue);
     }
+
+    /**
+     * Testing the primitive operation of each operator gives the same
+     * results as worked out in decimals, for values of any number of decimal
+     * places, and for values too large or small for whole numbers.
+     */
+    @Test
+    public void testPrimitiveOperations() {
+        Random random = new Random(11);
+        MathOperatorCore<?> add = MathOperatorFactory.getMathOperation(MathOperatorKey.ADD);
+        MathOperatorCore<?> sub = MathOperatorFactory.getMathOperation(MathOperatorKey.SUB);
+        MathOperatorCore<?> mul = MathOperatorFactory.getMathOperation(MathOperatorKey.MUL);
+        for ( int index = 0; index < 20000; index++ ) {
+            double bias = randomValue(random);
+            double value = randomValue(random);
+            add.setBiasValue(bias);
+            sub.setBiasValue(bias);
+            mul.setBiasValue(bias);
+            BigDecimal decimalValue = BigDecimal.valueOf(value);
+            assertTrue(decimalValue.add(BigDecimal.valueOf(bias)).doubleValue() == add.applyAsDouble(value));
+            assertTrue(decimalValue.subtract(BigDecimal.valueOf(bias)).doubleValue() == sub.applyAsDouble(value));
+            assertTrue(decimalValue.multiply(BigDecimal.valueOf(bias)).doubleValue() == mul.applyAsDouble(value));
+            assertTrue(add.apply(value) == add.applyAsDouble(value));
+        }
+        // Values not finite are kept as doubles.
+        assertTrue(Double.isNaN(add.applyAsDouble(Double.NaN)));
+        mul.setBiasValue(2.0);
+        assertTrue(Double.POSITIVE_INFINITY == mul.applyAsDouble(Double.POSITIVE_INFINITY));
+        assertTrue(0.0 == MathOperatorFactory.getMathOperation(MathOperatorKey.BIN).applyAsDouble(-0.0));
+        assertTrue(1.0 == MathOperatorFactory.getMathOperation(MathOperatorKey.INV).applyAsDouble(0.0));
+    }
+
+    /**
+     * A random value of up to eight decimal places, or at times of any
+     * magnitude and digits.
+     *
+     * @param random Random
+     * @return double
+     */
+    private double randomValue(Random random) {
+        if ( random.nextInt(10) == 0 ) return random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+        return BigDecimal.valueOf(random.nextInt(2_000_000_001) - 1_000_000_000L, random.nextInt(9)).doubleValue();
+    }
+
+    /**
+     * Testing the logarithm of one plus value.
+     */
+    @Test
+    public void testMathLOG1P() {
+        MathOperatorCore<?> mapTransform = MathOperatorFactory.getMathOperation(MathOperatorKey.LOG1P);
+        assertTrue(Math.log1p(GIVEN_VALUE.doubleValue()) == mapTransform.applyAsDouble(GIVEN_VALUE.doubleValue()));
+        assertTrue(0.0 == mapTransform.apply(0.0));
+        assertTrue(Double.isNaN(mapTransform.applyAsDouble(-2.0)));
+    }
+
+    /**
+     * Testing clamping keeps values within plus or minus the bias, and no
+     * limit is set with no bias.
+     */
+    @Test
+    public void testMathCLAMP() {
+        MathOperatorCore<?> mapTransform = MathOperatorFactory.getMathOperation(MathOperatorKey.CLAMP);
+        assertTrue(1.0E300 == mapTransform.applyAsDouble(1.0E300));
+        mapTransform.setBiasValue(INITIAL_VALUE.doubleValue());
+        assertTrue(-INITIAL_VALUE.doubleValue() == mapTransform.getBiasValue());
+        assertTrue(GIVEN_VALUE.doubleValue() == mapTransform.applyAsDouble(GIVEN_VALUE.doubleValue()));
+        assertTrue(-INITIAL_VALUE.doubleValue() == mapTransform.applyAsDouble(10.0));
+        assertTrue(INITIAL_VALUE.doubleValue() == mapTransform.apply(-10.0));
+    }
+
+    /**
+     * Testing ratios and products of other columns of the source row.
+     */
+    @Test
+    public void testMultiColumnOperations() {
+        double[] source = { 2.0, 4.0, 0.0, -0.5 };
+        MultiColumnOperatorCore<?> ratio = (MultiColumnOperatorCore<?>) MathOperatorFactory.getMathOperation(MathOperatorKey.RATIO);
+        MultiColumnOperatorCore<?> product = (MultiColumnOperatorCore<?>) MathOperatorFactory.getMathOperation(MathOperatorKey.PRODUCT);
+        // With no other columns the value is kept.
+        assertTrue(2.0 == ratio.applyAsDouble(2.0, source));
+        assertTrue(2.0 == product.apply(2.0));
+
+        ratio.setOtherSourceIndexes(1, 3);
+        product.setOtherSourceIndexes(1, 3);
+        assertTrue(2.0 / 4.0 / -0.5 == ratio.applyAsDouble(source[0], source));
+        assertTrue(2.0 * 4.0 * -0.5 == product.applyAsDouble(source[0], source));
+        assertTrue(Arrays.equals(new int[] { 1, 3 }, ratio.getOtherSourceIndexes()));
+
+        // Through a map, every column in use is given.
+        VectorMap vectorMap = new VectorMap(0, product);
+        assertTrue(Arrays.equals(new int[] { 0, 1, 3 }, vectorMap.getSourceIndexes()));
+        assertTrue(-4.0 == vectorMap.getTargetValue(source));
+    }
+
+    /**
+     * Testing a zero divisor gives the value set for it, zero unless set.
+     */
+    @Test
+    public void testRatioZeroDivisor() {
+        MultiColumnOperatorCore<?> ratio = (MultiColumnOperatorCore<?>) MathOperatorFactory.getMathOperation(MathOperatorKey.RATIO);
+        ratio.setOtherSourceIndexes(1, 2);
+        assertTrue(0.0 == ratio.applyAsDouble(2.0, new double[] { 2.0, 4.0, 0.0 }));
+        assertTrue(0.0 == ratio.applyAsDouble(2.0, new double[] { 2.0, 0.0, 4.0 }));
+        ratio.setBiasValue(-1.0);
+        assertTrue(-1.0 == ratio.getBiasValue());
+        assertTrue(-1.0 == ratio.applyAsDouble(2.0, new double[] { 2.0, 4.0, 0.0 }));
+        assertTrue(0.5 == ratio.applyAsDouble(2.0, new double[] { 2.0, 4.0, 1.0 }));
+    }
+
+    /**
+     * Testing other columns cannot be operated with given no source row.
+     */
+    @Test(expected=IllegalStateException.class)
+    public void testMultiColumnOperationNoSource() {
+        MultiColumnOperatorCore<?> ratio = (MultiColumnOperatorCore<?>) MathOperatorFactory.getMathOperation(MathOperatorKey.RATIO);
+        ratio.setOtherSourceIndexes(1);
+        ratio.applyAsDouble(GIVEN_VALUE.doubleValue());
+    }
 }
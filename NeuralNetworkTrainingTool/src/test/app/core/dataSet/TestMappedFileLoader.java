@@ -0,0 +1,189 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.ArrayDataStorage;
+import app.core.dataSet.DelimitedLineParser;
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.FileLoadMode;
+import app.core.dataSet.MappedFileLoader;
+import app.core.dataSet.RowParser;
+import app.model.serializable.DataSetFileAttributes;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing the MappedFileLoader loads exactly the same rows the sequential
+ * load does, whichever the chunk size used to split the file.
+ *
+ * @author Vasco
+ *
+ */
+public class TestMappedFileLoader {
+
+    /**
+     * Path to testing resource files.
+     */
+    private final String PATH = "testingResources"+File.separatorChar;
+
+    /**
+     * The test file name to use.
+     */
+    private final String FILENAME = PATH+"TestFileDataSet.csv";
+
+    /**
+     * The test file name with header and footer.
+     */
+    private final String FILENAME_WITH_HEADER_AND_FOOTER = PATH+"TestFileDataSetHeaderFooter.csv";
+
+    /**
+     * Chunk sizes small enough to split rows all over the test files.
+     */
+    private final int[] CHUNK_SIZES = { 1, 5, 16, 17, 64, MappedFileLoader.DEFAULT_MAX_CHUNK_SIZE };
+
+    /**
+     * The FileAttributes.
+     */
+    private FileAttributes fileAttributes;
+
+    /**
+     * The File with Header Attributes.
+     */
+    private FileAttributes fileHeaderAttributes;
+
+    /**
+     * Initialising the FileAttributes with the default settings.
+     */
+    @Before
+    public void before() {
+        fileAttributes = new DataSetFileAttributes();
+        fileAttributes.setHeaderRows(0);
+        fileAttributes.setTrainingRangeIndex(1, 2);
+        fileAttributes.setTestingRangeIndex(3, 5);
+        fileAttributes.setFilename(FILENAME);
+        fileAttributes.setSeparator(",");
+
+        fileHeaderAttributes = new DataSetFileAttributes();
+        fileHeaderAttributes.setHeaderRows(2);
+        fileHeaderAttributes.setFooterRows(2);
+        fileHeaderAttributes.setTrainingRangeIndex(3, 4);
+        fileHeaderAttributes.setTestingRangeIndex(5, 7);
+        fileHeaderAttributes.setFilename(FILENAME_WITH_HEADER_AND_FOOTER);
+        fileHeaderAttributes.setSeparator(",");
+    }
+
+    /**
+     * Parsing each line as it is, where the first column of each row is its
+     * row number, starting at zero.
+     *
+     * @return RowParser
+     */
+    private RowParser newParser() {
+        DelimitedLineParser lineParser = new DelimitedLineParser(",");
+        return (line, from, to, row) -> lineParser.parse(line, from, to, row);
+    }
+
+    /**
+     * Check all chunk sizes load the training and testing rows in order.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testLoadAllChunkSizes() throws IOException {
+        for ( int chunkSize : CHUNK_SIZES ) {
+            double[][] training = new double[2][4];
+            double[][] testing = new double[3][4];
+            new MappedFileLoader(fileAttributes, chunkSize).load(
+                new ArrayDataStorage(training), new ArrayDataStorage(testing), this::newParser);
+            assertArrayEquals(new double[] { 0.0, 0.1, 0.2, 0.3 }, training[0], 0.0);
+            assertArrayEquals(new double[] { 1.0, 1.1, 1.2, 1.3 }, training[1], 0.0);
+            assertArrayEquals(new double[] { 2.0, 2.1, 2.2, 2.3 }, testing[0], 0.0);
+            assertArrayEquals(new double[] { 3.0, 3.1, 3.2, 3.3 }, testing[1], 0.0);
+            assertArrayEquals(new double[] { 4.0, 4.1, 4.2, 4.3 }, testing[2], 0.0);
+        }
+    }
+
+    /**
+     * Check header rows are skipped for all chunk sizes.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testLoadHeaderAllChunkSizes() throws IOException {
+        for ( int chunkSize : CHUNK_SIZES ) {
+            double[][] training = new double[2][4];
+            double[][] testing = new double[3][4];
+            new MappedFileLoader(fileHeaderAttributes, chunkSize).load(
+                new ArrayDataStorage(training), new ArrayDataStorage(testing), this::newParser);
+            assertTrue(0.0 == training[0][0]);
+            assertTrue(1.0 == training[1][0]);
+            assertTrue(2.0 == testing[0][0]);
+            assertTrue(4.3 == testing[2][3]);
+        }
+    }
+
+    /**
+     * Check testing range placed before the training range in file.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testLoadTestingBeforeTraining() throws IOException {
+        fileAttributes.setTestingRangeIndex(1, 1);
+        fileAttributes.setTrainingRangeIndex(3, 5);
+        double[][] training = new double[3][4];
+        double[][] testing = new double[1][4];
+        new MappedFileLoader(fileAttributes, 5).load(
+                new ArrayDataStorage(training), new ArrayDataStorage(testing), this::newParser);
+        assertTrue(0.0 == testing[0][0]);
+        assertTrue(2.0 == training[0][0]);
+        assertTrue(4.0 == training[2][0]);
+    }
+
+    /**
+     * Check rows outside the ranges are not loaded.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testLoadOnlyRange() throws IOException {
+        fileAttributes.setHasTestingRange(false);
+        fileAttributes.setTrainingRangeIndex(2, 3);
+        double[][] training = new double[3][4];
+        new MappedFileLoader(fileAttributes, 1).load(new ArrayDataStorage(training), null, this::newParser);
+        assertTrue(1.0 == training[0][0]);
+        assertTrue(2.0 == training[1][0]);
+        assertArrayEquals(new double[4], training[2], 0.0);
+    }
+
+    /**
+     * Check exception on attempting to load more rows than those in file.
+     *
+     * @throws IOException
+     */
+    @Test(expected=ArrayIndexOutOfBoundsException.class)
+    public void testLoadMoreThanAvailable() throws IOException {
+        fileAttributes.setTestingRangeIndex(3, 120125);
+        new MappedFileLoader(fileAttributes, 5).load(new ArrayDataStorage(new double[2][4]),
+                new ArrayDataStorage(new double[120123][4]), this::newParser);
+    }
+
+    /**
+     * Check the FileDataSet in parallel mode loads the same as sequential.
+     */
+    @Test
+    public void testFileDataSetParallelMappedMode() {
+        FileDataSet sequential = new FileDataSet(fileHeaderAttributes);
+        sequential.load();
+        FileDataSet parallel = new FileDataSet(fileHeaderAttributes);
+        parallel.setLoadMode(FileLoadMode.PARALLEL_MAPPED);
+        parallel.load();
+        FileDataSetTestCase.assertSameRows(sequential, parallel);
+    }
+}
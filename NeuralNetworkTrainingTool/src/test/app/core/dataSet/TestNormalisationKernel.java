@@ -0,0 +1,148 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import app.core.dataSet.ArrayDataStorage;
+import app.core.dataSet.ColumnMajorDataStorage;
+import app.core.dataSet.DataStorage;
+import app.core.dataSet.DeNormalize;
+import app.core.dataSet.NormalisationKernel;
+import app.core.dataSet.Normalize;
+import app.core.dataSet.RowMajorDataStorage;
+
+/**
+ * Testing the NormalisationKernel gives exactly the same values as
+ * Normalize and DeNormalize, refuses the same values, and goes through
+ * storages of every layout in parallel.
+ *
+ * @author Vasco
+ *
+ */
+public class TestNormalisationKernel {
+
+    /**
+     * The min value of each column.
+     */
+    private final double[] MIN_VALUES = { -3.5, 0.0, 1e-3, -1e6 };
+
+    /**
+     * The max value of each column.
+     */
+    private final double[] MAX_VALUES = { 7.25, 1.0, 2e-3, 1e6 };
+
+    /**
+     * Check each value is exactly as Normalize and DeNormalize work it out.
+     */
+    @Test
+    public void testSameAsFunctions() {
+        NormalisationKernel normalising = NormalisationKernel.normalising(MIN_VALUES, MAX_VALUES);
+        NormalisationKernel deNormalising = NormalisationKernel.deNormalising(MIN_VALUES, MAX_VALUES);
+        Random random = new Random(5);
+        for ( int column = 0; column < MIN_VALUES.length; column++ ) {
+            Normalize normalize = new Normalize(MIN_VALUES[column], MAX_VALUES[column]);
+            DeNormalize deNormalize = new DeNormalize(MIN_VALUES[column], MAX_VALUES[column]);
+            for ( int count = 0; count < 1000; count++ ) {
+                double value = MIN_VALUES[column] + random.nextDouble() * ( MAX_VALUES[column] - MIN_VALUES[column] );
+                assertEquals(normalize.apply(value), normalising.apply(column, value), 0.0);
+                double normalised = random.nextDouble();
+                assertEquals(deNormalize.apply(normalised), deNormalising.apply(column, normalised), 0.0);
+            }
+            assertEquals(0.0, normalising.apply(column, MIN_VALUES[column]), 0.0);
+            assertEquals(1.0, normalising.apply(column, MAX_VALUES[column]), 0.0);
+        }
+    }
+
+    /**
+     * Check values out of range are refused.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testOutOfRange() {
+        NormalisationKernel.normalising(MIN_VALUES, MAX_VALUES).apply(0, 7.26);
+    }
+
+    /**
+     * Check normalised values out of range are refused.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testDeNormalisedOutOfRange() {
+        NormalisationKernel.deNormalising(MIN_VALUES, MAX_VALUES).apply(1, -0.1);
+    }
+
+    /**
+     * Check NaN is refused in bounded columns, one value or a column at a
+     * time, and kept as is in the others.
+     */
+    @Test
+    public void testNaN() {
+        boolean[] bounded = { true, false, true, true };
+        for ( NormalisationKernel kernel : new NormalisationKernel[] {
+                NormalisationKernel.normalising(MIN_VALUES, MAX_VALUES, bounded),
+                NormalisationKernel.deNormalising(MIN_VALUES, MAX_VALUES, bounded) } ) {
+            try {
+                kernel.apply(0, Double.NaN);
+                fail("Expected NaN refused.");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+            try {
+                kernel.applyToColumn(2, new double[] { MIN_VALUES[2], Double.NaN }, 2);
+                fail("Expected NaN refused.");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+            assertTrue(Double.isNaN(kernel.apply(1, Double.NaN)));
+        }
+    }
+
+    /**
+     * Check a column with the same min and max value is refused.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testSameMinMax() {
+        NormalisationKernel.normalising(new double[] { 1, 10 }, new double[] { 2, 10 });
+    }
+
+    /**
+     * Check storages of every layout, split in many tasks, are normalised
+     * and de-normalised exactly as value by value.
+     */
+    @Test
+    public void testStorages() {
+        int rows = NormalisationKernel.ROWS_PER_TASK * 3 + 17;
+        DataStorage[] storages = { new ArrayDataStorage(rows, 4), new RowMajorDataStorage(rows, 4),
+                new ColumnMajorDataStorage(rows, 4) };
+        for ( DataStorage storage : storages ) {
+            double[][] expected = new double[rows][4];
+            Random random = new Random(9);
+            for ( int row = 0; row < rows; row++ ) {
+                for ( int column = 0; column < 4; column++ ) {
+                    expected[row][column] = MIN_VALUES[column] + random.nextDouble() * ( MAX_VALUES[column] - MIN_VALUES[column] );
+                }
+                storage.writeRow(row, expected[row]);
+            }
+
+            NormalisationKernel.normalising(MIN_VALUES, MAX_VALUES).applyTo(storage);
+            double[] values = new double[4];
+            for ( int row = 0; row < rows; row++ ) {
+                storage.readRow(row, values);
+                for ( int column = 0; column < 4; column++ ) {
+                    double normalised = new Normalize(MIN_VALUES[column], MAX_VALUES[column]).apply(expected[row][column]);
+                    assertEquals(normalised, values[column], 0.0);
+                    expected[row][column] = new DeNormalize(MIN_VALUES[column], MAX_VALUES[column]).apply(normalised);
+                }
+            }
+
+            NormalisationKernel.deNormalising(MIN_VALUES, MAX_VALUES).applyTo(storage);
+            for ( int row = 0; row < rows; row++ ) {
+                storage.readRow(row, values);
+                for ( int column = 0; column < 4; column++ ) assertEquals(expected[row][column], values[column], 0.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.NormalisationMode;
+import app.core.dataSet.NormalisationStore;
+import app.core.dataSet.VectorMap;
+import app.model.serializable.DataSetFileAttributes;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing the NormalisationStore keeps the values of each data set and maps
+ * apart, never gives back damaged values, and has the values of the same
+ * data worked out only once by runs asking for them at once.
+ *
+ * @author Vasco
+ *
+ */
+public class TestNormalisationStore {
+
+    /**
+     * The test file name with header and footer.
+     */
+    private final String FILENAME = "testingResources"+File.separatorChar+"TestFileDataSetHeaderFooter.csv";
+
+    /**
+     * The folder holding the store.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The FileAttributes.
+     */
+    private FileAttributes fileAttributes;
+
+    /**
+     * The store to test.
+     */
+    private NormalisationStore store;
+
+    /**
+     * Initialising the FileAttributes and an empty store.
+     */
+    @Before
+    public void before() {
+        fileAttributes = new DataSetFileAttributes();
+        fileAttributes.setHeaderRows(2);
+        fileAttributes.setFooterRows(2);
+        fileAttributes.setTrainingRangeIndex(3, 5);
+        fileAttributes.setTestingRangeIndex(6, 7);
+        fileAttributes.setFilename(FILENAME);
+        fileAttributes.setSeparator(",");
+        store = new NormalisationStore(folder.getRoot().getPath());
+    }
+
+    /**
+     * Check values saved are loaded back exactly, and replaced.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testSaveLoad() throws IOException {
+        String key = NormalisationStore.getKey(fileAttributes, null, null, NormalisationMode.MIN_MAX);
+        assertNull(store.load(key));
+        store.save(key, new double[] { -1.5, 0.0, 3e-9 }, new double[] { 2.5, 1.0, Double.MAX_VALUE });
+        double[][] values = store.load(key);
+        assertArrayEquals(new double[] { -1.5, 0.0, 3e-9 }, values[0], 0.0);
+        assertArrayEquals(new double[] { 2.5, 1.0, Double.MAX_VALUE }, values[1], 0.0);
+
+        store.save(key, new double[] { 1 }, new double[] { 2 });
+        assertArrayEquals(new double[] { 2 }, store.load(key)[1], 0.0);
+        assertTrue(folder.getRoot().listFiles().length == 1);
+    }
+
+    /**
+     * Check keys differ for any other map, training range or mode, while sharing the
+     * prefix of the source file, and all values of the file are deleted at
+     * once.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testKeys() throws IOException {
+        List<VectorMap> outputMap = new LinkedList<>();
+        outputMap.add(new VectorMap(0, null));
+        List<String> keys = new LinkedList<>();
+        keys.add(NormalisationStore.getKey(fileAttributes, null, null, NormalisationMode.MIN_MAX));
+        keys.add(NormalisationStore.getKey(fileAttributes, outputMap, null, NormalisationMode.MIN_MAX));
+        keys.add(NormalisationStore.getKey(fileAttributes, outputMap, null, NormalisationMode.Z_SCORE));
+        fileAttributes.setTrainingRangeIndex(3, 6);
+        keys.add(NormalisationStore.getKey(fileAttributes, outputMap, null, NormalisationMode.Z_SCORE));
+        String prefix = keys.get(0).substring(0, keys.get(0).indexOf('-'));
+        for ( String key : keys ) {
+            assertTrue(key.startsWith(prefix + "-"));
+            assertTrue(keys.indexOf(key) == keys.lastIndexOf(key));
+            store.save(key, new double[] { 0 }, new double[] { 1 });
+        }
+
+        store.deleteAll(keys.get(0));
+        for ( String key : keys ) assertNull(store.load(key));
+    }
+
+    /**
+     * Check data sets differing only in their testing range use the same
+     * values, those worked out first, as the network is trained with them.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testSameValuesWhateverTestingRange() throws IOException {
+        String key = NormalisationStore.getKey(fileAttributes, null, null, NormalisationMode.MIN_MAX);
+        FileDataSet first = newDataSet(0);
+        first.load();
+        first.normalise();
+
+        FileAttributes otherTesting = new DataSetFileAttributes();
+        otherTesting.setHeaderRows(2);
+        otherTesting.setFooterRows(2);
+        otherTesting.setTrainingRangeIndex(3, 5);
+        otherTesting.setTestingRangeIndex(6, 6);
+        otherTesting.setFilename(FILENAME);
+        otherTesting.setSeparator(",");
+        assertEquals(key, NormalisationStore.getKey(otherTesting, null, null, NormalisationMode.MIN_MAX));
+
+        FileDataSet second = new FileDataSet(otherTesting);
+        List<VectorMap> outputList = new LinkedList<>();
+        outputList.add(new VectorMap(0, null));
+        second.setOutputColumns(outputList);
+        second.setNormalisationStore(store);
+        second.load();
+        second.normalise();
+        assertTrue(folder.getRoot().listFiles((directory, name) -> name.endsWith(NormalisationStore.EXTENSION)).length == 1);
+        for ( int row = 0; row < first.getNumberOfTrainingRows(); row++ ) {
+            assertArrayEquals(first.getTrainingInputRow(row), second.getTrainingInputRow(row), 0.0);
+        }
+        assertArrayEquals(first.getTestingInputRow(0), second.getTestingInputRow(0), 0.0);
+    }
+
+    /**
+     * Check a damaged entry is not used.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testDamagedEntry() throws IOException {
+        String key = NormalisationStore.getKey(fileAttributes, null, null, NormalisationMode.MIN_MAX);
+        store.save(key, new double[] { 0, 1 }, new double[] { 1, 2 });
+        try ( RandomAccessFile file = new RandomAccessFile(store.getEntryFile(key), "rw") ) {
+            file.setLength(file.length() - 1);
+        }
+        assertNull(store.load(key));
+    }
+
+    /**
+     * Check threads asking for the same values at once have them worked
+     * out only once, all getting the same values.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCalculatedOnce() throws Exception {
+        String key = NormalisationStore.getKey(fileAttributes, null, null, NormalisationMode.MIN_MAX);
+        AtomicInteger calculations = new AtomicInteger();
+        double[][][] found = new double[8][][];
+        Thread[] threads = new Thread[found.length];
+        for ( int thread = 0; thread < threads.length; thread++ ) {
+            int index = thread;
+            threads[thread] = new Thread(() -> {
+                try {
+                    found[index] = store.loadOrCalculate(key, () -> {
+                        calculations.incrementAndGet();
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return new double[][] { { index }, { index + 1 } };
+                    });
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        for ( Thread thread : threads ) thread.start();
+        for ( Thread thread : threads ) thread.join();
+        assertTrue(1 == calculations.get());
+        for ( double[][] values : found ) {
+            assertArrayEquals(found[0][0], values[0], 0.0);
+            assertArrayEquals(found[0][1], values[1], 0.0);
+        }
+    }
+
+    /**
+     * Check a data set uses the values stored for its own data and maps
+     * only, not those of other maps.
+     */
+    @Test
+    public void testDataSetValues() {
+        FileDataSet first = newDataSet(0);
+        first.load();
+        first.normalise();
+        File[] entries = folder.getRoot().listFiles((directory, name) -> name.endsWith(NormalisationStore.EXTENSION));
+        assertTrue(entries.length == 1);
+
+        FileDataSet otherMap = newDataSet(1);
+        otherMap.load();
+        otherMap.normalise();
+        entries = folder.getRoot().listFiles((directory, name) -> name.endsWith(NormalisationStore.EXTENSION));
+        assertTrue(entries.length == 2);
+
+        FileDataSet again = newDataSet(0);
+        again.load();
+        again.normalise();
+        for ( int row = 0; row < first.getNumberOfTrainingRows(); row++ ) {
+            assertArrayEquals(first.getTrainingInputRow(row), again.getTrainingInputRow(row), 0.0);
+        }
+
+        again.resetNormalisationValues();
+        assertTrue(folder.getRoot().listFiles((directory, name) -> name.endsWith(NormalisationStore.EXTENSION)).length == 0);
+    }
+
+    /**
+     * A new data set over the test file using the store, with output
+     * mapped from the given column.
+     *
+     * @param outputColumn int
+     * @return FileDataSet
+     */
+    private FileDataSet newDataSet(int outputColumn) {
+        FileDataSet dataSet = new FileDataSet(fileAttributes);
+        List<VectorMap> outputList = new LinkedList<>();
+        outputList.add(new VectorMap(outputColumn, null));
+        dataSet.setOutputColumns(outputList);
+        dataSet.setNormalisationStore(store);
+        return dataSet;
+    }
+}
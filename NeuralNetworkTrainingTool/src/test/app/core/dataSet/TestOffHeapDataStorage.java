@@ -0,0 +1,160 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.FileLoadMode;
+import app.core.dataSet.OffHeapDataStorage;
+import app.core.dataSet.OffHeapFileDataSet;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing the OffHeapDataStorage keeps rows apart across slabs, shares them
+ * through its mapped file, and the OffHeapFileDataSet holds exactly the same
+ * rows as the in memory FileDataSet.
+ *
+ * @author Vasco
+ *
+ */
+public class TestOffHeapDataStorage extends FileDataSetTestCase {
+
+    /**
+     * The test file name with header and footer.
+     */
+    private final String FILENAME = "testingResources"+File.separatorChar+"TestFileDataSetHeaderFooter.csv";
+
+    /**
+     * Initialising the FileAttributes.
+     */
+    @Before
+    public void before() {
+        useFile(FILENAME, 2, 2, 3, 5, 6, 7);
+    }
+
+    /**
+     * Check rows are kept apart across slabs of one and more rows.
+     */
+    @Test
+    public void testSlabs() {
+        for ( int rowsPerSlab : new int[] { 1, 2, 5, 100 } ) {
+            OffHeapDataStorage storage = new OffHeapDataStorage(11, 3, rowsPerSlab * 3 * Double.BYTES);
+            assertTrue(( 11 + rowsPerSlab - 1 ) / rowsPerSlab == storage.getNumberOfSlabs());
+            for ( int row = 0; row < 11; row++ ) storage.writeRow(row, new double[] { row, -row, row * 10 });
+            double[] values = new double[3];
+            for ( int row = 0; row < 11; row++ ) {
+                storage.readRow(row, values);
+                assertArrayEquals(new double[] { row, -row, row * 10 }, values, 0.0);
+                assertArrayEquals(new double[] { -row }, storage.getRow(row, 1, 2), 0.0);
+            }
+            storage.close();
+        }
+    }
+
+    /**
+     * Check rows written in one mapped storage are seen by another mapping
+     * the same file, and the file is kept once closed.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testSharedFile() throws IOException {
+        File file = folder.newFile("shared.slabs");
+        OffHeapDataStorage writer = new OffHeapDataStorage(file, 4, 2);
+        OffHeapDataStorage reader = new OffHeapDataStorage(file, 4, 2);
+        writer.writeRow(3, new double[] { 1.5, -2.5 });
+        assertArrayEquals(new double[] { 1.5, -2.5 }, reader.getRow(3, 0, 2), 0.0);
+        writer.close();
+        reader.close();
+        assertTrue(file.length() == 4 * 2 * Double.BYTES);
+    }
+
+    /**
+     * Check a closed storage cannot be used any longer.
+     */
+    @Test(expected=IllegalStateException.class)
+    public void testClosed() {
+        OffHeapDataStorage storage = new OffHeapDataStorage(2, 2);
+        storage.close();
+        storage.readRow(0, new double[2]);
+    }
+
+    /**
+     * Check threads reading while the storage is closed either read the
+     * values written or fail as closed.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void testCloseWhileReading() throws InterruptedException {
+        for ( int attempt = 0; attempt < 20; attempt++ ) {
+            OffHeapDataStorage storage = new OffHeapDataStorage(1000, 4, 4 * 8 * 100);
+            for ( int row = 0; row < 1000; row++ ) storage.writeRow(row, new double[] { row, row, row, row });
+            AtomicInteger wrong = new AtomicInteger();
+            Thread[] readers = new Thread[4];
+            for ( int reader = 0; reader < readers.length; reader++ ) {
+                readers[reader] = new Thread(() -> {
+                    double[] values = new double[4];
+                    try {
+                        for ( int row = 0; ; row = ( row + 1 ) % 1000 ) {
+                            storage.readRow(row, values);
+                            if ( values[3] != row ) wrong.incrementAndGet();
+                        }
+                    } catch (IllegalStateException e) {
+                        // Closed.
+                    }
+                });
+                readers[reader].start();
+            }
+            storage.close();
+            for ( Thread reader : readers ) reader.join();
+            assertEquals(0, wrong.get());
+        }
+    }
+
+    /**
+     * Check both direct and mapped data sets hold the same rows as in
+     * memory, also when normalised and loaded in parallel.
+     */
+    @Test
+    public void testSameAsInMemory() {
+        FileDataSet expected = newFileDataSet(fileAttributes);
+        expected.load();
+        expected.normalise();
+        for ( File mapDirectory : new File[] { null, folder.getRoot() } ) {
+            for ( FileLoadMode loadMode : FileLoadMode.values() ) {
+                OffHeapFileDataSet dataSet = withStore(new OffHeapFileDataSet(fileAttributes, mapDirectory));
+                dataSet.setLoadMode(loadMode);
+                dataSet.load();
+                dataSet.normalise();
+                assertSameRows(expected, dataSet);
+                dataSet.close();
+            }
+        }
+        assertFalse(folder.getRoot().listFiles().length > 0);
+    }
+
+    /**
+     * Check reloading a mapped data set leaves only the files of the storages
+     * in use behind, and closing it none.
+     */
+    @Test
+    public void testReloadReleasesFiles() {
+        OffHeapFileDataSet dataSet = withStore(new OffHeapFileDataSet(fileAttributes, folder.getRoot()));
+        for ( int load = 0; load < 5; load++ ) {
+            dataSet.load();
+            assertEquals(2, folder.getRoot().listFiles().length);
+        }
+        dataSet.close();
+        assertEquals(0, folder.getRoot().listFiles().length);
+    }
+}
@@ -0,0 +1,168 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.FileLoadMode;
+import app.core.dataSet.PagedDataStorage;
+import app.core.dataSet.PagedFileDataSet;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing the PagedFileDataSet holds exactly the same rows as the in memory
+ * FileDataSet, while only ever keeping a few pages of rows in memory.
+ *
+ * @author Vasco
+ *
+ */
+public class TestPagedFileDataSet extends FileDataSetTestCase {
+
+    /**
+     * The number of rows in the test file.
+     */
+    private final int ROWS = 50;
+
+    /**
+     * Writing the test file and initialising the FileAttributes.
+     *
+     * @throws IOException
+     */
+    @Before
+    public void before() throws IOException {
+        File file = writeFile("paged.csv", "a,b,c", ROWS, row -> row+","+(row * 0.5)+","+(ROWS - row));
+        useFile(file.getPath(), 1, 0, 2, 41, 42, ROWS + 1);
+    }
+
+    /**
+     * A new data set with pages of two rows, only one of which in memory.
+     *
+     * @return PagedFileDataSet
+     */
+    private PagedFileDataSet newDataSet() {
+        return withStore(new PagedFileDataSet(fileAttributes, folder.getRoot(), 2, 1));
+    }
+
+    /**
+     * Check the same rows are loaded as in memory.
+     */
+    @Test
+    public void testSameRowsAsInMemory() {
+        FileDataSet expected = newFileDataSet(fileAttributes);
+        expected.load();
+        PagedFileDataSet paged = newDataSet();
+        paged.load();
+        assertSameRows(expected, paged);
+        assertTrue(paged.getPagesRead() > ROWS / 2);
+        paged.close();
+    }
+
+    /**
+     * Check the same rows are loaded in parallel as in memory.
+     */
+    @Test
+    public void testSameRowsParallel() {
+        FileDataSet expected = newFileDataSet(fileAttributes);
+        expected.load();
+        PagedFileDataSet paged = newDataSet();
+        paged.setLoadMode(FileLoadMode.PARALLEL_MAPPED);
+        paged.load();
+        assertSameRows(expected, paged);
+        paged.close();
+    }
+
+    /**
+     * Check normalising and de-normalising pages gives the same values as
+     * in memory.
+     */
+    @Test
+    public void testSameNormalisedAsInMemory() {
+        FileDataSet expected = newFileDataSet(fileAttributes);
+        expected.load();
+        expected.normalise();
+        newFileDataSet(fileAttributes).resetNormalisationValues();
+        PagedFileDataSet paged = newDataSet();
+        paged.load();
+        paged.normalise();
+        assertSameRows(expected, paged);
+
+        expected.deNormalise();
+        paged.deNormalise();
+        assertSameRows(expected, paged);
+        paged.close();
+    }
+
+    /**
+     * Check changed rows survive their page being evicted.
+     */
+    @Test
+    public void testWriteBack() {
+        PagedDataStorage storage = new PagedDataStorage(folder.getRoot(), 7, 3, 2, 1);
+        for ( int row = 0; row < 7; row++ ) storage.writeRow(row, new double[] { row, -row, row * 2 });
+        double[] values = new double[3];
+        for ( int row = 6; row >= 0; row-- ) {
+            storage.readRow(row, values);
+            assertArrayEquals(new double[] { row, -row, row * 2 }, values, 0.0);
+            assertArrayEquals(new double[] { -row, row * 2 }, storage.getRow(row, 1, 3), 0.0);
+        }
+        storage.close();
+    }
+
+    /**
+     * Check loading again closes the storages replaced, leaving only the
+     * page files in use, and none once closed.
+     */
+    @Test
+    public void testReloadReleasesPages() {
+        PagedFileDataSet paged = newDataSet();
+        for ( int load = 0; load < 5; load++ ) {
+            paged.load();
+            assertEquals(2, countPageFiles());
+        }
+        paged.loadNormalised();
+        assertEquals(2, countPageFiles());
+        paged.close();
+        assertEquals(0, countPageFiles());
+    }
+
+    /**
+     * The number of page files in the test folder.
+     *
+     * @return int
+     */
+    private int countPageFiles() {
+        return folder.getRoot().list((directory, name) -> name.endsWith(".pages")).length;
+    }
+
+    /**
+     * Check rows never written are all zeros.
+     */
+    @Test
+    public void testUnwrittenRows() {
+        PagedDataStorage storage = new PagedDataStorage(folder.getRoot(), 5, 2, 2, 1);
+        storage.writeRow(0, new double[] { 1, 2 });
+        assertArrayEquals(new double[2], storage.getRow(4, 0, 2), 0.0);
+        assertArrayEquals(new double[] { 1, 2 }, storage.getRow(0, 0, 2), 0.0);
+        storage.close();
+    }
+
+    /**
+     * Check rows out of range are not accepted.
+     */
+    @Test(expected=ArrayIndexOutOfBoundsException.class)
+    public void testRowOutOfRange() {
+        PagedDataStorage storage = new PagedDataStorage(folder.getRoot(), 5, 2, 2, 1);
+        try {
+            storage.readRow(5, new double[2]);
+        } finally {
+            storage.close();
+        }
+    }
+}
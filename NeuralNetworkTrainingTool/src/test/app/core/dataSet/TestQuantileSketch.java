@@ -0,0 +1,107 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import app.core.dataSet.QuantileSketch;
+
+/**
+ * Testing the QuantileSketch answers quantiles within its error of rank,
+ * keeps a bounded number of values, and merges as if all values were added
+ * to one sketch.
+ *
+ * @author Vasco
+ *
+ */
+public class TestQuantileSketch {
+
+    /**
+     * The error of rank allowed.
+     */
+    private final double RANK_ERROR = 0.02;
+
+    /**
+     * The quantiles checked.
+     */
+    private final double[] QUANTILES = { 0.0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1.0 };
+
+    /**
+     * Check the quantiles of many values are within the error of rank.
+     */
+    @Test
+    public void testAccuracy() {
+        Random random = new Random(17);
+        double[] values = new double[200000];
+        QuantileSketch sketch = new QuantileSketch();
+        for ( int index = 0; index < values.length; index++ ) {
+            values[index] = random.nextGaussian() * 10 + 100;
+            sketch.add(values[index]);
+        }
+        assertTrue(values.length == sketch.getCount());
+        assertQuantiles(values, sketch);
+    }
+
+    /**
+     * Check merging sketches of values added apart is as accurate as adding
+     * all of them to one sketch.
+     */
+    @Test
+    public void testMerge() {
+        Random random = new Random(19);
+        double[] values = new double[100000];
+        QuantileSketch[] parts = { new QuantileSketch(), new QuantileSketch(), new QuantileSketch() };
+        for ( int index = 0; index < values.length; index++ ) {
+            values[index] = random.nextDouble() * random.nextDouble();
+            parts[index < 10 ? 0 : index < 60000 ? 1 : 2].add(values[index]);
+        }
+        QuantileSketch merged = new QuantileSketch();
+        for ( QuantileSketch part : parts ) merged.merge(part);
+        assertTrue(values.length == merged.getCount());
+        assertQuantiles(values, merged);
+    }
+
+    /**
+     * Check a few values are kept exactly, and an empty sketch has no
+     * quantiles.
+     */
+    @Test
+    public void testFewValues() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        for ( double value : new double[] { 5, 1, 4, 2, 3 } ) sketch.add(value);
+        assertEquals(1.0, sketch.getQuantile(0.0), 0.0);
+        assertEquals(3.0, sketch.getQuantile(0.5), 0.0);
+        assertEquals(5.0, sketch.getQuantile(1.0), 0.0);
+    }
+
+    /**
+     * Check quantiles out of range are refused.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testOutOfRange() {
+        new QuantileSketch().getQuantile(1.5);
+    }
+
+    /**
+     * Asserting each quantile of the sketch has about the expected fraction
+     * of the values below it.
+     *
+     * @param values double[]
+     * @param sketch QuantileSketch
+     */
+    private void assertQuantiles(double[] values, QuantileSketch sketch) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for ( double quantile : QUANTILES ) {
+            double found = sketch.getQuantile(quantile);
+            int below = Arrays.binarySearch(sorted, found);
+            assertTrue(below >= 0);
+            assertEquals(quantile, (double) below / sorted.length, RANK_ERROR);
+        }
+    }
+}
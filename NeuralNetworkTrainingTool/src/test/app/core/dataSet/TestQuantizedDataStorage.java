@@ -0,0 +1,175 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.ColumnPrecision;
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.MathOperatorFactory;
+import app.core.dataSet.MathOperatorKey;
+import app.core.dataSet.NormalisationMode;
+import app.core.dataSet.QuantizedDataStorage;
+import app.core.dataSet.VectorMap;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing the QuantizedDataStorage keeps each column in its precision, and
+ * FileDataSet gives the same values as in double within that precision.
+ *
+ * @author Vasco
+ *
+ */
+public class TestQuantizedDataStorage extends FileDataSetTestCase {
+
+    /**
+     * The test file name with header and footer.
+     */
+    private final String FILENAME = "testingResources"+File.separatorChar+"TestFileDataSetHeaderFooter.csv";
+
+    /**
+     * One column of each precision.
+     */
+    private final ColumnPrecision[] PRECISIONS = {
+            ColumnPrecision.BIT, ColumnPrecision.FLOAT, ColumnPrecision.FIXED16, ColumnPrecision.DOUBLE };
+
+    /**
+     * Initialising the FileAttributes.
+     */
+    @Before
+    public void before() {
+        useFile(FILENAME, 2, 2, 3, 5, 6, 7);
+    }
+
+    /**
+     * A new data set with a BIN mapped output from column zero.
+     *
+     * @param precisions ColumnPrecision[]
+     * @return FileDataSet
+     */
+    private FileDataSet newDataSet(ColumnPrecision[] precisions) {
+        FileDataSet dataSet = newFileDataSet(fileAttributes);
+        List<VectorMap> outputList = new LinkedList<>();
+        outputList.add(new VectorMap(0, MathOperatorFactory.getMathOperation(MathOperatorKey.BIN)));
+        dataSet.setOutputColumns(outputList);
+        dataSet.setColumnPrecisions(precisions);
+        return dataSet;
+    }
+
+    /**
+     * Check each precision keeps its values as expected.
+     */
+    @Test
+    public void testPrecisions() {
+        QuantizedDataStorage storage = new QuantizedDataStorage(70, PRECISIONS);
+        for ( int row = 0; row < 70; row++ ) {
+            storage.writeRow(row, new double[] { row % 2, 0.1 * row, row / 69.0, 0.1 * row });
+        }
+        double[] values = new double[4];
+        for ( int row = 0; row < 70; row++ ) {
+            storage.readRow(row, values);
+            assertTrue(row % 2 == values[0]);
+            assertTrue((float) ( 0.1 * row ) == values[1]);
+            assertEquals(row / 69.0, values[2], 0.5 / 65535);
+            assertTrue(0.1 * row == values[3]);
+        }
+        assertArrayEquals(new double[] { 1.0, (float) 6.9 }, storage.getRow(69, 0, 2), 0.0);
+        assertEquals(70 / 8 + 70 * 4 + 70 * 2 + 70 * 8, storage.getSizeInBytes(), 70 / 8);
+    }
+
+    /**
+     * Check a BIT column only takes 0 or 1.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testNotBinary() {
+        new QuantizedDataStorage(1, PRECISIONS).writeRow(0, new double[] { 2, 0, 0, 0 });
+    }
+
+    /**
+     * Check a FIXED16 column only takes values in [0, 1].
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testFixedOutOfRange() {
+        new QuantizedDataStorage(1, PRECISIONS).writeRow(0, new double[] { 0, 0, 1.5, 0 });
+    }
+
+    /**
+     * Check the data set gives the same normalised and de-normalised values
+     * as in double, within the precision of each column.
+     */
+    @Test
+    public void testSameAsDouble() {
+        FileDataSet expected = newDataSet(null);
+        expected.load();
+        expected.normalise();
+        newFileDataSet(fileAttributes).resetNormalisationValues();
+        FileDataSet quantized = newDataSet(PRECISIONS);
+        quantized.load();
+        quantized.normalise();
+        assertClose(expected, quantized, 1.0 / 65535);
+
+        // Columns range over 4.0 once de-normalised.
+        expected.deNormalise();
+        quantized.deNormalise();
+        assertClose(expected, quantized, 4.0 / 65535);
+    }
+
+    /**
+     * Check FIXED16 input columns are kept as FLOAT when not normalised into
+     * 0 and 1, giving the same values as in double within that precision.
+     */
+    @Test
+    public void testUnboundedFixedKeptAsFloat() {
+        for ( NormalisationMode mode : new NormalisationMode[] { NormalisationMode.Z_SCORE, NormalisationMode.ROBUST } ) {
+            newFileDataSet(fileAttributes).resetNormalisationValues();
+            FileDataSet expected = newDataSet(null);
+            expected.setNormalisationMode(mode);
+            expected.load();
+            expected.normalise();
+            newFileDataSet(fileAttributes).resetNormalisationValues();
+            FileDataSet quantized = newDataSet(PRECISIONS);
+            quantized.setNormalisationMode(mode);
+            quantized.load();
+            quantized.normalise();
+            assertClose(expected, quantized, 1e-5);
+
+            expected.deNormalise();
+            quantized.deNormalise();
+            assertClose(expected, quantized, 1e-5);
+        }
+    }
+
+    /**
+     * Check the precisions must match the columns.
+     */
+    @Test(expected=IllegalStateException.class)
+    public void testWrongNumberOfPrecisions() {
+        newDataSet(new ColumnPrecision[] { ColumnPrecision.FLOAT }).load();
+    }
+
+    /**
+     * Asserting both data sets hold the same outputs, and the same inputs
+     * within the given delta.
+     *
+     * @param expected FileDataSet
+     * @param found FileDataSet
+     * @param delta double
+     */
+    private void assertClose(FileDataSet expected, FileDataSet found, double delta) {
+        for ( int row = 0; row < expected.getNumberOfTrainingRows(); row++ ) {
+            assertArrayEquals(expected.getTrainingOutputRow(row), found.getTrainingOutputRow(row), 0.0);
+            assertArrayEquals(expected.getTrainingInputRow(row), found.getTrainingInputRow(row), delta);
+        }
+        for ( int row = 0; row < expected.getNumberOfTestingRows(); row++ ) {
+            assertArrayEquals(expected.getTestingOutputRow(row), found.getTestingOutputRow(row), 0.0);
+            assertArrayEquals(expected.getTestingInputRow(row), found.getTestingInputRow(row), delta);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.mathutil.randomize.ConsistentRandomizer;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+import org.encog.neural.pattern.FeedForwardPattern;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.FileLoadMode;
+import app.core.dataSet.MathOperatorFactory;
+import app.core.dataSet.MathOperatorKey;
+import app.core.dataSet.MultiColumnOperatorCore;
+import app.core.dataSet.NormalisationMode;
+import app.core.dataSet.RowBlock;
+import app.core.dataSet.RowBlockPipeline;
+import app.core.dataSet.VectorMap;
+import app.core.encog.EncogMLDataSetPipelineAdaptor;
+import app.core.encog.EncogMLDataSetTrainingAdaptor;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing the RowBlockPipeline streams exactly the rows loaded and
+ * normalised by the FileDataSet, in order, cycling over them if asked, and
+ * the Encog adaptor over it trains as the in memory one does.
+ *
+ * @author Vasco
+ *
+ */
+public class TestRowBlockPipeline extends FileDataSetTestCase {
+
+    /**
+     * The number of data rows in the test file.
+     */
+    private final int ROWS = 500;
+
+    /**
+     * Writing the test file, with one header row, and initialising the
+     * FileAttributes.
+     *
+     * @throws IOException
+     */
+    @Before
+    public void before() throws IOException {
+        File file = writeRandomFile("pipeline.csv", "class,a,b", ROWS, 11);
+        useFile(file.getPath(), 1, 0, 2, 401, 402, ROWS + 1);
+    }
+
+    /**
+     * Check the rows streamed are those loaded and normalised, whatever the
+     * block size, both with the min and max values found by the pipeline
+     * and with those saved.
+     */
+    @Test
+    public void testSameAsLoaded() {
+        FileDataSet streamed = newDataSet();
+        RowBlockPipeline first = streamed.openTrainingPipeline(7, 3);
+        first.close();
+
+        FileDataSet expected = newDataSet();
+        expected.load();
+        expected.normalise();
+
+        for ( int rowsPerBlock : new int[] { 1, 7, 64, 1000 } ) {
+            try ( RowBlockPipeline pipeline = newDataSet().openTrainingPipeline(rowsPerBlock, 2) ) {
+                List<double[]> rows = readAll(pipeline, 0, pipeline.getNumberOfRows());
+                assertTrue(expected.getNumberOfTrainingRows() == rows.size());
+                for ( int row = 0; row < rows.size(); row++ ) {
+                    assertArrayEquals(expected.getTrainingOutputRow(row), Arrays.copyOfRange(rows.get(row), 0, 1), 0.0);
+                    assertArrayEquals(expected.getTrainingInputRow(row), Arrays.copyOfRange(rows.get(row), 1, 3), 0.0);
+                }
+            }
+            try ( RowBlockPipeline pipeline = newDataSet().openTestingPipeline(rowsPerBlock, 4) ) {
+                List<double[]> rows = readAll(pipeline, 0, pipeline.getNumberOfRows());
+                assertTrue(expected.getNumberOfTestingRows() == rows.size());
+                for ( int row = 0; row < rows.size(); row++ ) {
+                    assertArrayEquals(expected.getTestingOutputRow(row), Arrays.copyOfRange(rows.get(row), 0, 1), 0.0);
+                    assertArrayEquals(expected.getTestingInputRow(row), Arrays.copyOfRange(rows.get(row), 1, 3), 0.0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check a cycling pipeline streams the same rows over and over, and
+     * blocks released after reopening are ignored.
+     */
+    @Test
+    public void testCycle() {
+        try ( RowBlockPipeline pipeline = newDataSet().openTrainingPipeline(4, 2) ) {
+            pipeline.open(0, 50, false);
+            RowBlock stale = pipeline.take();
+            pipeline.open(10, 21, true);
+            pipeline.release(stale);
+            List<Integer> firstRows = new LinkedList<>();
+            for ( int block = 0; block < 9; block++ ) {
+                RowBlock rows = pipeline.take();
+                firstRows.add(rows.getFirstRow());
+                pipeline.release(rows);
+            }
+            assertEquals(Arrays.asList(10, 14, 18, 10, 14, 18, 10, 14, 18), firstRows);
+        }
+    }
+
+    /**
+     * Check columns derived from others, a block at a time, are those of the
+     * maps row by row, the rows dividing by a zero class given the value set
+     * for it, whether loaded in any mode or streamed.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testDerivedColumnsInBlocks() throws IOException {
+        int rows = 2 * RowBlockPipeline.DEFAULT_ROWS_PER_BLOCK + 100;
+        File file = writeRandomFile("derived.csv", null, rows, 13);
+        useFile(file.getPath(), 0, 0, 1, rows - 50, rows - 49, rows);
+        MultiColumnOperatorCore<?> ratio = (MultiColumnOperatorCore<?>) MathOperatorFactory.getMathOperation(MathOperatorKey.RATIO);
+        ratio.setOtherSourceIndexes(0);
+        ratio.setBiasValue(-2.0);
+        MultiColumnOperatorCore<?> product = (MultiColumnOperatorCore<?>) MathOperatorFactory.getMathOperation(MathOperatorKey.PRODUCT);
+        product.setOtherSourceIndexes(1, 2);
+        List<VectorMap> inputMap = new LinkedList<>();
+        inputMap.add(new VectorMap(1, ratio));
+        inputMap.add(new VectorMap(2, product));
+        inputMap.add(new VectorMap(2, MathOperatorFactory.getMathOperation(MathOperatorKey.LOG1P)));
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        double[][] expected = new double[rows - 50][];
+        for ( int row = 0; row < expected.length; row++ ) {
+            double[] source = Arrays.stream(lines.get(row).split(",")).mapToDouble(Double::parseDouble).toArray();
+            expected[row] = new double[inputMap.size()];
+            for ( int column = 0; column < inputMap.size(); column++ ) expected[row][column] = inputMap.get(column).getTargetValue(source);
+        }
+
+        for ( int load = 0; load < 3; load++ ) {
+            FileDataSet dataSet = newDataSet();
+            dataSet.setInputColumns(inputMap);
+            dataSet.setLoadMode(load == 1 ? FileLoadMode.PARALLEL_MAPPED : FileLoadMode.SEQUENTIAL);
+            fileAttributes.setUseRowIndex(load == 2);
+            dataSet.load();
+            for ( int row = 0; row < expected.length; row++ ) {
+                assertArrayEquals(expected[row], dataSet.getTrainingInputRow(row), 0.0);
+            }
+        }
+        fileAttributes.setUseRowIndex(false);
+
+        FileDataSet streamed = newDataSet();
+        streamed.setInputColumns(inputMap);
+        streamed.setNormalisationMode(NormalisationMode.Z_SCORE);
+        FileDataSet expectedNormalised = newDataSet();
+        expectedNormalised.setInputColumns(inputMap);
+        expectedNormalised.setNormalisationMode(NormalisationMode.Z_SCORE);
+        expectedNormalised.load();
+        expectedNormalised.normalise();
+        try ( RowBlockPipeline pipeline = streamed.openTrainingPipeline(500, 3) ) {
+            List<double[]> streamedRows = readAll(pipeline, 0, pipeline.getNumberOfRows());
+            assertEquals(expected.length, streamedRows.size());
+            for ( int row = 0; row < expected.length; row++ ) {
+                assertArrayEquals(expectedNormalised.getTrainingInputRow(row), Arrays.copyOfRange(streamedRows.get(row), 1, 4), 0.0);
+            }
+        }
+    }
+
+    /**
+     * Check a range past the end of the file fails while streaming.
+     */
+    @Test(expected=ArrayIndexOutOfBoundsException.class)
+    public void testShortFile() {
+        fileAttributes.setTestingRangeIndex(402, ROWS + 10);
+        try ( RowBlockPipeline pipeline = newDataSet().openTestingPipeline(16, 2) ) {
+            readAll(pipeline, 0, pipeline.getNumberOfRows());
+        }
+    }
+
+    /**
+     * Check each adaptor opened streams the rows of its range over and over,
+     * as read by the Encog training threads.
+     */
+    @Test
+    public void testAdaptorRanges() {
+        FileDataSet expected = newDataSet();
+        expected.load();
+        expected.normalise();
+
+        EncogMLDataSetPipelineAdaptor adaptor = new EncogMLDataSetPipelineAdaptor(newDataSet(), 16, 3);
+        assertTrue(400 == adaptor.getRecordCount());
+        assertTrue(1 == adaptor.getIdealSize() && 2 == adaptor.getInputSize());
+        MLDataSet[] workers = { adaptor.openAdditional(), adaptor.openAdditional() };
+        int[][] ranges = { { 0, 199 }, { 200, 399 } };
+        MLDataPair pair = BasicMLDataPair.createPair(2, 1);
+        for ( int iteration = 0; iteration < 3; iteration++ ) {
+            for ( int worker = 0; worker < workers.length; worker++ ) {
+                for ( int row = ranges[worker][0]; row <= ranges[worker][1]; row++ ) {
+                    workers[worker].getRecord(row, pair);
+                    assertArrayEquals(expected.getTrainingInputRow(row), pair.getInputArray(), 0.0);
+                    assertArrayEquals(expected.getTrainingOutputRow(row), pair.getIdealArray(), 0.0);
+                }
+            }
+        }
+        adaptor.close();
+    }
+
+    /**
+     * Check each adaptor opened for a training thread parses with as many
+     * threads as PARSERS_PER_WORKER, and stops them once closed, on its own
+     * or with the adaptor it was opened from.
+     */
+    @Test
+    public void testAdaptorThreads() {
+        EncogMLDataSetPipelineAdaptor adaptor = new EncogMLDataSetPipelineAdaptor(newDataSet(), 16, 3);
+        MLDataSet[] workers = { adaptor.openAdditional(), adaptor.openAdditional(), adaptor.openAdditional() };
+        MLDataPair pair = BasicMLDataPair.createPair(2, 1);
+        for ( MLDataSet worker : workers ) worker.getRecord(0, pair);
+        assertEquals(3 * EncogMLDataSetPipelineAdaptor.PARSERS_PER_WORKER, countParserThreads());
+        workers[0].close();
+        assertEquals(2 * EncogMLDataSetPipelineAdaptor.PARSERS_PER_WORKER, countParserThreads());
+        adaptor.close();
+        assertEquals(0, countParserThreads());
+    }
+
+    /**
+     * The number of pipeline parser threads running.
+     *
+     * @return int
+     */
+    private int countParserThreads() {
+        int parsers = 0;
+        for ( Thread thread : Thread.getAllStackTraces().keySet() ) {
+            if ( thread.isAlive() && thread.getName().startsWith("RowBlockPipeline-parser-") ) parsers++;
+        }
+        return parsers;
+    }
+
+    /**
+     * Check training over the streamed rows gives exactly the same errors as
+     * training over the rows loaded in memory.
+     */
+    @Test
+    public void testRecordsInPlace() {
+        FileDataSet loaded = newDataSet();
+        loaded.load();
+        loaded.normalise();
+        EncogMLDataSetTrainingAdaptor adaptor = new EncogMLDataSetTrainingAdaptor(loaded);
+        MLDataPair pair = BasicMLDataPair.createPair(2, 1);
+        double[] input = pair.getInputArray();
+        double[] ideal = pair.getIdealArray();
+        for ( int row = 0; row < adaptor.getRecordCount(); row++ ) {
+            adaptor.getRecord(row, pair);
+            assertTrue(input == pair.getInputArray() && ideal == pair.getIdealArray());
+            assertArrayEquals(loaded.getTrainingInputRow(row), input, 0.0);
+            assertArrayEquals(loaded.getTrainingOutputRow(row), ideal, 0.0);
+        }
+
+        int row = 0;
+        for ( MLDataPair next : adaptor ) {
+            assertArrayEquals(loaded.getTrainingInputRow(row), next.getInputArray(), 0.0);
+            assertArrayEquals(loaded.getTrainingOutputRow(row), next.getIdealArray(), 0.0);
+            row++;
+        }
+        assertTrue(row == adaptor.getRecordCount());
+
+        EncogMLDataSetPipelineAdaptor streamed = new EncogMLDataSetPipelineAdaptor(newDataSet(), 16, 3);
+        row = 0;
+        for ( MLDataPair next : streamed ) {
+            assertArrayEquals(loaded.getTrainingInputRow(row), next.getInputArray(), 0.0);
+            row++;
+        }
+        assertTrue(row == streamed.getRecordCount());
+        streamed.close();
+    }
+
+    @Test
+    public void testSameTraining() {
+        FileDataSet loaded = newDataSet();
+        loaded.load();
+        loaded.normalise();
+        EncogMLDataSetPipelineAdaptor streamed = new EncogMLDataSetPipelineAdaptor(newDataSet(), 32, 4);
+
+        double[] expected = train(new EncogMLDataSetTrainingAdaptor(loaded));
+        double[] found = train(streamed);
+        streamed.close();
+        assertArrayEquals(expected, found, 0.0);
+    }
+
+    /**
+     * The errors of a few iterations of training a small network.
+     *
+     * @param trainingSet MLDataSet
+     * @return double[]
+     */
+    private double[] train(MLDataSet trainingSet) {
+        FeedForwardPattern pattern = new FeedForwardPattern();
+        pattern.setInputNeurons(2);
+        pattern.addHiddenLayer(4);
+        pattern.setOutputNeurons(1);
+        pattern.setActivationFunction(new ActivationSigmoid());
+        BasicNetwork network = (BasicNetwork) pattern.generate();
+        new ConsistentRandomizer(-1, 1, 100).randomize(network);
+
+        ResilientPropagation training = new ResilientPropagation(network, trainingSet);
+        training.setThreadCount(2);
+        double[] errors = new double[5];
+        for ( int iteration = 0; iteration < errors.length; iteration++ ) {
+            training.iteration();
+            errors[iteration] = training.getError();
+        }
+        training.finishTraining();
+        return errors;
+    }
+
+    /**
+     * A new data set over the test file, the first column as output.
+     *
+     * @return FileDataSet
+     */
+    private FileDataSet newDataSet() {
+        FileDataSet dataSet = newFileDataSet(fileAttributes);
+        List<VectorMap> outputMap = new LinkedList<>();
+        outputMap.add(new VectorMap(0, null));
+        dataSet.setOutputColumns(outputMap);
+        return dataSet;
+    }
+
+    /**
+     * Reads all rows of the given range through the pipeline.
+     *
+     * @param pipeline RowBlockPipeline
+     * @param fromRow int
+     * @param toRow int
+     * @return List of double[]
+     */
+    private List<double[]> readAll(RowBlockPipeline pipeline, int fromRow, int toRow) {
+        pipeline.open(fromRow, toRow, false);
+        List<double[]> rows = new LinkedList<>();
+        RowBlock block;
+        while ( ( block = pipeline.take() ) != null ) {
+            for ( int row = 0; row < block.getNumberOfRows(); row++ ) {
+                rows.add(block.getRow(row, 0, block.getNumberOfColumns()));
+            }
+            pipeline.release(block);
+        }
+        assertNull(pipeline.take());
+        return rows;
+    }
+}
@@ -0,0 +1,179 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import app.core.dataSet.ByteLineReader;
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.RowOffsetIndex;
+import app.model.serializable.DataSetFileAttributes;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing the RowOffsetIndex reaches every row the same as reading all rows
+ * before it, and the sidecar file is only trusted while up to date.
+ *
+ * @author Vasco
+ *
+ */
+public class TestRowOffsetIndex {
+
+    /**
+     * The test file with header and footer.
+     */
+    private final String SOURCE = "testingResources"+File.separatorChar+"TestFileDataSetHeaderFooter.csv";
+
+    /**
+     * Folder for the copies of the test file and their sidecar files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The copy of the test file.
+     */
+    private String filename;
+
+    /**
+     * The lines of the test file.
+     */
+    private List<String> lines;
+
+    /**
+     * Copying the test file so no sidecar file is left in resources.
+     *
+     * @throws IOException
+     */
+    @Before
+    public void before() throws IOException {
+        File copy = folder.newFile("data.csv");
+        Files.copy(Paths.get(SOURCE), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        filename = copy.getPath();
+        lines = Files.readAllLines(copy.toPath(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Check every row is reached for every stride.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testOpenAtAllRows() throws IOException {
+        for ( int stride = 1; stride <= lines.size() + 1; stride++ ) {
+            RowOffsetIndex index = RowOffsetIndex.build(filename, stride);
+            assertTrue(index.getTotalRows() == lines.size());
+            for ( int row = 1; row <= lines.size(); row++ ) {
+                try ( ByteLineReader lineReader = index.openAt(filename, row) ) {
+                    assertTrue(lineReader.readLine());
+                    assertTrue(lines.get(row - 1).equals(lineReader.getLine()));
+                }
+            }
+            try ( ByteLineReader lineReader = index.openAt(filename, lines.size() + 1) ) {
+                assertFalse(lineReader.readLine());
+            }
+        }
+    }
+
+    /**
+     * Check the sidecar file is saved, without leaving temporary files
+     * behind, reused, and ignored once the file changes.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testSidecarFile() throws IOException {
+        assertNull(RowOffsetIndex.loadIfValid(filename));
+        RowOffsetIndex.open(filename);
+        assertTrue(RowOffsetIndex.getIndexFile(filename).isFile());
+        assertTrue(0 == new File(filename).getAbsoluteFile().getParentFile().list((dir, name) -> name.endsWith(".tmp")).length);
+        assertNotNull(RowOffsetIndex.loadIfValid(filename));
+
+        Files.write(Paths.get(filename), "9.0,9.1\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        assertNull(RowOffsetIndex.loadIfValid(filename));
+        assertTrue(RowOffsetIndex.open(filename).getTotalRows() == lines.size() + 1);
+    }
+
+    /**
+     * Check the FileDataSet loads the same through the index as without.
+     */
+    @Test
+    public void testFileDataSetIndexed() {
+        FileAttributes fileAttributes = new DataSetFileAttributes();
+        fileAttributes.setHeaderRows(2);
+        fileAttributes.setFooterRows(2);
+        fileAttributes.setTestingRangeIndex(3, 4);
+        fileAttributes.setTrainingRangeIndex(5, 7);
+        fileAttributes.setFilename(filename);
+        fileAttributes.setSeparator(",");
+
+        FileDataSet sequential = new FileDataSet(fileAttributes);
+        sequential.load();
+        fileAttributes.setUseRowIndex(true);
+        FileDataSet indexed = new FileDataSet(fileAttributes);
+        indexed.load();
+
+        for ( int row = 0; row < 3; row++ ) {
+            assertArrayEquals(sequential.getTrainingInputRow(row), indexed.getTrainingInputRow(row), 0.0);
+        }
+        for ( int row = 0; row < 2; row++ ) {
+            assertArrayEquals(sequential.getTestingInputRow(row), indexed.getTestingInputRow(row), 0.0);
+        }
+    }
+
+    /**
+     * Check the preview of the first rows is the same through the index as
+     * without, and builds no index of its own.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testFirstDataRowsIndexed() throws IOException {
+        DataSetFileAttributes fileAttributes = new DataSetFileAttributes();
+        fileAttributes.setHeaderRows(2);
+        fileAttributes.setFilename(filename);
+        fileAttributes.setSeparator(",");
+        List<List<String>> sequential = fileAttributes.getFirstDataRows(3);
+
+        fileAttributes.setUseRowIndex(true);
+        assertEquals(sequential, fileAttributes.getFirstDataRows(3));
+        assertFalse(RowOffsetIndex.getIndexFile(filename).exists());
+
+        RowOffsetIndex.open(filename);
+        assertEquals(sequential, fileAttributes.getFirstDataRows(3));
+    }
+
+    /**
+     * Check exception on attempting to load more rows than those in file.
+     */
+    @Test(expected=ArrayIndexOutOfBoundsException.class)
+    public void testFileDataSetIndexedMoreThanAvailable() throws IOException {
+        File noFooter = folder.newFile("noFooter.csv");
+        Files.write(noFooter.toPath(), lines.subList(2, 7), StandardCharsets.UTF_8);
+        FileAttributes fileAttributes = new DataSetFileAttributes();
+        fileAttributes.setTrainingRangeIndex(1, 2);
+        fileAttributes.setTestingRangeIndex(3, 12);
+        fileAttributes.setFilename(noFooter.getPath());
+        fileAttributes.setSeparator(",");
+        fileAttributes.setUseRowIndex(true);
+        new FileDataSet(fileAttributes).load();
+    }
+}
@@ -0,0 +1,133 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import app.core.dataSet.MathOperatorCore;
+import app.core.dataSet.MathOperatorFactory;
+import app.core.dataSet.MathOperatorKey;
+import app.core.dataSet.MultiColumnOperatorCore;
+import app.core.dataSet.RowTransform;
+import app.core.dataSet.VectorMap;
+
+/**
+ * Testing the RowTransform gives exactly the values of going through each
+ * VectorMap in turn, copying runs of plain maps at once, one row at a time
+ * as well as a column at a time over a block of rows.
+ *
+ * @author Vasco
+ *
+ */
+public class TestRowTransform {
+
+    /**
+     * Check random maps, with and without transformations, some deriving
+     * columns from others, some of these dividing by zero, give the same
+     * vectors as the maps themselves, row by row and over a block.
+     */
+    @Test
+    public void testSameAsMaps() {
+        Random random = new Random(29);
+        MathOperatorKey[] keys = MathOperatorKey.values();
+        for ( int attempt = 0; attempt < 50; attempt++ ) {
+            List<VectorMap> outputMap = new LinkedList<>();
+            List<VectorMap> inputMap = new LinkedList<>();
+            int sourceColumns = 1 + random.nextInt(20);
+            for ( List<VectorMap> columnMap : Arrays.asList(outputMap, inputMap) ) {
+                int columns = random.nextInt(10);
+                int source = random.nextInt(sourceColumns);
+                for ( int column = 0; column < columns; column++ ) {
+                    // Mostly runs of consecutive plain columns.
+                    if ( random.nextInt(4) == 0 ) source = random.nextInt(sourceColumns);
+                    MathOperatorCore<?> transform = null;
+                    if ( random.nextInt(3) == 0 ) {
+                        transform = MathOperatorFactory.getMathOperation(keys[random.nextInt(keys.length)]);
+                        transform.setBiasValue(random.nextInt(5) + 0.5);
+                        if ( transform instanceof MultiColumnOperatorCore ) {
+                            ((MultiColumnOperatorCore<?>) transform).setOtherSourceIndexes(random.nextInt(sourceColumns),
+                                    random.nextInt(sourceColumns));
+                        }
+                    }
+                    columnMap.add(new VectorMap(source, transform));
+                    source = ( source + 1 ) % sourceColumns;
+                }
+            }
+
+            RowTransform rowTransform = new RowTransform(outputMap, inputMap);
+            int columns = rowTransform.getNumberOfColumns();
+            double[] row = new double[columns];
+            int samples = 10;
+            double[] sources = new double[samples * sourceColumns];
+            double[] expectedRows = new double[samples * columns];
+            for ( int sample = 0; sample < samples; sample++ ) {
+                double[] source = new double[sourceColumns];
+                for ( int column = 0; column < sourceColumns; column++ ) source[column] = random.nextGaussian() * 10;
+                if ( random.nextInt(3) == 0 ) source[random.nextInt(sourceColumns)] = 0.0;
+                double[] expected = new double[outputMap.size() + inputMap.size()];
+                int vectorIndex = 0;
+                for ( VectorMap vector : outputMap ) expected[vectorIndex++] = vector.getTargetValue(source);
+                for ( VectorMap vector : inputMap ) expected[vectorIndex++] = vector.getTargetValue(source);
+                rowTransform.apply(source, row);
+                assertArrayEquals(expected, row, 0.0);
+                System.arraycopy(source, 0, sources, sample * sourceColumns, sourceColumns);
+                System.arraycopy(expected, 0, expectedRows, sample * columns, columns);
+            }
+            double[] rows = new double[samples * columns];
+            rowTransform.apply(sources, sourceColumns, samples, rows);
+            assertArrayEquals(expectedRows, rows, 0.0);
+        }
+    }
+
+    /**
+     * Check consecutive plain maps are copied as one run.
+     */
+    @Test
+    public void testRuns() {
+        List<VectorMap> outputMap = new LinkedList<>();
+        outputMap.add(new VectorMap(0, MathOperatorFactory.getMathOperation(MathOperatorKey.BIN)));
+        outputMap.add(new VectorMap(0, MathOperatorFactory.getMathOperation(MathOperatorKey.INV)));
+        List<VectorMap> inputMap = new LinkedList<>();
+        for ( int column = 1; column < 29; column++ ) inputMap.add(new VectorMap(column, null));
+        RowTransform rowTransform = new RowTransform(outputMap, inputMap);
+        assertTrue(30 == rowTransform.getNumberOfColumns());
+        assertTrue(1 == rowTransform.getNumberOfCopies());
+
+        inputMap.add(new VectorMap(2, null));
+        assertTrue(2 == new RowTransform(outputMap, inputMap).getNumberOfCopies());
+    }
+
+    /**
+     * Check the transformations are shared with the maps, so changes to
+     * them after compiling are seen, while maps added after are not.
+     */
+    @Test
+    public void testSharedTransformations() {
+        MathOperatorCore<?> add = MathOperatorFactory.getMathOperation(MathOperatorKey.ADD);
+        add.setBiasValue(1.0);
+        List<VectorMap> inputMap = new LinkedList<>();
+        inputMap.add(new VectorMap(0, add));
+        RowTransform rowTransform = new RowTransform(null, inputMap);
+        inputMap.add(new VectorMap(1, null));
+        add.setBiasValue(2.5);
+        double[] row = new double[2];
+        rowTransform.apply(new double[] { 1.0, 7.0 }, row);
+        assertArrayEquals(new double[] { 3.5, 0.0 }, row, 0.0);
+    }
+
+    /**
+     * Check a source column out of range is refused, as the maps do.
+     */
+    @Test(expected=ArrayIndexOutOfBoundsException.class)
+    public void testOutOfRange() {
+        List<VectorMap> inputMap = new LinkedList<>();
+        inputMap.add(new VectorMap(3, null));
+        new RowTransform(null, inputMap).apply(new double[3], new double[1]);
+    }
+}
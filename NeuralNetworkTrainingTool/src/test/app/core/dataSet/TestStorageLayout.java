@@ -0,0 +1,118 @@
+package test.app.core.dataSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.ColumnMajorDataStorage;
+import app.core.dataSet.DataStorage;
+import app.core.dataSet.FileDataSet;
+import app.core.dataSet.FileLoadMode;
+import app.core.dataSet.RowMajorDataStorage;
+import app.core.dataSet.StorageLayout;
+import app.model.serializable.FileAttributes;
+
+/**
+ * Testing all storage layouts hold exactly the same rows, and give the same
+ * values once normalised.
+ *
+ * @author Vasco
+ *
+ */
+public class TestStorageLayout extends FileDataSetTestCase {
+
+    /**
+     * The number of rows in the test file.
+     */
+    private final int ROWS = 50;
+
+    /**
+     * Writing the test file and initialising the FileAttributes.
+     *
+     * @throws IOException
+     */
+    @Before
+    public void before() throws IOException {
+        File file = writeFile("layout.csv", null, ROWS, row -> row+","+(row * 0.5)+","+(ROWS - row)+","+(row % 3));
+        useFile(file.getPath(), 0, 0, 1, 40, 41, ROWS);
+    }
+
+    /**
+     * Check all layouts load and normalise the same as row arrays, loading
+     * in either mode.
+     */
+    @Test
+    public void testSameAsRowArrays() {
+        for ( FileLoadMode loadMode : FileLoadMode.values() ) {
+            FileDataSet expected = newFileDataSet(fileAttributes);
+            expected.load();
+            for ( StorageLayout layout : StorageLayout.values() ) {
+                FileDataSet dataSet = newFileDataSet(fileAttributes);
+                dataSet.setStorageLayout(layout);
+                dataSet.setLoadMode(loadMode);
+                dataSet.load();
+                assertSameRows(expected, dataSet);
+            }
+
+            expected.normalise();
+            for ( StorageLayout layout : StorageLayout.values() ) {
+                FileDataSet dataSet = newFileDataSet(fileAttributes);
+                dataSet.setStorageLayout(layout);
+                dataSet.setLoadMode(loadMode);
+                dataSet.load();
+                dataSet.normalise();
+                assertSameRows(expected, dataSet);
+            }
+            newFileDataSet(fileAttributes).resetNormalisationValues();
+        }
+    }
+
+    /**
+     * Check rows and columns are kept apart across chunks of one and more
+     * rows.
+     */
+    @Test
+    public void testRowMajorChunks() {
+        for ( int chunkSize : new int[] { 1, 3, 7, 1000 } ) {
+            assertRowsAndColumns(new RowMajorDataStorage(11, 3, chunkSize));
+        }
+        assertRowsAndColumns(new ColumnMajorDataStorage(11, 3));
+    }
+
+    /**
+     * Check rows out of range are not accepted.
+     */
+    @Test(expected=ArrayIndexOutOfBoundsException.class)
+    public void testRowOutOfRange() {
+        new RowMajorDataStorage(5, 2, 4).readRow(5, new double[2]);
+    }
+
+    /**
+     * Asserting values written by rows are read back by rows and columns,
+     * and the other way round.
+     *
+     * @param storage DataStorage
+     */
+    private void assertRowsAndColumns(DataStorage storage) {
+        int rows = storage.getNumberOfRows();
+        for ( int row = 0; row < rows; row++ ) storage.writeRow(row, new double[] { row, -row, row * 10 });
+        double[] column = new double[rows];
+        storage.readColumn(1, 0, rows, column);
+        for ( int row = 0; row < rows; row++ ) assertTrue(-row == column[row]);
+
+        for ( int row = 0; row < rows; row++ ) column[row] = row + 0.5;
+        storage.writeColumn(2, 1, rows - 1, column);
+        for ( int row = 1; row < rows; row++ ) {
+            assertArrayEquals(new double[] { row, -row, row - 0.5 }, storage.getRow(row, 0, 3), 0.0);
+        }
+        assertArrayEquals(new double[] { 0, 0 }, storage.getRow(0, 1, 3), 0.0);
+        double[] part = { -1, -1, -1 };
+        storage.readRow(rows - 1, 1, 3, part);
+        assertArrayEquals(new double[] { 1 - rows, rows - 1.5, -1 }, part, 0.0);
+    }
+}
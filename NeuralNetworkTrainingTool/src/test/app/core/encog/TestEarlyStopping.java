@@ -0,0 +1,288 @@
+package test.app.core.encog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.mathutil.randomize.ConsistentRandomizer;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+import org.encog.neural.pattern.FeedForwardPattern;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.FileDataSet;
+import app.core.encog.EncogEarlyStopping;
+import app.core.encog.EncogEarlyStopping.Metric;
+import app.core.encog.EncogMLDataSetTrainingAdaptor;
+import app.model.serializable.FileAttributes;
+import test.app.core.dataSet.FileDataSetTestCase;
+
+/**
+ * Testing the EncogEarlyStopping holds out the validation rows of the
+ * FileAttributes, stops once the scores stop improving, and leaves the
+ * network with the weights of the best score.
+ *
+ * @author Vasco
+ *
+ */
+public class TestEarlyStopping extends FileDataSetTestCase {
+
+    /**
+     * The number of data rows in the test file.
+     */
+    private final int ROWS = 500;
+
+    /**
+     * The number of training rows held out for validation.
+     */
+    private final int VALIDATION_ROWS = 100;
+
+    /**
+     * The loaded and normalised data set.
+     */
+    private FileDataSet dataSet;
+
+    /**
+     * Writing the test file, the class depending on both inputs, and loading
+     * it.
+     *
+     * @throws IOException
+     */
+    @Before
+    public void before() throws IOException {
+        Random random = new Random(9);
+        File file = writeFile("earlyStopping.csv", "class,a,b", ROWS, row -> {
+            double a = random.nextGaussian();
+            double b = random.nextDouble() * 100 - 50;
+            return ( a + b / 50 + random.nextGaussian() * 0.3 > 0 ? 1 : 0 )+","+a+","+b;
+        });
+        useFile(file.getPath(), 1, 0, 2, 401, 402, ROWS + 1);
+        fileAttributes.setValidationRows(VALIDATION_ROWS);
+        dataSet = loadNormalised();
+    }
+
+    /**
+     * Check the training set leaves out the rows held out, in its count,
+     * its rows and its shards.
+     */
+    @Test
+    public void testTrainingSetHoldsOutRows() {
+        EncogEarlyStopping stopping = new EncogEarlyStopping(newNetwork(), dataSet, fileAttributes, Metric.LOSS);
+        EncogMLDataSetTrainingAdaptor training = stopping.getTrainingSet(4);
+        int trainingRows = dataSet.getNumberOfTrainingRows() - VALIDATION_ROWS;
+        assertEquals(VALIDATION_ROWS, training.getHeldOutRows());
+        assertEquals(trainingRows, training.getRecordCount());
+        assertEquals(trainingRows, training.size());
+        int rows = 0;
+        for ( Iterator<MLDataPair> pairs = training.iterator(); pairs.hasNext(); pairs.next() ) rows++;
+        assertEquals(trainingRows, rows);
+        int lastRow = 0;
+        MLDataPair pair = BasicMLDataPair.createPair(2, 1);
+        for ( int shard = 0; shard < 4; shard++ ) {
+            EncogMLDataSetTrainingAdaptor cursor = (EncogMLDataSetTrainingAdaptor) training.openAdditional();
+            cursor.getRecord(lastRow, pair);
+            assertEquals(lastRow, cursor.getFromRow());
+            lastRow = cursor.getToRow();
+        }
+        assertEquals(trainingRows, lastRow);
+    }
+
+    /**
+     * Check the area under the ROC curve counts ties as half.
+     */
+    @Test
+    public void testAUC() {
+        double[] outputs = { 0.9, 0.8, 0.7, 0.6, 0.5, 0.5 };
+        assertEquals(1.0, EncogEarlyStopping.calculateAUC(outputs, new boolean[] { true, true, false, false, false, false }, 6), 0.0);
+        assertEquals(0.0, EncogEarlyStopping.calculateAUC(outputs, new boolean[] { false, false, true, true, true, true }, 6), 0.0);
+        // Signal outputs 0.9 and 0.5, background 0.8, 0.7, 0.6 and 0.5.
+        assertEquals(4.5 / 8, EncogEarlyStopping.calculateAUC(outputs, new boolean[] { true, false, false, false, true, false }, 6), 0.0);
+    }
+
+    /**
+     * Check the training stops once the scores stop improving, with the
+     * network left with the weights of the best score.
+     */
+    @Test
+    public void testStopsWithBestWeights() {
+        for ( Metric metric : Metric.values() ) {
+            BasicNetwork network = newNetwork();
+            EncogEarlyStopping stopping = new EncogEarlyStopping(network, dataSet, fileAttributes, metric);
+            stopping.setEvaluationInterval(5);
+            stopping.setPatience(3);
+            stopping.setMinDelta(1e-3);
+            stopping.setMaxEpochs(2000);
+            ResilientPropagation train = new ResilientPropagation(network, stopping.getTrainingSet(1));
+            train.setThreadCount(1);
+            int bestEpoch = stopping.train(train);
+            train.finishTraining();
+
+            List<Double> scores = stopping.getScores();
+            assertTrue(metric.toString(), stopping.getEpoch() < 2000);
+            // The snapshot of the last epoch was not scored once stopped.
+            assertEquals(metric.toString(), stopping.getEpoch() / 5 - 1, scores.size());
+            for ( int score = 0; score < scores.size(); score++ ) {
+                assertEquals(metric.toString(), ( score + 1 ) * 5, (int) stopping.getScoredEpochs().get(score));
+            }
+            assertEquals(metric.toString(), bestEpoch, stopping.getBestEpoch());
+            assertEquals(metric.toString(), stopping.getBestScore(), scores.get(bestEpoch / 5 - 1), 0.0);
+            // Stopped as the last scores, as many as the patience, did not improve.
+            assertEquals(metric.toString(), scores.size() - 3, bestEpoch / 5);
+            if ( metric == Metric.AUC ) assertTrue(stopping.getBestScore() > 0.8);
+            else assertTrue(stopping.getBestScore() < scores.get(0));
+
+            // The network is left with the weights of the best score.
+            EncogEarlyStopping check = new EncogEarlyStopping(network, dataSet, fileAttributes, metric);
+            check.setMaxEpochs(1);
+            double[] weights = network.getFlat().getWeights().clone();
+            check.train(new ScoreOnly(network));
+            assertArrayEquals(weights, network.getFlat().getWeights(), 0.0);
+            assertEquals(metric.toString(), stopping.getBestScore(), check.getBestScore(), 1e-12);
+        }
+    }
+
+    /**
+     * Check scores that are not a number never improve, the first that is
+     * being the best so far, and the network is left as it is if none is.
+     */
+    @Test
+    public void testNaNScoresNotImproving() {
+        BasicNetwork network = newNetwork();
+        double[] weights = network.getFlat().getWeights().clone();
+        EncogEarlyStopping stopping = new EncogEarlyStopping(network, dataSet, fileAttributes, Metric.LOSS);
+        stopping.setEvaluationInterval(1);
+        stopping.setPatience(3);
+        stopping.setMaxEpochs(50);
+        assertEquals(3, stopping.train(new NaNFirst(network, 2)));
+        assertTrue(Double.isNaN(stopping.getScores().get(0)));
+        assertTrue(Double.isNaN(stopping.getScores().get(1)));
+        assertEquals(stopping.getScores().get(2), stopping.getBestScore(), 0.0);
+        // Stopped as the scores after the first number, as many as the patience, did not improve.
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), stopping.getScoredEpochs());
+        assertArrayEquals(weights, network.getFlat().getWeights(), 0.0);
+
+        // None a number, stopped once as many as the patience.
+        stopping = new EncogEarlyStopping(network, dataSet, fileAttributes, Metric.LOSS);
+        stopping.setEvaluationInterval(1);
+        stopping.setPatience(3);
+        stopping.setMaxEpochs(50);
+        assertEquals(0, stopping.train(new NaNFirst(network, 50)));
+        assertEquals(4, stopping.getEpoch());
+        assertTrue(Double.isNaN(stopping.getBestScore()));
+        assertTrue(Double.isNaN(network.getFlat().getWeights()[0]));
+    }
+
+    /**
+     * Check the rows held out can be neither none nor all.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAllRowsHeldOutRefused() {
+        new EncogEarlyStopping(newNetwork(), dataSet, dataSet.getNumberOfTrainingRows(), Metric.LOSS);
+    }
+
+    /**
+     * A feed forward network of the same weights each time.
+     *
+     * @return BasicNetwork
+     */
+    private BasicNetwork newNetwork() {
+        FeedForwardPattern pattern = new FeedForwardPattern();
+        pattern.setInputNeurons(2);
+        pattern.addHiddenLayer(6);
+        pattern.setOutputNeurons(1);
+        pattern.setActivationFunction(new ActivationTANH());
+        BasicNetwork network = (BasicNetwork) pattern.generate();
+        new ConsistentRandomizer(-1, 1, 13).randomize(network);
+        return network;
+    }
+
+    /**
+     * A training setting a weight to NaN for the first epochs, and the
+     * weights back as they were after.
+     *
+     * @author Vasco
+     *
+     */
+    private static class NaNFirst extends ScoreOnly {
+
+        /**
+         * The network trained.
+         */
+        private final BasicNetwork network;
+
+        /**
+         * The weights before training.
+         */
+        private final double[] weights;
+
+        /**
+         * The number of epochs with a NaN weight.
+         */
+        private final int nanEpochs;
+
+        /**
+         * The number of epochs trained.
+         */
+        private int epoch = 0;
+
+        /**
+         * Constructing over no rows.
+         *
+         * @param network BasicNetwork
+         * @param nanEpochs int
+         */
+        public NaNFirst(BasicNetwork network, int nanEpochs) {
+            super(network);
+            this.network = network;
+            this.weights = network.getFlat().getWeights().clone();
+            this.nanEpochs = nanEpochs;
+        }
+
+        /**
+         * Setting the weights for the next epoch.
+         */
+        @Override
+        public void iteration() {
+            double[] current = network.getFlat().getWeights();
+            System.arraycopy(weights, 0, current, 0, weights.length);
+            if ( ++epoch <= nanEpochs ) current[0] = Double.NaN;
+        }
+    }
+
+    /**
+     * A training leaving the weights as they are, to score them.
+     *
+     * @author Vasco
+     *
+     */
+    private static class ScoreOnly extends ResilientPropagation {
+
+        /**
+         * Constructing over no rows.
+         *
+         * @param network BasicNetwork
+         */
+        public ScoreOnly(BasicNetwork network) {
+            super(network, new BasicMLDataSet());
+        }
+
+        /**
+         * Training nothing.
+         */
+        @Override
+        public void iteration() {
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package test.app.core.encog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.mathutil.randomize.ConsistentRandomizer;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
+import org.encog.neural.pattern.FeedForwardPattern;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.FileDataSet;
+import app.core.encog.EncogMLDataSetTrainingAdaptor;
+import test.app.core.dataSet.FileDataSetTestCase;
+
+/**
+ * Testing the EncogMLDataSetTrainingAdaptor hands each worker a cursor over
+ * its own shard of rows, whatever the order the cursors are opened in, and
+ * trains as the adaptor over all rows does.
+ *
+ * @author Vasco
+ *
+ */
+public class TestEncogMLDataSetTrainingAdaptor extends FileDataSetTestCase {
+
+    /**
+     * The number of data rows in the test file.
+     */
+    private final int ROWS = 500;
+
+    /**
+     * The number of training rows.
+     */
+    private final int TRAINING_ROWS = 400;
+
+    /**
+     * The loaded and normalised data set.
+     */
+    private FileDataSet dataSet;
+
+    /**
+     * Writing the test file, with one header row, and loading it.
+     *
+     * @throws IOException
+     */
+    @Before
+    public void before() throws IOException {
+        File file = writeRandomFile("shards.csv", "class,a,b", ROWS, 11);
+        useFile(file.getPath(), 1, 0, 2, TRAINING_ROWS + 1, TRAINING_ROWS + 2, ROWS + 1);
+        dataSet = loadNormalised();
+    }
+
+    /**
+     * Check a shard goes through and counts only its own rows, indexed as in
+     * the whole data set, and refuses all others.
+     */
+    @Test
+    public void testShards() {
+        EncogMLDataSetTrainingAdaptor adaptor = new EncogMLDataSetTrainingAdaptor(dataSet, 2);
+        EncogMLDataSetTrainingAdaptor[] shards = { adaptor.openShard(0, 150), adaptor.openShard(150, TRAINING_ROWS) };
+        assertEquals(TRAINING_ROWS, adaptor.getRecordCount());
+        assertEquals(150, shards[0].getRecordCount());
+        assertEquals(250, shards[1].size());
+
+        MLDataPair pair = BasicMLDataPair.createPair(2, 1);
+        for ( EncogMLDataSetTrainingAdaptor shard : shards ) {
+            int row = shard.getFromRow();
+            for ( MLDataPair next : shard ) {
+                shard.getRecord(row, pair);
+                assertArrayEquals(dataSet.getTrainingInputRow(row), next.getInputArray(), 0.0);
+                assertArrayEquals(dataSet.getTrainingInputRow(row), pair.getInputArray(), 0.0);
+                row++;
+            }
+            assertEquals(shard.getToRow(), row);
+            assertEquals(shard.getToRow() - shard.getFromRow(), ((EncogMLDataSetTrainingAdaptor) shard.openAdditional()).size());
+        }
+        try {
+            shards[0].getRecord(150, pair);
+            fail("Expected rows outside the shard refused.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    /**
+     * Check each cursor opened for a worker takes the shard of the first row
+     * it reads, whatever the order the cursors are opened and read in.
+     */
+    @Test
+    public void testCursorsTakeShardOfFirstRow() {
+        EncogMLDataSetTrainingAdaptor adaptor = new EncogMLDataSetTrainingAdaptor(dataSet, 4);
+        EncogMLDataSetTrainingAdaptor[] cursors = new EncogMLDataSetTrainingAdaptor[4];
+        for ( int cursor = 0; cursor < cursors.length; cursor++ ) {
+            cursors[cursor] = (EncogMLDataSetTrainingAdaptor) adaptor.openAdditional();
+            assertEquals(TRAINING_ROWS, cursors[cursor].getRecordCount());
+        }
+
+        // The workers of the last rows read first.
+        MLDataPair pair = BasicMLDataPair.createPair(2, 1);
+        int[] firstRows = { 300, 200, 100, 0 };
+        for ( int cursor = 0; cursor < cursors.length; cursor++ ) {
+            cursors[cursor].getRecord(firstRows[cursor], pair);
+            assertEquals(firstRows[cursor], cursors[cursor].getFromRow());
+            assertEquals(firstRows[cursor] + 100, cursors[cursor].getToRow());
+            assertEquals(100, cursors[cursor].getRecordCount());
+        }
+        try {
+            cursors[0].getRecord(0, pair);
+            fail("Expected rows outside the shard taken refused.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    /**
+     * Check training over the shards gives exactly the same errors as
+     * training over all rows, with the same thread count.
+     */
+    @Test
+    public void testSameTraining() {
+        for ( int threadCount : new int[] { 1, 2, 3 } ) {
+            assertArrayEquals(train(new EncogMLDataSetTrainingAdaptor(dataSet), threadCount),
+                    train(new EncogMLDataSetTrainingAdaptor(dataSet, threadCount), threadCount), 0.0);
+        }
+    }
+
+    /**
+     * The errors of a few iterations of training a small network with the
+     * given thread count.
+     *
+     * @param trainingSet MLDataSet
+     * @param threadCount int
+     * @return double[]
+     */
+    private double[] train(MLDataSet trainingSet, int threadCount) {
+        FeedForwardPattern pattern = new FeedForwardPattern();
+        pattern.setInputNeurons(2);
+        pattern.addHiddenLayer(4);
+        pattern.setOutputNeurons(1);
+        pattern.setActivationFunction(new ActivationSigmoid());
+        BasicNetwork network = (BasicNetwork) pattern.generate();
+        new ConsistentRandomizer(-1, 1, 100).randomize(network);
+
+        ResilientPropagation training = new ResilientPropagation(network, trainingSet);
+        training.setThreadCount(threadCount);
+        double[] errors = new double[5];
+        for ( int iteration = 0; iteration < errors.length; iteration++ ) {
+            training.iteration();
+            errors[iteration] = training.getError();
+        }
+        training.finishTraining();
+        return errors;
+    }
+}
@@ -0,0 +1,152 @@
+package test.app.core.encog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.mathutil.randomize.ConsistentRandomizer;
+import org.encog.ml.data.MLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.back.Backpropagation;
+import org.encog.neural.pattern.FeedForwardPattern;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.dataSet.FileDataSet;
+import app.core.encog.EncogMLDataSetTrainingAdaptor;
+import app.core.encog.EncogMiniBatchPropagation;
+import app.core.encog.EncogMiniBatchPropagation.UpdateRule;
+import test.app.core.dataSet.FileDataSetTestCase;
+
+/**
+ * Testing the EncogMiniBatchPropagation works out the same gradients and
+ * error as Encog's Backpropagation, and trains the network in mini-batches
+ * over the training adaptor.
+ *
+ * @author Vasco
+ *
+ */
+public class TestMiniBatchPropagation extends FileDataSetTestCase {
+
+    /**
+     * The number of data rows in the test file.
+     */
+    private final int ROWS = 500;
+
+    /**
+     * The loaded and normalised data set.
+     */
+    private FileDataSet dataSet;
+
+    /**
+     * Writing the test file, the class depending on both inputs, and loading
+     * it.
+     *
+     * @throws IOException
+     */
+    @Before
+    public void before() throws IOException {
+        Random random = new Random(5);
+        File file = writeFile("miniBatch.csv", "class,a,b", ROWS, row -> {
+            double a = random.nextGaussian();
+            double b = random.nextDouble() * 100 - 50;
+            return ( a + b / 50 > 0 ? 1 : 0 )+","+a+","+b;
+        });
+        useFile(file.getPath(), 1, 0, 2, 401, 402, ROWS + 1);
+        dataSet = loadNormalised();
+    }
+
+    /**
+     * Check a single batch of all rows updates the weights just as
+     * Backpropagation does, with the same error.
+     */
+    @Test
+    public void testFullBatchSameAsBackpropagation() {
+        MLDataSet training = new EncogMLDataSetTrainingAdaptor(dataSet);
+        BasicNetwork expectedNetwork = newNetwork(new ActivationTANH());
+        Backpropagation expected = new Backpropagation(expectedNetwork, training, 0.01, 0.0);
+        expected.setThreadCount(1);
+        BasicNetwork foundNetwork = newNetwork(new ActivationTANH());
+        EncogMiniBatchPropagation found = new EncogMiniBatchPropagation(foundNetwork, training, UpdateRule.SGD,
+                0.01 * training.getRecordCount(), (int) training.getRecordCount());
+
+        for ( int iteration = 0; iteration < 3; iteration++ ) {
+            expected.iteration();
+            found.iteration();
+            assertEquals(expected.getError(), found.getError(), 1e-12);
+            assertArrayEquals(expectedNetwork.getFlat().getWeights(), foundNetwork.getFlat().getWeights(), 1e-9);
+        }
+        expected.finishTraining();
+        found.finishTraining();
+    }
+
+    /**
+     * Check both update rules lower the error in mini-batches, the same
+     * seed going through the rows in the same orders.
+     */
+    @Test
+    public void testMiniBatches() {
+        MLDataSet training = new EncogMLDataSetTrainingAdaptor(dataSet);
+        for ( UpdateRule updateRule : UpdateRule.values() ) {
+            double[] expected = train(training, updateRule);
+            double[] found = train(training, updateRule);
+            assertArrayEquals(expected, found, 0.0);
+            assertTrue(expected[expected.length - 1] < expected[0]);
+        }
+    }
+
+    /**
+     * Check empty batches are refused.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testEmptyBatch() {
+        new EncogMiniBatchPropagation(newNetwork(new ActivationSigmoid()), new EncogMLDataSetTrainingAdaptor(dataSet),
+                UpdateRule.SGD, 0.1, 0);
+    }
+
+    /**
+     * The errors of ten passes in batches of 16 rows.
+     *
+     * @param training MLDataSet
+     * @param updateRule UpdateRule
+     * @return double[]
+     */
+    private double[] train(MLDataSet training, UpdateRule updateRule) {
+        EncogMiniBatchPropagation propagation = new EncogMiniBatchPropagation(newNetwork(new ActivationSigmoid()), training,
+                updateRule, updateRule == UpdateRule.ADAM ? 0.01 : 0.5, 16);
+        propagation.setMomentum(0.9);
+        propagation.setSeed(7);
+        double[] errors = new double[10];
+        for ( int iteration = 0; iteration < errors.length; iteration++ ) {
+            propagation.iteration();
+            errors[iteration] = propagation.getError();
+        }
+        propagation.finishTraining();
+        return errors;
+    }
+
+    /**
+     * A network of 2 inputs, 4 hidden neurons and one output, always of the
+     * same weights.
+     *
+     * @param activation ActivationFunction
+     * @return BasicNetwork
+     */
+    private BasicNetwork newNetwork(ActivationFunction activation) {
+        FeedForwardPattern pattern = new FeedForwardPattern();
+        pattern.setInputNeurons(2);
+        pattern.addHiddenLayer(4);
+        pattern.setOutputNeurons(1);
+        pattern.setActivationFunction(activation);
+        BasicNetwork network = (BasicNetwork) pattern.generate();
+        new ConsistentRandomizer(-1, 1, 100).randomize(network);
+        return network;
+    }
+}
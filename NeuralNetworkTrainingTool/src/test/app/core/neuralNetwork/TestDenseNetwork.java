@@ -0,0 +1,161 @@
+package test.app.core.neuralNetwork;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.mathutil.error.ErrorCalculation;
+import org.encog.mathutil.randomize.ConsistentRandomizer;
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.back.Backpropagation;
+import org.encog.neural.pattern.FeedForwardPattern;
+import org.junit.Test;
+
+import app.core.activationFunction.ActivationFunctionFactory;
+import app.core.activationFunction.ActivationFunctionKey;
+import app.core.neuralNetwork.DenseNetwork;
+import app.core.vector.VectorKernelFactory;
+
+/**
+ * Testing the DenseNetwork works out the same outputs as the BasicNetwork
+ * it shares its weights with, and the same gradients and error as Encog's
+ * Backpropagation, for every activation function.
+ *
+ * @author Vasco
+ *
+ */
+public class TestDenseNetwork {
+
+    /**
+     * The number of rows of each batch, more than a block.
+     */
+    private final int ROWS = 70;
+
+    /**
+     * Check the outputs of a batch are those of the network, row by row,
+     * exactly with the scalar kernels, and close with those picked for the
+     * running JVM.
+     */
+    @Test
+    public void testSameOutputs() {
+        Random random = new Random(3);
+        for ( ActivationFunctionKey key : ActivationFunctionKey.values() ) {
+            BasicNetwork network = newNetwork(key, 5, 70);
+            DenseNetwork dense = new DenseNetwork(network, VectorKernelFactory.getScalarKernel());
+            assertTrue(3 == dense.getInputCount() && 2 == dense.getOutputCount());
+            double[] inputs = randomValues(random, ROWS * 3);
+            double[] outputs = new double[ROWS * 2];
+            dense.computeBatch(inputs, ROWS, outputs);
+            double[] detectedOutputs = new double[ROWS * 2];
+            new DenseNetwork(network).computeBatch(inputs, ROWS, detectedOutputs);
+            assertArrayEquals(key.toString(), outputs, detectedOutputs, 1e-12);
+            double[] input = new double[3];
+            double[] expected = new double[2];
+            double[] found = new double[2];
+            for ( int row = 0; row < ROWS; row++ ) {
+                System.arraycopy(inputs, row * 3, input, 0, 3);
+                network.compute(input, expected);
+                System.arraycopy(outputs, row * 2, found, 0, 2);
+                assertArrayEquals(key.toString(), expected, found, 0.0);
+                dense.compute(input, found);
+                assertArrayEquals(key.toString(), expected, found, 0.0);
+            }
+        }
+    }
+
+    /**
+     * Check the gradients and error of a batch are those of one iteration
+     * of Backpropagation, at a rate of one with no momentum, for every
+     * activation function with a derivative, relative to their size as some
+     * grow very large.
+     */
+    @Test
+    public void testSameGradients() {
+        Random random = new Random(5);
+        for ( ActivationFunctionKey key : ActivationFunctionKey.values() ) {
+            if ( key == ActivationFunctionKey.ActivationCompetitive ) continue;
+            BasicNetwork network = newNetwork(key, 4, 66);
+            double[] inputs = randomValues(random, ROWS * 3);
+            double[] ideals = new double[ROWS * 2];
+            for ( int index = 0; index < ideals.length; index++ ) ideals[index] = random.nextDouble();
+            double[] flatSpot = new double[network.getFlat().getActivationFunctions().length];
+            for ( int layer = 0; layer < flatSpot.length; layer++ ) {
+                if ( network.getFlat().getActivationFunctions()[layer] instanceof ActivationSigmoid ) flatSpot[layer] = 0.1;
+            }
+
+            double[] gradients = new double[network.getFlat().getWeights().length];
+            ErrorCalculation errorCalculation = new ErrorCalculation();
+            new DenseNetwork(network).addGradients(inputs, ideals, ROWS, gradients, flatSpot, errorCalculation);
+
+            double[] before = network.getFlat().getWeights().clone();
+            Backpropagation propagation = new Backpropagation(network, newDataSet(inputs, ideals), 1.0, 0.0);
+            propagation.setThreadCount(1);
+            propagation.iteration();
+            propagation.finishTraining();
+            double[] after = network.getFlat().getWeights();
+            for ( int weight = 0; weight < gradients.length; weight++ ) {
+                double gradient = after[weight] - before[weight];
+                assertEquals(key.toString(), gradient, gradients[weight], 1e-9 * Math.max(1.0, Math.abs(gradient)));
+            }
+            assertEquals(key.toString(), propagation.getError(), errorCalculation.calculate(),
+                    1e-12 * Math.max(1.0, propagation.getError()));
+        }
+    }
+
+    /**
+     * A network of 3 inputs, two hidden layers and 2 outputs, all of the
+     * given activation function, always of the same weights.
+     *
+     * @param key ActivationFunctionKey
+     * @param firstHidden int
+     * @param secondHidden int
+     * @return BasicNetwork
+     */
+    private BasicNetwork newNetwork(ActivationFunctionKey key, int firstHidden, int secondHidden) {
+        FeedForwardPattern pattern = new FeedForwardPattern();
+        pattern.setInputNeurons(3);
+        pattern.addHiddenLayer(firstHidden);
+        pattern.addHiddenLayer(secondHidden);
+        pattern.setOutputNeurons(2);
+        pattern.setActivationFunction((ActivationFunction) ActivationFunctionFactory.getActivationFunction(key)
+                .getActivationFunction());
+        BasicNetwork network = (BasicNetwork) pattern.generate();
+        new ConsistentRandomizer(-1, 1, 100).randomize(network);
+        return network;
+    }
+
+    /**
+     * The data set of the given rows.
+     *
+     * @param inputs double[] the inputs of each row, one row after another
+     * @param ideals double[] the ideal outputs of each row, one row after another
+     * @return BasicMLDataSet
+     */
+    private BasicMLDataSet newDataSet(double[] inputs, double[] ideals) {
+        double[][] input = new double[ROWS][3];
+        double[][] ideal = new double[ROWS][2];
+        for ( int row = 0; row < ROWS; row++ ) {
+            System.arraycopy(inputs, row * 3, input[row], 0, 3);
+            System.arraycopy(ideals, row * 2, ideal[row], 0, 2);
+        }
+        return new BasicMLDataSet(input, ideal);
+    }
+
+    /**
+     * Random values between -1 and 1.
+     *
+     * @param random Random
+     * @param count int
+     * @return double[]
+     */
+    private double[] randomValues(Random random, int count) {
+        double[] values = new double[count];
+        for ( int index = 0; index < count; index++ ) values[index] = random.nextDouble() * 2 - 1;
+        return values;
+    }
+}
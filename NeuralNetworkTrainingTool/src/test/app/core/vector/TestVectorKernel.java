@@ -0,0 +1,217 @@
+package test.app.core.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeNotNull;
+
+import java.util.Random;
+
+import org.encog.engine.network.activation.ActivationElliottSymmetric;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.core.vector.VectorKernelCore;
+import app.core.vector.VectorKernelFactory;
+
+/**
+ * Testing the Vector API kernels give the values of the scalar kernels,
+ * exactly when worked out one by one, and the scalar kernels those of the
+ * Encog activation functions. The Vector API kernels are only tested with
+ * the Java 17 layer and --add-modules jdk.incubator.vector, skipped
+ * otherwise, unless the {@value #REQUIRED_PROPERTY} system property is true,
+ * as the java17 profile sets it, and then they fail instead.
+ *
+ * @author Vasco
+ *
+ */
+public class TestVectorKernel {
+
+    /**
+     * The kernels on the Vector API, only in the Java 17 layer.
+     */
+    private final String VECTOR_API_KERNEL = "app.core.vector.VectorApiKernel";
+
+    /**
+     * The system property requiring the Vector API kernels be loaded.
+     */
+    private static final String REQUIRED_PROPERTY = "app.core.vector.required";
+
+    /**
+     * The Vector API kernels, null if they cannot be loaded.
+     */
+    private VectorKernelCore found;
+
+    /**
+     * The scalar kernels.
+     */
+    private final VectorKernelCore expected = VectorKernelFactory.getScalarKernel();
+
+    /**
+     * Loading the Vector API kernels, whatever the kernels picked for the
+     * running JVM.
+     *
+     * @throws AssertionError if they cannot be loaded and are required
+     */
+    @Before
+    public void before() {
+        try {
+            found = (VectorKernelCore) Class.forName(VECTOR_API_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not in this layer, the module is not added, or no vectors to use.
+            if ( Boolean.getBoolean(REQUIRED_PROPERTY) ) {
+                throw new AssertionError("Vector API kernels required but not loaded.", e);
+            }
+            found = null;
+        }
+    }
+
+    /**
+     * Check the sums of each block are those of the scalar kernels, for
+     * each width and block, the values left over included.
+     */
+    @Test
+    public void testMultiply() {
+        assumeNotNull(found);
+        assertNotNull(found.getName());
+        Random random = new Random(1);
+        for ( int width = 1; width < 40; width++ ) {
+            double[] values = randomValues(random, 11 * width);
+            double[] weights = randomValues(random, 3 + 7 * width);
+            double[] expectedSums = new double[11 * 7];
+            double[] foundSums = new double[11 * 7];
+            expected.multiply(values, width, 1, 11, weights, 3, 2, 7, 7, expectedSums);
+            found.multiply(values, width, 1, 11, weights, 3, 2, 7, 7, foundSums);
+            assertArrayEquals(expectedSums, foundSums, 1e-12);
+        }
+    }
+
+    /**
+     * Check the gradients, and values added in, are exactly those of the
+     * scalar kernels.
+     */
+    @Test
+    public void testAddGradients() {
+        assumeNotNull(found);
+        Random random = new Random(2);
+        for ( int width = 1; width < 40; width++ ) {
+            double[] values = randomValues(random, 10 * width);
+            double[] deltas = randomValues(random, 10 * 3);
+            double[] expectedGradients = randomValues(random, 5 + 3 * width);
+            double[] foundGradients = expectedGradients.clone();
+            expected.addGradients(values, width, 1, 10, deltas, 3, expectedGradients, 5);
+            found.addGradients(values, width, 1, 10, deltas, 3, foundGradients, 5);
+            assertArrayEquals(expectedGradients, foundGradients, 0.0);
+
+            expected.addScaled(deltas[0], values, 2, expectedGradients, 1, width);
+            found.addScaled(deltas[0], values, 2, foundGradients, 1, width);
+            assertArrayEquals(expectedGradients, foundGradients, 0.0);
+        }
+    }
+
+    /**
+     * Check normalising, de-normalising and the values out of range, NaN
+     * among them, are exactly those of the scalar kernels.
+     */
+    @Test
+    public void testNormalise() {
+        assumeNotNull(found);
+        Random random = new Random(3);
+        for ( int count = 0; count < 40; count++ ) {
+            double[] expectedValues = randomValues(random, count);
+            double[] foundValues = expectedValues.clone();
+            expected.normalise(expectedValues, count, -0.3, 1.7);
+            found.normalise(foundValues, count, -0.3, 1.7);
+            assertArrayEquals(expectedValues, foundValues, 0.0);
+            expected.deNormalise(expectedValues, count, -0.3, 1.7);
+            found.deNormalise(foundValues, count, -0.3, 1.7);
+            assertArrayEquals(expectedValues, foundValues, 0.0);
+            // NaN is outside any range.
+            if ( count > 0 && random.nextBoolean() ) foundValues[random.nextInt(count)] = Double.NaN;
+            for ( double bound = -1.0; bound <= 1.0; bound += 0.25 ) {
+                assertEquals(expected.firstOutside(foundValues, count, -1.5, bound), found.firstOutside(foundValues, count, -1.5, bound));
+                assertEquals(expected.firstOutside(foundValues, count, bound, 1.5), found.firstOutside(foundValues, count, bound, 1.5));
+            }
+        }
+    }
+
+    /**
+     * Check the activation functions of the scalar kernels are exactly those
+     * of Encog.
+     */
+    @Test
+    public void testScalarActivations() {
+        Random random = new Random(4);
+        ActivationElliottSymmetric elliott = new ActivationElliottSymmetric();
+        elliott.setParam(0, 1.5);
+        for ( int length = 0; length < 40; length++ ) {
+            double[] values = randomActivations(random, length + 2);
+
+            double[] encogValues = values.clone();
+            new ActivationTANH().activationFunction(encogValues, 1, length);
+            double[] expectedValues = values.clone();
+            expected.tanh(expectedValues, 1, length);
+            assertArrayEquals(encogValues, expectedValues, 0.0);
+
+            encogValues = values.clone();
+            elliott.activationFunction(encogValues, 1, length);
+            expectedValues = values.clone();
+            expected.elliottSymmetric(expectedValues, 1, length, 1.5);
+            assertArrayEquals(encogValues, expectedValues, 0.0);
+        }
+    }
+
+    /**
+     * Check the activation functions of the Vector API kernels are those of
+     * Encog, exactly for the Elliott symmetric one.
+     */
+    @Test
+    public void testActivations() {
+        assumeNotNull(found);
+        Random random = new Random(4);
+        ActivationElliottSymmetric elliott = new ActivationElliottSymmetric();
+        elliott.setParam(0, 1.5);
+        for ( int length = 0; length < 40; length++ ) {
+            double[] values = randomActivations(random, length + 2);
+
+            double[] encogValues = values.clone();
+            new ActivationTANH().activationFunction(encogValues, 1, length);
+            double[] foundValues = values.clone();
+            found.tanh(foundValues, 1, length);
+            assertArrayEquals(encogValues, foundValues, 1e-15);
+
+            encogValues = values.clone();
+            elliott.activationFunction(encogValues, 1, length);
+            foundValues = values.clone();
+            found.elliottSymmetric(foundValues, 1, length, 1.5);
+            assertArrayEquals(encogValues, foundValues, 0.0);
+        }
+    }
+
+    /**
+     * Random values between -4 and 4, to activate.
+     *
+     * @param random Random
+     * @param count int
+     * @return double[]
+     */
+    private double[] randomActivations(Random random, int count) {
+        double[] values = randomValues(random, count);
+        for ( int index = 0; index < count; index++ ) values[index] *= 4;
+        return values;
+    }
+
+    /**
+     * Random values between -1 and 1.
+     *
+     * @param random Random
+     * @param count int
+     * @return double[]
+     */
+    private double[] randomValues(Random random, int count) {
+        double[] values = new double[count];
+        for ( int index = 0; index < count; index++ ) values[index] = random.nextDouble() * 2 - 1;
+        return values;
+    }
+}